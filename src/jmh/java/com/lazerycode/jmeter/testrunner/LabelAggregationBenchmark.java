@@ -0,0 +1,77 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the per label aggregation of samples, without reading a results file.
+ * <p/>
+ * The samples are prepared once and counted again in every invocation, so with {@code -prof gc} (the default of the
+ * benchmark profile) the allocation rate shows what the aggregation itself allocates per sample, which should be
+ * close to 0 bytes once every label has been seen.
+ * <p/>
+ * <pre>
+ * mvn -P benchmark verify -DskipTests -Djmh.args="LabelAggregationBenchmark -p labelCount=10000"
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class LabelAggregationBenchmark {
+
+	private static final int SAMPLES = 1 << 16;
+
+	@Param({"100", "10000"})
+	public int labelCount;
+
+	@Param({"0.01"})
+	public double errorRatio;
+
+	private ResultSample[] samples;
+	private ResultStatistics statistics;
+
+	@Setup(Level.Trial)
+	public void prepareSamples() {
+		samples = new ResultSample[SAMPLES];
+		for (int i = 0; i < SAMPLES; i++) {
+			ResultSample sample = new ResultSample();
+			sample.set(ResultField.TIMESTAMP, 1540000000000L + i * 5L);
+			sample.set(ResultField.ELAPSED, 10 + (i * 31L) % 2000);
+			sample.set(ResultField.LATENCY, 5 + (i * 17L) % 1000);
+			sample.set(ResultField.LABEL, "/order/" + (i % labelCount) + "/items");
+			sample.set(ResultField.SUCCESS, (i % Math.max(1, (int) (1 / errorRatio))) == 0 ? 0 : 1);
+			sample.set(ResultField.RESPONSE_CODE, sample.isSuccess() ? "200" : "500");
+			samples[i] = sample;
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void resetStatistics() {
+		statistics = new ResultStatistics();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SAMPLES)
+	public ResultStatistics aggregate() {
+		for (ResultSample sample : samples) {
+			statistics.handleSample(sample);
+		}
+		return statistics;
+	}
+}
@@ -0,0 +1,110 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the result scanner on synthetic results files.
+ * <p/>
+ * Besides the scans per second, the {@code megabytes} counter reports the MB per second that have been scanned. Run
+ * with {@code -prof gc} (the default of the benchmark profile) to also report the allocation rate.
+ * <p/>
+ * <pre>
+ * mvn -P benchmark verify -DskipTests -Djmh.args="ResultScannerBenchmark -p format=csv -p sizeInMB=512"
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResultScannerBenchmark {
+
+	@Param({"csv", "xml"})
+	public String format;
+
+	@Param({"64"})
+	public int sizeInMB;
+
+	@Param({"100"})
+	public int labelCount;
+
+	@Param({"0.01"})
+	public double errorRatio;
+
+	private File resultsFile;
+	private double resultsFileSizeInMB;
+
+	@Setup(Level.Trial)
+	public void generateResultsFile() throws Exception {
+		resultsFile = File.createTempFile("benchmark-results", "csv".equals(format) ? ".csv" : ".jtl");
+		SyntheticResultsGenerator generator = new SyntheticResultsGenerator();
+		generator.setSizeInBytes(sizeInMB * 1024L * 1024L);
+		generator.setLabelCount(labelCount);
+		generator.setErrorRatio(errorRatio);
+		if ("csv".equals(format)) {
+			generator.writeCsv(resultsFile);
+		} else {
+			generator.writeXml(resultsFile);
+		}
+		resultsFileSizeInMB = resultsFile.length() / (1024.0 * 1024.0);
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteResultsFile() {
+		if (null != resultsFile && !resultsFile.delete()) {
+			resultsFile.deleteOnExit();
+		}
+	}
+
+	/**
+	 * MB scanned, reported by JMH as MB per second
+	 */
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	@State(Scope.Thread)
+	public static class ScannedBytes {
+		public double megabytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			megabytes = 0;
+		}
+	}
+
+	private ResultScanner scanner() {
+		return new ResultScanner(true, true, "csv".equals(format), Collections.<String>emptyList());
+	}
+
+	@Benchmark
+	public ResultStatistics scan(ScannedBytes scannedBytes) throws Exception {
+		ResultStatistics statistics = scanner().scan(resultsFile);
+		scannedBytes.megabytes += resultsFileSizeInMB;
+		return statistics;
+	}
+
+	@Benchmark
+	public ResultStatistics scanInParallelParts(ScannedBytes scannedBytes) throws Exception {
+		ResultScanner scanner = scanner();
+		scanner.setChunkSize(8L * 1024 * 1024);
+		scanner.parseResultFiles(Collections.singletonList(resultsFile), Runtime.getRuntime().availableProcessors());
+		scannedBytes.megabytes += resultsFileSizeInMB;
+		return scanner.getStatistics();
+	}
+}
@@ -0,0 +1,172 @@
+package com.lazerycode.jmeter.configuration;
+
+/**
+ * Is used to stop a running test early when the results written so far show the test is failing.
+ * <p/>
+ * While a test runs its CSV results file is read as it grows, and the error rate and elapsed time percentiles of the
+ * samples that ended in the last {@code windowInSeconds} are checked every {@code checkIntervalInSeconds}. When a
+ * threshold is exceeded JMeter is asked to shut down, and is stopped forcibly if it has not exited after
+ * {@code shutdownTimeoutInSeconds}. Thresholds that are not set are not checked.
+ * <p/>
+ * Configuration in pom.xml:
+ * <p/>
+ * <pre>
+ * {@code
+ * <earlyAbort>
+ *     <maxErrorRate></maxErrorRate>
+ *     <maxP95></maxP95>
+ *     <maxP99></maxP99>
+ *     <minSamples></minSamples>
+ *     <windowInSeconds></windowInSeconds>
+ *     <checkIntervalInSeconds></checkIntervalInSeconds>
+ *     <shutdownTimeoutInSeconds></shutdownTimeoutInSeconds>
+ * </earlyAbort>
+ * }
+ * </pre>
+ */
+public class EarlyAbortConfiguration {
+
+	private Double maxErrorRate = null;
+	private Long maxP95 = null;
+	private Long maxP99 = null;
+	private long minSamples = 100;
+	private int windowInSeconds = 60;
+	private int checkIntervalInSeconds = 5;
+	private int shutdownTimeoutInSeconds = 60;
+
+	/**
+	 * @return Maximum percentage of failed samples in the window
+	 */
+	public Double getMaxErrorRate() {
+		return maxErrorRate;
+	}
+
+	/**
+	 * Maximum percentage of failed samples in the window
+	 *
+	 * @param maxErrorRate Double
+	 */
+	public void setMaxErrorRate(Double maxErrorRate) {
+		this.maxErrorRate = maxErrorRate;
+	}
+
+	/**
+	 * @return Maximum 95th percentile of the elapsed time in the window in milliseconds
+	 */
+	public Long getMaxP95() {
+		return maxP95;
+	}
+
+	/**
+	 * Maximum 95th percentile of the elapsed time in the window in milliseconds
+	 *
+	 * @param maxP95 Long
+	 */
+	public void setMaxP95(Long maxP95) {
+		this.maxP95 = maxP95;
+	}
+
+	/**
+	 * @return Maximum 99th percentile of the elapsed time in the window in milliseconds
+	 */
+	public Long getMaxP99() {
+		return maxP99;
+	}
+
+	/**
+	 * Maximum 99th percentile of the elapsed time in the window in milliseconds
+	 *
+	 * @param maxP99 Long
+	 */
+	public void setMaxP99(Long maxP99) {
+		this.maxP99 = maxP99;
+	}
+
+	/**
+	 * @return Minimum number of samples in the window before the thresholds are checked
+	 */
+	public long getMinSamples() {
+		return minSamples;
+	}
+
+	/**
+	 * Minimum number of samples in the window before the thresholds are checked
+	 * Default: 100
+	 *
+	 * @param minSamples long
+	 */
+	public void setMinSamples(long minSamples) {
+		this.minSamples = minSamples;
+	}
+
+	/**
+	 * @return Length of the rolling window in seconds
+	 */
+	public int getWindowInSeconds() {
+		return windowInSeconds;
+	}
+
+	/**
+	 * Length of the rolling window in seconds
+	 * Default: 60
+	 *
+	 * @param windowInSeconds int
+	 */
+	public void setWindowInSeconds(int windowInSeconds) {
+		this.windowInSeconds = windowInSeconds;
+	}
+
+	/**
+	 * @return Number of seconds between two checks of the results file
+	 */
+	public int getCheckIntervalInSeconds() {
+		return checkIntervalInSeconds;
+	}
+
+	/**
+	 * Number of seconds between two checks of the results file
+	 * Default: 5
+	 *
+	 * @param checkIntervalInSeconds int
+	 */
+	public void setCheckIntervalInSeconds(int checkIntervalInSeconds) {
+		this.checkIntervalInSeconds = checkIntervalInSeconds;
+	}
+
+	/**
+	 * @return Number of seconds JMeter is given to shut down before it is stopped forcibly
+	 */
+	public int getShutdownTimeoutInSeconds() {
+		return shutdownTimeoutInSeconds;
+	}
+
+	/**
+	 * Number of seconds JMeter is given to shut down before it is stopped forcibly
+	 * Default: 60
+	 *
+	 * @param shutdownTimeoutInSeconds int
+	 */
+	public void setShutdownTimeoutInSeconds(int shutdownTimeoutInSeconds) {
+		this.shutdownTimeoutInSeconds = shutdownTimeoutInSeconds;
+	}
+
+	/**
+	 * @return true if at least one threshold is set
+	 */
+	public boolean hasThresholds() {
+		return null != maxErrorRate || null != maxP95 || null != maxP99;
+	}
+
+	/**
+	 * Early abort details formatted for command line output.
+	 *
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return "Early abort when, over the last " + windowInSeconds + "s and at least " + minSamples + " samples,"
+				+ (null != maxErrorRate ? " error rate > " + maxErrorRate + "%" : "")
+				+ (null != maxP95 ? " p95 > " + maxP95 + "ms" : "")
+				+ (null != maxP99 ? " p99 > " + maxP99 + "ms" : "");
+	}
+}
@@ -0,0 +1,67 @@
+package com.lazerycode.jmeter.configuration;
+
+/**
+ * Time between the starts of two samples of a thread of a thread group that the test plan intends, used to correct the
+ * elapsed times for coordinated omission. A thread belongs to the thread group if its name is the name of the thread
+ * group followed by the numbers JMeter adds, e.g. 'Thread Group 1-5' belongs to 'Thread Group'.
+ * <p/>
+ * Configuration in pom.xml:
+ * <p/>
+ * <pre>
+ * {@code
+ * <expectedIntervals>
+ *     <expectedInterval>
+ *         <threadGroup></threadGroup>
+ *         <intervalInMs></intervalInMs>
+ *     </expectedInterval>
+ * </expectedIntervals>
+ * }
+ * </pre>
+ */
+public class ExpectedInterval {
+
+	private String threadGroup = null;
+	private long intervalInMs = 0;
+
+	/**
+	 * @return Name of the thread group
+	 */
+	public String getThreadGroup() {
+		return threadGroup;
+	}
+
+	/**
+	 * Name of the thread group
+	 *
+	 * @param threadGroup String
+	 */
+	public void setThreadGroup(String threadGroup) {
+		this.threadGroup = threadGroup;
+	}
+
+	/**
+	 * @return Intended time between the starts of two samples of a thread in milliseconds
+	 */
+	public long getIntervalInMs() {
+		return intervalInMs;
+	}
+
+	/**
+	 * Intended time between the starts of two samples of a thread in milliseconds
+	 *
+	 * @param intervalInMs long
+	 */
+	public void setIntervalInMs(long intervalInMs) {
+		this.intervalInMs = intervalInMs;
+	}
+
+	/**
+	 * Expected interval formatted for command line output.
+	 *
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return "'" + threadGroup + "' every " + intervalInMs + " ms";
+	}
+}
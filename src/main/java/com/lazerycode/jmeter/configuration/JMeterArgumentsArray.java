@@ -83,6 +83,31 @@ public class JMeterArgumentsArray {
 		}
 	}
 
+	/**
+	 * Create a copy of a JMeterArgumentsArray, so tests that run at the same time each have their own arguments
+	 *
+	 * @param source The arguments to copy
+	 */
+	public JMeterArgumentsArray(JMeterArgumentsArray source) {
+		this.jMeterHome = source.jMeterHome;
+		this.disableTests = source.disableTests;
+		this.argumentList.addAll(source.argumentList);
+		this.dateFormat = source.dateFormat;
+		this.proxyConfiguration = source.proxyConfiguration;
+		this.timestampResults = source.timestampResults;
+		this.appendTimestamp = source.appendTimestamp;
+		this.resultFileExtension = source.resultFileExtension;
+		this.remoteStartServerList = source.remoteStartServerList;
+		this.customPropertiesFiles = new ArrayList<>(source.customPropertiesFiles);
+		this.testFile = source.testFile;
+		this.resultsLogFileName = source.resultsLogFileName;
+		this.jmeterLogFileName = source.jmeterLogFileName;
+		this.logsDirectory = source.logsDirectory;
+		this.resultsDirectory = source.resultsDirectory;
+		this.reportDirectory = source.reportDirectory;
+		this.overrideRootLogLevel = source.overrideRootLogLevel;
+	}
+
 	public void setRemoteStop() {
 		argumentList.add(REMOTE_STOP);
 	}
@@ -160,6 +185,10 @@ public class JMeterArgumentsArray {
 		return resultsLogFileName;
 	}
 
+	public String getJMeterLogFileName() {
+		return jmeterLogFileName;
+	}
+
 	public void setResultFileOutputFormatIsCSV(boolean isCSVFormat) {
 		if (isCSVFormat) {
 			resultFileExtension = ".csv";
@@ -172,8 +201,9 @@ public class JMeterArgumentsArray {
 		if (isNotSet(value)) return;
 		testFile = value.getAbsolutePath();
 
-		String resultFilename = FilenameUtils.removeExtension(testFilesDirectory.toURI().relativize(value.toURI()).getPath().replace("\\", "/").replace("/", "_")
-				);
+		// Plans with the same name in different directories may run at the same time, name their files after the whole path
+		String testFilename = testFilesDirectory.toURI().relativize(value.toURI()).getPath().replace("\\", "/").replace("/", "_");
+		String resultFilename = FilenameUtils.removeExtension(testFilename);
 		resultsLogFileName = resultsDirectory + File.separator;
 		if (timestampResults) {
 			//TODO investigate when timestamp is generated.
@@ -186,7 +216,7 @@ public class JMeterArgumentsArray {
 			resultsLogFileName += resultFilename + resultFileExtension;
 		}
 		if (isSet(logsDirectory)) {
-			jmeterLogFileName = logsDirectory + File.separator + value.getName() + ".log";
+			jmeterLogFileName = logsDirectory + File.separator + testFilename + ".log";
 			argumentList.add(JMLOGFILE_OPT);
 		}
 		argumentList.add(TESTFILE_OPT);
@@ -18,10 +18,16 @@ import java.util.List;
  *          <arguments>
  *              <argument>foo</argument>
  *          </arguments>
+ *          <autoSize>false</autoSize>
+ *          <plannedThreads>100</plannedThreads>
  *      </jMeterProcessJVMSettings>
  *  </configuration>
  * }
  * </pre>
+ * <p/>
+ * With autoSize set the xms and xmx are ignored, the heap, the direct memory, the number of processors and the garbage
+ * collector of the forked JVMs are derived from the memory and CPU limits of the container the build runs in, or of
+ * the machine, and the number of threads the tests are planned to run.
  *
  * @author Mark Collin
  */
@@ -31,6 +37,8 @@ public class JMeterProcessJVMSettings {
 	private int xmx = 512;
 	private String java = "java";
 	private List<String> arguments = new ArrayList<>();
+	private boolean autoSize = false;
+	private int plannedThreads = 0;
 
 	/**
 	 * Empty constructor
@@ -44,11 +52,13 @@ public class JMeterProcessJVMSettings {
 	 * @param source {@link JMeterProcessJVMSettings}
 	 */
 	public JMeterProcessJVMSettings(JMeterProcessJVMSettings source) {
-	    this.xmx = source.xms;
+	    this.xmx = source.xmx;
 	    this.xms = source.xms;
 	    this.java = source.java;
 	    this.arguments = new ArrayList<>();
         this.arguments.addAll(source.arguments);
+	    this.autoSize = source.autoSize;
+	    this.plannedThreads = source.plannedThreads;
 	}
 	public int getXms() {
 		return xms;
@@ -81,4 +91,23 @@ public class JMeterProcessJVMSettings {
 	public String getJavaRuntime() {
 		return this.java;
 	}
+
+	public boolean isAutoSize() {
+		return autoSize;
+	}
+
+	public void setAutoSize(boolean autoSize) {
+		this.autoSize = autoSize;
+	}
+
+	/**
+	 * @return Number of threads a test runs at most, 0 when not known
+	 */
+	public int getPlannedThreads() {
+		return plannedThreads;
+	}
+
+	public void setPlannedThreads(int plannedThreads) {
+		this.plannedThreads = plannedThreads;
+	}
 }
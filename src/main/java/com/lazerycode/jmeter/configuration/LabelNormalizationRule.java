@@ -0,0 +1,68 @@
+package com.lazerycode.jmeter.configuration;
+
+/**
+ * Rewrites the labels of samples while the results are scanned, so labels that contain e.g. IDs are counted as one
+ * label. Every part of a label matching the regular expression is replaced, the replacement may refer to groups of
+ * the expression with $1, $2, etc. Rules are applied in the order they are configured.
+ * <p/>
+ * Configuration in pom.xml:
+ * <p/>
+ * <pre>
+ * {@code
+ * <labelNormalizationRules>
+ *     <labelNormalizationRule>
+ *         <pattern>/order/\d+</pattern>
+ *         <replacement>/order/{id}</replacement>
+ *     </labelNormalizationRule>
+ * </labelNormalizationRules>
+ * }
+ * </pre>
+ */
+public class LabelNormalizationRule {
+
+	private String pattern = null;
+	private String replacement = "";
+
+	/**
+	 * @return Regular expression matching the parts of labels that are replaced
+	 */
+	public String getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * Regular expression matching the parts of labels that are replaced
+	 *
+	 * @param pattern String
+	 */
+	public void setPattern(String pattern) {
+		this.pattern = pattern;
+	}
+
+	/**
+	 * @return Replacement of the matching parts of labels
+	 */
+	public String getReplacement() {
+		return replacement;
+	}
+
+	/**
+	 * Replacement of the matching parts of labels
+	 * Default: empty
+	 *
+	 * @param replacement String
+	 */
+	public void setReplacement(String replacement) {
+		this.replacement = null == replacement ? "" : replacement;
+	}
+
+	/**
+	 * Label normalization rule formatted for command line output.
+	 *
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return "'" + pattern + "' -> '" + replacement + "'";
+	}
+}
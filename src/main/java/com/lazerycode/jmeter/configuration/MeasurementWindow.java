@@ -0,0 +1,135 @@
+package com.lazerycode.jmeter.configuration;
+
+/**
+ * Is used to limit the statistics of the results to the samples that started within a measurement window, so the
+ * samples of the ramp-up and ramp-down of a test do not skew them.
+ * <p/>
+ * The window is either absolute, in milliseconds since the epoch, or relative to the time stamp of the first sample
+ * of the results files. With {@code usePerfanaTimes} the window starts after {@code perfanaRampupTimeInSeconds} and
+ * lasts {@code perfanaConstantLoadTimeInSeconds}. A bound that is not set does not limit the window.
+ * <p/>
+ * Configuration in pom.xml:
+ * <p/>
+ * <pre>
+ * {@code
+ * <measurementWindow>
+ *     <startTimeStamp></startTimeStamp>
+ *     <endTimeStamp></endTimeStamp>
+ *     <startOffsetInSeconds></startOffsetInSeconds>
+ *     <endOffsetInSeconds></endOffsetInSeconds>
+ *     <usePerfanaTimes></usePerfanaTimes>
+ * </measurementWindow>
+ * }
+ * </pre>
+ */
+public class MeasurementWindow {
+
+	private Long startTimeStamp = null;
+	private Long endTimeStamp = null;
+	private Long startOffsetInSeconds = null;
+	private Long endOffsetInSeconds = null;
+	private boolean usePerfanaTimes = false;
+
+	/**
+	 * @return Time stamp, in milliseconds since the epoch, of the start of the window
+	 */
+	public Long getStartTimeStamp() {
+		return startTimeStamp;
+	}
+
+	/**
+	 * Time stamp, in milliseconds since the epoch, of the start of the window
+	 *
+	 * @param startTimeStamp Long
+	 */
+	public void setStartTimeStamp(Long startTimeStamp) {
+		this.startTimeStamp = startTimeStamp;
+	}
+
+	/**
+	 * @return Time stamp, in milliseconds since the epoch, of the end of the window
+	 */
+	public Long getEndTimeStamp() {
+		return endTimeStamp;
+	}
+
+	/**
+	 * Time stamp, in milliseconds since the epoch, of the end of the window
+	 *
+	 * @param endTimeStamp Long
+	 */
+	public void setEndTimeStamp(Long endTimeStamp) {
+		this.endTimeStamp = endTimeStamp;
+	}
+
+	/**
+	 * @return Number of seconds after the first sample the window starts
+	 */
+	public Long getStartOffsetInSeconds() {
+		return startOffsetInSeconds;
+	}
+
+	/**
+	 * Number of seconds after the first sample the window starts
+	 *
+	 * @param startOffsetInSeconds Long
+	 */
+	public void setStartOffsetInSeconds(Long startOffsetInSeconds) {
+		this.startOffsetInSeconds = startOffsetInSeconds;
+	}
+
+	/**
+	 * @return Number of seconds after the first sample the window ends
+	 */
+	public Long getEndOffsetInSeconds() {
+		return endOffsetInSeconds;
+	}
+
+	/**
+	 * Number of seconds after the first sample the window ends
+	 *
+	 * @param endOffsetInSeconds Long
+	 */
+	public void setEndOffsetInSeconds(Long endOffsetInSeconds) {
+		this.endOffsetInSeconds = endOffsetInSeconds;
+	}
+
+	/**
+	 * @return true if the window is set from the Perfana ramp-up and constant load times
+	 */
+	public boolean isUsePerfanaTimes() {
+		return usePerfanaTimes;
+	}
+
+	/**
+	 * Set the offsets of the window from perfanaRampupTimeInSeconds and perfanaConstantLoadTimeInSeconds
+	 * Default: false
+	 *
+	 * @param usePerfanaTimes boolean
+	 */
+	public void setUsePerfanaTimes(boolean usePerfanaTimes) {
+		this.usePerfanaTimes = usePerfanaTimes;
+	}
+
+	/**
+	 * @return true if the window depends on the time stamp of the first sample
+	 */
+	public boolean isRelative() {
+		return null != startOffsetInSeconds || null != endOffsetInSeconds;
+	}
+
+	/**
+	 * Measurement window details formatted for command line output.
+	 *
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return "Measurement window:"
+				+ (null != startTimeStamp ? " from " + startTimeStamp : "")
+				+ (null != endTimeStamp ? " until " + endTimeStamp : "")
+				+ (null != startOffsetInSeconds ? " from " + startOffsetInSeconds + "s" : "")
+				+ (null != endOffsetInSeconds ? " until " + endOffsetInSeconds + "s" : "")
+				+ (isRelative() ? " after the first sample" : "");
+	}
+}
@@ -0,0 +1,164 @@
+package com.lazerycode.jmeter.configuration;
+
+import static com.lazerycode.jmeter.utility.UtilityFunctions.isSet;
+
+/**
+ * Thresholds the results of the performance tests must stay within, for one label, for the labels matching a regular
+ * expression or, when neither is set, for all samples together. Thresholds that are not set are not checked.
+ * <p/>
+ * Configuration in pom.xml:
+ * <p/>
+ * <pre>
+ * {@code
+ * <slas>
+ *     <sla>
+ *         <label></label>
+ *         <labelPattern></labelPattern>
+ *         <maxErrorRate></maxErrorRate>
+ *         <maxP95></maxP95>
+ *         <maxP99></maxP99>
+ *         <minThroughput></minThroughput>
+ *         <maxMeanLatency></maxMeanLatency>
+ *     </sla>
+ * </slas>
+ * }
+ * </pre>
+ */
+public class ServiceLevelAgreement {
+
+	private String label = null;
+	private String labelPattern = null;
+	private Double maxErrorRate = null;
+	private Long maxP95 = null;
+	private Long maxP99 = null;
+	private Double minThroughput = null;
+	private Double maxMeanLatency = null;
+
+	/**
+	 * @return Label the thresholds apply to
+	 */
+	public String getLabel() {
+		return label;
+	}
+
+	/**
+	 * Label the thresholds apply to
+	 *
+	 * @param label String
+	 */
+	public void setLabel(String label) {
+		this.label = label;
+	}
+
+	/**
+	 * @return Regular expression matching the labels the thresholds apply to, each matching label is checked on its own
+	 */
+	public String getLabelPattern() {
+		return labelPattern;
+	}
+
+	/**
+	 * Regular expression matching the labels the thresholds apply to, each matching label is checked on its own
+	 *
+	 * @param labelPattern String
+	 */
+	public void setLabelPattern(String labelPattern) {
+		this.labelPattern = labelPattern;
+	}
+
+	/**
+	 * @return Maximum percentage of failed samples
+	 */
+	public Double getMaxErrorRate() {
+		return maxErrorRate;
+	}
+
+	/**
+	 * Maximum percentage of failed samples
+	 *
+	 * @param maxErrorRate Double
+	 */
+	public void setMaxErrorRate(Double maxErrorRate) {
+		this.maxErrorRate = maxErrorRate;
+	}
+
+	/**
+	 * @return Maximum 95th percentile of the elapsed time in milliseconds
+	 */
+	public Long getMaxP95() {
+		return maxP95;
+	}
+
+	/**
+	 * Maximum 95th percentile of the elapsed time in milliseconds
+	 *
+	 * @param maxP95 Long
+	 */
+	public void setMaxP95(Long maxP95) {
+		this.maxP95 = maxP95;
+	}
+
+	/**
+	 * @return Maximum 99th percentile of the elapsed time in milliseconds
+	 */
+	public Long getMaxP99() {
+		return maxP99;
+	}
+
+	/**
+	 * Maximum 99th percentile of the elapsed time in milliseconds
+	 *
+	 * @param maxP99 Long
+	 */
+	public void setMaxP99(Long maxP99) {
+		this.maxP99 = maxP99;
+	}
+
+	/**
+	 * @return Minimum number of samples per second
+	 */
+	public Double getMinThroughput() {
+		return minThroughput;
+	}
+
+	/**
+	 * Minimum number of samples per second
+	 *
+	 * @param minThroughput Double
+	 */
+	public void setMinThroughput(Double minThroughput) {
+		this.minThroughput = minThroughput;
+	}
+
+	/**
+	 * @return Maximum mean latency (time to first byte) in milliseconds
+	 */
+	public Double getMaxMeanLatency() {
+		return maxMeanLatency;
+	}
+
+	/**
+	 * Maximum mean latency (time to first byte) in milliseconds
+	 *
+	 * @param maxMeanLatency Double
+	 */
+	public void setMaxMeanLatency(Double maxMeanLatency) {
+		this.maxMeanLatency = maxMeanLatency;
+	}
+
+	/**
+	 * The samples the thresholds apply to, formatted for command line output.
+	 *
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		if (isSet(label)) {
+			return "label '" + label + "'";
+		}
+		if (isSet(labelPattern)) {
+			return "labels matching '" + labelPattern + "'";
+		}
+		return "all samples";
+	}
+}
@@ -0,0 +1,121 @@
+package com.lazerycode.jmeter.json;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import com.jayway.jsonpath.JsonPath;
+import com.lazerycode.jmeter.testrunner.LabelStatistics;
+import com.lazerycode.jmeter.testrunner.LatencyHistogram;
+import com.lazerycode.jmeter.testrunner.ResultStatistics;
+
+/**
+ * Compact JSON summary of a run that later runs are compared against: per label the counts, throughput, duration
+ * and the buckets of the elapsed time histogram, so percentiles and distributions can be compared without the
+ * results files of the run.
+ */
+public class ResultsBaseline {
+	private static final String TOTAL = "total";
+	private static final String LABELS = "labels";
+
+	private final String jsonData;
+
+	public ResultsBaseline(ResultStatistics statistics) {
+		Map<String, Object> baseline = new LinkedHashMap<>();
+		baseline.put(TOTAL, toMap(statistics.getTotal()));
+		Map<String, Object> labels = new LinkedHashMap<>();
+		for (Map.Entry<String, LabelStatistics> label : statistics.getLabels().entrySet()) {
+			labels.put(label.getKey(), toMap(label.getValue()));
+		}
+		baseline.put(LABELS, labels);
+		jsonData = JsonPath.parse(baseline).jsonString();
+	}
+
+	public ResultsBaseline(InputStream jsonFile) throws MojoExecutionException {
+		try {
+			jsonData = IOUtils.toString(jsonFile, StandardCharsets.UTF_8);
+		} catch (Exception ex) {
+			throw new MojoExecutionException(ex.getMessage(), ex);
+		}
+	}
+
+	public ResultsBaseline(File jsonFile) throws MojoExecutionException {
+		try (InputStream jsonFileStream = new FileInputStream(jsonFile)) {
+			jsonData = IOUtils.toString(jsonFileStream, StandardCharsets.UTF_8);
+		} catch (Exception ex) {
+			throw new MojoExecutionException(ex.getMessage(), ex);
+		}
+	}
+
+	private static Map<String, Object> toMap(LabelStatistics statistics) {
+		Map<String, Object> values = new LinkedHashMap<>();
+		values.put("samples", statistics.getSampleCount());
+		values.put("failures", statistics.getFailureCount());
+		values.put("throughput", statistics.getThroughput());
+		values.put("duration", statistics.getDuration());
+		Map<String, Object> elapsed = new LinkedHashMap<>();
+		for (Map.Entry<Long, Long> bucket : statistics.getElapsed().getBucketCounts().entrySet()) {
+			elapsed.put(String.valueOf(bucket.getKey()), bucket.getValue());
+		}
+		values.put("elapsed", elapsed);
+		return values;
+	}
+
+	private static LabelStatistics toStatistics(Map<String, Object> values) {
+		LatencyHistogram elapsed = new LatencyHistogram();
+		@SuppressWarnings("unchecked")
+		Map<String, Object> buckets = (Map<String, Object>) values.get("elapsed");
+		for (Map.Entry<String, Object> bucket : buckets.entrySet()) {
+			elapsed.record(Long.parseLong(bucket.getKey()), ((Number) bucket.getValue()).longValue());
+		}
+		long samples = ((Number) values.get("samples")).longValue();
+		long failures = ((Number) values.get("failures")).longValue();
+		return new LabelStatistics(samples - failures, failures, elapsed, ((Number) values.get("duration")).longValue());
+	}
+
+	/**
+	 * @return The statistics of all samples of the run, without latencies
+	 */
+	public LabelStatistics getTotal() {
+		return toStatistics(JsonPath.<Map<String, Object>>read(jsonData, "$." + TOTAL));
+	}
+
+	/**
+	 * @return The statistics of every label of the run, without latencies, sorted by label
+	 */
+	public Map<String, LabelStatistics> getLabels() {
+		Map<String, LabelStatistics> labels = new TreeMap<>();
+		for (Map.Entry<String, Object> label : JsonPath.<Map<String, Object>>read(jsonData, "$." + LABELS).entrySet()) {
+			@SuppressWarnings("unchecked")
+			Map<String, Object> values = (Map<String, Object>) label.getValue();
+			labels.put(label.getKey(), toStatistics(values));
+		}
+		return labels;
+	}
+
+	public String getFullBaseline() {
+		return jsonData;
+	}
+
+	public void writeTo(File baselineFile) throws MojoExecutionException {
+		File parent = baselineFile.getAbsoluteFile().getParentFile();
+		if (!parent.exists() && !parent.mkdirs()) {
+			throw new MojoExecutionException("Unable to create directory " + parent.getAbsolutePath());
+		}
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(baselineFile), StandardCharsets.UTF_8)) {
+			writer.write(jsonData);
+		} catch (Exception ex) {
+			throw new MojoExecutionException(ex.getMessage(), ex);
+		}
+	}
+}
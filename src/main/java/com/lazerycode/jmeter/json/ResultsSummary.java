@@ -0,0 +1,132 @@
+package com.lazerycode.jmeter.json;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import com.jayway.jsonpath.JsonPath;
+import com.lazerycode.jmeter.testrunner.ErrorBreakdown;
+import com.lazerycode.jmeter.testrunner.HeavyHitters;
+import com.lazerycode.jmeter.testrunner.LabelStatistics;
+import com.lazerycode.jmeter.testrunner.LatencyHistogram;
+import com.lazerycode.jmeter.testrunner.ResultStatistics;
+
+/**
+ * JSON summary of the results of the performance tests: counts, throughput, latency and elapsed time percentiles,
+ * overall and per label. When there are failures, the most frequent response codes, response messages and assertion
+ * failure messages of the failed samples are added as errors. Elapsed times corrected for coordinated omission are
+ * added as corrected. The samples of labels beyond the maximum number of labels are summarized together as overflow,
+ * with the most frequent of those labels.
+ */
+public class ResultsSummary {
+	public static final double[] PERCENTILES = {50, 90, 95, 99};
+	public static final String OVERFLOW_LABEL = "(other labels)";
+	public static final int DEFAULT_ERROR_BREAKDOWN_SIZE = 10;
+
+	private final String jsonData;
+
+	public ResultsSummary(ResultStatistics statistics) {
+		this(statistics, DEFAULT_ERROR_BREAKDOWN_SIZE);
+	}
+
+	/**
+	 * @param statistics         Statistics of the results files
+	 * @param errorBreakdownSize Number of most frequent response codes and messages of the failed samples listed
+	 */
+	public ResultsSummary(ResultStatistics statistics, int errorBreakdownSize) {
+		Map<String, Object> summary = new LinkedHashMap<>();
+		summary.put("total", toMap(statistics.getTotal(), errorBreakdownSize));
+		Map<String, Object> labels = new LinkedHashMap<>();
+		for (Map.Entry<String, LabelStatistics> label : statistics.getLabels().entrySet()) {
+			labels.put(label.getKey(), toMap(label.getValue(), errorBreakdownSize));
+		}
+		summary.put("labels", labels);
+		if (null != statistics.getOverflow()) {
+			Map<String, Object> overflow = toMap(statistics.getOverflow(), errorBreakdownSize);
+			overflow.put("labels", toList(statistics.getOverflowLabels(), HeavyHitters.DEFAULT_CAPACITY));
+			summary.put("overflow", overflow);
+		}
+		jsonData = JsonPath.parse(summary).jsonString();
+	}
+
+	/**
+	 * @param percentile A percentile
+	 * @return The name of the percentile in the summary, e.g. p95
+	 */
+	public static String percentileName(double percentile) {
+		return percentile == Math.rint(percentile) ? "p" + (long) percentile : "p" + percentile;
+	}
+
+	private static Map<String, Object> toMap(LabelStatistics statistics, int errorBreakdownSize) {
+		LatencyHistogram elapsed = statistics.getElapsed();
+		Map<String, Object> values = new LinkedHashMap<>();
+		values.put("samples", statistics.getSampleCount());
+		values.put("successes", statistics.getSuccessCount());
+		values.put("failures", statistics.getFailureCount());
+		values.put("throughput", statistics.getThroughput());
+		values.put("meanLatency", statistics.getMeanLatency());
+		values.put("min", elapsed.getMin());
+		values.put("mean", elapsed.getMean());
+		for (double percentile : PERCENTILES) {
+			values.put(percentileName(percentile), statistics.getValueAtPercentile(percentile));
+		}
+		values.put("max", elapsed.getMax());
+		if (statistics.hasExactPercentiles()) {
+			values.put("exactPercentiles", true);
+		}
+		LatencyHistogram corrected = statistics.getCorrectedElapsed();
+		if (null != corrected) {
+			Map<String, Object> correctedValues = new LinkedHashMap<>();
+			correctedValues.put("mean", corrected.getMean());
+			for (double percentile : PERCENTILES) {
+				correctedValues.put(percentileName(percentile), corrected.getValueAtPercentile(percentile));
+			}
+			correctedValues.put("max", corrected.getMax());
+			values.put("corrected", correctedValues);
+		}
+		ErrorBreakdown errors = statistics.getErrors();
+		if (!errors.isEmpty() && errorBreakdownSize > 0) {
+			Map<String, Object> breakdown = new LinkedHashMap<>();
+			breakdown.put("responseCodes", toList(errors.getResponseCodes(), errorBreakdownSize));
+			breakdown.put("responseMessages", toList(errors.getResponseMessages(), errorBreakdownSize));
+			breakdown.put("failureMessages", toList(errors.getFailureMessages(), errorBreakdownSize));
+			values.put("errors", breakdown);
+		}
+		return values;
+	}
+
+	private static List<Object> toList(HeavyHitters heavyHitters, int size) {
+		List<Object> list = new ArrayList<>();
+		for (HeavyHitters.Counter counter : heavyHitters.getTop(size)) {
+			Map<String, Object> values = new LinkedHashMap<>();
+			values.put("value", counter.getValue());
+			values.put("count", counter.getCount());
+			list.add(values);
+		}
+		return list;
+	}
+
+	public String getFullSummary() {
+		return jsonData;
+	}
+
+	public void writeTo(File summaryFile) throws MojoExecutionException {
+		File parent = summaryFile.getAbsoluteFile().getParentFile();
+		if (!parent.exists() && !parent.mkdirs()) {
+			throw new MojoExecutionException("Unable to create directory " + parent.getAbsolutePath());
+		}
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(summaryFile), StandardCharsets.UTF_8)) {
+			writer.write(jsonData);
+		} catch (Exception ex) {
+			throw new MojoExecutionException(ex.getMessage(), ex);
+		}
+	}
+}
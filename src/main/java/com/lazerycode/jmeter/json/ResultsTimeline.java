@@ -0,0 +1,151 @@
+package com.lazerycode.jmeter.json;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import com.jayway.jsonpath.JsonPath;
+import com.lazerycode.jmeter.testrunner.LabelStatistics;
+import com.lazerycode.jmeter.testrunner.ResultStatistics;
+import com.lazerycode.jmeter.testrunner.Timeline;
+
+/**
+ * Timeline of the results of the performance tests: requests and errors per second and elapsed time percentiles per
+ * interval, overall and per label. All timelines are written with the same interval, the widest interval of any of
+ * them. It is written as CSV, one line per interval and label with the label TOTAL for all samples, or as JSON when the
+ * file name ends with .json.
+ */
+public class ResultsTimeline {
+	public static final String TOTAL_LABEL = "TOTAL";
+	private static final String JSON_EXTENSION = ".json";
+
+	private final long interval;
+	private final SortedMap<Long, Timeline.Interval> total;
+	private final Map<String, SortedMap<Long, Timeline.Interval>> labels = new LinkedHashMap<>();
+
+	public ResultsTimeline(ResultStatistics statistics) {
+		long widest = statistics.getTotal().getTimeline().getInterval();
+		for (LabelStatistics label : statistics.getLabels().values()) {
+			widest = Math.max(widest, label.getTimeline().getInterval());
+		}
+		interval = widest;
+		total = statistics.getTotal().getTimeline().getIntervals(interval);
+		for (Map.Entry<String, LabelStatistics> label : statistics.getLabels().entrySet()) {
+			labels.put(label.getKey(), label.getValue().getTimeline().getIntervals(interval));
+		}
+	}
+
+	/**
+	 * @return Width of the intervals in milliseconds
+	 */
+	public long getInterval() {
+		return interval;
+	}
+
+	/**
+	 * @return Number of intervals of the timeline of all samples
+	 */
+	public int getIntervalCount() {
+		return total.size();
+	}
+
+	public void writeTo(File timelineFile) throws MojoExecutionException {
+		File parent = timelineFile.getAbsoluteFile().getParentFile();
+		if (!parent.exists() && !parent.mkdirs()) {
+			throw new MojoExecutionException("Unable to create directory " + parent.getAbsolutePath());
+		}
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(timelineFile), StandardCharsets.UTF_8))) {
+			if (timelineFile.getName().toLowerCase(Locale.ROOT).endsWith(JSON_EXTENSION)) {
+				writeJson(writer);
+			} else {
+				writeCsv(writer);
+			}
+		} catch (Exception ex) {
+			throw new MojoExecutionException(ex.getMessage(), ex);
+		}
+	}
+
+	private void writeCsv(Writer writer) throws java.io.IOException {
+		writer.write("timeStamp,label,requestsPerSecond,errorsPerSecond");
+		for (double percentile : ResultsSummary.PERCENTILES) {
+			writer.write(',');
+			writer.write(ResultsSummary.percentileName(percentile));
+		}
+		writer.write(",max\n");
+		writeCsv(writer, TOTAL_LABEL, total);
+		for (Map.Entry<String, SortedMap<Long, Timeline.Interval>> label : labels.entrySet()) {
+			writeCsv(writer, label.getKey(), label.getValue());
+		}
+	}
+
+	private void writeCsv(Writer writer, String label, SortedMap<Long, Timeline.Interval> intervals) throws java.io.IOException {
+		String quotedLabel = quote(label);
+		for (Map.Entry<Long, Timeline.Interval> entry : intervals.entrySet()) {
+			Timeline.Interval current = entry.getValue();
+			StringBuilder line = new StringBuilder();
+			line.append(entry.getKey()).append(',').append(quotedLabel)
+					.append(',').append(format(perSecond(current.getSampleCount())))
+					.append(',').append(format(perSecond(current.getErrorCount())));
+			for (double percentile : ResultsSummary.PERCENTILES) {
+				line.append(',').append(current.getValueAtPercentile(percentile));
+			}
+			line.append(',').append(current.getMaxElapsed()).append('\n');
+			writer.write(line.toString());
+		}
+	}
+
+	private static String quote(String label) {
+		if (label.indexOf(',') < 0 && label.indexOf('"') < 0 && label.indexOf('\n') < 0 && label.indexOf('\r') < 0) {
+			return label;
+		}
+		return '"' + label.replace("\"", "\"\"") + '"';
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.3f", value);
+	}
+
+	private void writeJson(Writer writer) throws java.io.IOException {
+		Map<String, Object> timeline = new LinkedHashMap<>();
+		timeline.put("interval", interval);
+		timeline.put("total", toList(total));
+		Map<String, Object> labelTimelines = new LinkedHashMap<>();
+		for (Map.Entry<String, SortedMap<Long, Timeline.Interval>> label : labels.entrySet()) {
+			labelTimelines.put(label.getKey(), toList(label.getValue()));
+		}
+		timeline.put("labels", labelTimelines);
+		writer.write(JsonPath.parse(timeline).jsonString());
+	}
+
+	private List<Object> toList(SortedMap<Long, Timeline.Interval> intervals) {
+		List<Object> list = new ArrayList<>(intervals.size());
+		for (Map.Entry<Long, Timeline.Interval> entry : intervals.entrySet()) {
+			Timeline.Interval current = entry.getValue();
+			Map<String, Object> values = new LinkedHashMap<>();
+			values.put("timeStamp", entry.getKey());
+			values.put("requestsPerSecond", perSecond(current.getSampleCount()));
+			values.put("errorsPerSecond", perSecond(current.getErrorCount()));
+			for (double percentile : ResultsSummary.PERCENTILES) {
+				values.put(ResultsSummary.percentileName(percentile), current.getValueAtPercentile(percentile));
+			}
+			values.put("max", current.getMaxElapsed());
+			list.add(values);
+		}
+		return list;
+	}
+
+	private double perSecond(long count) {
+		return count * 1000.0 / interval;
+	}
+}
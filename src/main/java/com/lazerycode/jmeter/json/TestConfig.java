@@ -5,18 +5,23 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 
 import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.PathNotFoundException;
 
 /**
  * Allows user to specify the files he wants to check.
  *
  */
 public class TestConfig {
+	public static final String RESULTS_CODEC_NONE = "none";
+	public static final String RESULTS_CODEC_GZIP = "gzip";
+
 	private String jsonData;
 
 	public TestConfig(InputStream jsonFile) throws MojoExecutionException {
@@ -63,6 +68,81 @@ public class TestConfig {
 		return JsonPath.read(jsonData, "$.resultsOutputIsCSVFormat");
 	}
 
+	public void setResultsCsvColumns(List<String> csvColumns) {
+		jsonData = JsonPath.parse(jsonData).set("$.resultsCsvColumns", csvColumns).jsonString();
+	}
+
+	/**
+	 * @return Column headers JMeter has been configured to write to CSV results files, empty if unknown
+	 */
+	public List<String> getResultsCsvColumns() {
+		try {
+			return JsonPath.read(jsonData, "$.resultsCsvColumns");
+		} catch (PathNotFoundException ex) {
+			return Collections.emptyList();
+		}
+	}
+
+	public void setResultsCsvHeader(String csvHeader) {
+		jsonData = JsonPath.parse(jsonData).put("$", "resultsCsvHeader", csvHeader).jsonString();
+	}
+
+	/**
+	 * @return Header line JMeter writes to new CSV results files, null if it writes none
+	 */
+	public String getResultsCsvHeader() {
+		try {
+			return JsonPath.read(jsonData, "$.resultsCsvHeader");
+		} catch (PathNotFoundException ex) {
+			return null;
+		}
+	}
+
+	public void setResultsCodec(String codec) {
+		jsonData = JsonPath.parse(jsonData).put("$", "resultsCodec", codec).jsonString();
+	}
+
+	/**
+	 * @return Compression of the results files, "gzip" or "none"
+	 */
+	public String getResultsCodec() {
+		try {
+			return JsonPath.read(jsonData, "$.resultsCodec");
+		} catch (PathNotFoundException ex) {
+			return RESULTS_CODEC_NONE;
+		}
+	}
+
+	public void setResultsColumnar(boolean columnar) {
+		jsonData = JsonPath.parse(jsonData).put("$", "resultsColumnar", columnar).jsonString();
+	}
+
+	/**
+	 * @return true if the results files are converted to columnar results files after every test
+	 */
+	public boolean getResultsColumnar() {
+		try {
+			return JsonPath.read(jsonData, "$.resultsColumnar");
+		} catch (PathNotFoundException ex) {
+			return false;
+		}
+	}
+
+	public void setResultsBaselineFile(String baselineFileLocation) {
+		jsonData = JsonPath.parse(jsonData).put("$", "resultsBaselineFile", baselineFileLocation).jsonString();
+	}
+
+	/**
+	 * @return Location of the baseline summary written for the results files, null if none has been written
+	 */
+	public String getResultsBaselineFile() {
+		try {
+			return JsonPath.read(jsonData, "$.resultsBaselineFile");
+		} catch (PathNotFoundException ex) {
+			return null;
+		}
+	}
+
     public void setGenerateReports(boolean generateReports) {
         jsonData = JsonPath.parse(jsonData).set("$.generateReports", generateReports).jsonString();
     }
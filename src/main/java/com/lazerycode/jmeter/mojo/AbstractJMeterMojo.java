@@ -1,5 +1,6 @@
 package com.lazerycode.jmeter.mojo;
 
+import com.lazerycode.jmeter.configuration.EarlyAbortConfiguration;
 import com.lazerycode.jmeter.configuration.JMeterArgumentsArray;
 import com.lazerycode.jmeter.configuration.JMeterProcessJVMSettings;
 import com.lazerycode.jmeter.configuration.ProxyConfiguration;
@@ -196,6 +197,34 @@ public abstract class AbstractJMeterMojo extends AbstractMojo {
 	@Parameter(defaultValue = "0")
 	protected String postTestPauseInSeconds;
 
+	/**
+	 * Stop a test early when the error rate or elapsed time percentiles of its latest samples exceed a threshold.
+	 * Requires results in CSV format.
+	 */
+	@Parameter
+	protected EarlyAbortConfiguration earlyAbort;
+
+	/**
+	 * Maximum number of tests run at the same time, each in its own JMeter JVM. Tests run one after another when set
+	 * to 1 or when remote servers are configured. Every test writes its own results, log and report files.
+	 * Defaults to 1
+	 */
+	@Parameter(defaultValue = "1")
+	protected int maxConcurrentTests;
+
+	/**
+	 * Run the tests one after another in a single long-lived JMeter JVM instead of forking a JVM per test, which saves
+	 * the JVM start-up, class loading and JIT warm-up of every test after the first. The JVM is started with the same
+	 * jMeterProcessJVMSettings. Tests are forked when the daemon cannot be started or dies, which includes Java 18 and
+	 * later, where the daemon cannot trap the calls of JMeter to System.exit. Not used when tests run at
+	 * the same time or remote servers are configured. As JMeter initializes its logging once per JVM, all tests write
+	 * to the JMeter log file of the first test. JMeter's UDP shutdown listener is not started in the daemon, tests
+	 * stopped early are shut down through the daemon instead.
+	 * Defaults to false
+	 */
+	@Parameter(defaultValue = "false")
+	protected boolean useJMeterDaemon;
+
 	/**
 	 * The filename used to store the results config
 	 */
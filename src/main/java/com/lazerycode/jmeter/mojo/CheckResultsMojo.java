@@ -1,7 +1,23 @@
 package com.lazerycode.jmeter.mojo;
 
+import com.lazerycode.jmeter.configuration.ExpectedInterval;
+import com.lazerycode.jmeter.configuration.LabelNormalizationRule;
+import com.lazerycode.jmeter.configuration.MeasurementWindow;
+import com.lazerycode.jmeter.configuration.ServiceLevelAgreement;
+import com.lazerycode.jmeter.json.ResultsBaseline;
+import com.lazerycode.jmeter.json.ResultsSummary;
+import com.lazerycode.jmeter.json.ResultsTimeline;
 import com.lazerycode.jmeter.json.TestConfig;
+import com.lazerycode.jmeter.testrunner.BaselineComparator;
+import com.lazerycode.jmeter.testrunner.ElapsedTimeStore;
+import com.lazerycode.jmeter.testrunner.ErrorBreakdown;
+import com.lazerycode.jmeter.testrunner.HeavyHitters;
+import com.lazerycode.jmeter.testrunner.LabelStatistics;
+import com.lazerycode.jmeter.testrunner.LatencyHistogram;
 import com.lazerycode.jmeter.testrunner.ResultScanner;
+import com.lazerycode.jmeter.testrunner.ResultStatistics;
+import com.lazerycode.jmeter.testrunner.ScanCache;
+import com.lazerycode.jmeter.testrunner.ServiceLevelAgreementChecker;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
@@ -9,15 +25,22 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.PatternSyntaxException;
 
 /**
- * Goal that computes successes/failures from CSV or XML results files.<br/>
+ * Goal that computes successes/failures and elapsed time percentiles per label from CSV or XML results files.<br/>
  * This goal runs within Lifecycle phase {@link LifecyclePhase#VERIFY}.<br/>
  * Ensure you set 'scanResultsForSuccessfulRequests' and 'scanResultsForFailedRequests' to true.
  */
 @Mojo(name = "results", defaultPhase = LifecyclePhase.VERIFY)
 public class CheckResultsMojo extends AbstractJMeterMojo {
 
+	private static final String SCAN_CACHE_FILE_NAME = "results-scan-cache.bin";
+
 	/**
 	 * Sets whether build should fail if there are failed requests found in the JMeter result file.
 	 * Failures are for example failed requests
@@ -39,6 +62,167 @@ public class CheckResultsMojo extends AbstractJMeterMojo {
 	@Parameter(defaultValue = "true")
 	protected boolean scanResultsForSuccessfulRequests;
 
+	/**
+	 * Maximum number of result files scanned at the same time.
+	 * Defaults to 0, which scans as many files at the same time as there are available processors
+	 */
+	@Parameter(defaultValue = "0")
+	protected int resultsScanParallelism;
+
+	/**
+	 * Result files larger than this size (in MB) are split into parts that are scanned at the same time.
+	 * Defaults to 256
+	 */
+	@Parameter(defaultValue = "256")
+	protected long resultsScanChunkSizeInMB;
+
+	/**
+	 * Keep the statistics of scanned result files in a cache next to the test configuration, so result files that
+	 * have not changed since a previous scan with the same settings are not scanned again.
+	 * Defaults to true
+	 */
+	@Parameter(defaultValue = "true")
+	protected boolean useResultsScanCache;
+
+	/**
+	 * File the JSON summary of the results (counts and elapsed time percentiles per label) is written to.
+	 */
+	@Parameter(defaultValue = "${project.build.directory}/jmeter/results-summary.json")
+	protected File resultsSummaryFile;
+
+	/**
+	 * File the timeline of the results (requests and errors per second and elapsed time percentiles per interval and
+	 * label) is written to, as CSV or, when the file name ends with .json, as JSON.
+	 */
+	@Parameter(defaultValue = "${project.build.directory}/jmeter/results-timeline.csv")
+	protected File resultsTimelineFile;
+
+	/**
+	 * Width (in milliseconds) of the intervals of the results timeline.
+	 * Defaults to 1000
+	 */
+	@Parameter(defaultValue = "1000")
+	protected long resultsTimelineIntervalInMs;
+
+	/**
+	 * Maximum number of intervals of the results timeline of a label, when the results span more intervals the width
+	 * of the intervals is doubled until they fit. Bounds the memory used by the timeline.
+	 * Defaults to 1800
+	 */
+	@Parameter(defaultValue = "1800")
+	protected int resultsTimelineMaxIntervals;
+
+	/**
+	 * Compute exact elapsed time percentiles instead of the approximations of the elapsed time histograms, which can be
+	 * up to 1.6% too high. Every elapsed time is written to files in exactElapsedTimesDirectory while the results are
+	 * scanned, and the percentiles are selected from the memory mapped files, so the heap use does not grow with the
+	 * number of samples. The files are deleted afterwards. Unchanged results files are scanned again in this mode.
+	 * Defaults to false
+	 */
+	@Parameter(defaultValue = "false")
+	protected boolean exactPercentiles;
+
+	/**
+	 * Directory the elapsed times are written to when exactPercentiles is set, needs 4 bytes per sample for all
+	 * samples and another 4 bytes per sample for the labels.
+	 */
+	@Parameter(defaultValue = "${project.build.directory}/jmeter/elapsed-times")
+	protected File exactElapsedTimesDirectory;
+
+	/**
+	 * Also correct the elapsed times for coordinated omission: a thread that waits for a slow response does not send
+	 * the requests it was meant to send meanwhile, so the slow period is underrepresented. For every sample that took
+	 * longer than the intended interval of its thread, the samples that would have been sent meanwhile are added to a
+	 * corrected histogram, the way HdrHistogram does. The corrected percentiles are logged and written to the results
+	 * summary next to the measured ones, and service level agreements are checked against them. Needs the thread names
+	 * in the results files. Defaults to false
+	 */
+	@Parameter(defaultValue = "false")
+	protected boolean correctCoordinatedOmission;
+
+	/**
+	 * Intended intervals between the starts of two samples of a thread, per thread group, used when
+	 * correctCoordinatedOmission is set. The interval of the threads of other thread groups is inferred from the time
+	 * stamps of their samples.
+	 */
+	@Parameter
+	protected List<ExpectedInterval> expectedIntervals = new ArrayList<>();
+
+	/**
+	 * Rules that rewrite the labels of the samples while the results are scanned, e.g. to count labels that contain IDs
+	 * as one label. Applied in the order they are configured.
+	 */
+	@Parameter
+	protected List<LabelNormalizationRule> labelNormalizationRules = new ArrayList<>();
+
+	/**
+	 * Maximum number of labels statistics are kept for, the samples of further labels are counted together as
+	 * overflow and only their most frequent labels are listed. Bounds the memory used by the statistics.
+	 * Defaults to 1000
+	 */
+	@Parameter(defaultValue = "1000")
+	protected int maxLabels;
+
+	/**
+	 * Number of most frequent response codes, response messages and assertion failure messages of the failed samples
+	 * that are logged and written to the results summary, overall and per label. 0 disables the error breakdown.
+	 * Defaults to 5
+	 */
+	@Parameter(defaultValue = "5")
+	protected int errorBreakdownSize;
+
+	/**
+	 * Window the samples must have started in to be counted, so the ramp-up and ramp-down of the test are left out of
+	 * the statistics. Either absolute time stamps, offsets from the first sample or the Perfana ramp-up and constant
+	 * load times. All samples are counted when not set.
+	 */
+	@Parameter
+	protected MeasurementWindow measurementWindow;
+
+	/**
+	 * Service level agreements the results are checked against, the build fails if any of their thresholds is exceeded.
+	 * A threshold applies to a label, to every label matching a regular expression or, when neither is set, to all
+	 * samples together.
+	 */
+	@Parameter
+	protected List<ServiceLevelAgreement> slas = new ArrayList<>();
+
+	/**
+	 * File the baseline summary of the results (counts, throughput and elapsed time histogram per label) is written
+	 * to, so later runs can be compared against this run.
+	 */
+	@Parameter(defaultValue = "${project.build.directory}/jmeter/results-baseline.json")
+	protected File resultsBaselineOutputFile;
+
+	/**
+	 * Baseline summary of a previous run the results are compared against, the build fails if a label has regressed.
+	 * Nothing is compared when not set or when the file does not exist.
+	 */
+	@Parameter
+	protected File baselineFile;
+
+	/**
+	 * Percentage the p95 and p99 elapsed time of a label may grow, and its throughput may drop, compared to the
+	 * baseline before the label has regressed.
+	 * Defaults to 10
+	 */
+	@Parameter(defaultValue = "10")
+	protected double baselineTolerance;
+
+	/**
+	 * Significance level below which the elapsed times of a label are slower than those of the baseline by a
+	 * one-sided Mann-Whitney U test, for example 0.01. Not tested when not set.
+	 */
+	@Parameter
+	protected Double baselineSignificanceLevel;
+
+	/**
+	 * Minimum number of samples of a label, in both the results and the baseline, for the label to be compared.
+	 * Defaults to 30
+	 */
+	@Parameter(defaultValue = "30")
+	protected long baselineMinSamples;
+
 	/**
 	 * Scan JMeter result files for successful, and failed requests/
 	 *
@@ -57,24 +241,303 @@ public class CheckResultsMojo extends AbstractJMeterMojo {
 		    TestConfig testConfig = new TestConfig(new File(testConfigFile));
 		    getLog().info("Will scan results using format:"+testConfig.getFullConfig());
 			ResultScanner resultScanner = new ResultScanner(scanResultsForSuccessfulRequests, scanResultsForFailedRequests,
-			        testConfig.getResultsOutputIsCSVFormat());
+			        testConfig.getResultsOutputIsCSVFormat(), testConfig.getResultsCsvColumns());
+			resultScanner.setChunkSize(resultsScanChunkSizeInMB * 1024 * 1024);
+			resultScanner.setTimeline(resultsTimelineIntervalInMs, resultsTimelineMaxIntervals);
+			try {
+				resultScanner.setLabelNormalization(labelNormalizationRules, maxLabels);
+			} catch (PatternSyntaxException ex) {
+				throw new MojoExecutionException("Invalid pattern in labelNormalizationRules: " + ex.getMessage(), ex);
+			}
+			if (correctCoordinatedOmission) {
+				getLog().info("Correcting elapsed times for coordinated omission, expected intervals: " + expectedIntervals);
+				resultScanner.setCoordinatedOmissionCorrection(true, expectedIntervals);
+			}
+			if (null != measurementWindow) {
+				applyPerfanaTimes(measurementWindow);
+				getLog().info(measurementWindow.toString());
+				resultScanner.setMeasurementWindow(measurementWindow);
+			}
+			ScanCache scanCache = null;
+			if (useResultsScanCache) {
+				scanCache = ScanCache.load(new File(new File(testConfigFile).getAbsoluteFile().getParentFile(), SCAN_CACHE_FILE_NAME));
+				resultScanner.setScanCache(scanCache);
+			}
+			List<File> resultFiles = new ArrayList<>();
 			for (String resultFileLocation : testConfig.getResultsFileLocations()) {
-				resultScanner.parseResultFile(new File(resultFileLocation));
+				resultFiles.add(new File(resultFileLocation));
+			}
+			if (exactPercentiles) {
+				parseResultFilesWithExactPercentiles(resultScanner, resultFiles);
+			} else {
+				resultScanner.parseResultFiles(resultFiles, computeScanParallelism());
+			}
+			if (null != scanCache) {
+				saveScanCache(scanCache);
 			}
 			getLog().info(" ");
 			getLog().info("Performance Test Results");
 			getLog().info(" ");
 			getLog().info("Result (.jtl) files scanned:	" + testConfig.getResultsFileLocations().size());
+			if (resultScanner.getCachedFileCount() > 0) {
+				getLog().info("Unchanged (cached) files:	" + resultScanner.getCachedFileCount());
+			}
 			getLog().info("Successful requests: 		" + resultScanner.getSuccessCount());
 			getLog().info("Failed requests: 			" + resultScanner.getFailureCount());
 			getLog().info(" ");
+			logElapsedTimes(resultScanner.getStatistics());
+			logErrorBreakdown(resultScanner.getStatistics());
+			ResultsSummary summary = new ResultsSummary(resultScanner.getStatistics(), errorBreakdownSize);
+			summary.writeTo(resultsSummaryFile);
+			getLog().info("Results summary written to: " + resultsSummaryFile.getAbsolutePath());
+			ResultsTimeline timeline = new ResultsTimeline(resultScanner.getStatistics());
+			timeline.writeTo(resultsTimelineFile);
+			getLog().info("Results timeline of " + timeline.getIntervalCount() + " intervals of " + timeline.getInterval()
+					+ " ms written to: " + resultsTimelineFile.getAbsolutePath());
+			getLog().info(" ");
+			List<ServiceLevelAgreementChecker.Check> failedChecks = checkServiceLevelAgreements(resultScanner.getStatistics());
+			List<BaselineComparator.Comparison> regressions = compareWithBaseline(resultScanner.getStatistics());
+			new ResultsBaseline(resultScanner.getStatistics()).writeTo(resultsBaselineOutputFile);
+			testConfig.setResultsBaselineFile(resultsBaselineOutputFile.getAbsolutePath());
+			testConfig.writeResultFilesConfigTo(testConfigFile);
+			getLog().info("Results baseline written to: " + resultsBaselineOutputFile.getAbsolutePath());
+			getLog().info(" ");
 			if (!ignoreResultFailures && resultScanner.getFailureCount() > 0) {
 				throw new MojoFailureException("Failing build because failed requests have been detected.  JMeter logs are available at: '" + logsDirectory.getAbsolutePath() + "'");
 			}
+			if (!failedChecks.isEmpty()) {
+				StringBuilder breakdown = new StringBuilder("Failing build because service level agreements have not been met:");
+				for (ServiceLevelAgreementChecker.Check failedCheck : failedChecks) {
+					breakdown.append(System.lineSeparator()).append(failedCheck);
+				}
+				throw new MojoFailureException(breakdown.toString());
+			}
+			if (!regressions.isEmpty()) {
+				StringBuilder breakdown = new StringBuilder("Failing build because results have regressed compared to baseline '"
+						+ baselineFile.getAbsolutePath() + "':");
+				for (BaselineComparator.Comparison regression : regressions) {
+					breakdown.append(System.lineSeparator()).append(regression);
+				}
+				throw new MojoFailureException(breakdown.toString());
+			}
 		} else {
 			getLog().info(" ");
 			getLog().info("Results of Performance Test(s) have not been scanned.");
 			getLog().info(" ");
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Parse the results files writing every elapsed time to the elapsed times directory, and compute the exact
+	 * percentiles from them
+	 *
+	 * @param resultScanner Scanner to parse the files with
+	 * @param resultFiles   Files to parse
+	 * @throws MojoExecutionException when the files cannot be parsed or the elapsed times cannot be written
+	 */
+	private void parseResultFilesWithExactPercentiles(ResultScanner resultScanner, List<File> resultFiles) throws MojoExecutionException {
+		ElapsedTimeStore elapsedTimeStore;
+		try {
+			elapsedTimeStore = new ElapsedTimeStore(exactElapsedTimesDirectory);
+		} catch (IOException ex) {
+			throw new MojoExecutionException(ex.getMessage(), ex);
+		}
+		try {
+			resultScanner.setElapsedTimeStore(elapsedTimeStore);
+			resultScanner.parseResultFiles(resultFiles, computeScanParallelism());
+			long startTime = System.nanoTime();
+			resultScanner.getStatistics().computeExactPercentiles(ResultsSummary.PERCENTILES);
+			getLog().info("Exact percentiles computed in " + (System.nanoTime() - startTime) / 1_000_000 + " ms");
+		} catch (IOException ex) {
+			throw new MojoExecutionException("Unable to compute exact percentiles from "
+					+ exactElapsedTimesDirectory.getAbsolutePath() + ": " + ex.getMessage(), ex);
+		} finally {
+			elapsedTimeStore.delete();
+		}
+	}
+
+	private int computeScanParallelism() {
+		return resultsScanParallelism > 0 ? resultsScanParallelism : Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Set the offsets of the measurement window from the Perfana ramp-up and constant load times, if requested
+	 *
+	 * @param window Measurement window
+	 * @throws MojoExecutionException
+	 */
+	private void applyPerfanaTimes(MeasurementWindow window) throws MojoExecutionException {
+		if (!window.isUsePerfanaTimes()) {
+			return;
+		}
+		try {
+			long rampup = Long.parseLong(perfanaRampupTimeInSeconds.trim());
+			long constantLoad = Long.parseLong(perfanaConstantLoadTimeInSeconds.trim());
+			window.setStartOffsetInSeconds(rampup);
+			window.setEndOffsetInSeconds(rampup + constantLoad);
+		} catch (NumberFormatException | NullPointerException ex) {
+			throw new MojoExecutionException("Unable to set the measurement window from perfanaRampupTimeInSeconds ("
+					+ perfanaRampupTimeInSeconds + ") and perfanaConstantLoadTimeInSeconds ("
+					+ perfanaConstantLoadTimeInSeconds + ")", ex);
+		}
+	}
+
+	private void logElapsedTimes(ResultStatistics statistics) {
+		if (statistics.getLabels().isEmpty()) {
+			return;
+		}
+		logElapsedTimes("Elapsed time (ms) per label", statistics, false);
+		if (null != statistics.getTotal().getCorrectedElapsed()) {
+			logElapsedTimes("Corrected elapsed time (ms) per label", statistics, true);
+		}
+		if (null != statistics.getOverflow()) {
+			getLog().warn("More than " + maxLabels + " labels, the samples of the other labels are counted as "
+					+ ResultsSummary.OVERFLOW_LABEL + ". Most frequent other labels: "
+					+ statistics.getOverflowLabels().getTop(10));
+			getLog().info(" ");
+		}
+	}
+
+	private void logElapsedTimes(String title, ResultStatistics statistics, boolean corrected) {
+		StringBuilder header = new StringBuilder(String.format("%-40s %9s %9s", title, "samples", "failures"));
+		for (double percentile : ResultsSummary.PERCENTILES) {
+			header.append(String.format(" %8s", ResultsSummary.percentileName(percentile)));
+		}
+		getLog().info(header.append(String.format(" %8s", "max")).toString());
+		for (Map.Entry<String, LabelStatistics> label : statistics.getLabels().entrySet()) {
+			logElapsedTimes(label.getKey(), label.getValue(), corrected);
+		}
+		LabelStatistics overflow = statistics.getOverflow();
+		if (null != overflow) {
+			logElapsedTimes(ResultsSummary.OVERFLOW_LABEL, overflow, corrected);
+		}
+		logElapsedTimes("TOTAL", statistics.getTotal(), corrected);
+		getLog().info(" ");
+	}
+
+	private void logErrorBreakdown(ResultStatistics statistics) {
+		if (errorBreakdownSize <= 0 || statistics.getFailureCount() == 0) {
+			return;
+		}
+		getLog().info("Errors per label (most frequent first)");
+		for (Map.Entry<String, LabelStatistics> label : statistics.getLabels().entrySet()) {
+			logErrorBreakdown(label.getKey(), label.getValue());
+		}
+		logErrorBreakdown("TOTAL", statistics.getTotal());
+		getLog().info(" ");
+	}
+
+	private void logErrorBreakdown(String label, LabelStatistics statistics) {
+		ErrorBreakdown errors = statistics.getErrors();
+		if (statistics.getFailureCount() == 0 || errors.isEmpty()) {
+			return;
+		}
+		getLog().info(label + " (" + statistics.getFailureCount() + " failures)");
+		logErrorBreakdown("response codes", errors.getResponseCodes());
+		logErrorBreakdown("response messages", errors.getResponseMessages());
+		logErrorBreakdown("failure messages", errors.getFailureMessages());
+	}
+
+	private void logErrorBreakdown(String name, HeavyHitters heavyHitters) {
+		if (heavyHitters.isEmpty()) {
+			return;
+		}
+		getLog().info("    " + name + ":");
+		for (HeavyHitters.Counter counter : heavyHitters.getTop(errorBreakdownSize)) {
+			getLog().info(String.format("    %9d  %s", counter.getCount(), counter.getValue().replaceAll("\\s+", " ")));
+		}
+	}
+
+	private void logElapsedTimes(String label, LabelStatistics statistics, boolean corrected) {
+		LatencyHistogram correctedElapsed = statistics.getCorrectedElapsed();
+		StringBuilder line = new StringBuilder(String.format("%-40s %9d %9d", label, statistics.getSampleCount(),
+				statistics.getFailureCount()));
+		if (corrected && null == correctedElapsed) {
+			getLog().info(line.toString());
+			return;
+		}
+		for (double percentile : ResultsSummary.PERCENTILES) {
+			line.append(String.format(" %8d", corrected ? correctedElapsed.getValueAtPercentile(percentile)
+					: statistics.getValueAtPercentile(percentile)));
+		}
+		long max = corrected ? correctedElapsed.getMax() : statistics.getElapsed().getMax();
+		getLog().info(line.append(String.format(" %8d", max)).toString());
+	}
+
+	/**
+	 * Save the scan cache, a cache that cannot be saved only means the result files are scanned again next time
+	 *
+	 * @param scanCache The cache to save
+	 */
+	private void saveScanCache(ScanCache scanCache) {
+		try {
+			scanCache.save();
+		} catch (IOException ex) {
+			getLog().warn("Unable to save the results scan cache: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Compare the results with the baseline and log the outcome of every comparison
+	 *
+	 * @param statistics Statistics of the results files
+	 * @return The comparisons that show a regression
+	 * @throws MojoExecutionException when the baseline cannot be read
+	 */
+	private List<BaselineComparator.Comparison> compareWithBaseline(ResultStatistics statistics) throws MojoExecutionException {
+		List<BaselineComparator.Comparison> regressions = new ArrayList<>();
+		if (null == baselineFile) {
+			return regressions;
+		}
+		if (!baselineFile.exists()) {
+			getLog().warn("Baseline '" + baselineFile.getAbsolutePath() + "' does not exist, results are not compared");
+			return regressions;
+		}
+		ResultsBaseline baseline = new ResultsBaseline(baselineFile);
+		getLog().info("Comparison with baseline '" + baselineFile.getAbsolutePath() + "'");
+		getLog().info(" ");
+		BaselineComparator comparator = new BaselineComparator(baselineTolerance, baselineSignificanceLevel, baselineMinSamples);
+		for (BaselineComparator.Comparison comparison : comparator.compare(statistics, baseline.getLabels())) {
+			if (comparison.isPassed()) {
+				getLog().info(comparison.toString());
+			} else {
+				getLog().error(comparison.toString());
+				regressions.add(comparison);
+			}
+		}
+		getLog().info(" ");
+		return regressions;
+	}
+
+	/**
+	 * Check the service level agreements and log the outcome of every threshold
+	 *
+	 * @param statistics Statistics of the results files
+	 * @return The thresholds that have been exceeded
+	 * @throws MojoExecutionException when a label pattern is not a valid regular expression
+	 */
+	private List<ServiceLevelAgreementChecker.Check> checkServiceLevelAgreements(ResultStatistics statistics) throws MojoExecutionException {
+		List<ServiceLevelAgreementChecker.Check> failedChecks = new ArrayList<>();
+		if (slas.isEmpty()) {
+			return failedChecks;
+		}
+		ServiceLevelAgreementChecker checker;
+		try {
+			checker = new ServiceLevelAgreementChecker(slas);
+		} catch (PatternSyntaxException ex) {
+			throw new MojoExecutionException("Invalid labelPattern in slas: " + ex.getMessage(), ex);
+		}
+		getLog().info("Service level agreements");
+		getLog().info(" ");
+		for (ServiceLevelAgreementChecker.Check check : checker.check(statistics)) {
+			if (check.isPassed()) {
+				getLog().info(check.toString());
+			} else {
+				getLog().error(check.toString());
+				failedChecks.add(check);
+			}
+		}
+		getLog().info(" ");
+		return failedChecks;
+	}
+}
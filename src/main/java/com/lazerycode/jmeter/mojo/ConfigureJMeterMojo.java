@@ -1,11 +1,15 @@
 package com.lazerycode.jmeter.mojo;
 
+import com.lazerycode.jmeter.configuration.JMeterProcessJVMSettings;
 import com.lazerycode.jmeter.exceptions.DependencyResolutionException;
 import com.lazerycode.jmeter.exceptions.IOException;
 import com.lazerycode.jmeter.json.TestConfig;
 import com.lazerycode.jmeter.properties.ConfigurationFiles;
 import com.lazerycode.jmeter.properties.PropertiesFile;
 import com.lazerycode.jmeter.properties.PropertiesMapping;
+import com.lazerycode.jmeter.testrunner.ClassDataSharingArchive;
+import com.lazerycode.jmeter.testrunner.JVMAutoSizing;
+import com.lazerycode.jmeter.testrunner.ResultField;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.maven.plugin.MojoExecutionException;
@@ -49,7 +53,9 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
 import java.util.UUID;
 import java.util.jar.JarEntry;
@@ -294,6 +300,33 @@ public class ConfigureJMeterMojo extends AbstractJMeterMojo {
 	protected String resultsFileFormat;
 	protected boolean resultsOutputIsCSVFormat = false;
 
+	/**
+	 * Compression of the results files written by JMeter, the results goal reads compressed files as they are.
+	 * Valid values are: none, gzip (none set by default).
+	 */
+	@Parameter(defaultValue = TestConfig.RESULTS_CODEC_NONE)
+	protected String resultsCompression;
+	protected List<String> resultsCsvColumns = new ArrayList<>();
+	protected String resultsCsvHeader;
+
+	/**
+	 * Convert the results file of every test, once the test has finished, to a compact columnar binary file that the
+	 * results goal reads instead of the original results file, which is kept.
+	 * Defaults to false
+	 */
+	@Parameter(defaultValue = "false")
+	protected boolean convertResultsToColumnar;
+
+	/**
+	 * Create a class data sharing archive of the JMeter classes with a training run of JMeter, and start the forked
+	 * JMeter JVMs with it so they start faster. The archive is kept in the cds directory of the JMeter directory and is
+	 * only created again when the Java runtime, the JVM settings or the JMeter jars change. Needs Java 11 or later for
+	 * the forked JVMs, Java 13 or later to archive the classes of the JMeter lib directories too.
+	 * Defaults to false
+	 */
+	@Parameter(defaultValue = "false")
+	protected boolean generateClassDataSharingArchive;
+
 	protected Artifact jmeterConfigArtifact;
 	protected File customPropertiesDirectory;
 	protected File libDirectory;
@@ -334,9 +367,32 @@ public class ConfigureJMeterMojo extends AbstractJMeterMojo {
 		configurePropertiesFiles();
 		getLog().info(" Generating JSON Test config ...");
 		generateTestConfig();
+		if (generateClassDataSharingArchive) {
+			getLog().info(" Generating class data sharing archive ...");
+			generateClassDataSharingArchive();
+		}
 		JMeterConfigurationHolder.getInstance().freezeConfiguration();
 	}
 
+	/**
+	 * Create or reuse the class data sharing archive of the JMeter classes, JMeter runs without one when it fails
+	 */
+	private void generateClassDataSharingArchive() {
+		JMeterConfigurationHolder configuration = JMeterConfigurationHolder.getInstance();
+		// Train with the settings the tests will be forked with, which the JVM checks the archive against
+		JMeterProcessJVMSettings forkedJVMSettings = JVMAutoSizing.size(jMeterProcessJVMSettings,
+				null == remoteConfig ? maxConcurrentTests : 1);
+		try {
+			configuration.setSharedArchiveFile(ClassDataSharingArchive.createOrReuse(new File(jmeterDirectory, "cds"),
+					configuration.getWorkingDirectory(), configuration.getRuntimeJarName(), forkedJVMSettings));
+		} catch (MojoExecutionException ex) {
+			getLog().warn(ex.getMessage() + ", JMeter starts without one");
+		} catch (InterruptedException ex) {
+			getLog().warn("Interrupted while creating a class data sharing archive, JMeter starts without one");
+			Thread.currentThread().interrupt();
+		}
+	}
+
 	/**
 	 * Parses excludedArtifactsAsString and fills parsedExcludedArtifacts
 	 * @param excludedArtifactsAsString List of exclusion
@@ -410,13 +466,65 @@ public class ConfigureJMeterMojo extends AbstractJMeterMojo {
 			customProperties.writePropertiesToFile(new File(customPropertiesDirectory, customPropertiesFilename));
 		}
 
+		resultsCsvColumns = computeResultsCsvColumns(propertiesMap);
+		resultsCsvHeader = computeResultsCsvHeader(propertiesMap);
+
 		setDefaultPluginProperties(JMeterConfigurationHolder.getInstance().getWorkingDirectory().getAbsolutePath());
 	}
 
+	/**
+	 * Work out the columns JMeter will write to CSV results files from the save service properties,
+	 * so results files written without a header can still be parsed by column.
+	 *
+	 * @param propertiesMap Properties written for this JMeter instance
+	 * @return Column headers in the order JMeter writes them, empty if results are not written as CSV
+	 */
+	static List<String> computeResultsCsvColumns(Map<ConfigurationFiles, PropertiesMapping> propertiesMap) {
+		Properties effectiveProperties = effectiveProperties(propertiesMap);
+		if (!isCsvOutputFormat(effectiveProperties)) {
+			return new ArrayList<>();
+		}
+		return ResultField.csvColumns(effectiveProperties);
+	}
+
+	/**
+	 * Work out the header line JMeter writes to new CSV results files from the save service properties,
+	 * so it can be written to results files JMeter only appends to.
+	 *
+	 * @param propertiesMap Properties written for this JMeter instance
+	 * @return The header, null if results are not written as CSV or JMeter does not print the field names
+	 */
+	static String computeResultsCsvHeader(Map<ConfigurationFiles, PropertiesMapping> propertiesMap) {
+		Properties effectiveProperties = effectiveProperties(propertiesMap);
+		if (!isCsvOutputFormat(effectiveProperties)) {
+			return null;
+		}
+		return ResultField.csvHeader(effectiveProperties);
+	}
+
+	private static Properties effectiveProperties(Map<ConfigurationFiles, PropertiesMapping> propertiesMap) {
+		Properties effectiveProperties = new Properties();
+		for (ConfigurationFiles configurationFile : new ConfigurationFiles[]{JMETER_PROPERTIES, USER_PROPERTIES}) {
+			PropertiesMapping mapping = propertiesMap.get(configurationFile);
+			if (null != mapping && null != mapping.getPropertiesFile()) {
+				effectiveProperties.putAll(mapping.getPropertiesFile().getProperties());
+			}
+		}
+		return effectiveProperties;
+	}
+
+	private static boolean isCsvOutputFormat(Properties effectiveProperties) {
+		return "csv".equalsIgnoreCase(effectiveProperties.getProperty("jmeter.save.saveservice.output_format", "csv").trim());
+	}
+
 	protected void generateTestConfig() throws MojoExecutionException {
 	    try (InputStream configFile = this.getClass().getResourceAsStream(BASE_CONFIG_FILE)) {
     		TestConfig testConfig = new TestConfig(configFile);
     		testConfig.setResultsOutputIsCSVFormat(resultsOutputIsCSVFormat);
+    		testConfig.setResultsCsvColumns(resultsCsvColumns);
+    		testConfig.setResultsCsvHeader(resultsCsvHeader);
+    		testConfig.setResultsCodec(resultsCodec());
+    		testConfig.setResultsColumnar(convertResultsToColumnar);
     		testConfig.setGenerateReports(generateReports);
     		testConfig.writeResultFilesConfigTo(testConfigFile);
 	    } catch(java.io.IOException ex) {
@@ -424,6 +532,15 @@ public class ConfigureJMeterMojo extends AbstractJMeterMojo {
 	    }
 	}
 
+	private String resultsCodec() throws MojoExecutionException {
+		String codec = null == resultsCompression ? TestConfig.RESULTS_CODEC_NONE : resultsCompression.trim().toLowerCase(Locale.ROOT);
+		if (!TestConfig.RESULTS_CODEC_NONE.equals(codec) && !TestConfig.RESULTS_CODEC_GZIP.equals(codec)) {
+			throw new MojoExecutionException("Invalid <resultsCompression>" + resultsCompression
+					+ "</resultsCompression>, valid values are: none, gzip");
+		}
+		return codec;
+	}
+
 	protected void setJMeterResultFileFormat() {
 		if (generateReports || "csv".equalsIgnoreCase(resultsFileFormat)) {
 			propertiesJMeter.put("jmeter.save.saveservice.output_format", "csv");
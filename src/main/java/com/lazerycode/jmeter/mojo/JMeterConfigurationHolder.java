@@ -18,6 +18,7 @@ public class JMeterConfigurationHolder {
     private String runtimeJarName;
     private File workingDirectory;
     private Map<ConfigurationFiles, PropertiesMapping> propertiesMap;
+    private File sharedArchiveFile;
     
     private boolean configurationFreezed;
 
@@ -83,6 +84,23 @@ public class JMeterConfigurationHolder {
         this.propertiesMap = Collections.unmodifiableMap(propertiesMap);
     }
 
+    /**
+     * @return the class data sharing archive of the JMeter classes, null when there is none
+     */
+    public File getSharedArchiveFile() {
+        return sharedArchiveFile;
+    }
+
+    /**
+     * @param sharedArchiveFile the sharedArchiveFile to set
+     */
+    void setSharedArchiveFile(File sharedArchiveFile) {
+        if(configurationFreezed) {
+            throw new IllegalStateException("setSharedArchiveFile called while JMeter configuration already freezed");
+        }
+        this.sharedArchiveFile = sharedArchiveFile;
+    }
+
     /**
      * Freeze configuration
      */
@@ -97,6 +115,7 @@ public class JMeterConfigurationHolder {
         workingDirectory = null;
         runtimeJarName = null;
         propertiesMap = null;
+        sharedArchiveFile = null;
         this.configurationFreezed = false;
     }
 }
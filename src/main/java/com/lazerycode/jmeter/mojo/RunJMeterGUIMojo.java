@@ -13,6 +13,7 @@ import org.apache.maven.plugins.annotations.Parameter;
 import com.lazerycode.jmeter.configuration.JMeterArgumentsArray;
 import com.lazerycode.jmeter.json.TestConfig;
 import com.lazerycode.jmeter.testrunner.JMeterProcessBuilder;
+import com.lazerycode.jmeter.testrunner.JVMAutoSizing;
 import com.lazerycode.jmeter.utility.UtilityFunctions;
 
 /**
@@ -61,9 +62,10 @@ public class RunJMeterGUIMojo extends AbstractJMeterMojo {
 	}
 
 	private void startJMeterGUI() throws MojoExecutionException {
-		JMeterProcessBuilder jmeterProcessBuilder = new JMeterProcessBuilder(jMeterProcessJVMSettings, 
+		JMeterProcessBuilder jmeterProcessBuilder = new JMeterProcessBuilder(JVMAutoSizing.size(jMeterProcessJVMSettings, 1), 
 		        JMeterConfigurationHolder.getInstance().getRuntimeJarName());
 		jmeterProcessBuilder.setWorkingDirectory(JMeterConfigurationHolder.getInstance().getWorkingDirectory());
+		jmeterProcessBuilder.setSharedArchiveFile(JMeterConfigurationHolder.getInstance().getSharedArchiveFile());
 		jmeterProcessBuilder.addArguments(testArgs.buildArgumentsArray());
 		try {
 			final Process process = jmeterProcessBuilder.startProcess();
@@ -59,6 +59,14 @@ public class RunJMeterMojo extends AbstractJMeterMojo {
 		                remoteConfig, suppressJMeterOutput, JMeterConfigurationHolder.getInstance().getWorkingDirectory(), jMeterProcessJVMSettings, 
 		                JMeterConfigurationHolder.getInstance().getRuntimeJarName(), reportDirectory, generateReports, perfanaClient);
 		jMeterTestManager.setPostTestPauseInSeconds(postTestPauseInSeconds);
+		jMeterTestManager.setMaxConcurrentTests(maxConcurrentTests);
+		jMeterTestManager.setUseDaemon(useJMeterDaemon);
+		jMeterTestManager.setSharedArchiveFile(JMeterConfigurationHolder.getInstance().getSharedArchiveFile());
+		jMeterTestManager.setCompressResults(TestConfig.RESULTS_CODEC_GZIP.equals(testConfig.getResultsCodec()));
+		jMeterTestManager.setResultsCsvHeader(testConfig.getResultsCsvHeader());
+		jMeterTestManager.setConvertResultsToColumnar(testConfig.getResultsColumnar());
+		jMeterTestManager.setEarlyAbortConfiguration(earlyAbort, testConfig.getResultsOutputIsCSVFormat(),
+				testConfig.getResultsCsvColumns());
 		getLog().info(" ");
 		if (proxyConfig != null) {
 			getLog().info(this.proxyConfig.toString());
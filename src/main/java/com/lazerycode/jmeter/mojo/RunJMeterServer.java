@@ -13,6 +13,7 @@ import org.apache.maven.plugins.annotations.Parameter;
 import com.lazerycode.jmeter.configuration.JMeterArgumentsArray;
 import com.lazerycode.jmeter.configuration.JMeterProcessJVMSettings;
 import com.lazerycode.jmeter.testrunner.JMeterProcessBuilder;
+import com.lazerycode.jmeter.testrunner.JVMAutoSizing;
 import com.lazerycode.jmeter.utility.UtilityFunctions;
 
 /**
@@ -89,9 +90,10 @@ public class RunJMeterServer extends AbstractJMeterMojo {
 	    }
 	    jMeterProcessJVMSettings.getArguments().add("-Dserver_port="+serverPort);
 
-		JMeterProcessBuilder jmeterProcessBuilder = new JMeterProcessBuilder(jMeterProcessJVMSettings, 
+		JMeterProcessBuilder jmeterProcessBuilder = new JMeterProcessBuilder(JVMAutoSizing.size(jMeterProcessJVMSettings, 1), 
 		        JMeterConfigurationHolder.getInstance().getRuntimeJarName());
 		jmeterProcessBuilder.setWorkingDirectory(JMeterConfigurationHolder.getInstance().getWorkingDirectory());
+		jmeterProcessBuilder.setSharedArchiveFile(JMeterConfigurationHolder.getInstance().getSharedArchiveFile());
 		jmeterProcessBuilder.addArguments(testArgs.buildArgumentsArray());
 		try {
 			final Process process = jmeterProcessBuilder.startProcess();
@@ -0,0 +1,190 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the statistics of a run with those of a baseline run, label by label, to detect regressions.
+ * <p/>
+ * The 95th and 99th percentile of the elapsed time may not grow, and the throughput may not drop, by more than a
+ * tolerance percentage. When a significance level is set, the elapsed times of a label are also compared as a whole
+ * with a one-sided Mann-Whitney U test on the buckets of both histograms: a label regresses when the probability
+ * that its elapsed times are not slower than those of the baseline falls below the significance level. Note that
+ * with many samples even a small shift becomes significant.
+ */
+public class BaselineComparator {
+	private static final Logger LOGGER = LoggerFactory.getLogger(BaselineComparator.class);
+
+	private final double tolerance;
+	private final Double significanceLevel;
+	private final long minSamples;
+
+	/**
+	 * @param tolerance         Percentage a metric may change towards slower before it is a regression
+	 * @param significanceLevel Significance level of the Mann-Whitney U test, null to not test for significance
+	 * @param minSamples        Minimum number of samples of a label, in both runs, for the label to be compared
+	 */
+	public BaselineComparator(double tolerance, Double significanceLevel, long minSamples) {
+		this.tolerance = tolerance;
+		this.significanceLevel = significanceLevel;
+		this.minSamples = minSamples;
+	}
+
+	/**
+	 * Compare every label found in both runs
+	 *
+	 * @param statistics Statistics of the results files
+	 * @param baseline   Statistics of the baseline run per label
+	 * @return The outcome of every comparison
+	 */
+	public List<Comparison> compare(ResultStatistics statistics, Map<String, LabelStatistics> baseline) {
+		List<Comparison> comparisons = new ArrayList<>();
+		for (Map.Entry<String, LabelStatistics> label : statistics.getLabels().entrySet()) {
+			LabelStatistics baselineStatistics = baseline.get(label.getKey());
+			if (null == baselineStatistics) {
+				LOGGER.info("Label '{}' is not in the baseline and is not compared", label.getKey());
+			} else if (label.getValue().getSampleCount() < minSamples || baselineStatistics.getSampleCount() < minSamples) {
+				LOGGER.info("Label '{}' has fewer than {} samples and is not compared", label.getKey(), minSamples);
+			} else {
+				compare(label.getKey(), label.getValue(), baselineStatistics, comparisons);
+			}
+		}
+		return comparisons;
+	}
+
+	private void compare(String label, LabelStatistics current, LabelStatistics baseline, List<Comparison> comparisons) {
+		double maxGrowth = 1 + tolerance / 100;
+		long baselineP95 = baseline.getElapsed().getValueAtPercentile(95);
+		long p95 = current.getElapsed().getValueAtPercentile(95);
+		comparisons.add(new Comparison(label, "p95 elapsed (ms)", baselineP95, p95, baselineP95 * maxGrowth,
+				p95 <= baselineP95 * maxGrowth));
+		long baselineP99 = baseline.getElapsed().getValueAtPercentile(99);
+		long p99 = current.getElapsed().getValueAtPercentile(99);
+		comparisons.add(new Comparison(label, "p99 elapsed (ms)", baselineP99, p99, baselineP99 * maxGrowth,
+				p99 <= baselineP99 * maxGrowth));
+		if (baseline.getThroughput() > 0 && current.getThroughput() > 0) {
+			double minThroughput = baseline.getThroughput() * Math.max(0, 1 - tolerance / 100);
+			comparisons.add(new Comparison(label, "throughput (/s)", baseline.getThroughput(), current.getThroughput(),
+					minThroughput, current.getThroughput() >= minThroughput));
+		}
+		if (null != significanceLevel) {
+			double pValue = probabilityNotSlower(current.getElapsed(), baseline.getElapsed());
+			comparisons.add(new Comparison(label, "p-value elapsed not slower", Double.NaN, pValue, significanceLevel,
+					pValue >= significanceLevel));
+		}
+	}
+
+	/**
+	 * One-sided Mann-Whitney U test, with continuity and tie correction, on the buckets of two histograms. Values
+	 * in the same bucket count as ties.
+	 *
+	 * @param current  Elapsed times of the run
+	 * @param baseline Elapsed times of the baseline run
+	 * @return The probability of seeing elapsed times at least this much slower than the baseline if they were not
+	 * slower
+	 */
+	static double probabilityNotSlower(LatencyHistogram current, LatencyHistogram baseline) {
+		double n1 = current.getCount();
+		double n2 = baseline.getCount();
+		if (n1 == 0 || n2 == 0) {
+			return 1;
+		}
+		double u = 0;
+		double ties = 0;
+		double baselineBelow = 0;
+		for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+			double currentCount = current.getCountAtIndex(i);
+			double baselineCount = baseline.getCountAtIndex(i);
+			u += currentCount * (baselineBelow + baselineCount / 2);
+			double tied = currentCount + baselineCount;
+			ties += tied * tied * tied - tied;
+			baselineBelow += baselineCount;
+		}
+		double n = n1 + n2;
+		double variance = n1 * n2 / 12 * ((n + 1) - ties / (n * (n - 1)));
+		if (variance <= 0) {
+			return 1;
+		}
+		double z = (u - n1 * n2 / 2 - 0.5) / Math.sqrt(variance);
+		return 0.5 * erfc(z / Math.sqrt(2));
+	}
+
+	/**
+	 * Complementary error function, with a fractional error below 1.2e-7 (Numerical Recipes, erfcc)
+	 */
+	private static double erfc(double x) {
+		double t = 1 / (1 + 0.5 * Math.abs(x));
+		double ans = t * Math.exp(-x * x - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+				+ t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587
+				+ t * (-0.82215223 + t * 0.17087277)))))))));
+		return x >= 0 ? ans : 2 - ans;
+	}
+
+	/**
+	 * The outcome of one comparison for one label
+	 */
+	public static final class Comparison {
+		private final String label;
+		private final String metric;
+		private final double baseline;
+		private final double actual;
+		private final double limit;
+		private final boolean passed;
+
+		Comparison(String label, String metric, double baseline, double actual, double limit, boolean passed) {
+			this.label = label;
+			this.metric = metric;
+			this.baseline = baseline;
+			this.actual = actual;
+			this.limit = limit;
+			this.passed = passed;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+
+		public String getMetric() {
+			return metric;
+		}
+
+		/**
+		 * @return The value of the baseline run, NaN when the metric compares both runs as a whole
+		 */
+		public double getBaseline() {
+			return baseline;
+		}
+
+		public double getActual() {
+			return actual;
+		}
+
+		public double getLimit() {
+			return limit;
+		}
+
+		public boolean isPassed() {
+			return passed;
+		}
+
+		/**
+		 * The outcome formatted for command line output.
+		 *
+		 * @return String
+		 */
+		@Override
+		public String toString() {
+			if (Double.isNaN(baseline)) {
+				return String.format(Locale.ROOT, "%s %s: %s %.4f (limit %.4f)", passed ? "PASSED" : "FAILED", label,
+						metric, actual, limit);
+			}
+			return String.format(Locale.ROOT, "%s %s: %s %.2f (baseline %.2f, limit %.2f)", passed ? "PASSED" : "FAILED",
+					label, metric, actual, baseline, limit);
+		}
+	}
+}
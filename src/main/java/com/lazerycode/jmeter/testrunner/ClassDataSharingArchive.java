@@ -0,0 +1,286 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.lazerycode.jmeter.configuration.JMeterProcessJVMSettings;
+
+/**
+ * Creates class data sharing (AppCDS) archives of the JMeter classes, so forked JMeter JVMs map the classes from the
+ * archive instead of loading, parsing and verifying them at every start.
+ * <p/>
+ * The archive is created by a training run of JMeter, which starts JMeter and prints its version. Java 13 and later
+ * write a dynamic archive at the end of the training run, which includes the classes JMeter loads from its lib
+ * directories. Java 11 and 12 record the classes loaded by the training run and dump a static archive of them, which
+ * only covers the classes of the JDK and of the runtime jar. Older versions cannot archive application classes.
+ * <p/>
+ * Archives are cached in a directory, named after the Java version, a hash of the Java runtime and the JVM settings
+ * and a hash of the jars of JMeter, so an archive is only created again when one of them changed. A JVM started with
+ * other settings than the archive was created with may ignore it, {@link #isFor(File, JMeterProcessJVMSettings)}
+ * tells whether the settings match. The start-up time of JMeter with and without the archive is measured and logged
+ * when an archive is created.
+ */
+public final class ClassDataSharingArchive {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ClassDataSharingArchive.class);
+
+	static final int MIN_STATIC_ARCHIVE_VERSION = 11;
+	static final int MIN_DYNAMIC_ARCHIVE_VERSION = 13;
+	private static final Pattern VERSION_PATTERN = Pattern.compile("version \"([^\"]+)\"");
+	private static final String ARCHIVE_PREFIX = "jmeter-";
+	private static final String ARCHIVE_EXTENSION = ".jsa";
+	private static final List<String> TRAINING_ARGUMENTS = Collections.singletonList("--version");
+	private static final long TIMEOUT_SECONDS = 300;
+
+	private ClassDataSharingArchive() {
+	}
+
+	/**
+	 * Create an archive of the JMeter classes for the Java runtime of the JVM settings, or reuse the cached one
+	 *
+	 * @param archiveDirectory Directory the archives are cached in
+	 * @param workingDirectory The JMeter bin directory, holding the runtime jar
+	 * @param runtimeJarName   Name of the JMeter runtime jar
+	 * @param settings         Settings of the forked JMeter JVMs, as sized for the tests, null for the defaults
+	 * @return The archive, null if the Java runtime cannot create one
+	 * @throws MojoExecutionException when the training run fails or the archive cannot be written
+	 * @throws InterruptedException   when interrupted while waiting for the training run
+	 */
+	public static File createOrReuse(File archiveDirectory, File workingDirectory, String runtimeJarName,
+									 JMeterProcessJVMSettings settings) throws MojoExecutionException, InterruptedException {
+		try {
+			return create(archiveDirectory, workingDirectory, runtimeJarName,
+					null == settings ? new JMeterProcessJVMSettings() : settings);
+		} catch (IOException ex) {
+			throw new MojoExecutionException("Unable to create a class data sharing archive: " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * @param archive  An archive created by {@link #createOrReuse(File, File, String, JMeterProcessJVMSettings)}
+	 * @param settings Settings of a JMeter JVM, null for the defaults
+	 * @return true if the archive was created for the Java runtime and JVM settings, false if the JVM may ignore it
+	 */
+	public static boolean isFor(File archive, JMeterProcessJVMSettings settings) {
+		String settingsHash = settingsHash(null == settings ? new JMeterProcessJVMSettings() : settings);
+		return archive.getName().contains("-" + settingsHash + "-");
+	}
+
+	private static File create(File archiveDirectory, File workingDirectory, String runtimeJarName,
+							   JMeterProcessJVMSettings jvmSettings) throws IOException, InterruptedException, MojoExecutionException {
+		String javaVersion = javaVersion(jvmSettings.getJavaRuntime(), workingDirectory);
+		int majorVersion = majorVersion(javaVersion);
+		if (majorVersion < MIN_STATIC_ARCHIVE_VERSION) {
+			LOGGER.info("Java {} cannot create a class data sharing archive of the JMeter classes, Java {} or later is needed",
+					javaVersion, MIN_STATIC_ARCHIVE_VERSION);
+			return null;
+		}
+		String versionName = javaVersion.replaceAll("[^A-Za-z0-9._-]", "_");
+		File archive = new File(archiveDirectory, ARCHIVE_PREFIX + versionName + "-" + settingsHash(jvmSettings) + "-"
+				+ jarsHash(javaVersion, new File(workingDirectory, runtimeJarName),
+				new File(workingDirectory.getAbsoluteFile().getParentFile(), "lib")) + ARCHIVE_EXTENSION);
+		if (archive.isFile()) {
+			LOGGER.info("Using the class data sharing archive {}", archive.getAbsolutePath());
+			return archive;
+		}
+		if (!archiveDirectory.exists() && !archiveDirectory.mkdirs()) {
+			throw new IOException("Unable to create directory " + archiveDirectory.getAbsolutePath());
+		}
+		deleteArchives(archiveDirectory, ARCHIVE_PREFIX + versionName + "-");
+
+		long withoutArchive = timeTrainingRun(newProcessBuilder(jvmSettings, workingDirectory, runtimeJarName));
+		File partialArchive = new File(archiveDirectory, archive.getName() + ".tmp");
+		if (majorVersion >= MIN_DYNAMIC_ARCHIVE_VERSION) {
+			JMeterProcessBuilder training = newProcessBuilder(jvmSettings, workingDirectory, runtimeJarName);
+			training.addJVMArgument("-XX:ArchiveClassesAtExit=" + partialArchive.getAbsolutePath());
+			timeTrainingRun(training);
+		} else {
+			File classList = new File(archiveDirectory, archive.getName() + ".classlist");
+			JMeterProcessBuilder training = newProcessBuilder(jvmSettings, workingDirectory, runtimeJarName);
+			training.addJVMArgument("-XX:DumpLoadedClassList=" + classList.getAbsolutePath());
+			timeTrainingRun(training);
+			List<String> dump = new ArrayList<>();
+			dump.add(jvmSettings.getJavaRuntime());
+			dump.add("-Xms" + jvmSettings.getXms() + "M");
+			dump.add("-Xmx" + jvmSettings.getXmx() + "M");
+			dump.addAll(jvmSettings.getArguments());
+			dump.addAll(Arrays.asList("-Xshare:dump", "-XX:SharedClassListFile=" + classList.getAbsolutePath(),
+					"-XX:SharedArchiveFile=" + partialArchive.getAbsolutePath(), "-cp", runtimeJarName));
+			run(new ProcessBuilder(dump).directory(workingDirectory));
+			Files.deleteIfExists(classList.toPath());
+		}
+		if (!partialArchive.isFile()) {
+			throw new IOException("The training run did not write the archive " + partialArchive.getAbsolutePath());
+		}
+		Files.move(partialArchive.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		JMeterProcessBuilder withArchiveBuilder = newProcessBuilder(jvmSettings, workingDirectory, runtimeJarName);
+		withArchiveBuilder.setSharedArchiveFile(archive);
+		long withArchive = timeTrainingRun(withArchiveBuilder);
+		LOGGER.info("Created the class data sharing archive {} ({} bytes), JMeter starts in {} ms with it and in {} ms without",
+				archive.getAbsolutePath(), archive.length(), withArchive, withoutArchive);
+		return archive;
+	}
+
+	private static JMeterProcessBuilder newProcessBuilder(JMeterProcessJVMSettings settings, File workingDirectory,
+														  String runtimeJarName) throws MojoExecutionException {
+		JMeterProcessBuilder processBuilder = new JMeterProcessBuilder(settings, runtimeJarName);
+		processBuilder.setWorkingDirectory(workingDirectory);
+		processBuilder.addArguments(TRAINING_ARGUMENTS);
+		return processBuilder;
+	}
+
+	/**
+	 * @return Milliseconds from the start of the training run until JMeter exited
+	 */
+	private static long timeTrainingRun(JMeterProcessBuilder processBuilder) throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		Process process = processBuilder.startProcess();
+		waitFor(process);
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+	}
+
+	private static List<String> run(ProcessBuilder processBuilder) throws IOException, InterruptedException {
+		LOGGER.debug("Running {}", processBuilder.command());
+		return waitFor(processBuilder.redirectErrorStream(true).start());
+	}
+
+	/**
+	 * Wait for a process to exit, reading its output meanwhile
+	 *
+	 * @return The lines of output
+	 * @throws IOException when the process does not exit in time or exits with an error
+	 */
+	private static List<String> waitFor(Process process) throws IOException, InterruptedException {
+		List<String> output = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				LOGGER.debug(line);
+				output.add(line);
+			}
+		}
+		if (!process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+			process.destroyForcibly();
+			throw new IOException("Process did not exit within " + TIMEOUT_SECONDS + "s");
+		}
+		if (process.exitValue() != 0) {
+			throw new IOException("Process exited with code " + process.exitValue() + ": " + output);
+		}
+		return output;
+	}
+
+	/**
+	 * @return The version of a Java runtime, as printed by java -version
+	 */
+	static String javaVersion(String javaRuntime, File workingDirectory) throws IOException, InterruptedException {
+		for (String line : run(new ProcessBuilder(javaRuntime, "-version").directory(workingDirectory))) {
+			Matcher matcher = VERSION_PATTERN.matcher(line);
+			if (matcher.find()) {
+				return matcher.group(1);
+			}
+		}
+		throw new IOException("Unable to determine the version of " + javaRuntime);
+	}
+
+	/**
+	 * @param javaVersion A Java version, e.g. 1.8.0_292, 11.0.2 or 17-ea
+	 * @return The feature release of the version, e.g. 8, 11 or 17, 0 when it is not a version
+	 */
+	static int majorVersion(String javaVersion) {
+		Matcher matcher = Pattern.compile("^(?:1\\.)?(\\d+)").matcher(javaVersion);
+		return matcher.find() ? Integer.parseInt(matcher.group(1)) : 0;
+	}
+
+	/**
+	 * @return Hash of the Java runtime and of the JVM settings that decide whether a JVM can use an archive
+	 */
+	static String settingsHash(JMeterProcessJVMSettings settings) {
+		MessageDigest digest = newDigest();
+		update(digest, settings.getJavaRuntime());
+		update(digest, settings.getXmx() + ";" + settings.getArguments());
+		return toHex(digest);
+	}
+
+	/**
+	 * @return Hash of the Java version and of the jars of JMeter, that the archive holds the classes of
+	 */
+	private static String jarsHash(String javaVersion, File runtimeJar, File libDirectory) {
+		MessageDigest digest = newDigest();
+		update(digest, javaVersion);
+		List<File> jars = new ArrayList<>();
+		jars.add(runtimeJar);
+		addJars(libDirectory, jars);
+		for (File jar : jars) {
+			update(digest, jar.getAbsolutePath() + ';' + jar.length() + ';' + jar.lastModified());
+		}
+		return toHex(digest);
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static String toHex(MessageDigest digest) {
+		StringBuilder hash = new StringBuilder();
+		for (byte hashByte : Arrays.copyOf(digest.digest(), 8)) {
+			hash.append(String.format("%02x", hashByte));
+		}
+		return hash.toString();
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		digest.update(value.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) '\n');
+	}
+
+	private static void addJars(File directory, List<File> jars) {
+		File[] files = directory.listFiles();
+		if (null == files) {
+			return;
+		}
+		Arrays.sort(files);
+		for (File file : files) {
+			if (file.isDirectory()) {
+				addJars(file, jars);
+			} else if (file.getName().endsWith(".jar")) {
+				jars.add(file);
+			}
+		}
+	}
+
+	/**
+	 * Delete the archives of earlier JMeter installations or JVM settings for the same Java version
+	 */
+	private static void deleteArchives(File archiveDirectory, String prefix) {
+		File[] archives = archiveDirectory.listFiles((dir, name) -> name.startsWith(prefix));
+		if (null == archives) {
+			return;
+		}
+		for (File archive : archives) {
+			if (!archive.delete()) {
+				LOGGER.warn("Unable to delete class data sharing archive '{}'", archive.getAbsolutePath());
+			}
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+/**
+ * Reads the samples of a columnar results file written by {@link ColumnarResultsWriter}.
+ * <p/>
+ * The footer and every block are memory mapped, the columns of a block are decoded side by side into a single reused
+ * {@link ResultSample}. Labels and response codes are copied from the dictionaries, nothing is parsed from text.
+ */
+final class ColumnarResultsReader {
+
+	private ColumnarResultsReader() throws AssertionError {
+		throw new AssertionError("This class is non-instantiable.");
+	}
+
+	/**
+	 * @param file File to check
+	 * @return true if the file starts with the magic bytes of a columnar results file
+	 * @throws IOException when the file cannot be read
+	 */
+	static boolean isColumnar(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer magic = ByteBuffer.allocate(ColumnarResultsWriter.MAGIC.length);
+			while (magic.hasRemaining() && channel.read(magic) > 0) {
+				// read the magic bytes
+			}
+			return !magic.hasRemaining() && isMagic(magic, 0);
+		}
+	}
+
+	private static boolean isMagic(ByteBuffer buffer, int offset) {
+		for (int i = 0; i < ColumnarResultsWriter.MAGIC.length; i++) {
+			if (buffer.get(offset + i) != ColumnarResultsWriter.MAGIC[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Read every sample of a columnar results file
+	 *
+	 * @param file            The file to read
+	 * @param requestedFields The fields the handler needs
+	 * @param handler         Handler receiving every sample
+	 * @throws IOException when the file cannot be read or is not a complete columnar results file
+	 */
+	static void read(File file, Set<ResultField> requestedFields, SampleHandler handler) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < ColumnarResultsWriter.HEADER_SIZE + ColumnarResultsWriter.TRAILER_SIZE) {
+				throw new IOException("Incomplete columnar results file");
+			}
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, ColumnarResultsWriter.HEADER_SIZE);
+			if (!isMagic(header, 0)) {
+				throw new IOException("Not a columnar results file");
+			}
+			int version = header.getInt(ColumnarResultsWriter.MAGIC.length);
+			if (version != ColumnarResultsWriter.VERSION) {
+				throw new IOException("Unsupported columnar results file version " + version);
+			}
+			ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, size - ColumnarResultsWriter.TRAILER_SIZE,
+					ColumnarResultsWriter.TRAILER_SIZE);
+			long footerOffset = trailer.getLong(0);
+			if (!isMagic(trailer, 8) || footerOffset < ColumnarResultsWriter.HEADER_SIZE
+					|| footerOffset > size - ColumnarResultsWriter.TRAILER_SIZE) {
+				throw new IOException("Incomplete columnar results file");
+			}
+			MappedByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY, footerOffset,
+					size - ColumnarResultsWriter.TRAILER_SIZE - footerOffset);
+			int blockCount = footer.getInt();
+			long[] blockOffsets = new long[blockCount + 1];
+			int[] blockRows = new int[blockCount];
+			for (int i = 0; i < blockCount; i++) {
+				blockOffsets[i] = footer.getLong();
+				blockRows[i] = footer.getInt();
+			}
+			blockOffsets[blockCount] = footerOffset;
+			long storedFields = footer.getLong();
+			byte[][] labels = readDictionary(footer);
+			byte[][] responseCodes = readDictionary(footer);
+
+			Block block = new Block(requestedFields, storedFields, labels, responseCodes);
+			for (int i = 0; i < blockCount; i++) {
+				block.read(channel.map(FileChannel.MapMode.READ_ONLY, blockOffsets[i],
+						blockOffsets[i + 1] - blockOffsets[i]), blockRows[i], handler);
+			}
+		} catch (IndexOutOfBoundsException | IllegalArgumentException ex) {
+			throw new IOException("Corrupt columnar results file", ex);
+		}
+	}
+
+	private static byte[][] readDictionary(ByteBuffer footer) {
+		byte[][] values = new byte[footer.getInt()][];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = new byte[footer.getInt()];
+			footer.get(values[i]);
+		}
+		return values;
+	}
+
+	/**
+	 * Decodes the rows of a block
+	 */
+	private static final class Block {
+		private final boolean[] numericRequested = new boolean[ColumnarResultsWriter.NUMERIC_FIELDS.length];
+		private final boolean labelRequested;
+		private final boolean responseCodeRequested;
+		private final boolean successRequested;
+		private final byte[][] labels;
+		private final byte[][] responseCodes;
+		private final int[] positions = new int[ColumnarResultsWriter.COLUMN_COUNT];
+		private final ResultSample sample = new ResultSample();
+		private ByteBuffer buffer;
+
+		private Block(Set<ResultField> requestedFields, long storedFields, byte[][] labels, byte[][] responseCodes) {
+			for (int i = 0; i < numericRequested.length; i++) {
+				numericRequested[i] = isRequested(ColumnarResultsWriter.NUMERIC_FIELDS[i], requestedFields, storedFields);
+			}
+			this.labelRequested = isRequested(ResultField.LABEL, requestedFields, storedFields);
+			this.responseCodeRequested = isRequested(ResultField.RESPONSE_CODE, requestedFields, storedFields);
+			this.successRequested = isRequested(ResultField.SUCCESS, requestedFields, storedFields);
+			this.labels = labels;
+			this.responseCodes = responseCodes;
+		}
+
+		private static boolean isRequested(ResultField field, Set<ResultField> requestedFields, long storedFields) {
+			return requestedFields.contains(field) && (storedFields & (1L << field.ordinal())) != 0;
+		}
+
+		private void read(ByteBuffer block, int rows, SampleHandler handler) throws IOException {
+			this.buffer = block;
+			int position = 0;
+			for (int column = 0; column < positions.length; column++) {
+				int length = block.getInt(position);
+				positions[column] = position + 4;
+				position += 4 + length;
+			}
+			long timeStamp = 0;
+			for (int row = 0; row < rows; row++) {
+				sample.reset();
+				timeStamp += readSigned(0);
+				if (numericRequested[0] && timeStamp != ResultSample.NOT_SET) {
+					sample.set(ResultField.TIMESTAMP, timeStamp);
+				}
+				for (int i = 1; i < numericRequested.length; i++) {
+					long value = readUnsigned(i) - 1;
+					if (numericRequested[i] && value != ResultSample.NOT_SET) {
+						sample.set(ColumnarResultsWriter.NUMERIC_FIELDS[i], value);
+					}
+				}
+				int label = (int) readUnsigned(ColumnarResultsWriter.LABEL_COLUMN);
+				if (labelRequested && label > 0) {
+					sample.set(ResultField.LABEL, labels[label - 1], 0, labels[label - 1].length);
+				}
+				int responseCode = (int) readUnsigned(ColumnarResultsWriter.RESPONSE_CODE_COLUMN);
+				if (responseCodeRequested && responseCode > 0) {
+					sample.set(ResultField.RESPONSE_CODE, responseCodes[responseCode - 1], 0,
+							responseCodes[responseCode - 1].length);
+				}
+				int flags = (int) readUnsigned(ColumnarResultsWriter.FLAGS_COLUMN);
+				if (successRequested && (flags & ColumnarResultsWriter.FLAG_SUCCESS_SET) != 0) {
+					sample.set(ResultField.SUCCESS, flags & ColumnarResultsWriter.FLAG_SUCCESS);
+				}
+				sample.setDepth(flags >>> ColumnarResultsWriter.DEPTH_SHIFT);
+				handler.handleSample(sample);
+			}
+			this.buffer = null;
+		}
+
+		private long readSigned(int column) throws IOException {
+			long value = readUnsigned(column);
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		private long readUnsigned(int column) throws IOException {
+			int position = positions[column];
+			long value = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				byte current = buffer.get(position++);
+				value |= (long) (current & 0x7F) << shift;
+				if (current >= 0) {
+					positions[column] = position;
+					return value;
+				}
+			}
+			throw new IOException("Corrupt columnar results file, invalid number");
+		}
+	}
+}
@@ -0,0 +1,280 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes samples to a compact, column oriented binary results file that {@link ColumnarResultsReader} reads.
+ * <p/>
+ * Samples are written in blocks of at most {@link #BLOCK_ROWS} rows. Within a block the values of every column are
+ * stored together as variable length integers: timestamps as the (zigzag encoded) difference with the previous
+ * timestamp, other numbers as value + 1 so a missing value takes a single byte, labels and response codes as an index
+ * into a dictionary. The file ends with a footer that holds the offsets of the blocks and the dictionaries:
+ * <pre>
+ * MAGIC VERSION block* footer footerOffset MAGIC
+ * block:  (columnLength columnBytes) for each of the {@link #COLUMN_COUNT} columns
+ * footer: blockCount (blockOffset blockRows)* storedFields labelCount label* codeCount code*
+ * </pre>
+ */
+final class ColumnarResultsWriter implements SampleHandler, Closeable {
+
+	static final byte[] MAGIC = {'J', 'M', 'C', 'L'};
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = MAGIC.length + 4;
+	static final int TRAILER_SIZE = 8 + MAGIC.length;
+	static final int BLOCK_ROWS = 64 * 1024;
+
+	/**
+	 * Numeric fields, in the order of their columns, the label, response code and flags columns follow
+	 */
+	static final ResultField[] NUMERIC_FIELDS = {ResultField.TIMESTAMP, ResultField.ELAPSED, ResultField.LATENCY,
+			ResultField.CONNECT, ResultField.BYTES, ResultField.SENT_BYTES};
+	static final int LABEL_COLUMN = NUMERIC_FIELDS.length;
+	static final int RESPONSE_CODE_COLUMN = LABEL_COLUMN + 1;
+	static final int FLAGS_COLUMN = RESPONSE_CODE_COLUMN + 1;
+	static final int COLUMN_COUNT = FLAGS_COLUMN + 1;
+	static final int FLAG_SUCCESS = 1;
+	static final int FLAG_SUCCESS_SET = 2;
+	static final int DEPTH_SHIFT = 2;
+
+	/**
+	 * The fields a columnar file holds
+	 */
+	static final Set<ResultField> STORED_FIELDS;
+
+	static {
+		Set<ResultField> stored = EnumSet.of(ResultField.LABEL, ResultField.RESPONSE_CODE, ResultField.SUCCESS);
+		stored.addAll(Arrays.asList(NUMERIC_FIELDS));
+		STORED_FIELDS = Collections.unmodifiableSet(stored);
+	}
+
+	private final DataOutputStream out;
+	private final long[][] numbers = new long[NUMERIC_FIELDS.length][BLOCK_ROWS];
+	private final int[] labels = new int[BLOCK_ROWS];
+	private final int[] responseCodes = new int[BLOCK_ROWS];
+	private final int[] flags = new int[BLOCK_ROWS];
+	private final ColumnBuffer column = new ColumnBuffer();
+	private final Dictionary labelDictionary = new Dictionary();
+	private final Dictionary responseCodeDictionary = new Dictionary();
+	private final List<long[]> blocks = new ArrayList<>();
+	private long storedFields = 0;
+	private long position;
+	private long sampleCount = 0;
+	private int rows = 0;
+	private boolean closed = false;
+
+	/**
+	 * @param file The file to write, replaced if it exists
+	 * @throws IOException when the file cannot be created
+	 */
+	ColumnarResultsWriter(File file) throws IOException {
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+		out.write(MAGIC);
+		out.writeInt(VERSION);
+		position = HEADER_SIZE;
+	}
+
+	@Override
+	public void handleSample(ResultSample sample) {
+		for (int i = 0; i < NUMERIC_FIELDS.length; i++) {
+			numbers[i][rows] = sample.has(NUMERIC_FIELDS[i]) ? value(sample, NUMERIC_FIELDS[i]) : ResultSample.NOT_SET;
+		}
+		labels[rows] = sample.has(ResultField.LABEL) ? labelDictionary.id(sample.getLabel()) + 1 : 0;
+		responseCodes[rows] = sample.has(ResultField.RESPONSE_CODE)
+				? responseCodeDictionary.id(sample.getResponseCode()) + 1 : 0;
+		int sampleFlags = sample.getDepth() << DEPTH_SHIFT;
+		if (sample.has(ResultField.SUCCESS)) {
+			sampleFlags |= FLAG_SUCCESS_SET | (sample.isSuccess() ? FLAG_SUCCESS : 0);
+		}
+		flags[rows] = sampleFlags;
+		for (ResultField field : STORED_FIELDS) {
+			if (sample.has(field)) {
+				storedFields |= 1L << field.ordinal();
+			}
+		}
+		sampleCount++;
+		if (++rows == BLOCK_ROWS) {
+			try {
+				writeBlock();
+			} catch (IOException ex) {
+				throw new ColumnarWriteException(ex);
+			}
+		}
+	}
+
+	private static long value(ResultSample sample, ResultField field) {
+		switch (field) {
+			case TIMESTAMP:
+				return sample.getTimeStamp();
+			case ELAPSED:
+				return sample.getElapsed();
+			case LATENCY:
+				return sample.getLatency();
+			case CONNECT:
+				return sample.getConnect();
+			case BYTES:
+				return sample.getBytes();
+			case SENT_BYTES:
+				return sample.getSentBytes();
+			default:
+				return ResultSample.NOT_SET;
+		}
+	}
+
+	/**
+	 * @return Number of samples written
+	 */
+	long getSampleCount() {
+		return sampleCount;
+	}
+
+	private void writeBlock() throws IOException {
+		if (rows == 0) {
+			return;
+		}
+		blocks.add(new long[]{position, rows});
+		long previousTimeStamp = 0;
+		column.clear();
+		for (int row = 0; row < rows; row++) {
+			long timeStamp = numbers[0][row];
+			column.writeSigned(timeStamp - previousTimeStamp);
+			previousTimeStamp = timeStamp;
+		}
+		writeColumn();
+		for (int i = 1; i < NUMERIC_FIELDS.length; i++) {
+			for (int row = 0; row < rows; row++) {
+				column.writeUnsigned(numbers[i][row] + 1);
+			}
+			writeColumn();
+		}
+		for (int[] values : new int[][]{labels, responseCodes, flags}) {
+			for (int row = 0; row < rows; row++) {
+				column.writeUnsigned(values[row]);
+			}
+			writeColumn();
+		}
+		rows = 0;
+	}
+
+	private void writeColumn() throws IOException {
+		out.writeInt(column.length);
+		out.write(column.bytes, 0, column.length);
+		position += 4 + column.length;
+		column.clear();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			writeBlock();
+			long footerOffset = position;
+			out.writeInt(blocks.size());
+			for (long[] block : blocks) {
+				out.writeLong(block[0]);
+				out.writeInt((int) block[1]);
+			}
+			out.writeLong(storedFields);
+			labelDictionary.writeTo(out);
+			responseCodeDictionary.writeTo(out);
+			out.writeLong(footerOffset);
+			out.write(MAGIC);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Thrown from {@link #handleSample(ResultSample)} when a block cannot be written, the cause is the IOException
+	 */
+	static final class ColumnarWriteException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		private ColumnarWriteException(IOException cause) {
+			super(cause.getMessage(), cause);
+		}
+
+		@Override
+		public synchronized IOException getCause() {
+			return (IOException) super.getCause();
+		}
+	}
+
+	/**
+	 * Assigns consecutive ids to distinct values
+	 */
+	private static final class Dictionary {
+		private final Map<String, Integer> ids = new HashMap<>();
+		private final List<String> values = new ArrayList<>();
+		private String lastValue;
+		private int lastId;
+
+		private int id(SampleText text) {
+			String value = text.toString();
+			if (value.equals(lastValue)) {
+				return lastId;
+			}
+			Integer id = ids.get(value);
+			if (null == id) {
+				id = values.size();
+				ids.put(value, id);
+				values.add(value);
+			}
+			lastValue = value;
+			lastId = id;
+			return id;
+		}
+
+		private void writeTo(DataOutputStream out) throws IOException {
+			out.writeInt(values.size());
+			for (String value : values) {
+				byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(encoded.length);
+				out.write(encoded);
+			}
+		}
+	}
+
+	/**
+	 * The encoded values of one column of a block
+	 */
+	private static final class ColumnBuffer {
+		private byte[] bytes = new byte[BLOCK_ROWS * 2];
+		private int length = 0;
+
+		private void clear() {
+			length = 0;
+		}
+
+		private void writeSigned(long value) {
+			writeUnsigned((value << 1) ^ (value >> 63));
+		}
+
+		private void writeUnsigned(long value) {
+			if (length + 10 > bytes.length) {
+				bytes = Arrays.copyOf(bytes, bytes.length * 2);
+			}
+			while ((value & ~0x7FL) != 0) {
+				bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			bytes[length++] = (byte) value;
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compresses the results JMeter writes while the test runs.
+ * <p/>
+ * The results file JMeter is told to write is a named pipe, the sink reads everything written to it and writes it to
+ * the compressed file with a {@link GzipMembersOutputStream}, so the uncompressed results never reach the disk. JMeter
+ * may open and close the results file several times, the pipe is read again until the sink is closed.
+ * JMeter does not write the CSV header to a results file that exists, as the pipe does when JMeter opens it, so the
+ * sink writes the header JMeter is configured to print itself, as the first line of the compressed file.
+ * Named pipes are created with {@code mkfifo}; where that is not available {@link #open(File, File)} returns null
+ * and the results can be compressed after the test with {@link #compress(File, File)}.
+ */
+final class CompressingResultsSink implements Closeable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(CompressingResultsSink.class);
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final long MKFIFO_TIMEOUT_IN_SECONDS = 10;
+
+	private final File pipe;
+	private final File compressedFile;
+	private final String csvHeader;
+	private final Thread pump;
+	private volatile boolean closing = false;
+	private volatile IOException failure;
+
+	private CompressingResultsSink(File pipe, File compressedFile, String csvHeader) {
+		this.pipe = pipe;
+		this.compressedFile = compressedFile;
+		this.csvHeader = csvHeader;
+		this.pump = new Thread(this::pump, "jmeter-results-compressor");
+		this.pump.setDaemon(true);
+		this.pump.start();
+	}
+
+	/**
+	 * Create a named pipe for JMeter to write its results to, and start compressing what is written to it
+	 *
+	 * @param resultsFile    The results file JMeter is told to write, must not exist
+	 * @param compressedFile The compressed file to write
+	 * @param csvHeader      Header line of the CSV results, null if the results are XML or have no header
+	 * @return The sink, or null if a named pipe cannot be created on this platform
+	 */
+	static CompressingResultsSink open(File resultsFile, File compressedFile, String csvHeader) {
+		try {
+			Process mkfifo = new ProcessBuilder("mkfifo", resultsFile.getAbsolutePath()).redirectErrorStream(true).start();
+			if (!mkfifo.waitFor(MKFIFO_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS)) {
+				mkfifo.destroyForcibly();
+				return null;
+			}
+			if (mkfifo.exitValue() != 0 || !resultsFile.exists()) {
+				LOGGER.debug("mkfifo exited with {}", mkfifo.exitValue());
+				return null;
+			}
+		} catch (IOException ex) {
+			LOGGER.debug("Unable to run mkfifo: {}", ex.getMessage());
+			return null;
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		return new CompressingResultsSink(resultsFile, compressedFile, csvHeader);
+	}
+
+	/**
+	 * Compress a results file and delete it
+	 *
+	 * @param resultsFile    The results file to compress
+	 * @param compressedFile The compressed file to write
+	 * @throws IOException when the results file cannot be compressed
+	 */
+	static void compress(File resultsFile, File compressedFile) throws IOException {
+		try (InputStream in = new FileInputStream(resultsFile);
+			 OutputStream out = new GzipMembersOutputStream(new BufferedOutputStream(new FileOutputStream(compressedFile), BUFFER_SIZE))) {
+			copy(in, out);
+		}
+		Files.delete(resultsFile.toPath());
+	}
+
+	private void pump() {
+		try (OutputStream out = new GzipMembersOutputStream(new BufferedOutputStream(new FileOutputStream(compressedFile), BUFFER_SIZE))) {
+			if (null != csvHeader) {
+				out.write((csvHeader + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+			}
+			while (!closing) {
+				// blocks until JMeter, or close(), opens the pipe for writing
+				try (InputStream in = new FileInputStream(pipe)) {
+					copy(in, out);
+				}
+			}
+		} catch (IOException ex) {
+			failure = ex;
+		}
+	}
+
+	private static void copy(InputStream in, OutputStream out) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int read;
+		while ((read = in.read(buffer)) >= 0) {
+			out.write(buffer, 0, read);
+		}
+	}
+
+	/**
+	 * Stop reading the pipe, once JMeter has exited, finish the compressed file and delete the pipe
+	 *
+	 * @throws IOException when the results could not be compressed
+	 */
+	@Override
+	public void close() throws IOException {
+		closing = true;
+		try {
+			while (pump.isAlive()) {
+				// opening the pipe for reading and writing does not block, and wakes up a pump waiting for a writer
+				new RandomAccessFile(pipe, "rw").close();
+				pump.join(100);
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while compressing results file " + compressedFile.getAbsolutePath(), ex);
+		} finally {
+			Files.deleteIfExists(pipe.toPath());
+		}
+		if (null != failure) {
+			throw failure;
+		}
+	}
+}
@@ -0,0 +1,189 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Memory and CPU available to the JVMs forked by the build, read from the limits of the cgroup the build runs in.
+ * <p/>
+ * cgroup v2 limits are read from memory.max and cpu.max of the cgroup of this process, falling back to the root of the
+ * cgroup file system, which is the cgroup of the container inside a container. cgroup v1 limits are read from
+ * memory.limit_in_bytes and cpu.cfs_quota_us / cpu.cfs_period_us of the memory and cpu controllers. When there is no
+ * limit, the physical memory of the machine and the number of processors of this JVM are used instead.
+ */
+final class ContainerResources {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ContainerResources.class);
+
+	static final long UNLIMITED = -1;
+	private static final Path CGROUP_ROOT = Paths.get("/sys/fs/cgroup");
+	private static final Path PROC_SELF_CGROUP = Paths.get("/proc/self/cgroup");
+	// cgroup v1 reports "no limit" as the largest page aligned long
+	private static final long V1_UNLIMITED_THRESHOLD = Long.MAX_VALUE / 2;
+
+	private final long memoryLimitInBytes;
+	private final double cpuLimit;
+	private final String source;
+
+	private ContainerResources(long memoryLimitInBytes, double cpuLimit, String source) {
+		this.memoryLimitInBytes = memoryLimitInBytes;
+		this.cpuLimit = cpuLimit;
+		this.source = source;
+	}
+
+	/**
+	 * @return The limits of the cgroup of this process
+	 */
+	static ContainerResources detect() {
+		String cgroupPath = "/";
+		try {
+			if (Files.isReadable(PROC_SELF_CGROUP)) {
+				cgroupPath = v2CgroupPath(Files.readAllLines(PROC_SELF_CGROUP, StandardCharsets.UTF_8));
+			}
+		} catch (IOException ex) {
+			LOGGER.debug("Unable to read {}: {}", PROC_SELF_CGROUP, ex.getMessage());
+		}
+		return read(CGROUP_ROOT, cgroupPath);
+	}
+
+	/**
+	 * @param cgroupRoot Mount point of the cgroup file system
+	 * @param cgroupPath cgroup v2 path of the process, relative to the mount point
+	 * @return The limits found under the mount point, {@link #UNLIMITED} for the limits not found
+	 */
+	static ContainerResources read(Path cgroupRoot, String cgroupPath) {
+		Path processCgroup = cgroupRoot.resolve(cgroupPath.replaceFirst("^/+", ""));
+		for (Path cgroup : new Path[]{processCgroup, cgroupRoot}) {
+			if (Files.isRegularFile(cgroup.resolve("memory.max")) || Files.isRegularFile(cgroup.resolve("cpu.max"))) {
+				return new ContainerResources(v2Memory(cgroup), v2Cpu(cgroup), "cgroup v2");
+			}
+		}
+		Path memory = cgroupRoot.resolve("memory");
+		Path cpu = Files.isDirectory(cgroupRoot.resolve("cpu")) ? cgroupRoot.resolve("cpu") : cgroupRoot.resolve("cpu,cpuacct");
+		if (Files.isDirectory(memory) || Files.isDirectory(cpu)) {
+			return new ContainerResources(v1Memory(memory), v1Cpu(cpu), "cgroup v1");
+		}
+		return new ContainerResources(UNLIMITED, UNLIMITED, "no cgroup");
+	}
+
+	/**
+	 * @param procSelfCgroup Lines of /proc/self/cgroup
+	 * @return The path of the cgroup v2 line, / when there is none
+	 */
+	static String v2CgroupPath(List<String> procSelfCgroup) {
+		for (String line : procSelfCgroup) {
+			if (line.startsWith("0::")) {
+				return line.substring(3);
+			}
+		}
+		return "/";
+	}
+
+	private static long v2Memory(Path cgroup) {
+		String limit = readFirstLine(cgroup.resolve("memory.max"));
+		return null == limit || "max".equals(limit) ? UNLIMITED : parseLong(limit);
+	}
+
+	private static double v2Cpu(Path cgroup) {
+		String limit = readFirstLine(cgroup.resolve("cpu.max"));
+		if (null == limit) {
+			return UNLIMITED;
+		}
+		String[] quotaAndPeriod = limit.split("\\s+");
+		if ("max".equals(quotaAndPeriod[0]) || quotaAndPeriod.length < 2) {
+			return UNLIMITED;
+		}
+		return cpus(parseLong(quotaAndPeriod[0]), parseLong(quotaAndPeriod[1]));
+	}
+
+	private static long v1Memory(Path memory) {
+		String limit = readFirstLine(memory.resolve("memory.limit_in_bytes"));
+		long bytes = null == limit ? UNLIMITED : parseLong(limit);
+		return bytes > V1_UNLIMITED_THRESHOLD ? UNLIMITED : bytes;
+	}
+
+	private static double v1Cpu(Path cpu) {
+		String quota = readFirstLine(cpu.resolve("cpu.cfs_quota_us"));
+		String period = readFirstLine(cpu.resolve("cpu.cfs_period_us"));
+		if (null == quota || null == period) {
+			return UNLIMITED;
+		}
+		return cpus(parseLong(quota), parseLong(period));
+	}
+
+	private static double cpus(long quota, long period) {
+		return quota <= 0 || period <= 0 ? UNLIMITED : (double) quota / period;
+	}
+
+	private static long parseLong(String value) {
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException ex) {
+			return UNLIMITED;
+		}
+	}
+
+	private static String readFirstLine(Path file) {
+		try {
+			if (Files.isReadable(file)) {
+				List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+				return lines.isEmpty() ? null : lines.get(0).trim();
+			}
+		} catch (IOException ex) {
+			LOGGER.debug("Unable to read {}: {}", file, ex.getMessage());
+		}
+		return null;
+	}
+
+	/**
+	 * @return Memory limit of the cgroup, {@link #UNLIMITED} when there is none
+	 */
+	long getMemoryLimitInBytes() {
+		return memoryLimitInBytes;
+	}
+
+	/**
+	 * @return CPU limit of the cgroup in processors, may be a fraction, {@link #UNLIMITED} when there is none
+	 */
+	double getCpuLimit() {
+		return cpuLimit;
+	}
+
+	/**
+	 * @return Memory available to the forked JVMs: the limit of the cgroup, or else the physical memory of the machine,
+	 * {@link #UNLIMITED} when neither is known
+	 */
+	long getAvailableMemoryInBytes() {
+		if (memoryLimitInBytes > 0) {
+			return memoryLimitInBytes;
+		}
+		OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+		if (os instanceof com.sun.management.OperatingSystemMXBean) {
+			return ((com.sun.management.OperatingSystemMXBean) os).getTotalPhysicalMemorySize();
+		}
+		return UNLIMITED;
+	}
+
+	/**
+	 * @return Processors available to the forked JVMs: the limit of the cgroup rounded up, or else the processors of
+	 * this JVM
+	 */
+	int getAvailableProcessors() {
+		int processors = Runtime.getRuntime().availableProcessors();
+		return cpuLimit > 0 ? Math.min(processors, (int) Math.ceil(cpuLimit)) : processors;
+	}
+
+	@Override
+	public String toString() {
+		return source + " (memory limit: " + (memoryLimitInBytes > 0 ? memoryLimitInBytes / (1024 * 1024) + " MB" : "none")
+				+ ", CPU limit: " + (cpuLimit > 0 ? cpuLimit : "none") + ")";
+	}
+}
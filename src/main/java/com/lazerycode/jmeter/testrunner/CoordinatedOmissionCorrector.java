@@ -0,0 +1,109 @@
+package com.lazerycode.jmeter.testrunner;
+
+import static com.lazerycode.jmeter.utility.UtilityFunctions.isSet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.lazerycode.jmeter.configuration.ExpectedInterval;
+
+/**
+ * Works out the intended time between the starts of two samples of a thread, so the elapsed times can be corrected for
+ * coordinated omission with {@link LatencyHistogram#recordWithExpectedInterval(long, long)}.
+ * <p/>
+ * A thread of a closed model thread group that waits for a slow response sends no requests meanwhile, so one slow
+ * sample is recorded instead of the many slow samples users would have seen. The interval of a thread is the configured
+ * interval of its thread group or, when there is none, inferred from the gaps between the starts of its samples: a
+ * moving average of the gaps that are less than twice the average so far, so stalls do not inflate it. An instance
+ * keeps the state of every thread and is used by a single thread, in the order the samples are read.
+ */
+final class CoordinatedOmissionCorrector {
+
+	private static final int AVERAGE_WEIGHT = 8;
+	private static final long STALL_FACTOR = 2;
+
+	private final List<ExpectedInterval> expectedIntervals = new ArrayList<>();
+	private final StringDictionary threadNames = new StringDictionary(StringDictionary.DEFAULT_MAX_ENTRIES);
+	private final Map<String, ThreadState> threads = new HashMap<>();
+
+	/**
+	 * @param expectedIntervals Configured intervals per thread group, thread groups without one are inferred
+	 */
+	CoordinatedOmissionCorrector(List<ExpectedInterval> expectedIntervals) {
+		for (ExpectedInterval expectedInterval : expectedIntervals) {
+			if (isSet(expectedInterval.getThreadGroup()) && expectedInterval.getIntervalInMs() > 0) {
+				this.expectedIntervals.add(expectedInterval);
+			}
+		}
+	}
+
+	/**
+	 * @param sample The next sample, that is not a sub result
+	 * @return The intended interval of the thread of the sample in milliseconds, 0 if it is not known (yet)
+	 */
+	long expectedInterval(ResultSample sample) {
+		if (!sample.has(ResultField.THREAD_NAME) || sample.getTimeStamp() < 0) {
+			return 0;
+		}
+		String threadName = threadNames.intern(sample.getThreadName());
+		ThreadState thread = threads.get(threadName);
+		if (null == thread) {
+			thread = new ThreadState(configuredInterval(threadName));
+			threads.put(threadName, thread);
+		}
+		return thread.next(sample.getTimeStamp());
+	}
+
+	/**
+	 * @return The interval of the thread group with the longest name the thread belongs to, 0 if there is none
+	 */
+	private long configuredInterval(String threadName) {
+		ExpectedInterval match = null;
+		for (ExpectedInterval expectedInterval : expectedIntervals) {
+			String threadGroup = expectedInterval.getThreadGroup();
+			boolean belongs = threadName.equals(threadGroup)
+					|| (threadName.startsWith(threadGroup) && threadName.charAt(threadGroup.length()) == ' ');
+			if (belongs && (null == match || threadGroup.length() > match.getThreadGroup().length())) {
+				match = expectedInterval;
+			}
+		}
+		return null == match ? 0 : match.getIntervalInMs();
+	}
+
+	/**
+	 * @return Description of the configured intervals, for the scan cache key
+	 */
+	@Override
+	public String toString() {
+		return expectedIntervals.toString();
+	}
+
+	private static final class ThreadState {
+		private final long configuredInterval;
+		private long lastTimeStamp = -1;
+		private long averageGap = 0;
+
+		private ThreadState(long configuredInterval) {
+			this.configuredInterval = configuredInterval;
+		}
+
+		private long next(long timeStamp) {
+			if (configuredInterval > 0) {
+				return configuredInterval;
+			}
+			long expectedInterval = averageGap;
+			if (lastTimeStamp >= 0 && timeStamp >= lastTimeStamp) {
+				long gap = timeStamp - lastTimeStamp;
+				if (averageGap == 0) {
+					averageGap = gap;
+				} else if (gap < averageGap * STALL_FACTOR) {
+					averageGap += (gap - averageGap) / AVERAGE_WEIGHT;
+				}
+			}
+			lastTimeStamp = Math.max(lastTimeStamp, timeStamp);
+			return expectedInterval;
+		}
+	}
+}
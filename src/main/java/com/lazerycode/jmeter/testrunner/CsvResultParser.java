@@ -0,0 +1,347 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streaming, column aware reader for JMeter CSV results files.
+ * <p/>
+ * The delimiter is detected from the first few KB of the file. The column layout is read from the header if the file
+ * has one, otherwise the columns JMeter was configured to write are used. Quoted fields, including fields that span
+ * several lines, are handled. Only the bytes of the requested fields are kept, every other field is skipped.
+ */
+final class CsvResultParser implements ResultFileConsumer {
+	private static final Logger LOGGER = LoggerFactory.getLogger(CsvResultParser.class);
+
+	static final int DELIMITER_DETECTION_SIZE = 4 * 1024;
+	private static final byte[] CANDIDATE_DELIMITERS = {',', ';', '\t', '|'};
+	private static final int DELIMITER_DETECTION_LINES = 5;
+	private static final byte QUOTE = '"';
+
+	private static final int FIELD_START = 0;
+	private static final int UNQUOTED = 1;
+	private static final int QUOTED = 2;
+	private static final int QUOTE_IN_QUOTED = 3;
+
+	private final Set<ResultField> requestedFields;
+	private final List<String> configuredColumns;
+	private final SampleHandler handler;
+	private final ResultSample sample = new ResultSample();
+
+	private byte[] detectionBuffer = new byte[DELIMITER_DETECTION_SIZE];
+	private int detectionLength = 0;
+	private byte delimiter = ',';
+
+	private List<byte[]> firstRecord = new ArrayList<>();
+	private List<String> columns;
+	private boolean header = false;
+	private boolean skipRecord = false;
+	private ResultField[] columnFields = new ResultField[0];
+	private int lastRequestedColumn = -1;
+
+	private int state = FIELD_START;
+	private int column = 0;
+	private boolean keepField = true;
+	private byte[] field = new byte[256];
+	private int fieldLength = 0;
+	private long malformedRecords = 0;
+
+	/**
+	 * @param requestedFields   The fields the handler needs
+	 * @param configuredColumns Column headers JMeter was configured to write, used when the file has no header
+	 * @param handler           Handler receiving every sample
+	 */
+	CsvResultParser(Set<ResultField> requestedFields, List<String> configuredColumns, SampleHandler handler) {
+		this.requestedFields = requestedFields;
+		this.configuredColumns = null == configuredColumns ? Collections.<String>emptyList() : configuredColumns;
+		this.handler = handler;
+	}
+
+	/**
+	 * Read part of a file of which the layout is already known, e.g. from a parser that read the start of the file.
+	 *
+	 * @param requestedFields The fields the handler needs
+	 * @param columns         Column headers of the file
+	 * @param delimiter       Delimiter of the file
+	 * @param skipHeader      The input starts with the header of the file
+	 * @param handler         Handler receiving every sample
+	 */
+	CsvResultParser(Set<ResultField> requestedFields, List<String> columns, byte delimiter, boolean skipHeader,
+					SampleHandler handler) {
+		this.requestedFields = requestedFields;
+		this.configuredColumns = columns;
+		this.handler = handler;
+		this.detectionBuffer = null;
+		this.firstRecord = null;
+		this.delimiter = delimiter;
+		this.header = skipHeader;
+		this.skipRecord = skipHeader;
+		mapColumns(columns);
+		keepField = !skipRecord && columnFields.length > 0 && null != columnFields[0];
+	}
+
+	@Override
+	public void consume(byte[] buffer, int offset, int length) {
+		if (null != detectionBuffer) {
+			int toCopy = Math.min(length, detectionBuffer.length - detectionLength);
+			System.arraycopy(buffer, offset, detectionBuffer, detectionLength, toCopy);
+			detectionLength += toCopy;
+			if (detectionLength < detectionBuffer.length) {
+				return;
+			}
+			flushDetectionBuffer();
+			offset += toCopy;
+			length -= toCopy;
+		}
+		parse(buffer, offset, length);
+	}
+
+	@Override
+	public void endOfInput() {
+		if (null != detectionBuffer) {
+			flushDetectionBuffer();
+		}
+		if (column > 0 || state != FIELD_START || fieldLength > 0) {
+			endField();
+			endRecord();
+		}
+		if (null != firstRecord && !firstRecord.isEmpty()) {
+			resolveColumns();
+		}
+		if (malformedRecords > 0) {
+			LOGGER.warn("Ignored {} incomplete records", malformedRecords);
+		}
+	}
+
+	/**
+	 * @return The delimiter used to parse the file
+	 */
+	byte getDelimiter() {
+		return delimiter;
+	}
+
+	/**
+	 * @return The column headers of the file, null if the first record has not been read yet
+	 */
+	List<String> getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @return true if the first record of the file is a header
+	 */
+	boolean hasHeader() {
+		return header;
+	}
+
+	/**
+	 * @return Number of records that did not hold all requested fields
+	 */
+	long getMalformedRecords() {
+		return malformedRecords;
+	}
+
+	private void flushDetectionBuffer() {
+		byte[] buffered = detectionBuffer;
+		detectionBuffer = null;
+		delimiter = detectDelimiter(buffered, detectionLength);
+		LOGGER.debug("Detected delimiter '{}'", (char) delimiter);
+		parse(buffered, 0, detectionLength);
+	}
+
+	/**
+	 * Pick the candidate delimiter that occurs most often, and consistently, on the first lines (ignoring quoted text)
+	 */
+	static byte detectDelimiter(byte[] buffer, int length) {
+		int[][] counts = new int[DELIMITER_DETECTION_LINES][CANDIDATE_DELIMITERS.length];
+		int line = 0;
+		boolean quoted = false;
+		for (int i = 0; i < length && line < DELIMITER_DETECTION_LINES; i++) {
+			byte current = buffer[i];
+			if (current == QUOTE) {
+				quoted = !quoted;
+			} else if (!quoted && current == '\n') {
+				if (i > 0 && buffer[i - 1] != '\n') {
+					line++;
+				}
+			} else if (!quoted) {
+				for (int candidate = 0; candidate < CANDIDATE_DELIMITERS.length; candidate++) {
+					if (current == CANDIDATE_DELIMITERS[candidate]) {
+						counts[line][candidate]++;
+					}
+				}
+			}
+		}
+		int completeLines = Math.max(1, Math.min(line, DELIMITER_DETECTION_LINES));
+		byte best = CANDIDATE_DELIMITERS[0];
+		long bestScore = 0;
+		for (int candidate = 0; candidate < CANDIDATE_DELIMITERS.length; candidate++) {
+			int firstLineCount = counts[0][candidate];
+			if (firstLineCount == 0) {
+				continue;
+			}
+			boolean consistent = true;
+			for (int l = 1; l < completeLines; l++) {
+				consistent &= counts[l][candidate] == firstLineCount;
+			}
+			long score = (consistent ? 1_000_000L : 0L) + firstLineCount;
+			if (score > bestScore) {
+				bestScore = score;
+				best = CANDIDATE_DELIMITERS[candidate];
+			}
+		}
+		return best;
+	}
+
+	private void parse(byte[] buffer, int offset, int length) {
+		int end = offset + length;
+		for (int i = offset; i < end; i++) {
+			byte current = buffer[i];
+			switch (state) {
+				case FIELD_START:
+					if (current == QUOTE) {
+						state = QUOTED;
+						break;
+					}
+					if (column == 0 && (current == '\n' || current == '\r')) {
+						// blank line
+						break;
+					}
+					state = UNQUOTED;
+					// fall through, the byte is the first byte of an unquoted field
+				case UNQUOTED:
+					if (current == delimiter) {
+						endField();
+					} else if (current == '\n') {
+						endField();
+						endRecord();
+					} else if (current != '\r' && keepField) {
+						append(current);
+					}
+					break;
+				case QUOTED:
+					if (current == QUOTE) {
+						state = QUOTE_IN_QUOTED;
+					} else if (keepField) {
+						append(current);
+					}
+					break;
+				default:
+					if (current == QUOTE) {
+						if (keepField) {
+							append(current);
+						}
+						state = QUOTED;
+					} else if (current == delimiter) {
+						endField();
+					} else if (current == '\n') {
+						endField();
+						endRecord();
+					} else if (current != '\r') {
+						if (keepField) {
+							append(current);
+						}
+						state = UNQUOTED;
+					}
+					break;
+			}
+		}
+	}
+
+	private void append(byte current) {
+		if (fieldLength == field.length) {
+			field = Arrays.copyOf(field, field.length * 2);
+		}
+		field[fieldLength++] = current;
+	}
+
+	private void endField() {
+		if (null != firstRecord) {
+			firstRecord.add(Arrays.copyOf(field, fieldLength));
+		} else if (!skipRecord && column < columnFields.length && null != columnFields[column]) {
+			sample.set(columnFields[column], field, 0, fieldLength);
+		}
+		column++;
+		fieldLength = 0;
+		state = FIELD_START;
+		keepField = null != firstRecord || (!skipRecord && column < columnFields.length && null != columnFields[column]);
+	}
+
+	private void endRecord() {
+		if (null != firstRecord) {
+			resolveColumns();
+		} else if (skipRecord) {
+			skipRecord = false;
+		} else if (column > lastRequestedColumn) {
+			handler.handleSample(sample);
+		} else {
+			malformedRecords++;
+		}
+		sample.reset();
+		column = 0;
+		keepField = null != firstRecord || (columnFields.length > 0 && null != columnFields[0]);
+	}
+
+	/**
+	 * Decide if the first record is a header, build the column mapping and, if the first record holds data,
+	 * pass it on as a sample.
+	 */
+	private void resolveColumns() {
+		List<byte[]> record = firstRecord;
+		firstRecord = null;
+		List<String> values = new ArrayList<>(record.size());
+		for (byte[] value : record) {
+			values.add(new String(value, StandardCharsets.UTF_8));
+		}
+		int knownHeaders = 0;
+		for (String value : values) {
+			if (null != ResultField.fromHeader(value)) {
+				knownHeaders++;
+			}
+		}
+		header = knownHeaders >= Math.min(2, values.size());
+		List<String> layout = header ? values : configuredColumns;
+		if (layout.isEmpty()) {
+			layout = ResultField.csvColumns(new Properties());
+			LOGGER.warn("Results file has no header and no column layout is configured, assuming the JMeter defaults: {}", layout);
+		}
+		mapColumns(layout);
+		for (ResultField requestedField : requestedFields) {
+			if (!layout.contains(requestedField.getHeader())) {
+				LOGGER.warn("Results file does not contain column '{}'", requestedField.getHeader());
+			}
+		}
+		if (!header && !record.isEmpty()) {
+			for (int i = 0; i < record.size() && i < columnFields.length; i++) {
+				if (null != columnFields[i]) {
+					sample.set(columnFields[i], record.get(i), 0, record.get(i).length);
+				}
+			}
+			if (record.size() > lastRequestedColumn) {
+				handler.handleSample(sample);
+			} else {
+				malformedRecords++;
+			}
+		}
+	}
+
+	private void mapColumns(List<String> layout) {
+		columns = layout;
+		columnFields = new ResultField[layout.size()];
+		for (int i = 0; i < layout.size(); i++) {
+			ResultField resultField = ResultField.fromHeader(layout.get(i));
+			if (null != resultField && requestedFields.contains(resultField)) {
+				columnFields[i] = resultField;
+				lastRequestedColumn = i;
+			}
+		}
+	}
+}
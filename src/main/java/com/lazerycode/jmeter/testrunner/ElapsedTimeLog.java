@@ -0,0 +1,246 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Every elapsed time of the samples of a label, written to segment files of an {@link ElapsedTimeStore}.
+ * <p/>
+ * Elapsed times are stored as ints, values that do not fit are stored as {@link Integer#MAX_VALUE}. Logs filled in
+ * parallel are combined with {@link #merge(ElapsedTimeLog)}, which only collects the segment files. Values at a rank are
+ * selected with a two pass radix selection over the memory mapped segments, first counting the values per high 16
+ * bits and then, for the buckets holding a requested rank, per low 16 bits. Both passes count chunks of the segments in
+ * parallel, so the values are neither copied to the heap nor sorted.
+ */
+final class ElapsedTimeLog {
+
+	private static final int BUFFER_SIZE = 4096;
+	private static final int CHUNK_VALUES = 1 << 24;
+	private static final int LOW_BITS = 16;
+	private static final int HIGH_BUCKETS = 1 << (Integer.SIZE - 1 - LOW_BITS);
+	private static final int LOW_BUCKETS = 1 << LOW_BITS;
+	private static final int LOW_MASK = LOW_BUCKETS - 1;
+
+	private final ElapsedTimeStore store;
+	private final List<Segment> segments = new ArrayList<>();
+	private File current;
+	private FileChannel channel;
+	private ByteBuffer buffer;
+	private long currentCount = 0;
+
+	/**
+	 * @param store Store the segment files are created in, null for a log that only collects the segments of others
+	 */
+	ElapsedTimeLog(ElapsedTimeStore store) {
+		this.store = store;
+	}
+
+	/**
+	 * Append an elapsed time, negative values are ignored
+	 *
+	 * @param elapsed Elapsed time in milliseconds
+	 * @throws UncheckedIOException when the segment file cannot be written
+	 */
+	void record(long elapsed) {
+		if (elapsed < 0) {
+			return;
+		}
+		try {
+			if (null == buffer) {
+				current = store.newSegment();
+				channel = FileChannel.open(current.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING);
+				buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			}
+			if (!buffer.hasRemaining()) {
+				flush();
+			}
+		} catch (IOException ex) {
+			throw new UncheckedIOException("Unable to write elapsed times file " + current, ex);
+		}
+		buffer.putInt((int) Math.min(Integer.MAX_VALUE, elapsed));
+		currentCount++;
+	}
+
+	/**
+	 * Write the buffered elapsed times and close the current segment file, the next elapsed time starts a new one
+	 *
+	 * @throws UncheckedIOException when the segment file cannot be written
+	 */
+	void close() {
+		if (null == buffer) {
+			return;
+		}
+		try {
+			flush();
+			channel.close();
+		} catch (IOException ex) {
+			throw new UncheckedIOException("Unable to write elapsed times file " + current, ex);
+		}
+		segments.add(new Segment(current, currentCount));
+		current = null;
+		channel = null;
+		buffer = null;
+		currentCount = 0;
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Add the elapsed times of another log to this one, closing the other log
+	 *
+	 * @param other The log to add
+	 * @return this log
+	 */
+	ElapsedTimeLog merge(ElapsedTimeLog other) {
+		other.close();
+		segments.addAll(other.segments);
+		return this;
+	}
+
+	/**
+	 * @return Number of elapsed times
+	 */
+	long getCount() {
+		long count = currentCount;
+		for (Segment segment : segments) {
+			count += segment.count;
+		}
+		return count;
+	}
+
+	/**
+	 * Select the values at ranks of the sorted elapsed times, closing the log first
+	 *
+	 * @param ranks Ranks, from 1 to {@link #getCount()}
+	 * @return The value at every rank
+	 * @throws IOException when a segment file cannot be read
+	 */
+	long[] valuesAtRanks(long[] ranks) throws IOException {
+		close();
+		List<Chunk> chunks = chunks();
+		long[] highCounts = count(chunks, null);
+		int[] highBuckets = new int[ranks.length];
+		long[] remainingRanks = new long[ranks.length];
+		for (int i = 0; i < ranks.length; i++) {
+			long seen = 0;
+			int bucket = 0;
+			while (bucket < HIGH_BUCKETS - 1 && seen + highCounts[bucket] < ranks[i]) {
+				seen += highCounts[bucket++];
+			}
+			highBuckets[i] = bucket;
+			remainingRanks[i] = ranks[i] - seen;
+		}
+		int[] targets = Arrays.stream(highBuckets).distinct().sorted().toArray();
+		long[] lowCounts = count(chunks, targets);
+		long[] values = new long[ranks.length];
+		for (int i = 0; i < ranks.length; i++) {
+			int offset = Arrays.binarySearch(targets, highBuckets[i]) * LOW_BUCKETS;
+			long seen = 0;
+			int low = 0;
+			while (low < LOW_BUCKETS - 1 && seen + lowCounts[offset + low] < remainingRanks[i]) {
+				seen += lowCounts[offset + low++];
+			}
+			values[i] = ((long) highBuckets[i] << LOW_BITS) | low;
+		}
+		return values;
+	}
+
+	private List<Chunk> chunks() {
+		List<Chunk> chunks = new ArrayList<>();
+		for (Segment segment : segments) {
+			for (long start = 0; start < segment.count; start += CHUNK_VALUES) {
+				chunks.add(new Chunk(segment.file, start, (int) Math.min(CHUNK_VALUES, segment.count - start)));
+			}
+		}
+		return chunks;
+	}
+
+	/**
+	 * Count the values of all chunks in parallel
+	 *
+	 * @param chunks  Chunks to count
+	 * @param targets High buckets to count the low 16 bits of, in ascending order, null to count the high buckets
+	 *                themselves
+	 * @return Counts per high bucket, or per low 16 bits of every target
+	 * @throws IOException when a segment file cannot be read
+	 */
+	private static long[] count(List<Chunk> chunks, int[] targets) throws IOException {
+		int size = null == targets ? HIGH_BUCKETS : targets.length * LOW_BUCKETS;
+		try {
+			return chunks.parallelStream()
+					.map(chunk -> chunk.count(targets, size))
+					.reduce(new long[size], ElapsedTimeLog::add);
+		} catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+	}
+
+	private static long[] add(long[] first, long[] second) {
+		long[] sum = new long[first.length];
+		for (int i = 0; i < sum.length; i++) {
+			sum[i] = first[i] + second[i];
+		}
+		return sum;
+	}
+
+	private static final class Segment {
+		private final File file;
+		private final long count;
+
+		private Segment(File file, long count) {
+			this.file = file;
+			this.count = count;
+		}
+	}
+
+	private static final class Chunk {
+		private final File file;
+		private final long start;
+		private final int count;
+
+		private Chunk(File file, long start, int count) {
+			this.file = file;
+			this.start = start;
+			this.count = count;
+		}
+
+		private long[] count(int[] sortedTargets, int size) {
+			long[] counts = new long[size];
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				IntBuffer values = channel.map(FileChannel.MapMode.READ_ONLY, start * Integer.BYTES,
+						(long) count * Integer.BYTES).asIntBuffer();
+				if (null == sortedTargets) {
+					for (int i = 0; i < count; i++) {
+						counts[values.get(i) >>> LOW_BITS]++;
+					}
+				} else {
+					for (int i = 0; i < count; i++) {
+						int value = values.get(i);
+						int target = Arrays.binarySearch(sortedTargets, value >>> LOW_BITS);
+						if (target >= 0) {
+							counts[target * LOW_BUCKETS + (value & LOW_MASK)]++;
+						}
+					}
+				}
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			return counts;
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Directory the elapsed times of the samples are written to when exact percentiles are requested.
+ * <p/>
+ * Every {@link ElapsedTimeLog} appends the elapsed times of one label, of one file or part of a file, to segment files
+ * of this directory through a small direct buffer. The percentiles are selected from memory mapped segments, so neither
+ * writing nor reading the elapsed times uses the heap, whatever the number of samples. Segment files can be created from
+ * several threads.
+ */
+public final class ElapsedTimeStore {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ElapsedTimeStore.class);
+	private static final String SEGMENT_PREFIX = "elapsed-";
+	private static final String SEGMENT_EXTENSION = ".bin";
+
+	private final File directory;
+	private final AtomicInteger segmentCount = new AtomicInteger();
+	private final List<File> segments = new CopyOnWriteArrayList<>();
+
+	/**
+	 * @param directory Directory the segment files are written to, segment files left behind by an earlier run are
+	 *                  deleted
+	 * @throws IOException when the directory cannot be created
+	 */
+	public ElapsedTimeStore(File directory) throws IOException {
+		if (!directory.exists() && !directory.mkdirs()) {
+			throw new IOException("Unable to create directory " + directory.getAbsolutePath());
+		}
+		this.directory = directory;
+		File[] leftovers = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_EXTENSION));
+		if (null != leftovers) {
+			for (File leftover : leftovers) {
+				deleteSegment(leftover);
+			}
+		}
+	}
+
+	/**
+	 * @return A new, empty log writing to this store
+	 */
+	ElapsedTimeLog newLog() {
+		return new ElapsedTimeLog(this);
+	}
+
+	/**
+	 * @return A new segment file, not created yet
+	 */
+	File newSegment() {
+		File segment = new File(directory, SEGMENT_PREFIX + segmentCount.incrementAndGet() + SEGMENT_EXTENSION);
+		segments.add(segment);
+		return segment;
+	}
+
+	/**
+	 * @return The directory of the segment files
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Delete the segment files written to this store, the logs using them can no longer be read
+	 */
+	public void delete() {
+		for (File segment : segments) {
+			deleteSegment(segment);
+		}
+		segments.clear();
+	}
+
+	private static void deleteSegment(File segment) {
+		if (segment.exists() && !segment.delete()) {
+			LOGGER.warn("Unable to delete elapsed times file '{}'", segment.getAbsolutePath());
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Most frequent response codes, response messages and assertion failure messages of failed samples.
+ * <p/>
+ * Each is counted in a {@link HeavyHitters}, so the memory used does not depend on the number of distinct values.
+ */
+public final class ErrorBreakdown {
+
+	private final HeavyHitters responseCodes;
+	private final HeavyHitters responseMessages;
+	private final HeavyHitters failureMessages;
+
+	public ErrorBreakdown() {
+		this(new HeavyHitters(), new HeavyHitters(), new HeavyHitters());
+	}
+
+	private ErrorBreakdown(HeavyHitters responseCodes, HeavyHitters responseMessages, HeavyHitters failureMessages) {
+		this.responseCodes = responseCodes;
+		this.responseMessages = responseMessages;
+		this.failureMessages = failureMessages;
+	}
+
+	/**
+	 * Count the text fields of a failed sample
+	 *
+	 * @param sample     The failed sample
+	 * @param dictionary Dictionary the values are looked up in
+	 */
+	void record(ResultSample sample, StringDictionary dictionary) {
+		if (sample.has(ResultField.RESPONSE_CODE)) {
+			responseCodes.record(dictionary.intern(sample.getResponseCode()));
+		}
+		if (sample.has(ResultField.RESPONSE_MESSAGE)) {
+			responseMessages.record(dictionary.intern(sample.getResponseMessage()));
+		}
+		if (sample.has(ResultField.FAILURE_MESSAGE) && !sample.getFailureMessage().isEmpty()) {
+			failureMessages.record(dictionary.intern(sample.getFailureMessage()));
+		}
+	}
+
+	/**
+	 * Add the counts of another instance to this one
+	 *
+	 * @param other The counts to add, not modified
+	 * @return this instance
+	 */
+	public ErrorBreakdown merge(ErrorBreakdown other) {
+		responseCodes.merge(other.responseCodes);
+		responseMessages.merge(other.responseMessages);
+		failureMessages.merge(other.failureMessages);
+		return this;
+	}
+
+	/**
+	 * Write the complete state of these counts
+	 *
+	 * @param out Output to write to
+	 * @throws IOException when the output cannot be written
+	 */
+	void writeTo(DataOutput out) throws IOException {
+		responseCodes.writeTo(out);
+		responseMessages.writeTo(out);
+		failureMessages.writeTo(out);
+	}
+
+	/**
+	 * Read counts written by {@link #writeTo(DataOutput)}
+	 *
+	 * @param in Input to read from
+	 * @return The counts
+	 * @throws IOException when the input cannot be read
+	 */
+	static ErrorBreakdown readFrom(DataInput in) throws IOException {
+		return new ErrorBreakdown(HeavyHitters.readFrom(in), HeavyHitters.readFrom(in), HeavyHitters.readFrom(in));
+	}
+
+	/**
+	 * @return Most frequent response codes of the failed samples
+	 */
+	public HeavyHitters getResponseCodes() {
+		return responseCodes;
+	}
+
+	/**
+	 * @return Most frequent response messages of the failed samples
+	 */
+	public HeavyHitters getResponseMessages() {
+		return responseMessages;
+	}
+
+	/**
+	 * @return Most frequent assertion failure messages of the failed samples
+	 */
+	public HeavyHitters getFailureMessages() {
+		return failureMessages;
+	}
+
+	/**
+	 * @return true if nothing has been counted
+	 */
+	public boolean isEmpty() {
+		return responseCodes.isEmpty() && responseMessages.isEmpty() && failureMessages.isEmpty();
+	}
+}
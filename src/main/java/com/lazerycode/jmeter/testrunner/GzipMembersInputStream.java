@@ -0,0 +1,235 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Reads gzip compressed results files, decompressing the members written by {@link GzipMembersOutputStream} in
+ * parallel.
+ * <p/>
+ * Members are read in file order and decompressed ahead of the reader on a small pool, the reader receives the bytes
+ * in file order. From the first member that does not hold its compressed size, the rest of the file is decompressed
+ * by a single {@link GZIPInputStream}, so any gzip file can be read.
+ */
+final class GzipMembersInputStream extends InputStream {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int FLAG_EXTRA = 4;
+
+	private final FileChannel channel;
+	private final ExecutorService executor;
+	private final int lookahead;
+	private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+	private final ByteBuffer header = ByteBuffer.allocate(GzipMembersOutputStream.HEADER_SIZE);
+	private long position = 0;
+	private byte[] current = new byte[0];
+	private int currentPosition = 0;
+	private InputStream remainder;
+
+	private GzipMembersInputStream(File file, int parallelism) throws IOException {
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		this.lookahead = parallelism * 2;
+		this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+			Thread thread = new Thread(runnable, "results-gzip-inflater");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * @param file File to check
+	 * @return true if the file starts with the gzip magic bytes
+	 * @throws IOException when the file cannot be read
+	 */
+	static boolean isGzip(File file) throws IOException {
+		try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer magic = ByteBuffer.allocate(2);
+			while (magic.hasRemaining() && fileChannel.read(magic) > 0) {
+				// read the first two bytes
+			}
+			return magic.position() == 2 && magic.get(0) == (byte) 0x1f && magic.get(1) == (byte) 0x8b;
+		}
+	}
+
+	/**
+	 * Open a gzip compressed file
+	 *
+	 * @param file        File to read
+	 * @param parallelism Maximum number of members decompressed at the same time, 1 to decompress while reading
+	 * @return The decompressed content of the file
+	 * @throws IOException when the file cannot be opened
+	 */
+	static InputStream open(File file, int parallelism) throws IOException {
+		if (parallelism <= 1) {
+			return new GZIPInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE), BUFFER_SIZE);
+		}
+		return new GzipMembersInputStream(file, parallelism);
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] single = new byte[1];
+		int read = read(single, 0, 1);
+		return read < 0 ? -1 : single[0] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] buffer, int offset, int length) throws IOException {
+		if (length == 0) {
+			return 0;
+		}
+		while (currentPosition == current.length) {
+			if (!nextMember()) {
+				return null == remainder ? -1 : remainder.read(buffer, offset, length);
+			}
+		}
+		int toCopy = Math.min(length, current.length - currentPosition);
+		System.arraycopy(current, currentPosition, buffer, offset, toCopy);
+		currentPosition += toCopy;
+		return toCopy;
+	}
+
+	@Override
+	public void close() throws IOException {
+		executor.shutdownNow();
+		try {
+			if (null != remainder) {
+				remainder.close();
+			}
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Make the next decompressed member current
+	 *
+	 * @return false when there are no more members with a known size
+	 * @throws IOException when a member cannot be read or decompressed
+	 */
+	private boolean nextMember() throws IOException {
+		submitMembers();
+		Future<byte[]> next = pending.poll();
+		if (null == next) {
+			return false;
+		}
+		try {
+			current = next.get();
+			currentPosition = 0;
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while decompressing results file");
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof IOException) {
+				throw (IOException) ex.getCause();
+			}
+			throw new IOException("Unable to decompress results file", ex.getCause());
+		}
+		submitMembers();
+		return true;
+	}
+
+	private void submitMembers() throws IOException {
+		while (pending.size() < lookahead && null == remainder && position < channel.size()) {
+			long memberSize = readMemberSize();
+			if (memberSize <= 0) {
+				remainder = new GZIPInputStream(new BufferedInputStream(
+						Channels.newInputStream(channel.position(position)), BUFFER_SIZE), BUFFER_SIZE);
+				return;
+			}
+			ByteBuffer member = ByteBuffer.allocate((int) memberSize);
+			while (member.hasRemaining()) {
+				if (channel.read(member, position + member.position()) < 0) {
+					throw new ZipException("Unexpected end of gzip member at byte " + position);
+				}
+			}
+			position += memberSize;
+			pending.add(executor.submit(() -> inflate(member.array())));
+		}
+	}
+
+	/**
+	 * @return The size of the member at the current position as written by {@link GzipMembersOutputStream}, 0 if
+	 * the member does not hold its size
+	 */
+	private long readMemberSize() throws IOException {
+		header.clear();
+		while (header.hasRemaining() && channel.read(header, position + header.position()) > 0) {
+			// read the header
+		}
+		if (header.position() < GzipMembersOutputStream.HEADER_SIZE
+				|| header.get(0) != (byte) 0x1f || header.get(1) != (byte) 0x8b
+				|| header.get(3) != FLAG_EXTRA
+				|| (header.get(10) & 0xff | (header.get(11) & 0xff) << 8) != 12
+				|| header.get(12) != GzipMembersOutputStream.SUBFIELD_ID1
+				|| header.get(13) != GzipMembersOutputStream.SUBFIELD_ID2) {
+			return 0;
+		}
+		long memberSize = 0;
+		for (int i = 7; i >= 0; i--) {
+			memberSize = memberSize << 8 | header.get(16 + i) & 0xff;
+		}
+		if (memberSize < GzipMembersOutputStream.HEADER_SIZE + GzipMembersOutputStream.TRAILER_SIZE
+				|| memberSize > Integer.MAX_VALUE) {
+			return 0;
+		}
+		return memberSize;
+	}
+
+	private static byte[] inflate(byte[] member) throws IOException {
+		int trailer = member.length - GzipMembersOutputStream.TRAILER_SIZE;
+		int expectedCrc = readInt(member, trailer);
+		int inflatedSize = readInt(member, trailer + 4);
+		if (inflatedSize < 0) {
+			throw new ZipException("Unsupported gzip member of more than 2GB");
+		}
+		byte[] inflated = new byte[inflatedSize];
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(member, GzipMembersOutputStream.HEADER_SIZE,
+					member.length - GzipMembersOutputStream.HEADER_SIZE);
+			int length = 0;
+			while (length < inflated.length && !inflater.finished()) {
+				int read = inflater.inflate(inflated, length, inflated.length - length);
+				if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new ZipException("Truncated gzip member");
+				}
+				length += read;
+			}
+		} catch (DataFormatException ex) {
+			throw new ZipException(ex.getMessage());
+		} finally {
+			inflater.end();
+		}
+		CRC32 crc = new CRC32();
+		crc.update(inflated);
+		if ((int) crc.getValue() != expectedCrc) {
+			throw new ZipException("Corrupt gzip member, CRC mismatch");
+		}
+		return inflated;
+	}
+
+	private static int readInt(byte[] buffer, int offset) {
+		return buffer[offset] & 0xff | (buffer[offset + 1] & 0xff) << 8 | (buffer[offset + 2] & 0xff) << 16
+				| (buffer[offset + 3] & 0xff) << 24;
+	}
+}
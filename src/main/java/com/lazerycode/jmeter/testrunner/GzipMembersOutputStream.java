@@ -0,0 +1,130 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes gzip data as a series of independent gzip members of at most {@link #MEMBER_SIZE} uncompressed bytes.
+ * <p/>
+ * Every member header holds an extra field ({@link #SUBFIELD_ID1}{@link #SUBFIELD_ID2}) with the size of the
+ * compressed member, the same idea as the BGZF format. A reader can find the start of every member without
+ * decompressing, and decompress the members in parallel. Any gzip reader can read the output as a single stream.
+ */
+final class GzipMembersOutputStream extends OutputStream {
+
+	static final int MEMBER_SIZE = 1024 * 1024;
+	static final byte SUBFIELD_ID1 = 'J';
+	static final byte SUBFIELD_ID2 = 'M';
+	static final int HEADER_SIZE = 10 + 2 + 4 + 8;
+	static final int TRAILER_SIZE = 8;
+	private static final int FLAG_EXTRA = 4;
+	private static final int OS_UNKNOWN = 255;
+
+	private final OutputStream out;
+	private final Deflater deflater;
+	private final byte[] member = new byte[MEMBER_SIZE];
+	private final byte[] deflateBuffer = new byte[64 * 1024];
+	private final ByteArrayOutputStream compressed = new ByteArrayOutputStream(MEMBER_SIZE / 4);
+	private final CRC32 crc = new CRC32();
+	private int length = 0;
+	private boolean closed = false;
+
+	/**
+	 * @param out   Stream the members are written to
+	 * @param level Compression level of {@link Deflater}
+	 */
+	GzipMembersOutputStream(OutputStream out, int level) {
+		this.out = out;
+		this.deflater = new Deflater(level, true);
+	}
+
+	GzipMembersOutputStream(OutputStream out) {
+		this(out, Deflater.DEFAULT_COMPRESSION);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (length == MEMBER_SIZE) {
+			writeMember();
+		}
+		member[length++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] buffer, int offset, int count) throws IOException {
+		while (count > 0) {
+			if (length == MEMBER_SIZE) {
+				writeMember();
+			}
+			int toCopy = Math.min(count, MEMBER_SIZE - length);
+			System.arraycopy(buffer, offset, member, length, toCopy);
+			length += toCopy;
+			offset += toCopy;
+			count -= toCopy;
+		}
+	}
+
+	/**
+	 * Write the bytes received so far as a member of their own, so a reader sees them
+	 *
+	 * @throws IOException when the member cannot be written
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (length > 0) {
+			writeMember();
+		}
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			flush();
+		} finally {
+			deflater.end();
+			out.close();
+		}
+	}
+
+	private void writeMember() throws IOException {
+		crc.reset();
+		crc.update(member, 0, length);
+		deflater.reset();
+		deflater.setInput(member, 0, length);
+		deflater.finish();
+		compressed.reset();
+		while (!deflater.finished()) {
+			int deflated = deflater.deflate(deflateBuffer);
+			compressed.write(deflateBuffer, 0, deflated);
+		}
+		long memberSize = (long) HEADER_SIZE + compressed.size() + TRAILER_SIZE;
+		byte[] header = {
+				0x1f, (byte) 0x8b, Deflater.DEFLATED, FLAG_EXTRA, 0, 0, 0, 0, 0, (byte) OS_UNKNOWN,
+				// extra field of 12 bytes: one subfield with 8 bytes of data
+				12, 0, SUBFIELD_ID1, SUBFIELD_ID2, 8, 0,
+				0, 0, 0, 0, 0, 0, 0, 0};
+		for (int i = 0; i < 8; i++) {
+			header[16 + i] = (byte) (memberSize >>> (8 * i));
+		}
+		out.write(header);
+		compressed.writeTo(out);
+		writeInt((int) crc.getValue());
+		writeInt(length);
+		length = 0;
+	}
+
+	private void writeInt(int value) throws IOException {
+		out.write(value);
+		out.write(value >>> 8);
+		out.write(value >>> 16);
+		out.write(value >>> 24);
+	}
+}
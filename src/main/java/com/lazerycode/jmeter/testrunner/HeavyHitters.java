@@ -0,0 +1,214 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fixed memory count of the most frequent values of a stream, using the Space-Saving algorithm.
+ * <p/>
+ * At most {@link #getCapacity()} values are counted. A value that is not counted while all counters are in use
+ * takes over the counter with the lowest count, and inherits that count as its possible overestimation. Every value
+ * that occurred more often than the number of recorded values divided by the capacity is guaranteed to be counted.
+ * Instances can be merged, which makes it possible to fill one per file or part of a file and combine them afterwards.
+ */
+public final class HeavyHitters {
+
+	public static final int DEFAULT_CAPACITY = 64;
+
+	private final int capacity;
+	private final Map<String, Counter> counters = new HashMap<>();
+
+	public HeavyHitters() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity Maximum number of values counted
+	 */
+	public HeavyHitters(int capacity) {
+		this.capacity = Math.max(1, capacity);
+	}
+
+	/**
+	 * Count a value once
+	 *
+	 * @param value The value
+	 */
+	public void record(String value) {
+		record(value, 1);
+	}
+
+	/**
+	 * Count a value several times
+	 *
+	 * @param value The value
+	 * @param count Number of times the value has been seen, ignored when not positive
+	 */
+	public void record(String value, long count) {
+		if (count <= 0) {
+			return;
+		}
+		Counter counter = counters.get(value);
+		if (null != counter) {
+			counter.count += count;
+			return;
+		}
+		if (counters.size() < capacity) {
+			counters.put(value, new Counter(value, count, 0));
+			return;
+		}
+		Counter smallest = smallest();
+		counters.remove(smallest.value);
+		counters.put(value, new Counter(value, smallest.count + count, smallest.count));
+	}
+
+	/**
+	 * Add the counts of another instance to this one. A value that is counted by only one of them is given the lowest
+	 * count of the other, if that one has no room left, as it may have been counted there before being replaced.
+	 *
+	 * @param other The counts to add, not modified
+	 * @return this instance
+	 */
+	public HeavyHitters merge(HeavyHitters other) {
+		long missing = counters.size() < capacity ? 0 : smallest().count;
+		long otherMissing = other.counters.size() < other.capacity ? 0 : other.smallest().count;
+		Set<String> values = new HashSet<>(counters.keySet());
+		values.addAll(other.counters.keySet());
+		List<Counter> merged = new ArrayList<>(values.size());
+		for (String value : values) {
+			Counter counter = counters.get(value);
+			Counter otherCounter = other.counters.get(value);
+			merged.add(new Counter(value,
+					(null == counter ? missing : counter.count) + (null == otherCounter ? otherMissing : otherCounter.count),
+					(null == counter ? missing : counter.error) + (null == otherCounter ? otherMissing : otherCounter.error)));
+		}
+		Collections.sort(merged);
+		counters.clear();
+		for (Counter counter : merged.subList(0, Math.min(capacity, merged.size()))) {
+			counters.put(counter.value, counter);
+		}
+		return this;
+	}
+
+	/**
+	 * @param count Maximum number of values returned
+	 * @return The most frequent values, most frequent first
+	 */
+	public List<Counter> getTop(int count) {
+		List<Counter> top = new ArrayList<>(counters.values());
+		Collections.sort(top);
+		return Collections.unmodifiableList(top.subList(0, Math.min(Math.max(0, count), top.size())));
+	}
+
+	/**
+	 * @return Maximum number of values counted
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return true if no value has been counted
+	 */
+	public boolean isEmpty() {
+		return counters.isEmpty();
+	}
+
+	private Counter smallest() {
+		Counter smallest = null;
+		for (Counter counter : counters.values()) {
+			if (null == smallest || counter.count < smallest.count) {
+				smallest = counter;
+			}
+		}
+		return smallest;
+	}
+
+	/**
+	 * Write the complete state of these counts
+	 *
+	 * @param out Output to write to
+	 * @throws IOException when the output cannot be written
+	 */
+	void writeTo(DataOutput out) throws IOException {
+		out.writeInt(capacity);
+		out.writeInt(counters.size());
+		for (Counter counter : counters.values()) {
+			out.writeUTF(counter.value);
+			out.writeLong(counter.count);
+			out.writeLong(counter.error);
+		}
+	}
+
+	/**
+	 * Read counts written by {@link #writeTo(DataOutput)}
+	 *
+	 * @param in Input to read from
+	 * @return The counts
+	 * @throws IOException when the input cannot be read
+	 */
+	static HeavyHitters readFrom(DataInput in) throws IOException {
+		HeavyHitters heavyHitters = new HeavyHitters(in.readInt());
+		int size = in.readInt();
+		if (size > heavyHitters.capacity) {
+			throw new IOException("Invalid number of heavy hitters " + size);
+		}
+		for (int i = 0; i < size; i++) {
+			Counter counter = new Counter(in.readUTF(), in.readLong(), in.readLong());
+			heavyHitters.counters.put(counter.value, counter);
+		}
+		return heavyHitters;
+	}
+
+	/**
+	 * Count of a value, ordered from the most to the least frequent value
+	 */
+	public static final class Counter implements Comparable<Counter> {
+		private final String value;
+		private long count;
+		private final long error;
+
+		private Counter(String value, long count, long error) {
+			this.value = value;
+			this.count = count;
+			this.error = error;
+		}
+
+		public String getValue() {
+			return value;
+		}
+
+		/**
+		 * @return Number of times the value has been recorded, possibly overestimated by at most {@link #getError()}
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return Maximum overestimation of the count
+		 */
+		public long getError() {
+			return error;
+		}
+
+		@Override
+		public int compareTo(Counter other) {
+			int byCount = Long.compare(other.count, count);
+			return byCount != 0 ? byCount : value.compareTo(other.value);
+		}
+
+		@Override
+		public String toString() {
+			return value + " (" + (error == 0 ? "" : "~") + count + ")";
+		}
+	}
+}
@@ -0,0 +1,306 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.Permission;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-lived JMeter JVM that runs one test after another, so the tests of a suite share the class loading, the scan of
+ * JMeter's lib directories and the JIT warm-up of a single JVM. Started by {@link JMeterDaemonProcess} with JMeter's
+ * runtime jar and the jar of this plugin on the class path, it only depends on the JDK.
+ * <p/>
+ * The daemon reads a token from its standard input, prints {@link #READY_PREFIX} followed by the port it listens on,
+ * on the loopback interface only, and runs one test at a time. A connection sends the token and the JMeter command
+ * line arguments of a test, the daemon runs the test through JMeter's NewDriver and answers with the exit status,
+ * which is what the exit code of a forked JMeter would have been. While a test runs, a connection sending
+ * {@link #STOP_TEST} has the test shut down gracefully through JMeter's engine, as JMeter's UDP shutdown listener
+ * cannot be relied on in a JVM that runs many tests. A test has finished when JMeter printed the
+ * end of its run and the non-daemon threads started for it have ended. Calls to System.exit are trapped while the
+ * daemon runs, their status becomes the exit status of the test. Trapping them needs a security manager, on JVMs that
+ * no longer allow one to be installed the daemon prints {@link #EXIT_NOT_TRAPPED} and stops instead of listening, as
+ * a test calling System.exit would stop it. The output of the tests is the output of the daemon.
+ */
+@SuppressWarnings({"deprecation", "removal"})
+public final class JMeterDaemon {
+
+	static final String READY_PREFIX = "JMeter daemon listening on port ";
+	static final String EXIT_NOT_TRAPPED = "JMeter daemon cannot trap calls to System.exit on this JVM";
+	static final int EXIT_NOT_TRAPPED_STATUS = 3;
+	static final int STOP = -1;
+	static final int STOP_TEST = -2;
+	private static final String DRIVER_CLASS = "org.apache.jmeter.NewDriver";
+	private static final String ENGINE_CLASS = "org.apache.jmeter.engine.StandardJMeterEngine";
+	static final String END_OF_RUN = "... end of run";
+	private static final long POLL_INTERVAL_MS = 100;
+	private static final long END_OF_RUN_GRACE_MS = TimeUnit.SECONDS.toMillis(10);
+
+	private static final ExitTrap EXIT_TRAP = new ExitTrap();
+	private static volatile boolean endOfRun = false;
+	private static volatile Thread test;
+	private static volatile boolean testRunning = false;
+
+	private JMeterDaemon() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		String token = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)).readLine();
+		if (null == token || token.isEmpty()) {
+			System.err.println("No token on standard input, the JMeter daemon is not started");
+			System.exit(2);
+		}
+		Method driver = Class.forName(DRIVER_CLASS).getMethod("main", String[].class);
+		System.setOut(new EndOfRunDetector(System.out));
+		try {
+			System.setSecurityManager(EXIT_TRAP);
+		} catch (UnsupportedOperationException ex) {
+			System.out.println(EXIT_NOT_TRAPPED);
+			System.exit(EXIT_NOT_TRAPPED_STATUS);
+		}
+		try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			System.out.println(READY_PREFIX + serverSocket.getLocalPort());
+			while (serve(serverSocket.accept(), token, driver)) {
+				// serve the next connection
+			}
+		}
+		EXIT_TRAP.allowExit();
+		System.exit(0);
+	}
+
+	/**
+	 * Serve a connection, a test is run by a thread of its own that answers the connection once the test has finished
+	 *
+	 * @param socket The connection
+	 * @param token  The token the connection must send
+	 * @param driver JMeter's main method
+	 * @return false when the daemon is asked to stop
+	 */
+	private static boolean serve(Socket socket, String token, Method driver) {
+		boolean answeredByTest = false;
+		try {
+			DataInputStream in = new DataInputStream(socket.getInputStream());
+			DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			if (!token.equals(in.readUTF())) {
+				return true;
+			}
+			int argumentCount = in.readInt();
+			if (argumentCount == STOP) {
+				return false;
+			}
+			if (argumentCount == STOP_TEST) {
+				out.writeInt(stopTest() ? 1 : 0);
+				out.flush();
+				return true;
+			}
+			String[] arguments = new String[argumentCount];
+			for (int i = 0; i < argumentCount; i++) {
+				arguments[i] = in.readUTF();
+			}
+			if (testRunning) {
+				System.err.println("JMeter daemon is already running a test");
+				out.writeInt(1);
+				out.flush();
+				return true;
+			}
+			testRunning = true;
+			test = new Thread(() -> {
+				try {
+					int status = runTest(driver, arguments);
+					testRunning = false;
+					out.writeInt(status);
+					out.flush();
+				} catch (IOException ex) {
+					System.err.println("JMeter daemon connection failed: " + ex.getMessage());
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				} finally {
+					testRunning = false;
+					close(socket);
+				}
+			}, "jmeter-daemon-test");
+			test.start();
+			answeredByTest = true;
+		} catch (IOException ex) {
+			System.err.println("JMeter daemon connection failed: " + ex.getMessage());
+		} finally {
+			if (!answeredByTest) {
+				close(socket);
+			}
+		}
+		return true;
+	}
+
+	private static void close(Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException ex) {
+			System.err.println("Unable to close JMeter daemon connection: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Shut the running test down gracefully, the way JMeter's shutdown command does. The engine is looked up with the
+	 * class loader NewDriver set up for the test, its static stopEngine method stops the engine that was started last.
+	 *
+	 * @return true if a test was running and has been asked to stop
+	 */
+	private static boolean stopTest() {
+		Thread runningTest = test;
+		if (!testRunning || null == runningTest) {
+			return false;
+		}
+		try {
+			Class.forName(ENGINE_CLASS, true, runningTest.getContextClassLoader()).getMethod("stopEngine").invoke(null);
+			System.out.println("JMeter daemon asked the running test to shut down");
+			return true;
+		} catch (ReflectiveOperationException | LinkageError ex) {
+			System.err.println("JMeter daemon is unable to stop the running test: " + ex);
+			return false;
+		}
+	}
+
+	/**
+	 * Run a test and wait for it to finish
+	 *
+	 * @param driver    JMeter's main method
+	 * @param arguments JMeter command line arguments
+	 * @return Exit status of the test
+	 * @throws InterruptedException when interrupted while waiting for the test
+	 */
+	private static int runTest(Method driver, String[] arguments) throws InterruptedException {
+		Set<Thread> existingThreads = new HashSet<>(Thread.getAllStackTraces().keySet());
+		endOfRun = false;
+		EXIT_TRAP.reset();
+		try {
+			driver.invoke(null, (Object) arguments);
+		} catch (InvocationTargetException ex) {
+			if (!(ex.getCause() instanceof ExitTrappedException)) {
+				ex.getCause().printStackTrace();
+				return 1;
+			}
+		} catch (IllegalAccessException ex) {
+			ex.printStackTrace();
+			return 1;
+		}
+		long endOfRunSeen = 0;
+		while (hasNewNonDaemonThreads(existingThreads)) {
+			if (endOfRun && endOfRunSeen == 0) {
+				endOfRunSeen = System.currentTimeMillis();
+			} else if (endOfRunSeen > 0 && System.currentTimeMillis() - endOfRunSeen > END_OF_RUN_GRACE_MS) {
+				System.err.println("Threads of the test are still running after its end, continuing");
+				break;
+			}
+			TimeUnit.MILLISECONDS.sleep(POLL_INTERVAL_MS);
+		}
+		return EXIT_TRAP.getStatus();
+	}
+
+	private static boolean hasNewNonDaemonThreads(Set<Thread> existingThreads) {
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.isAlive() && !thread.isDaemon() && !existingThreads.contains(thread)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Thrown instead of exiting the JVM while the daemon runs
+	 */
+	private static final class ExitTrappedException extends SecurityException {
+		private static final long serialVersionUID = 1L;
+
+		private ExitTrappedException(int status) {
+			super("System.exit(" + status + ") trapped by the JMeter daemon");
+		}
+	}
+
+	/**
+	 * Security manager that permits everything except exiting the JVM, the first non-zero status of a test is kept
+	 */
+	private static final class ExitTrap extends SecurityManager {
+		private volatile boolean exitAllowed = false;
+		private volatile int status = 0;
+
+		private void reset() {
+			status = 0;
+		}
+
+		private void allowExit() {
+			exitAllowed = true;
+		}
+
+		private int getStatus() {
+			return status;
+		}
+
+		@Override
+		public void checkExit(int exitStatus) {
+			if (exitAllowed) {
+				return;
+			}
+			if (status == 0) {
+				status = exitStatus;
+			}
+			throw new ExitTrappedException(exitStatus);
+		}
+
+		@Override
+		public void checkPermission(Permission permission) {
+		}
+
+		@Override
+		public void checkPermission(Permission permission, Object context) {
+		}
+	}
+
+	/**
+	 * Standard output that notices JMeter printing the end of a run
+	 */
+	private static final class EndOfRunDetector extends PrintStream {
+		private static final byte[] MARKER = END_OF_RUN.getBytes(StandardCharsets.US_ASCII);
+		private int matched = 0;
+
+		private EndOfRunDetector(OutputStream out) {
+			super(out, true);
+		}
+
+		@Override
+		public synchronized void write(int b) {
+			match(b);
+			super.write(b);
+		}
+
+		@Override
+		public synchronized void write(byte[] buffer, int offset, int length) {
+			for (int i = offset; i < offset + length; i++) {
+				match(buffer[i]);
+			}
+			super.write(buffer, offset, length);
+		}
+
+		private void match(int b) {
+			if (b == MARKER[matched]) {
+				if (++matched == MARKER.length) {
+					endOfRun = true;
+					matched = 0;
+				}
+			} else {
+				matched = b == MARKER[0] ? 1 : 0;
+			}
+		}
+	}
+}
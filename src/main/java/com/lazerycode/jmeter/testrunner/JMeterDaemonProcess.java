@@ -0,0 +1,208 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link JMeterDaemon} running in a forked JVM, that the tests are submitted to one after another.
+ * <p/>
+ * The daemon JVM is started with the same JVM settings and working directory as a forked JMeter, a random token is
+ * passed on its standard input so only this process can submit tests. The output of the daemon is drained by a
+ * {@link ProcessOutputPump} for as long as the daemon runs. A test is submitted over a loopback socket and its exit
+ * status is read back, the running test can be stopped over another connection; an IOException means the daemon is
+ * gone. A daemon that cannot trap calls to System.exit does
+ * not start, so every test is run in a forked JVM instead.
+ */
+final class JMeterDaemonProcess implements Closeable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(JMeterDaemonProcess.class);
+
+	private static final long START_TIMEOUT_SECONDS = 60;
+	private static final long STOP_TIMEOUT_SECONDS = 10;
+	private static final Consumer<String> NO_LISTENER = line -> {
+	};
+
+	private final Process process;
+	private final String token;
+	private final CompletableFuture<Integer> port = new CompletableFuture<>();
+	private volatile Consumer<String> lineListener = NO_LISTENER;
+
+	private JMeterDaemonProcess(Process process, String token) {
+		this.process = process;
+		this.token = token;
+	}
+
+	/**
+	 * Start a daemon and wait until it accepts tests
+	 *
+	 * @param processBuilder Builder of the forked JVM, with the JVM settings, runtime jar and working directory of JMeter
+	 * @param jMeterHome     The JMeter home directory
+	 * @param output         Called with every line of output of the daemon
+	 * @return The running daemon
+	 * @throws IOException          when the daemon cannot be started or does not start listening in time
+	 * @throws InterruptedException when interrupted while waiting for the daemon to start
+	 */
+	static JMeterDaemonProcess start(JMeterProcessBuilder processBuilder, File jMeterHome, Consumer<String> output)
+			throws IOException, InterruptedException {
+		processBuilder.addSystemProperty("jmeter.home", jMeterHome.getAbsolutePath());
+		processBuilder.setMainClass(JMeterDaemon.class.getName(), Arrays.asList(pluginLocation(),
+				processBuilder.getRuntimeJarName()));
+		byte[] tokenBytes = new byte[16];
+		new SecureRandom().nextBytes(tokenBytes);
+		StringBuilder token = new StringBuilder();
+		for (byte tokenByte : tokenBytes) {
+			token.append(String.format("%02x", tokenByte));
+		}
+		JMeterDaemonProcess daemon = new JMeterDaemonProcess(processBuilder.startProcess(), token.toString());
+		try (OutputStream stdin = daemon.process.getOutputStream()) {
+			stdin.write((daemon.token + "\n").getBytes(StandardCharsets.UTF_8));
+		}
+		ProcessOutputPump outputPump = new ProcessOutputPump(daemon.process.getInputStream(), "jmeter-daemon-output",
+				daemon::onLine, output, ProcessOutputPump.DEFAULT_CAPACITY, ProcessOutputPump.DEFAULT_MAX_LINES_PER_SECOND);
+		outputPump.start();
+		Thread forwarder = new Thread(() -> {
+			try {
+				outputPump.forwardUntilClosed();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			} finally {
+				daemon.port.completeExceptionally(new IOException("JMeter daemon stopped"));
+			}
+		}, "jmeter-daemon-forwarder");
+		forwarder.setDaemon(true);
+		forwarder.start();
+		try {
+			int listeningPort = daemon.port.get(START_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			LOGGER.info("JMeter daemon started, listening on port {}", listeningPort);
+			return daemon;
+		} catch (ExecutionException ex) {
+			// The daemon stops by itself, let its remaining output be read before the streams are closed
+			forwarder.join(TimeUnit.SECONDS.toMillis(STOP_TIMEOUT_SECONDS));
+			daemon.destroy();
+			throw new IOException("JMeter daemon did not start: " + ex.getCause().getMessage(), ex.getCause());
+		} catch (TimeoutException ex) {
+			daemon.destroy();
+			throw new IOException("JMeter daemon did not start within " + START_TIMEOUT_SECONDS + "s", ex);
+		}
+	}
+
+	private static String pluginLocation() throws IOException {
+		try {
+			return new File(JMeterDaemon.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getAbsolutePath();
+		} catch (URISyntaxException ex) {
+			throw new IOException("Unable to locate the classes of the JMeter daemon", ex);
+		}
+	}
+
+	private void onLine(String line) {
+		if (!port.isDone() && line.startsWith(JMeterDaemon.EXIT_NOT_TRAPPED)) {
+			port.completeExceptionally(new IOException(line));
+		} else if (!port.isDone() && line.startsWith(JMeterDaemon.READY_PREFIX)) {
+			try {
+				port.complete(Integer.parseInt(line.substring(JMeterDaemon.READY_PREFIX.length()).trim()));
+			} catch (NumberFormatException ex) {
+				port.completeExceptionally(ex);
+			}
+		}
+		lineListener.accept(line);
+	}
+
+	/**
+	 * Run a test in the daemon and wait for it to finish
+	 *
+	 * @param arguments    JMeter command line arguments of the test
+	 * @param lineListener Called with every line of output of the daemon while the test runs
+	 * @return Exit status of the test
+	 * @throws IOException when the daemon is gone or died while running the test
+	 */
+	int runTest(List<String> arguments, Consumer<String> lineListener) throws IOException {
+		if (!isAlive()) {
+			throw new IOException("JMeter daemon is not running");
+		}
+		this.lineListener = lineListener;
+		try {
+			return send(arguments.size(), arguments);
+		} finally {
+			this.lineListener = NO_LISTENER;
+		}
+	}
+
+	/**
+	 * Ask the test running in the daemon to shut down gracefully, as JMeter's shutdown command does
+	 *
+	 * @return true if a test was running and has been asked to stop
+	 * @throws IOException when the daemon is gone
+	 */
+	boolean stopTest() throws IOException {
+		return send(JMeterDaemon.STOP_TEST, Collections.<String>emptyList()) == 1;
+	}
+
+	private int send(int command, List<String> arguments) throws IOException {
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port.join());
+			 DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+			 DataInputStream in = new DataInputStream(socket.getInputStream())) {
+			out.writeUTF(token);
+			out.writeInt(command);
+			for (String argument : arguments) {
+				out.writeUTF(argument);
+			}
+			out.flush();
+			return command == JMeterDaemon.STOP ? 0 : in.readInt();
+		}
+	}
+
+	/**
+	 * @return true while the daemon JVM runs
+	 */
+	boolean isAlive() {
+		return process.isAlive();
+	}
+
+	/**
+	 * Kill the daemon JVM, and the test it runs
+	 */
+	void destroy() {
+		process.destroyForcibly();
+	}
+
+	/**
+	 * Ask the daemon to stop, and kill it if it does not stop in time
+	 */
+	@Override
+	public void close() {
+		if (!isAlive()) {
+			return;
+		}
+		try {
+			send(JMeterDaemon.STOP, Collections.<String>emptyList());
+			if (!process.waitFor(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				LOGGER.warn("JMeter daemon did not stop within {}s, destroying JMeter daemon...", STOP_TIMEOUT_SECONDS);
+			}
+		} catch (IOException ex) {
+			LOGGER.warn("Unable to stop the JMeter daemon: {}", ex.getMessage());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} finally {
+			destroy();
+		}
+	}
+}
@@ -23,6 +23,10 @@ public class JMeterProcessBuilder {
 	private String javaRuntime;
 	private List<String> userSuppliedArguments;
 	private List<String> mainClassArguments = new ArrayList<>();
+	private List<String> jvmArguments = new ArrayList<>();
+	private String mainClass;
+	private List<String> classPath;
+	private File sharedArchiveFile;
 
 	public JMeterProcessBuilder(JMeterProcessJVMSettings settings, String runtimeJarName) {
 	    JMeterProcessJVMSettings lSettings = settings;
@@ -44,12 +48,56 @@ public class JMeterProcessBuilder {
 		}
 	}
 
+	/**
+	 * @return Name of the JMeter runtime jar, relative to the working directory
+	 */
+	public String getRuntimeJarName() {
+		return runtimeJarName;
+	}
+
 	public void addArguments(List<String> arguments) {
 		for (String argument : arguments) {
 			this.mainClassArguments.add(argument);
 		}
 	}
 
+	/**
+	 * @param name  Name of a system property of the JVM
+	 * @param value Value of the system property
+	 */
+	public void addSystemProperty(String name, String value) {
+		addJVMArgument("-D" + name + "=" + value);
+	}
+
+	/**
+	 * @param argument Argument of the JVM, added after the user supplied ones
+	 */
+	public void addJVMArgument(String argument) {
+		this.jvmArguments.add(argument);
+	}
+
+	/**
+	 * Start the JVM with a class data sharing archive of the JMeter classes, so they are mapped from the archive
+	 * instead of being loaded and verified again. The JVM ignores an archive that does not match it.
+	 *
+	 * @param sharedArchiveFile Archive created by {@link ClassDataSharingArchive}, null or a missing file to start
+	 *                          without
+	 */
+	public void setSharedArchiveFile(File sharedArchiveFile) {
+		this.sharedArchiveFile = sharedArchiveFile;
+	}
+
+	/**
+	 * Start a main class from a class path instead of the JMeter runtime jar
+	 *
+	 * @param mainClass Name of the class with the main method
+	 * @param classPath Entries of the class path
+	 */
+	public void setMainClass(String mainClass, List<String> classPath) {
+		this.mainClass = mainClass;
+		this.classPath = classPath;
+	}
+
 	private String[] constructArgumentsList() {
 		List<String> argumentsList = new ArrayList<>();
 		argumentsList.add(javaRuntime);
@@ -58,9 +106,20 @@ public class JMeterProcessBuilder {
 		for (String argument : userSuppliedArguments) {
 			argumentsList.add(argument);
 		}
+		argumentsList.addAll(jvmArguments);
+		if (null != sharedArchiveFile && sharedArchiveFile.isFile()) {
+			argumentsList.add("-XX:SharedArchiveFile=" + sharedArchiveFile.getAbsolutePath());
+			argumentsList.add("-Xshare:auto");
+		}
 
-		argumentsList.add("-jar");
-		argumentsList.add(runtimeJarName);
+		if (null == mainClass) {
+			argumentsList.add("-jar");
+			argumentsList.add(runtimeJarName);
+		} else {
+			argumentsList.add("-cp");
+			argumentsList.add(String.join(File.pathSeparator, classPath));
+			argumentsList.add(mainClass);
+		}
 		for (String arg : mainClassArguments) {
 			argumentsList.add(arg);
 		}
@@ -0,0 +1,113 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.lazerycode.jmeter.configuration.JMeterProcessJVMSettings;
+
+/**
+ * Sizes the forked JMeter JVMs to the memory and CPUs of the container the build runs in, for JVM settings with
+ * autoSize set.
+ * <p/>
+ * The memory is shared by the JVMs running at the same time, after the memory of the Maven JVM. Every JVM keeps room
+ * for its metaspace, code cache and garbage collector, for a stack per planned thread and for direct buffers of a
+ * sixteenth of its share, the heap gets 90% of the rest and the initial heap is the maximum heap, so the heap is never
+ * resized during a test. The processors are shared by the JVMs too, and set with -XX:ActiveProcessorCount so the
+ * thread pools of the JVM match them. A JVM with a single processor uses the serial collector, others use G1. JVM
+ * arguments configured by the user are kept and win over the derived ones.
+ */
+public final class JVMAutoSizing {
+	private static final Logger LOGGER = LoggerFactory.getLogger(JVMAutoSizing.class);
+
+	private static final long MB = 1024L * 1024L;
+	static final int DEFAULT_PLANNED_THREADS = 100;
+	static final int MIN_HEAP_MB = 256;
+	private static final int NON_HEAP_MB = 256;
+	private static final int THREAD_STACK_MB = 1;
+	private static final int MIN_DIRECT_MEMORY_MB = 64;
+	private static final int MAX_DIRECT_MEMORY_MB = 1024;
+	private static final String ACTIVE_PROCESSOR_COUNT = "-XX:ActiveProcessorCount=";
+	private static final String MAX_DIRECT_MEMORY_SIZE = "-XX:MaxDirectMemorySize=";
+	private static final String SERIAL_GC = "-XX:+UseSerialGC";
+	private static final String G1_GC = "-XX:+UseG1GC";
+
+	private JVMAutoSizing() {
+	}
+
+	/**
+	 * Size the JVMs for the limits of the container the build runs in
+	 *
+	 * @param settings JVM settings of the forked JVMs
+	 * @param jvmCount Number of JVMs running at the same time
+	 * @return The settings unchanged when they do not have autoSize set, else sized copies of them
+	 */
+	public static JMeterProcessJVMSettings size(JMeterProcessJVMSettings settings, int jvmCount) {
+		if (null == settings || !settings.isAutoSize()) {
+			return settings;
+		}
+		ContainerResources resources = ContainerResources.detect();
+		long memory = resources.getAvailableMemoryInBytes();
+		if (memory <= 0) {
+			LOGGER.warn("Unable to determine the memory available to JMeter, using -Xms{}M -Xmx{}M",
+					settings.getXms(), settings.getXmx());
+			return settings;
+		}
+		long mavenHeap = Math.min(Runtime.getRuntime().maxMemory(), memory / 4);
+		LOGGER.info("Sizing JMeter JVMs for {}, {} MB used by Maven", resources, mavenHeap / MB);
+		return size(settings, jvmCount, (memory - mavenHeap) / MB, resources.getAvailableProcessors());
+	}
+
+	/**
+	 * @param settings     JVM settings with autoSize set
+	 * @param jvmCount     Number of JVMs running at the same time
+	 * @param memoryInMB   Memory shared by the JVMs
+	 * @param processors   Processors shared by the JVMs
+	 * @return Sized copy of the settings
+	 */
+	static JMeterProcessJVMSettings size(JMeterProcessJVMSettings settings, int jvmCount, long memoryInMB, int processors) {
+		int jvms = Math.max(1, jvmCount);
+		int plannedThreads = settings.getPlannedThreads() > 0 ? settings.getPlannedThreads() : DEFAULT_PLANNED_THREADS;
+		long share = memoryInMB / jvms;
+		long directMemory = Math.max(MIN_DIRECT_MEMORY_MB, Math.min(MAX_DIRECT_MEMORY_MB, share / 16));
+		long heap = (share - NON_HEAP_MB - (long) plannedThreads * THREAD_STACK_MB - directMemory) * 9 / 10;
+		if (heap < MIN_HEAP_MB) {
+			LOGGER.warn("{} MB of memory per JMeter JVM is too little for {} threads, using a heap of {} MB",
+					share, plannedThreads, MIN_HEAP_MB);
+			heap = MIN_HEAP_MB;
+		}
+		int activeProcessors = Math.max(1, processors / jvms);
+
+		JMeterProcessJVMSettings sized = new JMeterProcessJVMSettings(settings);
+		sized.setXms((int) heap);
+		sized.setXmx((int) heap);
+		List<String> arguments = sized.getArguments();
+		addUnlessConfigured(arguments, ACTIVE_PROCESSOR_COUNT, ACTIVE_PROCESSOR_COUNT + activeProcessors);
+		addUnlessConfigured(arguments, MAX_DIRECT_MEMORY_SIZE, MAX_DIRECT_MEMORY_SIZE + directMemory + "m");
+		if (!hasGarbageCollector(arguments)) {
+			arguments.add(activeProcessors == 1 ? SERIAL_GC : G1_GC);
+		}
+		LOGGER.info("Sized {} JMeter JVM(s) for {} threads each, from {} MB of memory and {} processors: -Xms{}M -Xmx{}M {}",
+				jvms, plannedThreads, memoryInMB, processors, heap, heap, arguments);
+		return sized;
+	}
+
+	private static void addUnlessConfigured(List<String> arguments, String prefix, String argument) {
+		for (String configured : arguments) {
+			if (configured.startsWith(prefix)) {
+				return;
+			}
+		}
+		arguments.add(argument);
+	}
+
+	private static boolean hasGarbageCollector(List<String> arguments) {
+		for (String argument : arguments) {
+			if (argument.startsWith("-XX:+Use") && argument.endsWith("GC")) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
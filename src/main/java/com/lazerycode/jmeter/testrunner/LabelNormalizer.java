@@ -0,0 +1,66 @@
+package com.lazerycode.jmeter.testrunner;
+
+import static com.lazerycode.jmeter.utility.UtilityFunctions.isSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.lazerycode.jmeter.configuration.LabelNormalizationRule;
+
+/**
+ * Applies {@link LabelNormalizationRule}s to the labels of samples. An instance can be shared between threads.
+ */
+final class LabelNormalizer {
+
+	static final LabelNormalizer NONE = new LabelNormalizer(new ArrayList<LabelNormalizationRule>());
+
+	private final List<Pattern> patterns = new ArrayList<>();
+	private final List<String> replacements = new ArrayList<>();
+	private final String description;
+
+	/**
+	 * @param rules Rules to apply, in order, rules without a pattern are ignored
+	 * @throws java.util.regex.PatternSyntaxException when a pattern is not a valid regular expression
+	 */
+	LabelNormalizer(List<LabelNormalizationRule> rules) {
+		for (LabelNormalizationRule rule : rules) {
+			if (isSet(rule.getPattern())) {
+				patterns.add(Pattern.compile(rule.getPattern()));
+				replacements.add(rule.getReplacement());
+			}
+		}
+		this.description = patterns.toString() + replacements;
+	}
+
+	/**
+	 * @param label Label of a sample
+	 * @return The label with every rule applied, the same instance if no rule matches
+	 */
+	String normalize(String label) {
+		String normalized = label;
+		for (int i = 0; i < patterns.size(); i++) {
+			Matcher matcher = patterns.get(i).matcher(normalized);
+			if (matcher.find()) {
+				normalized = matcher.replaceAll(replacements.get(i));
+			}
+		}
+		return normalized;
+	}
+
+	/**
+	 * @return true if there are no rules
+	 */
+	boolean isEmpty() {
+		return patterns.isEmpty();
+	}
+
+	/**
+	 * @return Description of the rules, for the scan cache key
+	 */
+	@Override
+	public String toString() {
+		return description;
+	}
+}
@@ -0,0 +1,323 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Counts, elapsed times, latencies, time span, timeline and error breakdown of the samples that share a label.
+ */
+public final class LabelStatistics {
+
+	private long successCount = 0;
+	private long failureCount = 0;
+	private final LatencyHistogram elapsed = new LatencyHistogram();
+	private long latencySum = 0;
+	private long latencyCount = 0;
+	private long firstTimeStamp = Long.MAX_VALUE;
+	private long lastEndTime = Long.MIN_VALUE;
+	private final Timeline timeline;
+	private final ErrorBreakdown errors;
+	private LatencyHistogram correctedElapsed;
+	private ElapsedTimeLog exactElapsed;
+	private double[] exactPercentiles = new double[0];
+	private long[] exactValues = new long[0];
+
+	public LabelStatistics() {
+		this(Timeline.DEFAULT_INTERVAL, Timeline.DEFAULT_MAX_INTERVALS);
+	}
+
+	/**
+	 * @param timelineInterval     Width of the intervals of the timeline in milliseconds
+	 * @param timelineMaxIntervals Maximum number of intervals of the timeline
+	 */
+	LabelStatistics(long timelineInterval, int timelineMaxIntervals) {
+		this(new Timeline(timelineInterval, timelineMaxIntervals), new ErrorBreakdown());
+	}
+
+	private LabelStatistics(Timeline timeline, ErrorBreakdown errors) {
+		this.timeline = timeline;
+		this.errors = errors;
+	}
+
+	/**
+	 * Statistics restored from a summary, without latencies and with a duration instead of time stamps
+	 *
+	 * @param successCount Number of successful samples
+	 * @param failureCount Number of failed samples
+	 * @param elapsed      Histogram of the elapsed times of the samples
+	 * @param duration     Time between the start of the first sample and the end of the last sample in milliseconds
+	 */
+	public LabelStatistics(long successCount, long failureCount, LatencyHistogram elapsed, long duration) {
+		this();
+		this.successCount = successCount;
+		this.failureCount = failureCount;
+		this.elapsed.merge(elapsed);
+		if (duration > 0) {
+			firstTimeStamp = 0;
+			lastEndTime = duration;
+		}
+	}
+
+	void record(ResultSample sample) {
+		if (sample.isSuccess()) {
+			successCount++;
+		} else {
+			failureCount++;
+		}
+		elapsed.record(sample.getElapsed());
+		if (null != exactElapsed) {
+			exactElapsed.record(sample.getElapsed());
+		}
+		if (sample.getLatency() >= 0) {
+			latencySum += sample.getLatency();
+			latencyCount++;
+		}
+		if (sample.getTimeStamp() >= 0) {
+			firstTimeStamp = Math.min(firstTimeStamp, sample.getTimeStamp());
+			lastEndTime = Math.max(lastEndTime, sample.getTimeStamp() + Math.max(0, sample.getElapsed()));
+			timeline.record(sample.getTimeStamp(), sample.getElapsed(), sample.isSuccess());
+		}
+	}
+
+	/**
+	 * Write the complete state of these statistics
+	 *
+	 * @param out Output to write to
+	 * @throws IOException when the output cannot be written
+	 */
+	void writeTo(DataOutput out) throws IOException {
+		out.writeLong(successCount);
+		out.writeLong(failureCount);
+		out.writeLong(latencySum);
+		out.writeLong(latencyCount);
+		out.writeLong(firstTimeStamp);
+		out.writeLong(lastEndTime);
+		elapsed.writeTo(out);
+		timeline.writeTo(out);
+		errors.writeTo(out);
+		out.writeBoolean(null != correctedElapsed);
+		if (null != correctedElapsed) {
+			correctedElapsed.writeTo(out);
+		}
+	}
+
+	/**
+	 * Read statistics written by {@link #writeTo(DataOutput)}
+	 *
+	 * @param in Input to read from
+	 * @return The statistics
+	 * @throws IOException when the input cannot be read
+	 */
+	static LabelStatistics readFrom(DataInput in) throws IOException {
+		long successCount = in.readLong();
+		long failureCount = in.readLong();
+		long latencySum = in.readLong();
+		long latencyCount = in.readLong();
+		long firstTimeStamp = in.readLong();
+		long lastEndTime = in.readLong();
+		LatencyHistogram elapsed = LatencyHistogram.readFrom(in);
+		LabelStatistics statistics = new LabelStatistics(Timeline.readFrom(in), ErrorBreakdown.readFrom(in));
+		statistics.successCount = successCount;
+		statistics.failureCount = failureCount;
+		statistics.latencySum = latencySum;
+		statistics.latencyCount = latencyCount;
+		statistics.firstTimeStamp = firstTimeStamp;
+		statistics.lastEndTime = lastEndTime;
+		statistics.elapsed.merge(elapsed);
+		if (in.readBoolean()) {
+			statistics.correctedElapsed = LatencyHistogram.readFrom(in);
+		}
+		return statistics;
+	}
+
+	/**
+	 * Add the statistics of another instance to this one
+	 *
+	 * @param other The statistics to add, not modified
+	 * @return this instance
+	 */
+	public LabelStatistics merge(LabelStatistics other) {
+		successCount += other.successCount;
+		failureCount += other.failureCount;
+		elapsed.merge(other.elapsed);
+		latencySum += other.latencySum;
+		latencyCount += other.latencyCount;
+		firstTimeStamp = Math.min(firstTimeStamp, other.firstTimeStamp);
+		lastEndTime = Math.max(lastEndTime, other.lastEndTime);
+		timeline.merge(other.timeline);
+		errors.merge(other.errors);
+		if (null != other.correctedElapsed) {
+			if (null == correctedElapsed) {
+				correctedElapsed = new LatencyHistogram();
+			}
+			correctedElapsed.merge(other.correctedElapsed);
+		}
+		if (null != other.exactElapsed) {
+			if (null == exactElapsed) {
+				exactElapsed = new ElapsedTimeLog(null);
+			}
+			exactElapsed.merge(other.exactElapsed);
+		}
+		return this;
+	}
+
+	/**
+	 * @return Number of successful samples
+	 */
+	public long getSuccessCount() {
+		return successCount;
+	}
+
+	/**
+	 * @return Number of failed samples
+	 */
+	public long getFailureCount() {
+		return failureCount;
+	}
+
+	/**
+	 * @return Number of samples
+	 */
+	public long getSampleCount() {
+		return successCount + failureCount;
+	}
+
+	/**
+	 * @return Percentage of the samples that failed, 0 if there are no samples
+	 */
+	public double getErrorRate() {
+		long samples = getSampleCount();
+		return samples == 0 ? 0 : 100.0 * failureCount / samples;
+	}
+
+	/**
+	 * @return Histogram of the elapsed times of the samples
+	 */
+	public LatencyHistogram getElapsed() {
+		return elapsed;
+	}
+
+	/**
+	 * @return Histogram of the elapsed times corrected for coordinated omission, null if they have not been corrected
+	 */
+	public LatencyHistogram getCorrectedElapsed() {
+		return correctedElapsed;
+	}
+
+	/**
+	 * @return Number of samples, errors and elapsed times per interval of the sample time stamps
+	 */
+	public Timeline getTimeline() {
+		return timeline;
+	}
+
+	/**
+	 * Keep a histogram of the elapsed times corrected for coordinated omission as well
+	 */
+	void enableCorrection() {
+		if (null == correctedElapsed) {
+			correctedElapsed = new LatencyHistogram();
+		}
+	}
+
+	/**
+	 * Record the elapsed time of a sample corrected for coordinated omission, the sample itself must be recorded with
+	 * {@link #record(ResultSample)}
+	 *
+	 * @param elapsed          Elapsed time of the sample in milliseconds
+	 * @param expectedInterval Intended time between the starts of two samples of the thread, 0 if not known
+	 */
+	void recordCorrected(long elapsed, long expectedInterval) {
+		if (null != correctedElapsed) {
+			correctedElapsed.recordWithExpectedInterval(elapsed, expectedInterval);
+		}
+	}
+
+	/**
+	 * Write every elapsed time to a log as well, so exact percentiles can be computed
+	 *
+	 * @param exactElapsed Log the elapsed times are appended to
+	 */
+	void setExactElapsed(ElapsedTimeLog exactElapsed) {
+		this.exactElapsed = exactElapsed;
+	}
+
+	/**
+	 * Select the exact elapsed time percentiles from every elapsed time written to the elapsed time store, does
+	 * nothing if the elapsed times have not been written
+	 *
+	 * @param percentiles The percentiles
+	 * @throws IOException when the elapsed times cannot be read
+	 */
+	public void computeExactPercentiles(double... percentiles) throws IOException {
+		if (null == exactElapsed) {
+			return;
+		}
+		long count = exactElapsed.getCount();
+		if (count == 0) {
+			exactPercentiles = percentiles.clone();
+			exactValues = new long[percentiles.length];
+			return;
+		}
+		long[] ranks = new long[percentiles.length];
+		for (int i = 0; i < percentiles.length; i++) {
+			ranks[i] = Math.max(1, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentiles[i])) / 100.0 * count));
+		}
+		exactValues = exactElapsed.valuesAtRanks(ranks);
+		exactPercentiles = percentiles.clone();
+	}
+
+	/**
+	 * @param percentile A percentile
+	 * @return The exact elapsed time at the percentile if it has been computed with
+	 * {@link #computeExactPercentiles(double...)}, otherwise the value of the histogram of the elapsed times
+	 */
+	public long getValueAtPercentile(double percentile) {
+		for (int i = 0; i < exactPercentiles.length; i++) {
+			if (exactPercentiles[i] == percentile) {
+				return exactValues[i];
+			}
+		}
+		return elapsed.getValueAtPercentile(percentile);
+	}
+
+	/**
+	 * @return true if exact elapsed time percentiles have been computed
+	 */
+	public boolean hasExactPercentiles() {
+		return exactPercentiles.length > 0;
+	}
+
+	/**
+	 * @return Most frequent response codes and messages of the failed samples
+	 */
+	public ErrorBreakdown getErrors() {
+		return errors;
+	}
+
+	/**
+	 * @return Mean time to first byte (JMeter's Latency) in milliseconds, 0 if no latency has been recorded
+	 */
+	public double getMeanLatency() {
+		return latencyCount == 0 ? 0 : (double) latencySum / latencyCount;
+	}
+
+	/**
+	 * @return Time between the start of the first sample and the end of the last sample in milliseconds,
+	 * 0 if no time stamps have been recorded
+	 */
+	public long getDuration() {
+		return lastEndTime < firstTimeStamp ? 0 : lastEndTime - firstTimeStamp;
+	}
+
+	/**
+	 * @return Samples per second over the duration of the samples, 0 if no time stamps have been recorded
+	 */
+	public double getThroughput() {
+		if (lastEndTime < firstTimeStamp) {
+			return 0;
+		}
+		return getSampleCount() * 1000.0 / Math.max(1, getDuration());
+	}
+}
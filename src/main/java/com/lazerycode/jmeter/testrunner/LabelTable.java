@@ -0,0 +1,118 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing table from the bytes of a label, as read from the results file, to the statistics of that label.
+ * <p/>
+ * A sample is matched to its statistics by hashing and comparing the bytes of its label, without creating a String
+ * and without boxing, so counting a sample of a label that has been seen before does not allocate. Keys and hashes are
+ * kept in parallel arrays indexed by entry, the index of its entry identifies a label for as long as the table lives.
+ * The table grows up to a maximum number of entries, labels that do not fit are not added and have to be looked up
+ * some other way. An instance is used by a single thread.
+ */
+final class LabelTable {
+
+	static final int DEFAULT_MAX_ENTRIES = 1 << 16;
+	private static final int INITIAL_ENTRIES = 64;
+
+	private final int maxEntries;
+	private int[] slots;
+	private int[] hashes;
+	private byte[][] keys;
+	private LabelStatistics[] values;
+	private int size = 0;
+
+	/**
+	 * @param maxEntries Maximum number of labels in the table
+	 */
+	LabelTable(int maxEntries) {
+		this.maxEntries = Math.max(1, maxEntries);
+		int entries = Math.min(INITIAL_ENTRIES, this.maxEntries);
+		this.slots = new int[Integer.highestOneBit(entries * 2 - 1) << 1];
+		this.hashes = new int[entries];
+		this.keys = new byte[entries][];
+		this.values = new LabelStatistics[entries];
+	}
+
+	/**
+	 * @param label Label of a sample
+	 * @return The statistics of the label, null if the label is not in the table
+	 */
+	LabelStatistics get(SampleText label) {
+		int entry = indexOf(label);
+		return entry < 0 ? null : values[entry];
+	}
+
+	/**
+	 * @param label Label of a sample
+	 * @return The entry of the label, -1 if the label is not in the table
+	 */
+	int indexOf(SampleText label) {
+		int hash = label.contentHash();
+		int mask = slots.length - 1;
+		for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+			int entry = slots[slot] - 1;
+			if (entry < 0 || (hashes[entry] == hash && label.contentEquals(keys[entry]))) {
+				return entry;
+			}
+		}
+	}
+
+	/**
+	 * @param entry Entry of a label, as returned by {@link #indexOf(SampleText)} or {@link #put(SampleText, LabelStatistics)}
+	 * @return The statistics of the label
+	 */
+	LabelStatistics get(int entry) {
+		return values[entry];
+	}
+
+	/**
+	 * Add a label that is not in the table yet, ignored when the table is full
+	 *
+	 * @param label      Label of a sample
+	 * @param statistics The statistics of the label
+	 * @return The entry of the label, -1 if the table is full
+	 */
+	int put(SampleText label, LabelStatistics statistics) {
+		if (size == maxEntries) {
+			return -1;
+		}
+		if (size == keys.length) {
+			grow();
+		}
+		int hash = label.contentHash();
+		hashes[size] = hash;
+		keys[size] = Arrays.copyOf(label.bytes(), label.length());
+		values[size] = statistics;
+		insert(hash, size);
+		return size++;
+	}
+
+	/**
+	 * @return Number of labels in the table
+	 */
+	int size() {
+		return size;
+	}
+
+	private void insert(int hash, int entry) {
+		int mask = slots.length - 1;
+		int slot = hash & mask;
+		while (slots[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		slots[slot] = entry + 1;
+	}
+
+	private void grow() {
+		int entries = Math.min(maxEntries, keys.length * 2);
+		hashes = Arrays.copyOf(hashes, entries);
+		keys = Arrays.copyOf(keys, entries);
+		values = Arrays.copyOf(values, entries);
+		slots = new int[Integer.highestOneBit(entries * 2 - 1) << 1];
+		for (int entry = 0; entry < size; entry++) {
+			insert(hashes[entry], entry);
+		}
+	}
+}
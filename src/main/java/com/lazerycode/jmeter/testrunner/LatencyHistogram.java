@@ -0,0 +1,239 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Fixed memory histogram of elapsed times in milliseconds.
+ * <p/>
+ * Values below 128 ms are counted exactly. Larger values are counted in logarithmic buckets, 64 per power of two,
+ * so a percentile is never reported more than 1/64 (about 1.6%) above the real value. Histograms can be merged,
+ * which makes it possible to fill one per file or part of a file and combine them afterwards.
+ */
+public final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 6;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int LINEAR_BUCKETS = SUB_BUCKETS * 2;
+	private static final int MAX_EXPONENT = 40;
+	static final long MAX_TRACKABLE_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+	static final int BUCKETS = LINEAR_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final long[] counts = new long[BUCKETS];
+	private long totalCount = 0;
+	private long sum = 0;
+	private long min = Long.MAX_VALUE;
+	private long max = 0;
+
+	/**
+	 * Record a value, negative values are ignored and values larger than {@link #MAX_TRACKABLE_VALUE} are counted
+	 * as {@link #MAX_TRACKABLE_VALUE}.
+	 *
+	 * @param value Elapsed time in milliseconds
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			return;
+		}
+		long trackedValue = Math.min(value, MAX_TRACKABLE_VALUE);
+		counts[bucketIndex(trackedValue)]++;
+		totalCount++;
+		sum += trackedValue;
+		min = Math.min(min, trackedValue);
+		max = Math.max(max, trackedValue);
+	}
+
+	/**
+	 * Record a value, and the values of the samples that would have been sent meanwhile if the sender had not waited
+	 * for it: one for every expected interval that fits in the value, each an interval smaller than the one before. This
+	 * corrects for coordinated omission the way HdrHistogram does.
+	 *
+	 * @param value            Elapsed time in milliseconds
+	 * @param expectedInterval Intended time between the starts of two samples in milliseconds, no values are added
+	 *                         when not positive
+	 */
+	public void recordWithExpectedInterval(long value, long expectedInterval) {
+		record(value);
+		if (expectedInterval <= 0 || value < 0) {
+			return;
+		}
+		for (long missing = Math.min(value, MAX_TRACKABLE_VALUE) - expectedInterval; missing >= expectedInterval;
+			 missing -= expectedInterval) {
+			record(missing);
+		}
+	}
+
+	/**
+	 * Record a value several times, negative values and counts are ignored and values larger than
+	 * {@link #MAX_TRACKABLE_VALUE} are counted as {@link #MAX_TRACKABLE_VALUE}.
+	 *
+	 * @param value Elapsed time in milliseconds
+	 * @param count Number of times the value has been seen
+	 */
+	public void record(long value, long count) {
+		if (value < 0 || count <= 0) {
+			return;
+		}
+		long trackedValue = Math.min(value, MAX_TRACKABLE_VALUE);
+		counts[bucketIndex(trackedValue)] += count;
+		totalCount += count;
+		sum += trackedValue * count;
+		min = Math.min(min, trackedValue);
+		max = Math.max(max, trackedValue);
+	}
+
+	/**
+	 * Add the values of another histogram to this one
+	 *
+	 * @param other The histogram to add, not modified
+	 * @return this histogram
+	 */
+	public LatencyHistogram merge(LatencyHistogram other) {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] += other.counts[i];
+		}
+		totalCount += other.totalCount;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+		return this;
+	}
+
+	/**
+	 * @param percentile A percentile between 0 and 100
+	 * @return The highest value of the bucket that holds the percentile (capped to the largest value recorded),
+	 * 0 if nothing has been recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (totalCount == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * totalCount));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.max(min, Math.min(max, highestValueOf(i)));
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * @return Number of values recorded
+	 */
+	public long getCount() {
+		return totalCount;
+	}
+
+	/**
+	 * @return The smallest value recorded, 0 if nothing has been recorded
+	 */
+	public long getMin() {
+		return totalCount == 0 ? 0 : min;
+	}
+
+	/**
+	 * @return The largest value recorded
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * @return The mean of the values recorded, 0 if nothing has been recorded
+	 */
+	public double getMean() {
+		return totalCount == 0 ? 0 : (double) sum / totalCount;
+	}
+
+	/**
+	 * @return The number of values per bucket that holds values, keyed by the highest value of the bucket in
+	 * increasing order. Recording these counts in an empty histogram fills the same buckets.
+	 */
+	public Map<Long, Long> getBucketCounts() {
+		Map<Long, Long> bucketCounts = new LinkedHashMap<>();
+		for (int i = 0; i < BUCKETS; i++) {
+			if (counts[i] > 0) {
+				bucketCounts.put(highestValueOf(i), counts[i]);
+			}
+		}
+		return bucketCounts;
+	}
+
+	/**
+	 * Write the complete state of this histogram, only the buckets that hold values are written
+	 *
+	 * @param out Output to write to
+	 * @throws IOException when the output cannot be written
+	 */
+	void writeTo(DataOutput out) throws IOException {
+		out.writeLong(totalCount);
+		out.writeLong(sum);
+		out.writeLong(min);
+		out.writeLong(max);
+		int used = 0;
+		for (long count : counts) {
+			if (count > 0) {
+				used++;
+			}
+		}
+		out.writeInt(used);
+		for (int i = 0; i < BUCKETS; i++) {
+			if (counts[i] > 0) {
+				out.writeShort(i);
+				out.writeLong(counts[i]);
+			}
+		}
+	}
+
+	/**
+	 * Read a histogram written by {@link #writeTo(DataOutput)}
+	 *
+	 * @param in Input to read from
+	 * @return The histogram
+	 * @throws IOException when the input cannot be read or is not a histogram
+	 */
+	static LatencyHistogram readFrom(DataInput in) throws IOException {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.totalCount = in.readLong();
+		histogram.sum = in.readLong();
+		histogram.min = in.readLong();
+		histogram.max = in.readLong();
+		int used = in.readInt();
+		for (int i = 0; i < used; i++) {
+			int index = in.readUnsignedShort();
+			if (index >= BUCKETS) {
+				throw new IOException("Invalid histogram bucket " + index);
+			}
+			histogram.counts[index] = in.readLong();
+		}
+		return histogram;
+	}
+
+	long getCountAtIndex(int index) {
+		return counts[index];
+	}
+
+	static int bucketIndex(long value) {
+		if (value < LINEAR_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		return LINEAR_BUCKETS + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+	}
+
+	static long highestValueOf(int index) {
+		if (index < LINEAR_BUCKETS) {
+			return index;
+		}
+		int exponent = (index - LINEAR_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+		int shift = exponent - SUB_BUCKET_BITS;
+		long subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+		return ((subBucket + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,143 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.lazerycode.jmeter.configuration.EarlyAbortConfiguration;
+
+/**
+ * Reads a CSV results file while JMeter is writing it, and reports when the samples of the rolling window exceed one
+ * of the thresholds of an {@link EarlyAbortConfiguration}.
+ * <p/>
+ * Every run reads the bytes appended since the previous run and passes them to the same streaming parser, a record
+ * that has only been written partly is completed by the next run.
+ */
+final class LiveResultsMonitor implements Runnable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(LiveResultsMonitor.class);
+
+	private static final int READ_SIZE = 64 * 1024;
+
+	private final File resultsFile;
+	private final List<String> csvColumns;
+	private final EarlyAbortConfiguration configuration;
+	private final Consumer<String> breachHandler;
+	private final ByteBuffer buffer = ByteBuffer.allocate(READ_SIZE);
+	private RollingWindowStatistics window;
+	private CsvResultParser parser;
+	private FileChannel channel;
+	private long position = 0;
+	private boolean breached = false;
+
+	/**
+	 * @param resultsFile   The results file JMeter writes
+	 * @param csvColumns    Column headers JMeter was configured to write, used when the file has no header
+	 * @param configuration Window and thresholds
+	 * @param breachHandler Called once, with a description of the breach, when a threshold is exceeded
+	 */
+	LiveResultsMonitor(File resultsFile, List<String> csvColumns, EarlyAbortConfiguration configuration,
+					   Consumer<String> breachHandler) {
+		this.resultsFile = resultsFile;
+		this.csvColumns = csvColumns;
+		this.configuration = configuration;
+		this.breachHandler = breachHandler;
+		reset();
+	}
+
+	@Override
+	public void run() {
+		if (breached) {
+			return;
+		}
+		try {
+			String breach = poll();
+			if (null != breach) {
+				breached = true;
+				breachHandler.accept(breach);
+			}
+		} catch (IOException | RuntimeException ex) {
+			LOGGER.warn("Unable to read results file '{}' while the test is running: {}", resultsFile, ex.getMessage());
+		}
+	}
+
+	/**
+	 * Read the samples appended to the results file since the previous call and check the thresholds
+	 *
+	 * @return A description of the exceeded threshold, or null if all thresholds are met
+	 * @throws IOException when the results file cannot be read
+	 */
+	String poll() throws IOException {
+		if (null == channel) {
+			if (!resultsFile.exists()) {
+				return null;
+			}
+			channel = FileChannel.open(resultsFile.toPath(), StandardOpenOption.READ);
+		}
+		long size = channel.size();
+		if (size < position) {
+			LOGGER.debug("Results file '{}' has been truncated, reading it again", resultsFile);
+			reset();
+		}
+		while (position < size) {
+			buffer.clear();
+			int read = channel.read(buffer, position);
+			if (read <= 0) {
+				break;
+			}
+			parser.consume(buffer.array(), 0, read);
+			position += read;
+		}
+		return checkThresholds(window.getWindow());
+	}
+
+	/**
+	 * Stop reading the results file
+	 */
+	void close() {
+		if (null != channel) {
+			try {
+				channel.close();
+			} catch (IOException ex) {
+				LOGGER.debug("Unable to close results file '{}'", resultsFile, ex);
+			}
+			channel = null;
+		}
+	}
+
+	private void reset() {
+		window = new RollingWindowStatistics(configuration.getWindowInSeconds());
+		parser = new CsvResultParser(EnumSet.of(ResultField.SUCCESS, ResultField.ELAPSED, ResultField.TIMESTAMP),
+				csvColumns, window);
+		position = 0;
+	}
+
+	private String checkThresholds(LabelStatistics statistics) {
+		if (statistics.getSampleCount() == 0 || statistics.getSampleCount() < configuration.getMinSamples()) {
+			return null;
+		}
+		if (null != configuration.getMaxErrorRate() && statistics.getErrorRate() > configuration.getMaxErrorRate()) {
+			return String.format(Locale.ROOT, "error rate %.2f%% of the last %d samples exceeds %.2f%%",
+					statistics.getErrorRate(), statistics.getSampleCount(), configuration.getMaxErrorRate());
+		}
+		long p95 = statistics.getElapsed().getValueAtPercentile(95);
+		if (null != configuration.getMaxP95() && p95 > configuration.getMaxP95()) {
+			return String.format(Locale.ROOT, "p95 elapsed time %dms of the last %d samples exceeds %dms",
+					p95, statistics.getSampleCount(), configuration.getMaxP95());
+		}
+		long p99 = statistics.getElapsed().getValueAtPercentile(99);
+		if (null != configuration.getMaxP99() && p99 > configuration.getMaxP99()) {
+			return String.format(Locale.ROOT, "p99 elapsed time %dms of the last %d samples exceeds %dms",
+					p99, statistics.getSampleCount(), configuration.getMaxP99());
+		}
+		return null;
+	}
+}
@@ -0,0 +1,88 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An {@link InputStream} over a byte range of a file, read through the same memory mapped windows as
+ * {@link MappedFileReader}, for readers that pull their input instead of having it pushed to them.
+ */
+final class MappedFileInputStream extends InputStream {
+
+	private final FileChannel channel;
+	private final long limit;
+	private long position;
+	private MappedByteBuffer window;
+
+	/**
+	 * Open the byte range [start, end) of a file, end is capped to the size of the file.
+	 *
+	 * @param file  The file to read
+	 * @param start Offset of the first byte to read
+	 * @param end   Offset just after the last byte to read
+	 * @throws IOException when the file cannot be opened
+	 */
+	MappedFileInputStream(File file, long start, long end) throws IOException {
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		this.limit = Math.min(end, channel.size());
+		this.position = start;
+	}
+
+	MappedFileInputStream(File file) throws IOException {
+		this(file, 0, Long.MAX_VALUE);
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!nextWindow()) {
+			return -1;
+		}
+		return window.get() & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] buffer, int offset, int length) throws IOException {
+		if (length == 0) {
+			return 0;
+		}
+		if (!nextWindow()) {
+			return -1;
+		}
+		int toRead = Math.min(length, window.remaining());
+		window.get(buffer, offset, toRead);
+		return toRead;
+	}
+
+	@Override
+	public int available() {
+		return null == window ? 0 : window.remaining();
+	}
+
+	@Override
+	public void close() throws IOException {
+		window = null;
+		channel.close();
+	}
+
+	/**
+	 * Make sure there are bytes left in the current window, mapping the next window if needed
+	 *
+	 * @return false when the end of the range has been reached
+	 */
+	private boolean nextWindow() throws IOException {
+		if (null != window && window.hasRemaining()) {
+			return true;
+		}
+		if (position >= limit) {
+			return false;
+		}
+		long windowSize = Math.min(MappedFileReader.WINDOW_SIZE, limit - position);
+		window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+		position += windowSize;
+		return true;
+	}
+}
@@ -0,0 +1,62 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file sequentially through memory mapped windows and hands the bytes to a {@link ResultFileConsumer}.
+ * <p/>
+ * Windows are mapped one at a time, so files larger than 2GB (the limit of a single mapping) are supported.
+ * Bytes are transferred from the mapping into one small reusable buffer, nothing is allocated per record.
+ */
+final class MappedFileReader {
+
+	static final long WINDOW_SIZE = 64L * 1024 * 1024;
+	private static final int TRANSFER_SIZE = 64 * 1024;
+
+	private MappedFileReader() throws AssertionError {
+		throw new AssertionError("This class is non-instantiable.");
+	}
+
+	/**
+	 * Read a complete file.
+	 *
+	 * @param file     The file to read
+	 * @param consumer The consumer the bytes are passed to
+	 * @throws IOException when the file cannot be read
+	 */
+	static void read(File file, ResultFileConsumer consumer) throws IOException {
+		read(file, 0, Long.MAX_VALUE, consumer);
+	}
+
+	/**
+	 * Read the byte range [start, end) of a file, end is capped to the size of the file.
+	 *
+	 * @param file     The file to read
+	 * @param start    Offset of the first byte to read
+	 * @param end      Offset just after the last byte to read
+	 * @param consumer The consumer the bytes are passed to
+	 * @throws IOException when the file cannot be read
+	 */
+	static void read(File file, long start, long end, ResultFileConsumer consumer) throws IOException {
+		byte[] transferBuffer = new byte[TRANSFER_SIZE];
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long limit = Math.min(end, channel.size());
+			long position = start;
+			while (position < limit) {
+				long windowSize = Math.min(WINDOW_SIZE, limit - position);
+				MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+				while (window.hasRemaining()) {
+					int length = Math.min(transferBuffer.length, window.remaining());
+					window.get(transferBuffer, 0, length);
+					consumer.consume(transferBuffer, 0, length);
+				}
+				position += windowSize;
+			}
+		}
+		consumer.endOfInput();
+	}
+}
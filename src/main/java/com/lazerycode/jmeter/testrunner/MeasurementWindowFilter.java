@@ -0,0 +1,34 @@
+package com.lazerycode.jmeter.testrunner;
+
+/**
+ * Passes on the samples that started within a measurement window and discards the others.
+ * <p/>
+ * Samples without a time stamp, e.g. from results files with a formatted time stamp, cannot be placed and are
+ * passed on.
+ */
+final class MeasurementWindowFilter implements SampleHandler {
+
+	private final long start;
+	private final long end;
+	private final SampleHandler handler;
+
+	/**
+	 * @param start   Time stamp of the first millisecond of the window
+	 * @param end     Time stamp just after the last millisecond of the window
+	 * @param handler Handler receiving the samples within the window
+	 */
+	MeasurementWindowFilter(long start, long end, SampleHandler handler) {
+		this.start = start;
+		this.end = end;
+		this.handler = handler;
+	}
+
+	@Override
+	public void handleSample(ResultSample sample) {
+		long timeStamp = sample.getTimeStamp();
+		if (timeStamp >= 0 && (timeStamp < start || timeStamp >= end)) {
+			return;
+		}
+		handler.handleSample(sample);
+	}
+}
@@ -0,0 +1,168 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drains the output of a forked JMeter process on a thread of its own, so JMeter never waits for the output to be
+ * logged.
+ * <p/>
+ * The pump thread reads the output line by line, hands every line to a listener and puts it in a bounded ring buffer.
+ * When the buffer is full the line is dropped and counted instead of waiting. The lines are forwarded from the buffer
+ * in batches by the thread calling {@link #forwardUntilClosed()}, at most a maximum number of lines per second, and the
+ * number of dropped lines is forwarded whenever lines have been dropped.
+ */
+final class ProcessOutputPump {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ProcessOutputPump.class);
+
+	static final int DEFAULT_CAPACITY = 10_000;
+	static final int DEFAULT_MAX_LINES_PER_SECOND = 1000;
+	private static final long POLL_INTERVAL_MS = 100;
+	private static final long ONE_SECOND_NS = TimeUnit.SECONDS.toNanos(1);
+
+	private final InputStream input;
+	private final Consumer<String> lineListener;
+	private final Consumer<String> output;
+	private final int maxLinesPerSecond;
+	private final Thread thread;
+	private final String[] buffer;
+	private int head = 0;
+	private int size = 0;
+	private boolean closed = false;
+	private long droppedLineCount = 0;
+
+	/**
+	 * @param input             Output of the process
+	 * @param name              Name of the pump thread
+	 * @param lineListener      Called with every line on the pump thread, before it is buffered, must not block
+	 * @param output            Called with the lines to forward, and the number of dropped lines
+	 * @param capacity          Maximum number of lines waiting to be forwarded
+	 * @param maxLinesPerSecond Maximum number of lines forwarded per second
+	 */
+	ProcessOutputPump(InputStream input, String name, Consumer<String> lineListener, Consumer<String> output,
+					  int capacity, int maxLinesPerSecond) {
+		this.input = input;
+		this.lineListener = lineListener;
+		this.output = output;
+		this.maxLinesPerSecond = Math.max(1, maxLinesPerSecond);
+		this.buffer = new String[Math.max(1, capacity)];
+		this.thread = new Thread(this::pump, name);
+		this.thread.setDaemon(true);
+	}
+
+	/**
+	 * Start reading the output of the process
+	 */
+	void start() {
+		thread.start();
+	}
+
+	private void pump() {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(input))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lineListener.accept(line);
+				offer(line);
+			}
+		} catch (IOException ex) {
+			LOGGER.error("Unable to read the output of the JMeter process: {}", ex.getMessage());
+		} finally {
+			close();
+		}
+	}
+
+	private synchronized void offer(String line) {
+		if (size == buffer.length) {
+			droppedLineCount++;
+			return;
+		}
+		buffer[(head + size) % buffer.length] = line;
+		if (size++ == 0) {
+			notifyAll();
+		}
+	}
+
+	private synchronized void close() {
+		closed = true;
+		notifyAll();
+	}
+
+	/**
+	 * Take the buffered lines, waiting a while for lines if there are none
+	 *
+	 * @param batch    List the lines are added to
+	 * @param maxLines Maximum number of lines taken
+	 * @return false once the output has been read completely and every line has been taken
+	 * @throws InterruptedException when interrupted while waiting
+	 */
+	private synchronized boolean drain(List<String> batch, int maxLines) throws InterruptedException {
+		if (size == 0 && !closed) {
+			wait(POLL_INTERVAL_MS);
+		}
+		if (size == 0) {
+			return !closed;
+		}
+		int count = Math.min(size, maxLines);
+		for (int i = 0; i < count; i++) {
+			batch.add(buffer[head]);
+			buffer[head] = null;
+			head = (head + 1) % buffer.length;
+		}
+		size -= count;
+		return true;
+	}
+
+	/**
+	 * Forward the lines of the output until the process closed its output and every buffered line has been forwarded
+	 *
+	 * @throws InterruptedException when interrupted while waiting for lines or for the next second to forward them in
+	 */
+	void forwardUntilClosed() throws InterruptedException {
+		List<String> batch = new ArrayList<>();
+		long reportedDroppedLineCount = 0;
+		long secondStart = System.nanoTime();
+		int linesThisSecond = 0;
+		while (drain(batch, maxLinesPerSecond - linesThisSecond)) {
+			for (String line : batch) {
+				output.accept(line);
+			}
+			linesThisSecond += batch.size();
+			batch.clear();
+			reportedDroppedLineCount = reportDroppedLines(reportedDroppedLineCount);
+			long elapsed = System.nanoTime() - secondStart;
+			if (linesThisSecond >= maxLinesPerSecond && elapsed < ONE_SECOND_NS) {
+				TimeUnit.NANOSECONDS.sleep(ONE_SECOND_NS - elapsed);
+				elapsed = ONE_SECOND_NS;
+			}
+			if (elapsed >= ONE_SECOND_NS) {
+				secondStart = System.nanoTime();
+				linesThisSecond = 0;
+			}
+		}
+		reportDroppedLines(reportedDroppedLineCount);
+	}
+
+	private long reportDroppedLines(long reportedDroppedLineCount) {
+		long dropped = getDroppedLineCount();
+		if (dropped > reportedDroppedLineCount) {
+			output.accept("(" + (dropped - reportedDroppedLineCount) + " lines of JMeter output dropped)");
+		}
+		return dropped;
+	}
+
+	/**
+	 * @return Number of lines dropped because the buffer was full
+	 */
+	synchronized long getDroppedLineCount() {
+		return droppedLineCount;
+	}
+}
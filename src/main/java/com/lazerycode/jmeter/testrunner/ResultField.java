@@ -0,0 +1,168 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Fields JMeter can write for every sample into a results file, in the order JMeter writes them to CSV files.
+ * <p/>
+ * Each field knows the header JMeter prints for it in CSV files, the attribute it uses in XML files and the save
+ * service property that controls whether it is written. This allows the column layout of a CSV results file without
+ * a header to be worked out from the JMeter configuration.
+ */
+public enum ResultField {
+	TIMESTAMP("timeStamp", "ts", "jmeter.save.saveservice.timestamp_format", true),
+	ELAPSED("elapsed", "t", "jmeter.save.saveservice.time", true),
+	LABEL("label", "lb", "jmeter.save.saveservice.label", true),
+	RESPONSE_CODE("responseCode", "rc", "jmeter.save.saveservice.response_code", true),
+	RESPONSE_MESSAGE("responseMessage", "rm", "jmeter.save.saveservice.response_message", true),
+	THREAD_NAME("threadName", "tn", "jmeter.save.saveservice.thread_name", true),
+	DATA_TYPE("dataType", "dt", "jmeter.save.saveservice.data_type", true),
+	SUCCESS("success", "s", "jmeter.save.saveservice.successful", true),
+	FAILURE_MESSAGE("failureMessage", null, "jmeter.save.saveservice.assertion_results_failure_message", true),
+	BYTES("bytes", "by", "jmeter.save.saveservice.bytes", true),
+	SENT_BYTES("sentBytes", "sby", "jmeter.save.saveservice.sent_bytes", true),
+	GRP_THREADS("grpThreads", "ng", "jmeter.save.saveservice.thread_counts", true),
+	ALL_THREADS("allThreads", "na", "jmeter.save.saveservice.thread_counts", true),
+	URL("URL", null, "jmeter.save.saveservice.url", true),
+	FILENAME("Filename", null, "jmeter.save.saveservice.filename", false),
+	LATENCY("Latency", "lt", "jmeter.save.saveservice.latency", true),
+	ENCODING("Encoding", "de", "jmeter.save.saveservice.encoding", false),
+	SAMPLE_COUNT("SampleCount", "sc", "jmeter.save.saveservice.sample_count", false),
+	ERROR_COUNT("ErrorCount", "ec", "jmeter.save.saveservice.sample_count", false),
+	HOSTNAME("Hostname", "hn", "jmeter.save.saveservice.hostname", false),
+	IDLE_TIME("IdleTime", "it", "jmeter.save.saveservice.idle_time", true),
+	CONNECT("Connect", "ct", "jmeter.save.saveservice.connect_time", true);
+
+	private static final String NO_TIMESTAMP = "none";
+	private static final String PRINT_FIELD_NAMES = "jmeter.save.saveservice.print_field_names";
+	private static final String DELIMITER = "jmeter.save.saveservice.default_delimiter";
+	private static final String SAMPLE_VARIABLES = "sample_variables";
+	private static final Map<String, ResultField> BY_XML_ATTRIBUTE = new HashMap<>();
+
+	static {
+		for (ResultField field : values()) {
+			if (null != field.xmlAttribute) {
+				BY_XML_ATTRIBUTE.put(field.xmlAttribute, field);
+			}
+		}
+	}
+
+	private final String header;
+	private final String xmlAttribute;
+	private final String saveServiceProperty;
+	private final boolean savedByDefault;
+
+	ResultField(String header, String xmlAttribute, String saveServiceProperty, boolean savedByDefault) {
+		this.header = header;
+		this.xmlAttribute = xmlAttribute;
+		this.saveServiceProperty = saveServiceProperty;
+		this.savedByDefault = savedByDefault;
+	}
+
+	/**
+	 * @return The column header JMeter prints for this field
+	 */
+	public String getHeader() {
+		return header;
+	}
+
+	/**
+	 * @return The attribute of a sample element that holds this field in XML results files, null if it is not an attribute
+	 */
+	public String getXmlAttribute() {
+		return xmlAttribute;
+	}
+
+	/**
+	 * @return The save service property that controls if this field is written
+	 */
+	public String getSaveServiceProperty() {
+		return saveServiceProperty;
+	}
+
+	/**
+	 * Check if JMeter writes this field, given a set of JMeter properties
+	 *
+	 * @param properties Effective JMeter properties
+	 * @return true if the field is written to the results file
+	 */
+	public boolean isSaved(Properties properties) {
+		String value = properties.getProperty(saveServiceProperty);
+		if (null == value || value.trim().isEmpty()) {
+			return savedByDefault;
+		}
+		if (this == TIMESTAMP) {
+			return !NO_TIMESTAMP.equalsIgnoreCase(value.trim());
+		}
+		return Boolean.parseBoolean(value.trim());
+	}
+
+	/**
+	 * Work out the CSV column headers JMeter writes, given a set of JMeter properties
+	 *
+	 * @param properties Effective JMeter properties
+	 * @return The headers of the columns, in the order they are written
+	 */
+	public static List<String> csvColumns(Properties properties) {
+		List<String> columns = new ArrayList<>();
+		for (ResultField field : values()) {
+			if (field.isSaved(properties)) {
+				columns.add(field.getHeader());
+			}
+		}
+		return columns;
+	}
+
+	/**
+	 * Work out the header line JMeter writes to new CSV results files, given a set of JMeter properties
+	 *
+	 * @param properties Effective JMeter properties
+	 * @return The header, without line separator, or null if JMeter is configured not to print the field names
+	 */
+	public static String csvHeader(Properties properties) {
+		if (!Boolean.parseBoolean(properties.getProperty(PRINT_FIELD_NAMES, "true").trim())) {
+			return null;
+		}
+		String delimiter = properties.getProperty(DELIMITER, ",");
+		if ("\\t".equals(delimiter)) {
+			delimiter = "\t";
+		}
+		StringBuilder header = new StringBuilder(String.join(delimiter, csvColumns(properties)));
+		String sampleVariables = properties.getProperty(SAMPLE_VARIABLES, "").trim();
+		if (!sampleVariables.isEmpty()) {
+			for (String variable : sampleVariables.split(",")) {
+				header.append(delimiter).append('"').append(variable).append('"');
+			}
+		}
+		return header.toString();
+	}
+
+	/**
+	 * Find a field by its XML attribute name
+	 *
+	 * @param attribute The attribute name
+	 * @return The field, or null if the attribute is not a known JMeter field
+	 */
+	public static ResultField fromXmlAttribute(String attribute) {
+		return BY_XML_ATTRIBUTE.get(attribute);
+	}
+
+	/**
+	 * Find a field by its CSV column header
+	 *
+	 * @param header The column header
+	 * @return The field, or null if the header is not a known JMeter field
+	 */
+	public static ResultField fromHeader(String header) {
+		for (ResultField field : values()) {
+			if (field.header.equals(header)) {
+				return field;
+			}
+		}
+		return null;
+	}
+}
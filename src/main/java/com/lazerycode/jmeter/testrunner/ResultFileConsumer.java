@@ -0,0 +1,23 @@
+package com.lazerycode.jmeter.testrunner;
+
+/**
+ * Receives the raw bytes of a results file, in file order, as they are read by {@link MappedFileReader}.
+ * Implementations keep their own state between calls, so a record may span any number of calls.
+ */
+interface ResultFileConsumer {
+
+	/**
+	 * Process the next block of bytes read from the file.
+	 * The buffer is reused after this method returns, implementations must not hold on to it.
+	 *
+	 * @param buffer Buffer holding the bytes
+	 * @param offset Offset of the first byte to process
+	 * @param length Number of bytes to process
+	 */
+	void consume(byte[] buffer, int offset, int length);
+
+	/**
+	 * Called once all bytes have been passed to {@link #consume(byte[], int, int)}.
+	 */
+	void endOfInput();
+}
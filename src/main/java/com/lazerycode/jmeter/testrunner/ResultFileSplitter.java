@@ -0,0 +1,288 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits a results file into byte ranges that each start at the beginning of a record, so the ranges can be parsed
+ * independently of each other.
+ * <p/>
+ * A CSV range starts on a line whose first field looks like the first field of the first record and that holds
+ * a complete record. An XML range starts on a line that opens a sample with the indentation of the first sample of
+ * the file, nested samples are indented deeper. When no boundary can be found the file is not split any further.
+ */
+final class ResultFileSplitter {
+
+	static final int PROBE_SIZE = 64 * 1024;
+	private static final int SEARCH_WINDOW = 1024 * 1024;
+	private static final int LOOKAHEAD = 64 * 1024;
+	private static final byte[] TEST_RESULTS = "<testResults".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] SAMPLE = "sample".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] HTTP_SAMPLE = "httpSample".getBytes(StandardCharsets.UTF_8);
+
+	/**
+	 * Checks if a record starts at a position of a buffer
+	 */
+	private interface RecordStart {
+		/**
+		 * @return true if a record starts at the given position, false if it does not or if more bytes are needed
+		 */
+		boolean matches(byte[] buffer, int position, int length);
+	}
+
+	private ResultFileSplitter() throws AssertionError {
+		throw new AssertionError("This class is non-instantiable.");
+	}
+
+	/**
+	 * Read the first bytes of a file
+	 *
+	 * @param channel Channel of the file
+	 * @return The first {@link #PROBE_SIZE} bytes of the file, or the whole file if it is smaller
+	 * @throws IOException when the file cannot be read
+	 */
+	static byte[] head(FileChannel channel) throws IOException {
+		ByteBuffer head = ByteBuffer.allocate((int) Math.min(PROBE_SIZE, channel.size()));
+		while (head.hasRemaining() && channel.read(head, head.position()) >= 0) {
+			// keep reading until the buffer is full
+		}
+		return Arrays.copyOf(head.array(), head.position());
+	}
+
+	/**
+	 * Split a CSV file
+	 *
+	 * @param channel     Channel of the file
+	 * @param chunkSize   Target size of a range
+	 * @param head        The first bytes of the file
+	 * @param delimiter   Delimiter of the file
+	 * @param columnCount Number of columns of a record
+	 * @param header      The file starts with a header
+	 * @return The offsets of the ranges, starting with 0 and ending with the size of the file
+	 * @throws IOException when the file cannot be read
+	 */
+	static long[] splitCsv(FileChannel channel, long chunkSize, byte[] head, byte delimiter, int columnCount,
+						   boolean header) throws IOException {
+		byte[] signature = firstFieldSignature(head, delimiter, header);
+		if (null == signature) {
+			return new long[]{0, channel.size()};
+		}
+		return split(channel, chunkSize, (buffer, position, length) -> {
+			int fieldEnd = position;
+			while (fieldEnd < length && buffer[fieldEnd] != delimiter && buffer[fieldEnd] != '\n') {
+				fieldEnd++;
+			}
+			if (fieldEnd == length || !Arrays.equals(signature, signature(buffer, position, fieldEnd - position))) {
+				return false;
+			}
+			int fields = 1;
+			boolean quoted = false;
+			for (int i = position; i < length; i++) {
+				byte current = buffer[i];
+				if (current == '"') {
+					quoted = !quoted;
+				} else if (!quoted && current == delimiter) {
+					fields++;
+				} else if (!quoted && current == '\n') {
+					return fields == columnCount;
+				}
+			}
+			return false;
+		});
+	}
+
+	/**
+	 * Split an XML file
+	 *
+	 * @param channel   Channel of the file
+	 * @param chunkSize Target size of a range
+	 * @param head      The first bytes of the file
+	 * @return The offsets of the ranges, starting with 0 and ending with the size of the file
+	 * @throws IOException when the file cannot be read
+	 */
+	static long[] splitXml(FileChannel channel, long chunkSize, byte[] head) throws IOException {
+		byte[] indentation = sampleIndentation(head);
+		if (null == indentation) {
+			return new long[]{0, channel.size()};
+		}
+		return split(channel, chunkSize, (buffer, position, length) -> {
+			int element = position + indentation.length + 1;
+			if (element + HTTP_SAMPLE.length >= length) {
+				return false;
+			}
+			for (int i = 0; i < indentation.length; i++) {
+				if (buffer[position + i] != indentation[i]) {
+					return false;
+				}
+			}
+			if (buffer[element - 1] != '<') {
+				return false;
+			}
+			if (startsWith(buffer, element, SAMPLE)) {
+				return isNameEnd(buffer[element + SAMPLE.length]);
+			}
+			return startsWith(buffer, element, HTTP_SAMPLE) && isNameEnd(buffer[element + HTTP_SAMPLE.length]);
+		});
+	}
+
+	private static long[] split(FileChannel channel, long chunkSize, RecordStart recordStart) throws IOException {
+		long size = channel.size();
+		List<Long> boundaries = new ArrayList<>();
+		boundaries.add(0L);
+		byte[] window = new byte[SEARCH_WINDOW + LOOKAHEAD];
+		long target = chunkSize;
+		while (size - target > chunkSize / 2) {
+			long boundary = findRecordStart(channel, target, Math.min(size, target + chunkSize), window, recordStart);
+			if (boundary < 0) {
+				break;
+			}
+			boundaries.add(boundary);
+			target = boundary + chunkSize;
+		}
+		boundaries.add(size);
+		long[] result = new long[boundaries.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = boundaries.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Find the first line in [from, to) at which a record starts
+	 *
+	 * @return The offset of the line, or -1 if there is none
+	 */
+	private static long findRecordStart(FileChannel channel, long from, long to, byte[] window, RecordStart recordStart)
+			throws IOException {
+		for (long windowStart = from - 1; windowStart < to; windowStart += SEARCH_WINDOW) {
+			int length = read(channel, windowStart, window);
+			int searchEnd = Math.min(length, SEARCH_WINDOW);
+			for (int i = 0; i < searchEnd; i++) {
+				if (window[i] == '\n' && i + 1 < length && recordStart.matches(window, i + 1, length)) {
+					return windowStart + i + 1;
+				}
+			}
+			if (length < window.length) {
+				break;
+			}
+		}
+		return -1;
+	}
+
+	private static int read(FileChannel channel, long position, byte[] window) throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(window);
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position + buffer.position());
+			if (read < 0) {
+				break;
+			}
+		}
+		return buffer.position();
+	}
+
+	/**
+	 * Work out what the first field of a record looks like: digits are replaced by '9' and letters by 'a'
+	 *
+	 * @return The signature of the first field of the first record, or null if there is no complete record
+	 */
+	static byte[] firstFieldSignature(byte[] head, byte delimiter, boolean header) {
+		int position = 0;
+		if (header) {
+			position = nextLine(head, 0);
+		}
+		while (position >= 0 && position < head.length && (head[position] == '\n' || head[position] == '\r')) {
+			position++;
+		}
+		if (position < 0 || position >= head.length || head[position] == '"') {
+			return null;
+		}
+		int fieldEnd = position;
+		while (fieldEnd < head.length && head[fieldEnd] != delimiter && head[fieldEnd] != '\n') {
+			fieldEnd++;
+		}
+		if (fieldEnd == head.length || nextLine(head, fieldEnd) < 0) {
+			return null;
+		}
+		return signature(head, position, fieldEnd - position);
+	}
+
+	static byte[] signature(byte[] value, int offset, int length) {
+		byte[] signature = new byte[length];
+		for (int i = 0; i < length; i++) {
+			byte current = value[offset + i];
+			if (current >= '0' && current <= '9') {
+				signature[i] = '9';
+			} else if ((current >= 'a' && current <= 'z') || (current >= 'A' && current <= 'Z')) {
+				signature[i] = 'a';
+			} else {
+				signature[i] = current;
+			}
+		}
+		return signature;
+	}
+
+	/**
+	 * Find the whitespace in front of the first sample element that follows the opening testResults element
+	 *
+	 * @return The indentation, or null if there is no sample in the head of the file
+	 */
+	static byte[] sampleIndentation(byte[] head) {
+		int root = indexOf(head, TEST_RESULTS, 0);
+		if (root < 0) {
+			return null;
+		}
+		for (int position = nextLine(head, root); position >= 0; position = nextLine(head, position)) {
+			int element = position;
+			while (element < head.length && (head[element] == ' ' || head[element] == '\t')) {
+				element++;
+			}
+			if (element + 1 + HTTP_SAMPLE.length >= head.length) {
+				return null;
+			}
+			if (head[element] == '<' && ((startsWith(head, element + 1, SAMPLE) && isNameEnd(head[element + 1 + SAMPLE.length]))
+					|| (startsWith(head, element + 1, HTTP_SAMPLE) && isNameEnd(head[element + 1 + HTTP_SAMPLE.length])))) {
+				return Arrays.copyOfRange(head, position, element);
+			}
+		}
+		return null;
+	}
+
+	private static int nextLine(byte[] buffer, int from) {
+		for (int i = from; i < buffer.length; i++) {
+			if (buffer[i] == '\n') {
+				return i + 1;
+			}
+		}
+		return -1;
+	}
+
+	private static int indexOf(byte[] buffer, byte[] value, int from) {
+		for (int i = from; i <= buffer.length - value.length; i++) {
+			if (startsWith(buffer, i, value)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean startsWith(byte[] buffer, int position, byte[] value) {
+		if (position + value.length > buffer.length) {
+			return false;
+		}
+		for (int i = 0; i < value.length; i++) {
+			if (buffer[position + i] != value[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isNameEnd(byte current) {
+		return current == ' ' || current == '>' || current == '/' || current == '\t' || current == '\r' || current == '\n';
+	}
+}
@@ -0,0 +1,301 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A single sample read from a JMeter results file.
+ * <p/>
+ * Parsers reuse one instance for every sample they read and only fill the fields they have been asked for,
+ * so a {@link SampleHandler} must copy any value it wants to keep. Numeric fields that have not been read are -1.
+ */
+public final class ResultSample {
+
+	static final long NOT_SET = -1;
+
+	private long presentFields;
+	private int depth;
+	private long timeStamp;
+	private long elapsed;
+	private long latency;
+	private long connect;
+	private long bytes;
+	private long sentBytes;
+	private long grpThreads;
+	private long allThreads;
+	private boolean success;
+	private final SampleText label = new SampleText();
+	private final SampleText responseCode = new SampleText();
+	private final SampleText responseMessage = new SampleText();
+	private final SampleText threadName = new SampleText();
+	private final SampleText failureMessage = new SampleText();
+
+	ResultSample() {
+		reset();
+	}
+
+	/**
+	 * Clear all values, ready for the next sample
+	 */
+	void reset() {
+		presentFields = 0;
+		depth = 0;
+		timeStamp = NOT_SET;
+		elapsed = NOT_SET;
+		latency = NOT_SET;
+		connect = NOT_SET;
+		bytes = NOT_SET;
+		sentBytes = NOT_SET;
+		grpThreads = NOT_SET;
+		allThreads = NOT_SET;
+		success = false;
+		label.clear();
+		responseCode.clear();
+		responseMessage.clear();
+		threadName.clear();
+		failureMessage.clear();
+	}
+
+	/**
+	 * Set a field from its raw UTF-8 representation in the results file
+	 *
+	 * @param field  The field to set
+	 * @param value  Array holding the raw value
+	 * @param offset Offset of the first byte of the value
+	 * @param length Number of bytes of the value
+	 */
+	void set(ResultField field, byte[] value, int offset, int length) {
+		presentFields |= 1L << field.ordinal();
+		switch (field) {
+			case TIMESTAMP:
+				timeStamp = parseLong(value, offset, length);
+				break;
+			case ELAPSED:
+				elapsed = parseLong(value, offset, length);
+				break;
+			case LATENCY:
+				latency = parseLong(value, offset, length);
+				break;
+			case CONNECT:
+				connect = parseLong(value, offset, length);
+				break;
+			case BYTES:
+				bytes = parseLong(value, offset, length);
+				break;
+			case SENT_BYTES:
+				sentBytes = parseLong(value, offset, length);
+				break;
+			case GRP_THREADS:
+				grpThreads = parseLong(value, offset, length);
+				break;
+			case ALL_THREADS:
+				allThreads = parseLong(value, offset, length);
+				break;
+			case SUCCESS:
+				success = length == 4
+						&& (value[offset] | 0x20) == 't'
+						&& (value[offset + 1] | 0x20) == 'r'
+						&& (value[offset + 2] | 0x20) == 'u'
+						&& (value[offset + 3] | 0x20) == 'e';
+				break;
+			case LABEL:
+				label.set(value, offset, length);
+				break;
+			case RESPONSE_CODE:
+				responseCode.set(value, offset, length);
+				break;
+			case RESPONSE_MESSAGE:
+				responseMessage.set(value, offset, length);
+				break;
+			case THREAD_NAME:
+				threadName.set(value, offset, length);
+				break;
+			case FAILURE_MESSAGE:
+				failureMessage.set(value, offset, length);
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Set a field from its textual representation, as read from an XML attribute or element
+	 *
+	 * @param field The field to set
+	 * @param value The value
+	 */
+	void set(ResultField field, String value) {
+		switch (field) {
+			case LABEL:
+				presentFields |= 1L << field.ordinal();
+				label.set(value);
+				break;
+			case RESPONSE_CODE:
+				presentFields |= 1L << field.ordinal();
+				responseCode.set(value);
+				break;
+			case RESPONSE_MESSAGE:
+				presentFields |= 1L << field.ordinal();
+				responseMessage.set(value);
+				break;
+			case THREAD_NAME:
+				presentFields |= 1L << field.ordinal();
+				threadName.set(value);
+				break;
+			case FAILURE_MESSAGE:
+				presentFields |= 1L << field.ordinal();
+				failureMessage.set(value);
+				break;
+			default:
+				byte[] ascii = value.getBytes(StandardCharsets.ISO_8859_1);
+				set(field, ascii, 0, ascii.length);
+				break;
+		}
+	}
+
+	/**
+	 * Set a numeric field, or the success flag (true when not 0), from a value that has already been parsed
+	 *
+	 * @param field The field to set
+	 * @param value The value
+	 */
+	void set(ResultField field, long value) {
+		presentFields |= 1L << field.ordinal();
+		switch (field) {
+			case TIMESTAMP:
+				timeStamp = value;
+				break;
+			case ELAPSED:
+				elapsed = value;
+				break;
+			case LATENCY:
+				latency = value;
+				break;
+			case CONNECT:
+				connect = value;
+				break;
+			case BYTES:
+				bytes = value;
+				break;
+			case SENT_BYTES:
+				sentBytes = value;
+				break;
+			case GRP_THREADS:
+				grpThreads = value;
+				break;
+			case ALL_THREADS:
+				allThreads = value;
+				break;
+			case SUCCESS:
+				success = value != 0;
+				break;
+			default:
+				presentFields &= ~(1L << field.ordinal());
+				break;
+		}
+	}
+
+	/**
+	 * @param depth Nesting level of the sample, 0 for a sample that is not a sub result of another sample
+	 */
+	void setDepth(int depth) {
+		this.depth = depth;
+	}
+
+	/**
+	 * Parse a non negative decimal number without creating a String
+	 *
+	 * @return the number, or {@link #NOT_SET} if the value is empty or not a number
+	 */
+	static long parseLong(byte[] value, int offset, int length) {
+		if (length == 0 || length > 18) {
+			return NOT_SET;
+		}
+		long result = 0;
+		for (int i = offset; i < offset + length; i++) {
+			int digit = value[i] - '0';
+			if (digit < 0 || digit > 9) {
+				return NOT_SET;
+			}
+			result = result * 10 + digit;
+		}
+		return result;
+	}
+
+	/**
+	 * @param field A field
+	 * @return true if the field has been read for this sample
+	 */
+	public boolean has(ResultField field) {
+		return (presentFields & (1L << field.ordinal())) != 0;
+	}
+
+	/**
+	 * @return Nesting level of the sample, 0 for a sample that is not a sub result of another sample
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * @return true if the sample is a sub result of another sample, e.g. a request inside a Transaction Controller
+	 */
+	public boolean isSubResult() {
+		return depth > 0;
+	}
+
+	public long getTimeStamp() {
+		return timeStamp;
+	}
+
+	public long getElapsed() {
+		return elapsed;
+	}
+
+	public long getLatency() {
+		return latency;
+	}
+
+	public long getConnect() {
+		return connect;
+	}
+
+	public long getBytes() {
+		return bytes;
+	}
+
+	public long getSentBytes() {
+		return sentBytes;
+	}
+
+	public long getGrpThreads() {
+		return grpThreads;
+	}
+
+	public long getAllThreads() {
+		return allThreads;
+	}
+
+	public boolean isSuccess() {
+		return success;
+	}
+
+	public SampleText getLabel() {
+		return label;
+	}
+
+	public SampleText getResponseCode() {
+		return responseCode;
+	}
+
+	public SampleText getResponseMessage() {
+		return responseMessage;
+	}
+
+	public SampleText getThreadName() {
+		return threadName;
+	}
+
+	public SampleText getFailureMessage() {
+		return failureMessage;
+	}
+}
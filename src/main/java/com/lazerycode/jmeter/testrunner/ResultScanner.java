@@ -1,88 +1,765 @@
 package com.lazerycode.jmeter.testrunner;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Scanner;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import javax.xml.stream.XMLStreamException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.lazerycode.jmeter.configuration.ExpectedInterval;
+import com.lazerycode.jmeter.configuration.LabelNormalizationRule;
+import com.lazerycode.jmeter.configuration.MeasurementWindow;
+import com.lazerycode.jmeter.exceptions.IOException;
 import com.lazerycode.jmeter.exceptions.ResultsFileNotFoundException;
 
 /**
- * Handles checking a JMeter results file in XML format for errors and failures.
+ * Handles checking a JMeter results file in CSV or XML format for errors and failures.
+ * <p/>
+ * Each file is read once, through memory mapped windows or, for gzip compressed files, by streaming decompression,
+ * and successes, failures and the elapsed times of every label are recorded in that single pass. Columnar results
+ * files converted by {@link #convertToColumnar(File, File)} are recognised and read without parsing any text.
+ * Only samples are counted, the sub results nested inside a sample in XML files are not.
+ * Several files, and parts of large files, can be scanned in parallel, each into its own {@link ResultStatistics}.
+ * The statistics are merged in the order of the files and parts once all of them have been scanned.
  *
  * @author Jon Roberts
  */
 public class ResultScanner {
     private static final Logger LOGGER = LoggerFactory.getLogger(ResultScanner.class);
 
-    private static final String CSV_REQUEST_FAILURE = "\\bfalse\\b";
-    private static final String CSV_REQUEST_SUCCESS = "\\btrue\\b";
+	public static final long DEFAULT_CHUNK_SIZE = 256L * 1024 * 1024;
+	private static final Set<ResultField> SCANNED_FIELDS = Collections.unmodifiableSet(
+			EnumSet.of(ResultField.SUCCESS, ResultField.LABEL, ResultField.ELAPSED, ResultField.TIMESTAMP,
+					ResultField.LATENCY, ResultField.RESPONSE_CODE, ResultField.RESPONSE_MESSAGE,
+					ResultField.FAILURE_MESSAGE));
+	private static final int FIRST_SAMPLES = 1000;
+	private static final byte[] TEST_RESULTS_START = "<testResults>".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] TEST_RESULTS_END = "</testResults>".getBytes(StandardCharsets.UTF_8);
 
-	private static final String XML_REQUEST_FAILURE = "s=\"false\"";
-	private static final String XML_REQUEST_SUCCESS = "s=\"true\"";
 	private final boolean countFailures;
 	private final boolean countSuccesses;
 	private int failureCount = 0;
 	private int successCount = 0;
     private boolean csv;
+	private final List<String> csvColumns;
+	private long timelineInterval = Timeline.DEFAULT_INTERVAL;
+	private int timelineMaxIntervals = Timeline.DEFAULT_MAX_INTERVALS;
+	private LabelNormalizer labelNormalizer = LabelNormalizer.NONE;
+	private int maxLabels = Integer.MAX_VALUE;
+	private ElapsedTimeStore elapsedTimeStore;
+	private List<ExpectedInterval> expectedIntervals;
+	private Set<ResultField> scannedFields = SCANNED_FIELDS;
+	private ResultStatistics statistics = new ResultStatistics();
+	private long chunkSize = DEFAULT_CHUNK_SIZE;
+	private int decompressionParallelism = 1;
+	private ScanCache scanCache;
+	private MeasurementWindow measurementWindow;
+	private long windowStart = Long.MIN_VALUE;
+	private long windowEnd = Long.MAX_VALUE;
+	private int cachedFileCount = 0;
 
-	public ResultScanner(boolean countSuccesses, boolean countFailures, boolean isCsv) {
+	/**
+	 * @param countSuccesses Count successful samples
+	 * @param countFailures  Count failed samples
+	 * @param isCsv          Results files are in CSV format
+	 * @param csvColumns     Column headers JMeter was configured to write, used for CSV files that have no header
+	 */
+	public ResultScanner(boolean countSuccesses, boolean countFailures, boolean isCsv, List<String> csvColumns) {
         this.countFailures = countFailures;
         this.countSuccesses = countSuccesses;
         this.csv = isCsv;
+		this.csvColumns = null == csvColumns ? Collections.<String>emptyList() : csvColumns;
+	}
+
+	public ResultScanner(boolean countSuccesses, boolean countFailures, boolean isCsv) {
+		this(countSuccesses, countFailures, isCsv, null);
     }
 	
 	public ResultScanner(boolean countSuccesses, boolean countFailures) {
 	    this(countSuccesses, countFailures, false);
 	}
 
+	/**
+	 * @param chunkSize Size of the parts a file is split into when files are parsed concurrently
+	 */
+	public void setChunkSize(long chunkSize) {
+		this.chunkSize = Math.max(1, chunkSize);
+	}
+
+	/**
+	 * @param decompressionParallelism Maximum number of gzip members of a compressed file decompressed at the same
+	 *                                 time, 1 to decompress while reading
+	 */
+	public void setDecompressionParallelism(int decompressionParallelism) {
+		this.decompressionParallelism = Math.max(1, decompressionParallelism);
+	}
+
+	/**
+	 * Set the intervals of the timelines of the statistics, this clears the statistics gathered so far
+	 *
+	 * @param interval     Width of the intervals in milliseconds
+	 * @param maxIntervals Maximum number of intervals of a timeline, the intervals are widened to stay below it
+	 */
+	public void setTimeline(long interval, int maxIntervals) {
+		this.timelineInterval = interval;
+		this.timelineMaxIntervals = maxIntervals;
+		this.statistics = newStatistics();
+	}
+
+	/**
+	 * Set how the labels of the samples are normalized and how many are kept, this clears the statistics gathered so
+	 * far
+	 *
+	 * @param rules     Rules applied to every label, in order
+	 * @param maxLabels Maximum number of labels, the samples of labels beyond it are counted together as overflow
+	 * @throws java.util.regex.PatternSyntaxException when the pattern of a rule is not a valid regular expression
+	 */
+	public void setLabelNormalization(List<LabelNormalizationRule> rules, int maxLabels) {
+		this.labelNormalizer = null == rules ? LabelNormalizer.NONE : new LabelNormalizer(rules);
+		this.maxLabels = maxLabels;
+		this.statistics = newStatistics();
+	}
+
+	/**
+	 * @param elapsedTimeStore Store every elapsed time is written to, so exact percentiles can be computed with
+	 *                         {@link ResultStatistics#computeExactPercentiles(double...)}, null to only keep histograms.
+	 *                         The scan cache is not used while elapsed times are stored. This clears the statistics
+	 *                         gathered so far.
+	 */
+	public void setElapsedTimeStore(ElapsedTimeStore elapsedTimeStore) {
+		this.elapsedTimeStore = elapsedTimeStore;
+		this.statistics = newStatistics();
+	}
+
+	/**
+	 * Set whether the elapsed times are corrected for coordinated omission as well, this clears the statistics gathered
+	 * so far. The thread names of the samples are read to tell the threads apart, columnar results files have none and
+	 * are not corrected.
+	 *
+	 * @param enabled           Keep histograms of the corrected elapsed times next to the measured ones
+	 * @param expectedIntervals Intended intervals per thread group, the intervals of other threads are inferred from the
+	 *                          time stamps of their samples
+	 */
+	public void setCoordinatedOmissionCorrection(boolean enabled, List<ExpectedInterval> expectedIntervals) {
+		if (enabled) {
+			this.expectedIntervals = null == expectedIntervals ? Collections.<ExpectedInterval>emptyList() : expectedIntervals;
+			EnumSet<ResultField> fields = EnumSet.copyOf(SCANNED_FIELDS);
+			fields.add(ResultField.THREAD_NAME);
+			this.scannedFields = Collections.unmodifiableSet(fields);
+		} else {
+			this.expectedIntervals = null;
+			this.scannedFields = SCANNED_FIELDS;
+		}
+		this.statistics = newStatistics();
+	}
+
+	/**
+	 * @param scanCache Cache of the statistics of files scanned before, files that did not change since are not
+	 *                  scanned again, null to scan every file
+	 */
+	public void setScanCache(ScanCache scanCache) {
+		this.scanCache = scanCache;
+	}
+
+	/**
+	 * @param measurementWindow Only the samples that started within the window are counted, null to count every
+	 *                          sample. A window relative to the first sample is placed after the first sample of the
+	 *                          files parsed by a single call to {@link #parseResultFile(File)} or
+	 *                          {@link #parseResultFiles(List, int)}.
+	 */
+	public void setMeasurementWindow(MeasurementWindow measurementWindow) {
+		this.measurementWindow = measurementWindow;
+	}
+
 	/**
 	 * Work out how to parse the file (if at all)
 	 *
 	 * @param file File to parse
 	 * @throws ResultsFileNotFoundException
+	 * @throws IOException
+	 */
+	public void parseResultFile(File file) throws ResultsFileNotFoundException, IOException {
+		if (!countFailures && !countSuccesses) {
+			return;
+		}
+		resolveMeasurementWindow(Collections.singletonList(file));
+		add(scanCached(file));
+	}
+
+	/**
+	 * Parse several files concurrently on a pool of the given size. Files larger than the chunk size are split into
+	 * ranges that start at a record boundary, and the ranges are scanned concurrently as well. Compressed files are
+	 * not split, their members are decompressed concurrently instead.
+	 *
+	 * @param files       Files to parse
+	 * @param parallelism Maximum number of files, or parts of a file, scanned at the same time
+	 * @throws ResultsFileNotFoundException
+	 * @throws IOException
+	 */
+	public void parseResultFiles(List<File> files, int parallelism) throws ResultsFileNotFoundException, IOException {
+		if ((!countFailures && !countSuccesses) || files.isEmpty()) {
+			return;
+		}
+		resolveMeasurementWindow(files);
+		if (parallelism <= 1) {
+			for (File file : files) {
+				add(scanCached(file));
+			}
+			return;
+		}
+		setDecompressionParallelism(parallelism / Math.min(parallelism, files.size()));
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			List<List<ForkJoinTask<ResultStatistics>>> scans = new ArrayList<>(files.size());
+			List<ScanCache.Key> keys = new ArrayList<>(files.size());
+			List<ResultStatistics> cached = new ArrayList<>(files.size());
+			for (File file : files) {
+				ScanCache.Key key = cacheKey(file);
+				ResultStatistics cachedStatistics = fromCache(file, key);
+				List<ForkJoinTask<ResultStatistics>> fileScans = new ArrayList<>();
+				if (null == cachedStatistics) {
+					for (Callable<ResultStatistics> part : scanParts(file)) {
+						fileScans.add(pool.submit(part));
+					}
+				}
+				scans.add(fileScans);
+				keys.add(key);
+				cached.add(cachedStatistics);
+			}
+			for (int i = 0; i < files.size(); i++) {
+				ResultStatistics fileStatistics = cached.get(i);
+				if (null == fileStatistics) {
+					fileStatistics = newStatistics();
+					for (ForkJoinTask<ResultStatistics> scan : scans.get(i)) {
+						fileStatistics.merge(scan.get());
+					}
+					toCache(keys.get(i), fileStatistics);
+				}
+				add(fileStatistics);
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while scanning results files", ex);
+		} catch (ExecutionException ex) {
+			// the pool wraps checked exceptions thrown by a scan in one or more RuntimeExceptions
+			Throwable cause = ex.getCause();
+			while (cause instanceof RuntimeException && null != cause.getCause()) {
+				cause = cause.getCause();
+			}
+			if (cause instanceof ResultsFileNotFoundException) {
+				throw (ResultsFileNotFoundException) cause;
+			}
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException("Unable to scan results files", cause);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Scan a single file without changing the counts of this scanner, this method can be called from several threads
+	 *
+	 * @param file File to parse
+	 * @return The statistics of the file
+	 * @throws ResultsFileNotFoundException
+	 * @throws IOException
+	 */
+	public ResultStatistics scan(File file) throws ResultsFileNotFoundException, IOException {
+		ResultStatistics fileStatistics = newStatistics();
+		try {
+			read(file, scannedFields, inMeasurementWindow(fileStatistics), true);
+		} catch (UncheckedIOException ex) {
+			throw new IOException("Unable to write the elapsed times of results file:"
+					+ file.getAbsolutePath(), ex.getCause());
+		}
+		return fileStatistics;
+	}
+
+	/**
+	 * Work out the time stamps of the measurement window, reading the first samples of the files if the window is
+	 * relative to the first sample
+	 *
+	 * @param files Files to parse
+	 * @throws ResultsFileNotFoundException
+	 * @throws IOException
+	 */
+	private void resolveMeasurementWindow(List<File> files) throws ResultsFileNotFoundException, IOException {
+		windowStart = Long.MIN_VALUE;
+		windowEnd = Long.MAX_VALUE;
+		if (null == measurementWindow) {
+			return;
+		}
+		if (null != measurementWindow.getStartTimeStamp()) {
+			windowStart = measurementWindow.getStartTimeStamp();
+		}
+		if (null != measurementWindow.getEndTimeStamp()) {
+			windowEnd = measurementWindow.getEndTimeStamp();
+		}
+		if (measurementWindow.isRelative()) {
+			long firstTimeStamp = firstTimeStamp(files);
+			if (firstTimeStamp == Long.MAX_VALUE) {
+				LOGGER.warn("No time stamps found in the results files, the measurement window is ignored");
+				windowStart = Long.MIN_VALUE;
+				windowEnd = Long.MAX_VALUE;
+				return;
+			}
+			if (null != measurementWindow.getStartOffsetInSeconds()) {
+				windowStart = Math.max(windowStart, firstTimeStamp + measurementWindow.getStartOffsetInSeconds() * 1000);
+			}
+			if (null != measurementWindow.getEndOffsetInSeconds()) {
+				windowEnd = Math.min(windowEnd, firstTimeStamp + measurementWindow.getEndOffsetInSeconds() * 1000);
+			}
+		}
+		LOGGER.info("Only samples that started from {} until {} are counted", windowStart, windowEnd);
+	}
+
+	/**
+	 * Find the earliest time stamp of the first samples of the files, the samples of a results file are written
+	 * roughly in order so the rest of a file does not have to be read
+	 *
+	 * @param files Files to parse
+	 * @return The earliest time stamp, Long.MAX_VALUE if none of the first samples has a time stamp
+	 * @throws ResultsFileNotFoundException
+	 * @throws IOException
+	 */
+	private long firstTimeStamp(List<File> files) throws ResultsFileNotFoundException, IOException {
+		long[] first = {Long.MAX_VALUE};
+		for (File file : files) {
+			int[] samples = {0};
+			try {
+				read(file, EnumSet.of(ResultField.TIMESTAMP, ResultField.SUCCESS), sample -> {
+					if (sample.getTimeStamp() >= 0) {
+						first[0] = Math.min(first[0], sample.getTimeStamp());
+					}
+					if (++samples[0] == FIRST_SAMPLES) {
+						throw new FirstSamplesRead();
+					}
+				}, false);
+			} catch (FirstSamplesRead ex) {
+				// the rest of the file is not needed
+			}
+		}
+		return first[0];
+	}
+
+	private SampleHandler inMeasurementWindow(SampleHandler handler) {
+		if (windowStart == Long.MIN_VALUE && windowEnd == Long.MAX_VALUE) {
+			return handler;
+		}
+		return new MeasurementWindowFilter(windowStart, windowEnd, handler);
+	}
+
+	/**
+	 * Stops reading a file once its first samples have been read
+	 */
+	private static final class FirstSamplesRead extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		private FirstSamplesRead() {
+			super(null, null, false, false);
+		}
+	}
+
+	/**
+	 * Convert a results file in CSV or XML format, compressed or not, to a columnar results file that is scanned
+	 * much faster than the original file
+	 *
+	 * @param file         File to convert
+	 * @param columnarFile Columnar results file to write
+	 * @return Number of samples, including sub results, written to the columnar results file
+	 * @throws ResultsFileNotFoundException
+	 * @throws IOException
+	 */
+	public long convertToColumnar(File file, File columnarFile) throws ResultsFileNotFoundException, IOException {
+		long startTime = System.nanoTime();
+		try (ColumnarResultsWriter writer = new ColumnarResultsWriter(columnarFile)) {
+			read(file, ColumnarResultsWriter.STORED_FIELDS, writer, true);
+			writer.close();
+			LOGGER.debug("Converted results file '{}' to '{}' in {} ms", file.getAbsolutePath(),
+					columnarFile.getAbsolutePath(), (System.nanoTime() - startTime) / 1_000_000);
+			return writer.getSampleCount();
+		} catch (ColumnarResultsWriter.ColumnarWriteException ex) {
+			throw new IOException("Unable to write columnar results file:"
+					+ columnarFile.getAbsolutePath(), ex.getCause());
+		} catch (java.io.IOException ex) {
+			throw new IOException("Unable to write columnar results file:"
+					+ columnarFile.getAbsolutePath(), ex);
+		}
+	}
+
+	/**
+	 * Read every sample of a file, whatever its format
+	 *
+	 * @param file    File to parse
+	 * @param fields  The fields the handler needs
+	 * @param handler Handler receiving the samples
+	 * @param log     Log the format of the file
+	 * @throws ResultsFileNotFoundException
+	 * @throws IOException
+	 */
+	private void read(File file, Set<ResultField> fields, SampleHandler handler, boolean log)
+			throws ResultsFileNotFoundException, IOException {
+		if (!log) {
+			LOGGER.debug("Reading the first samples of results file '{}'", file);
+		}
+		if (isColumnar(file)) {
+			if (log) {
+				LOGGER.info("Parsing columnar results file '{}'", file);
+			}
+			scanColumnarFile(file, fields, handler);
+		} else if (isGzip(file)) {
+			if (log) {
+				LOGGER.info("Parsing gzip compressed results file '{}' in format '{}'", file, this.csv ? "CSV" : "XML");
+			}
+			scanGzipFile(file, fields, handler);
+		} else if (this.csv) {
+			if (log) {
+				LOGGER.info("Parsing results file '{}' in format 'CSV', using column '{}'",
+						file, ResultField.SUCCESS.getHeader());
+			}
+			scanFile(file, 0, Long.MAX_VALUE, new CsvResultParser(fields, csvColumns, handler));
+		} else {
+			if (log) {
+				LOGGER.info("Parsing results file '{}' in format 'XML', using attribute '{}'",
+						file, ResultField.SUCCESS.getXmlAttribute());
+			}
+			scanXmlFile(file, 0, Long.MAX_VALUE, true, true, fields, handler);
+		}
+	}
+
+	/**
+	 * Scan a single file, unless the cache holds its statistics
+	 *
+	 * @param file File to parse
+	 * @return The statistics of the file
+	 * @throws ResultsFileNotFoundException
+	 * @throws IOException
+	 */
+	private ResultStatistics scanCached(File file) throws ResultsFileNotFoundException, IOException {
+		ScanCache.Key key = cacheKey(file);
+		ResultStatistics fileStatistics = fromCache(file, key);
+		if (null == fileStatistics) {
+			fileStatistics = scan(file);
+			toCache(key, fileStatistics);
+		}
+		return fileStatistics;
+	}
+
+	/**
+	 * The key is computed before the file is scanned, so a file that changes while it is scanned is scanned again
+	 * next time
+	 *
+	 * @param file File to parse
+	 * @return The key of the file in the cache, null when no cache is used
+	 * @throws ResultsFileNotFoundException
+	 * @throws IOException
+	 */
+	private ScanCache.Key cacheKey(File file) throws ResultsFileNotFoundException, IOException {
+		if (null == scanCache || null != elapsedTimeStore) {
+			return null;
+		}
+		try {
+			return ScanCache.key(file, scanSettings());
+		} catch (NoSuchFileException ex) {
+			throw new ResultsFileNotFoundException("File not found for file:"
+					+ file.getAbsolutePath(), ex);
+		} catch (java.io.IOException ex) {
+			throw new IOException("Unable to read results file:"
+					+ file.getAbsolutePath(), ex);
+		}
+	}
+
+	private ResultStatistics fromCache(File file, ScanCache.Key key) {
+		if (null == key) {
+			return null;
+		}
+		ResultStatistics cachedStatistics = scanCache.get(key);
+		if (null != cachedStatistics) {
+			LOGGER.info("Using cached statistics of unchanged results file '{}'", file);
+			cachedFileCount++;
+		}
+		return cachedStatistics;
+	}
+
+	private void toCache(ScanCache.Key key, ResultStatistics fileStatistics) {
+		if (null != key) {
+			scanCache.put(key, fileStatistics);
+		}
+	}
+
+	/**
+	 * @return Description of every setting that changes the statistics gathered from a file
 	 */
-	public void parseResultFile(File file) throws ResultsFileNotFoundException {
-	    String failurePattern = this.csv ? CSV_REQUEST_FAILURE : XML_REQUEST_FAILURE;
-	    String successPattern = this.csv ? CSV_REQUEST_SUCCESS : XML_REQUEST_SUCCESS;
-	    LOGGER.info("Parsing results file '{}' in format '{}', using failurePattern:'{}', successPattern:'{}'",
-	            file,
-	            this.csv ? "CSV" : "XML", failurePattern, successPattern);
+	private String scanSettings() {
+		return (this.csv ? "csv" : "xml") + ';' + csvColumns + ';' + scannedFields + ';'
+				+ timelineInterval + ';' + timelineMaxIntervals + ';' + windowStart + ';' + windowEnd + ';'
+				+ labelNormalizer + ';' + maxLabels + ';' + expectedIntervals;
+	}
+
+	private ResultStatistics newStatistics() {
+		ResultStatistics newStatistics = new ResultStatistics(timelineInterval, timelineMaxIntervals, labelNormalizer, maxLabels);
+		if (null != elapsedTimeStore) {
+			newStatistics.setElapsedTimeStore(elapsedTimeStore);
+		}
+		if (null != expectedIntervals) {
+			newStatistics.setCoordinatedOmissionCorrection(expectedIntervals);
+		}
+		return newStatistics;
+	}
+
+	/**
+	 * Split a file into parts that can be scanned independently, a file smaller than the chunk size is not split
+	 *
+	 * @param file File to parse
+	 * @return The scans of the parts of the file, in the order of the parts
+	 * @throws ResultsFileNotFoundException
+	 * @throws IOException
+	 */
+	private List<Callable<ResultStatistics>> scanParts(File file) throws ResultsFileNotFoundException, IOException {
+		if (file.length() <= chunkSize + chunkSize / 2 || isGzip(file) || isColumnar(file)) {
+			return Collections.<Callable<ResultStatistics>>singletonList(() -> scan(file));
+		}
+		List<Callable<ResultStatistics>> parts = new ArrayList<>();
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			byte[] head = ResultFileSplitter.head(channel);
+			if (this.csv) {
+				CsvResultParser layout = new CsvResultParser(EnumSet.noneOf(ResultField.class), csvColumns, sample -> {
+				});
+				layout.consume(head, 0, head.length);
+				if (null == layout.getColumns()) {
+					return Collections.<Callable<ResultStatistics>>singletonList(() -> scan(file));
+				}
+				long[] ranges = ResultFileSplitter.splitCsv(channel, chunkSize, head, layout.getDelimiter(),
+						layout.getColumns().size(), layout.hasHeader());
+				for (int i = 0; i < ranges.length - 1; i++) {
+					long start = ranges[i];
+					long end = ranges[i + 1];
+					boolean header = i == 0 && layout.hasHeader();
+					parts.add(() -> {
+						ResultStatistics partStatistics = newStatistics();
+						scanFile(file, start, end, new CsvResultParser(scannedFields,
+								layout.getColumns(), layout.getDelimiter(), header, inMeasurementWindow(partStatistics)));
+						return partStatistics;
+					});
+				}
+			} else {
+				long[] ranges = ResultFileSplitter.splitXml(channel, chunkSize, head);
+				for (int i = 0; i < ranges.length - 1; i++) {
+					long start = ranges[i];
+					long end = ranges[i + 1];
+					boolean first = i == 0;
+					boolean last = i == ranges.length - 2;
+					parts.add(() -> {
+						ResultStatistics partStatistics = newStatistics();
+						scanXmlFile(file, start, end, first, last, scannedFields, inMeasurementWindow(partStatistics));
+						return partStatistics;
+					});
+				}
+			}
+		} catch (NoSuchFileException ex) {
+			throw new ResultsFileNotFoundException("File not found for file:"
+					+ file.getAbsolutePath(), ex);
+		} catch (java.io.IOException ex) {
+			throw new IOException("Unable to read results file:"
+					+ file.getAbsolutePath(), ex);
+		}
+		LOGGER.info("Parsing results file '{}' in format '{}' in {} parts", file, this.csv ? "CSV" : "XML", parts.size());
+		return parts;
+	}
+
+	/**
+	 * Read the samples of a range of an XML file. A range that does not start at the beginning of the file, or does
+	 * not end at the end of the file, is wrapped in a testResults element to make it a document of its own.
+	 *
+	 * @param file    File to parse
+	 * @param start   Offset of the first byte of the range
+	 * @param end     Offset just after the last byte of the range
+	 * @param first   The range starts at the beginning of the file
+	 * @param last    The range ends at the end of the file
+	 * @param fields  The fields the handler needs
+	 * @param handler Handler receiving the samples
+	 * @throws ResultsFileNotFoundException
+	 * @throws IOException
+	 */
+	private void scanXmlFile(File file, long start, long end, boolean first, boolean last, Set<ResultField> fields,
+							 SampleHandler handler) throws ResultsFileNotFoundException, IOException {
+		XmlResultParser parser = new XmlResultParser(fields, handler);
+		LOGGER.debug("Scanning file '{}' from byte {}", file.getAbsolutePath(), start);
+		long startTime = System.nanoTime();
+		try (InputStream input = new SequenceInputStream(Collections.enumeration(Arrays.asList(
+				new ByteArrayInputStream(first ? new byte[0] : TEST_RESULTS_START),
+				new MappedFileInputStream(file, start, end),
+				new ByteArrayInputStream(last ? new byte[0] : TEST_RESULTS_END))))) {
+			parser.parse(input);
+		} catch (NoSuchFileException ex) {
+			throw new ResultsFileNotFoundException("File not found for file:"
+					+ file.getAbsolutePath(), ex);
+		} catch (java.io.IOException | XMLStreamException ex) {
+			throw new IOException("Unable to read results file:"
+					+ file.getAbsolutePath(), ex);
+		}
+		LOGGER.debug("Scanned file '{}' from byte {} in {} ms, {} samples and {} sub results", file.getAbsolutePath(),
+				start, (System.nanoTime() - startTime) / 1_000_000, parser.getSamples(), parser.getSubResults());
+	}
+
+	private static boolean isColumnar(File file) throws ResultsFileNotFoundException, IOException {
+		try {
+			return ColumnarResultsReader.isColumnar(file);
+		} catch (NoSuchFileException ex) {
+			throw new ResultsFileNotFoundException("File not found for file:"
+					+ file.getAbsolutePath(), ex);
+		} catch (java.io.IOException ex) {
+			throw new IOException("Unable to read results file:"
+					+ file.getAbsolutePath(), ex);
+		}
+	}
+
+	/**
+	 * Read the samples of a columnar results file
+	 *
+	 * @param file    File to parse
+	 * @param fields  The fields the handler needs
+	 * @param handler Handler receiving the samples
+	 * @throws ResultsFileNotFoundException
+	 * @throws IOException
+	 */
+	private void scanColumnarFile(File file, Set<ResultField> fields, SampleHandler handler)
+			throws ResultsFileNotFoundException, IOException {
+		long startTime = System.nanoTime();
+		try {
+			ColumnarResultsReader.read(file, fields, handler);
+		} catch (NoSuchFileException ex) {
+			throw new ResultsFileNotFoundException("File not found for file:"
+					+ file.getAbsolutePath(), ex);
+		} catch (java.io.IOException ex) {
+			throw new IOException("Unable to read results file:"
+					+ file.getAbsolutePath(), ex);
+		}
+		LOGGER.debug("Scanned columnar file '{}' in {} ms", file.getAbsolutePath(),
+				(System.nanoTime() - startTime) / 1_000_000);
+	}
+
+	private static boolean isGzip(File file) throws ResultsFileNotFoundException, IOException {
+		try {
+			return GzipMembersInputStream.isGzip(file);
+		} catch (NoSuchFileException ex) {
+			throw new ResultsFileNotFoundException("File not found for file:"
+					+ file.getAbsolutePath(), ex);
+		} catch (java.io.IOException ex) {
+			throw new IOException("Unable to read results file:"
+					+ file.getAbsolutePath(), ex);
+		}
+	}
+
+	/**
+	 * Read the samples of a gzip compressed file, decompressing while reading
+	 *
+	 * @param file    File to parse
+	 * @param fields  The fields the handler needs
+	 * @param handler Handler receiving the samples
+	 * @throws ResultsFileNotFoundException
+	 * @throws IOException
+	 */
+	private void scanGzipFile(File file, Set<ResultField> fields, SampleHandler handler)
+			throws ResultsFileNotFoundException, IOException {
+		long startTime = System.nanoTime();
+		try (InputStream input = GzipMembersInputStream.open(file, decompressionParallelism)) {
+			if (this.csv) {
+				CsvResultParser parser = new CsvResultParser(fields, csvColumns, handler);
+				byte[] buffer = new byte[64 * 1024];
+				int read;
+				while ((read = input.read(buffer)) >= 0) {
+					parser.consume(buffer, 0, read);
+				}
+				parser.endOfInput();
+			} else {
+				new XmlResultParser(fields, handler).parse(input);
+			}
+		} catch (NoSuchFileException ex) {
+			throw new ResultsFileNotFoundException("File not found for file:"
+					+ file.getAbsolutePath(), ex);
+		} catch (java.io.IOException | XMLStreamException ex) {
+			throw new IOException("Unable to read results file:"
+					+ file.getAbsolutePath(), ex);
+		}
+		LOGGER.debug("Scanned gzip compressed file '{}' in {} ms", file.getAbsolutePath(),
+				(System.nanoTime() - startTime) / 1_000_000);
+	}
+
+	private void add(ResultStatistics fileStatistics) {
+		statistics.merge(fileStatistics);
 		if (countFailures) {
-			failureCount = failureCount + scanFileForPattern(file, failurePattern);
+			failureCount = saturatedAdd(failureCount, fileStatistics.getFailureCount());
 		}
 		if (countSuccesses) {
-			successCount = successCount + scanFileForPattern(file, successPattern);
+			successCount = saturatedAdd(successCount, fileStatistics.getSuccessCount());
 		}
 	}
 
+	private static int saturatedAdd(int count, long toAdd) {
+		return (int) Math.min(Integer.MAX_VALUE, count + toAdd);
+	}
+
 	/**
-	 * Parse a file for instances of a pattern
+	 * Read a range of a file once, passing every byte to the supplied consumer
 	 *
-	 * @param file    The file to parse
-	 * @param pattern The pattern to look for
-	 * @return The number of times the pattern has been found
+	 * @param file     The file to parse
+	 * @param start    Offset of the first byte of the range
+	 * @param end      Offset just after the last byte of the range
+	 * @param consumer The consumer that processes the content of the file
 	 * @throws ResultsFileNotFoundException
+	 * @throws IOException
 	 */
-	private int scanFileForPattern(File file, String pattern) 
-	        throws ResultsFileNotFoundException { // NOSONAR
-		int patternCount = 0;
-		LOGGER.debug("Scanning file '{}' using pattern '{}'", file.getAbsolutePath(), pattern);
-		try (Scanner resultFileScanner = new Scanner(file)) {
-			while (resultFileScanner.findWithinHorizon(pattern, 0) != null) {
-				patternCount++;
-			}
-		} catch (FileNotFoundException ex) {
+	private void scanFile(File file, long start, long end, ResultFileConsumer consumer)
+			throws ResultsFileNotFoundException, IOException { // NOSONAR
+		LOGGER.debug("Scanning file '{}' from byte {}", file.getAbsolutePath(), start);
+		long startTime = System.nanoTime();
+		try {
+			MappedFileReader.read(file, start, end, consumer);
+		} catch (NoSuchFileException ex) {
 			throw new ResultsFileNotFoundException("File not found for file:"
-			        +file.getAbsolutePath()
-			        +", pattern:"
-			        +pattern, ex);
+					+ file.getAbsolutePath(), ex);
+		} catch (java.io.IOException ex) {
+			throw new IOException("Unable to read results file:"
+					+ file.getAbsolutePath(), ex);
 		}
-        LOGGER.debug("Scanned file '{}' using pattern '{}', result:'{}'", file.getAbsolutePath(), pattern, patternCount);
+		LOGGER.debug("Scanned file '{}' from byte {} in {} ms", file.getAbsolutePath(), start,
+				(System.nanoTime() - startTime) / 1_000_000);
+	}
+
+	/**
+	 * @return Statistics of all files parsed so far
+	 */
+	public ResultStatistics getStatistics() {
+		return statistics;
+	}
 
-		return patternCount;
+	/**
+	 * @return Number of files whose statistics were taken from the scan cache
+	 */
+	public int getCachedFileCount() {
+		return cachedFileCount;
 	}
 
 	/**
@@ -93,7 +770,7 @@ public class ResultScanner {
 	}
 
 	/**
-	 * @return failureCount
+	 * @return successCount
 	 */
 	public int getSuccessCount() {
 		return this.successCount;
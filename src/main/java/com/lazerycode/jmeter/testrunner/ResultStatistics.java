@@ -0,0 +1,352 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.lazerycode.jmeter.configuration.ExpectedInterval;
+
+/**
+ * Statistics gathered from the samples of one or more results files.
+ * <p/>
+ * An instance is filled by a single thread. Instances filled in parallel, e.g. one per results file, are combined
+ * afterwards with {@link #merge(ResultStatistics)}. Sub results are not counted, only the samples they belong to.
+ * Besides the overall statistics, the statistics of every sample label are kept, each with its own {@link Timeline}.
+ * The text fields of failed samples are counted in an {@link ErrorBreakdown}, looking them up in a bounded
+ * {@link StringDictionary} so a String is only created for values that have not been seen before.
+ * <p/>
+ * Labels can be normalized as they are read, e.g. to remove IDs, and the number of labels is capped. The samples of
+ * labels beyond the cap are counted together as overflow, with the most frequent of those labels kept in a
+ * {@link HeavyHitters}, so the memory used does not grow with the number of distinct labels.
+ * <p/>
+ * Samples are matched to the statistics of their label by the bytes of the label in a {@link LabelTable}, so counting
+ * the samples of labels that have been seen before creates no objects. Only the first sample of a label, or samples
+ * of labels that no longer fit in the table, create its String to normalize and look it up. Overflow labels are in
+ * the table too, their samples are counted per entry of the table and added to the {@link HeavyHitters} under their
+ * normalized label when the overflow labels are read.
+ */
+public class ResultStatistics implements SampleHandler {
+
+	private final long timelineInterval;
+	private final int timelineMaxIntervals;
+	private final LabelStatistics total;
+	private final Map<String, LabelStatistics> labels = new HashMap<>();
+	private final LabelTable labelTable = new LabelTable(LabelTable.DEFAULT_MAX_ENTRIES);
+	private final StringDictionary dictionary = new StringDictionary(StringDictionary.DEFAULT_MAX_ENTRIES);
+	private final LabelNormalizer labelNormalizer;
+	private final int maxLabels;
+	private LabelStatistics overflow;
+	private final HeavyHitters overflowLabels = new HeavyHitters();
+	private String[] overflowLabelNames = new String[0];
+	private long[] overflowLabelCounts = new long[0];
+	private ElapsedTimeStore elapsedTimeStore;
+	private CoordinatedOmissionCorrector corrector;
+
+	public ResultStatistics() {
+		this(Timeline.DEFAULT_INTERVAL, Timeline.DEFAULT_MAX_INTERVALS);
+	}
+
+	/**
+	 * @param timelineInterval     Width of the intervals of the timelines in milliseconds
+	 * @param timelineMaxIntervals Maximum number of intervals of the timelines
+	 */
+	public ResultStatistics(long timelineInterval, int timelineMaxIntervals) {
+		this(timelineInterval, timelineMaxIntervals, LabelNormalizer.NONE, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param timelineInterval     Width of the intervals of the timelines in milliseconds
+	 * @param timelineMaxIntervals Maximum number of intervals of the timelines
+	 * @param labelNormalizer      Rules applied to the labels of the samples
+	 * @param maxLabels            Maximum number of labels kept, the samples of other labels are counted as overflow
+	 */
+	ResultStatistics(long timelineInterval, int timelineMaxIntervals, LabelNormalizer labelNormalizer, int maxLabels) {
+		this(timelineInterval, timelineMaxIntervals, labelNormalizer, maxLabels,
+				new LabelStatistics(timelineInterval, timelineMaxIntervals));
+	}
+
+	private ResultStatistics(long timelineInterval, int timelineMaxIntervals, LabelNormalizer labelNormalizer,
+							 int maxLabels, LabelStatistics total) {
+		this.timelineInterval = timelineInterval;
+		this.timelineMaxIntervals = timelineMaxIntervals;
+		this.labelNormalizer = labelNormalizer;
+		this.maxLabels = Math.max(0, maxLabels);
+		this.total = total;
+	}
+
+	@Override
+	public void handleSample(ResultSample sample) {
+		if (sample.isSubResult() || !sample.has(ResultField.SUCCESS)) {
+			return;
+		}
+		long expectedInterval = null == corrector ? 0 : corrector.expectedInterval(sample);
+		total.record(sample);
+		total.recordCorrected(sample.getElapsed(), expectedInterval);
+		if (!sample.isSuccess()) {
+			total.getErrors().record(sample, dictionary);
+		}
+		if (sample.has(ResultField.LABEL)) {
+			LabelStatistics labelStatistics;
+			int entry = labelTable.indexOf(sample.getLabel());
+			if (entry < 0) {
+				labelStatistics = lookUp(sample.getLabel());
+			} else {
+				labelStatistics = labelTable.get(entry);
+				if (labelStatistics == overflow) {
+					overflowLabelCounts[entry]++;
+				}
+			}
+			labelStatistics.record(sample);
+			labelStatistics.recordCorrected(sample.getElapsed(), expectedInterval);
+			if (!sample.isSuccess()) {
+				labelStatistics.getErrors().record(sample, dictionary);
+			}
+		}
+	}
+
+	/**
+	 * Find the statistics of a label that is not in the label table, normalizing it and creating its statistics if
+	 * needed. The label is added to the label table, unless the table is full.
+	 *
+	 * @param rawLabel Label as read from the results file
+	 * @return The statistics the sample is counted in
+	 */
+	private LabelStatistics lookUp(SampleText rawLabel) {
+		String label = labelNormalizer.normalize(rawLabel.toString());
+		LabelStatistics labelStatistics = labels.get(label);
+		if (null == labelStatistics) {
+			if (labels.size() >= maxLabels) {
+				return lookUpOverflow(rawLabel, label);
+			}
+			labelStatistics = newLabelStatistics();
+			labels.put(label, labelStatistics);
+		}
+		labelTable.put(rawLabel, labelStatistics);
+		return labelStatistics;
+	}
+
+	/**
+	 * Add the statistics of another instance to this one
+	 *
+	 * @param other The statistics to add, not modified
+	 * @return this instance
+	 */
+	public ResultStatistics merge(ResultStatistics other) {
+		total.merge(other.total);
+		for (Map.Entry<String, LabelStatistics> label : other.labels.entrySet()) {
+			LabelStatistics labelStatistics = labels.get(label.getKey());
+			if (null == labelStatistics) {
+				if (labels.size() < maxLabels) {
+					labelStatistics = new LabelStatistics(timelineInterval, timelineMaxIntervals);
+					labels.put(label.getKey(), labelStatistics);
+				} else {
+					overflowLabels.record(label.getKey(), label.getValue().getSampleCount());
+					labelStatistics = getOrCreateOverflow();
+				}
+			}
+			labelStatistics.merge(label.getValue());
+		}
+		if (null != other.overflow) {
+			other.flushOverflowLabels();
+			flushOverflowLabels();
+			getOrCreateOverflow().merge(other.overflow);
+			overflowLabels.merge(other.overflowLabels);
+		}
+		return this;
+	}
+
+	/**
+	 * Count the first sample of a raw label whose samples are counted as overflow
+	 *
+	 * @param rawLabel Label as read from the results file
+	 * @param label    The normalized label
+	 * @return The overflow statistics
+	 */
+	private LabelStatistics lookUpOverflow(SampleText rawLabel, String label) {
+		LabelStatistics overflowStatistics = getOrCreateOverflow();
+		int entry = labelTable.put(rawLabel, overflowStatistics);
+		if (entry < 0) {
+			overflowLabels.record(label);
+			return overflowStatistics;
+		}
+		if (entry >= overflowLabelNames.length) {
+			int length = Math.max(entry + 1, overflowLabelNames.length * 2);
+			overflowLabelNames = Arrays.copyOf(overflowLabelNames, length);
+			overflowLabelCounts = Arrays.copyOf(overflowLabelCounts, length);
+		}
+		overflowLabelNames[entry] = label;
+		overflowLabelCounts[entry]++;
+		return overflowStatistics;
+	}
+
+	/**
+	 * Add the samples of overflow labels counted per label table entry to the overflow labels
+	 */
+	private void flushOverflowLabels() {
+		for (int entry = 0; entry < overflowLabelCounts.length; entry++) {
+			if (overflowLabelCounts[entry] > 0) {
+				overflowLabels.record(overflowLabelNames[entry], overflowLabelCounts[entry]);
+				overflowLabelCounts[entry] = 0;
+			}
+		}
+	}
+
+	private LabelStatistics getOrCreateOverflow() {
+		if (null == overflow) {
+			overflow = newLabelStatistics();
+		}
+		return overflow;
+	}
+
+	private LabelStatistics newLabelStatistics() {
+		LabelStatistics labelStatistics = new LabelStatistics(timelineInterval, timelineMaxIntervals);
+		if (null != elapsedTimeStore) {
+			labelStatistics.setExactElapsed(elapsedTimeStore.newLog());
+		}
+		if (null != corrector) {
+			labelStatistics.enableCorrection();
+		}
+		return labelStatistics;
+	}
+
+	/**
+	 * Keep histograms of the elapsed times corrected for coordinated omission as well. Must be set before the first
+	 * sample is handled, the samples need their thread name and time stamp.
+	 *
+	 * @param expectedIntervals Configured intervals per thread group, the intervals of other threads are inferred
+	 */
+	void setCoordinatedOmissionCorrection(List<ExpectedInterval> expectedIntervals) {
+		this.corrector = new CoordinatedOmissionCorrector(expectedIntervals);
+		total.enableCorrection();
+	}
+
+	/**
+	 * Write every elapsed time to a store as well, so exact percentiles can be computed afterwards. Must be set before
+	 * the first sample is handled.
+	 *
+	 * @param elapsedTimeStore Store the elapsed times are written to
+	 */
+	void setElapsedTimeStore(ElapsedTimeStore elapsedTimeStore) {
+		this.elapsedTimeStore = elapsedTimeStore;
+		total.setExactElapsed(elapsedTimeStore.newLog());
+	}
+
+	/**
+	 * Select the exact elapsed time percentiles of all samples and of every label, does nothing if the elapsed times
+	 * have not been written to an elapsed time store
+	 *
+	 * @param percentiles The percentiles
+	 * @throws IOException when the elapsed times cannot be read
+	 */
+	public void computeExactPercentiles(double... percentiles) throws IOException {
+		total.computeExactPercentiles(percentiles);
+		for (LabelStatistics labelStatistics : labels.values()) {
+			labelStatistics.computeExactPercentiles(percentiles);
+		}
+		if (null != overflow) {
+			overflow.computeExactPercentiles(percentiles);
+		}
+	}
+
+	/**
+	 * Write the complete state of these statistics
+	 *
+	 * @param out Output to write to
+	 * @throws IOException when the output cannot be written
+	 */
+	void writeTo(DataOutput out) throws IOException {
+		out.writeLong(timelineInterval);
+		out.writeInt(timelineMaxIntervals);
+		out.writeInt(maxLabels);
+		total.writeTo(out);
+		out.writeInt(labels.size());
+		for (Map.Entry<String, LabelStatistics> label : labels.entrySet()) {
+			out.writeUTF(label.getKey());
+			label.getValue().writeTo(out);
+		}
+		out.writeBoolean(null != overflow);
+		if (null != overflow) {
+			overflow.writeTo(out);
+			flushOverflowLabels();
+			overflowLabels.writeTo(out);
+		}
+	}
+
+	/**
+	 * Read statistics written by {@link #writeTo(DataOutput)}
+	 *
+	 * @param in Input to read from
+	 * @return The statistics
+	 * @throws IOException when the input cannot be read
+	 */
+	static ResultStatistics readFrom(DataInput in) throws IOException {
+		ResultStatistics statistics = new ResultStatistics(in.readLong(), in.readInt(), LabelNormalizer.NONE,
+				in.readInt(), LabelStatistics.readFrom(in));
+		int labelCount = in.readInt();
+		for (int i = 0; i < labelCount; i++) {
+			statistics.labels.put(in.readUTF(), LabelStatistics.readFrom(in));
+		}
+		if (in.readBoolean()) {
+			statistics.overflow = LabelStatistics.readFrom(in);
+			statistics.overflowLabels.merge(HeavyHitters.readFrom(in));
+		}
+		return statistics;
+	}
+
+	/**
+	 * @return Number of successful samples
+	 */
+	public long getSuccessCount() {
+		return total.getSuccessCount();
+	}
+
+	/**
+	 * @return Number of failed samples
+	 */
+	public long getFailureCount() {
+		return total.getFailureCount();
+	}
+
+	/**
+	 * @return Histogram of the elapsed times of all samples
+	 */
+	public LatencyHistogram getElapsed() {
+		return total.getElapsed();
+	}
+
+	/**
+	 * @return The statistics of all samples, whatever their label
+	 */
+	public LabelStatistics getTotal() {
+		return total;
+	}
+
+	/**
+	 * @return The statistics of every label, sorted by label
+	 */
+	public SortedMap<String, LabelStatistics> getLabels() {
+		return Collections.unmodifiableSortedMap(new TreeMap<>(labels));
+	}
+
+	/**
+	 * @return The statistics of the samples of all labels beyond the maximum number of labels, null if there are none
+	 */
+	public LabelStatistics getOverflow() {
+		return overflow;
+	}
+
+	/**
+	 * @return The most frequent labels beyond the maximum number of labels, with their number of samples
+	 */
+	public HeavyHitters getOverflowLabels() {
+		flushOverflowLabels();
+		return overflowLabels;
+	}
+}
@@ -0,0 +1,62 @@
+package com.lazerycode.jmeter.testrunner;
+
+/**
+ * Statistics of the samples that ended in the last few seconds.
+ * <p/>
+ * Samples are kept in one slot per second of the window, a slot is cleared when it is reused for a later second, so
+ * memory does not grow with the length of the test. Time is taken from the samples (start time plus elapsed time),
+ * not from the clock, because JMeter writes samples to the results file in batches.
+ */
+final class RollingWindowStatistics implements SampleHandler {
+
+	private final LabelStatistics[] slots;
+	private final long[] slotSeconds;
+	private long latestSecond = Long.MIN_VALUE;
+
+	/**
+	 * @param windowInSeconds Length of the window
+	 */
+	RollingWindowStatistics(int windowInSeconds) {
+		int size = Math.max(1, windowInSeconds);
+		slots = new LabelStatistics[size];
+		slotSeconds = new long[size];
+		for (int i = 0; i < size; i++) {
+			slots[i] = new LabelStatistics();
+			slotSeconds[i] = Long.MIN_VALUE;
+		}
+	}
+
+	@Override
+	public void handleSample(ResultSample sample) {
+		if (sample.isSubResult() || !sample.has(ResultField.SUCCESS)) {
+			return;
+		}
+		long endTime = sample.getTimeStamp() >= 0
+				? sample.getTimeStamp() + Math.max(0, sample.getElapsed())
+				: System.currentTimeMillis();
+		long second = endTime / 1000;
+		if (latestSecond != Long.MIN_VALUE && second <= latestSecond - slots.length) {
+			return;
+		}
+		int slot = (int) Math.floorMod(second, (long) slots.length);
+		if (slotSeconds[slot] != second) {
+			slots[slot] = new LabelStatistics();
+			slotSeconds[slot] = second;
+		}
+		slots[slot].record(sample);
+		latestSecond = Math.max(latestSecond, second);
+	}
+
+	/**
+	 * @return The statistics of the samples that ended in the window before the latest sample
+	 */
+	LabelStatistics getWindow() {
+		LabelStatistics window = new LabelStatistics();
+		for (int i = 0; i < slots.length; i++) {
+			if (slotSeconds[i] != Long.MIN_VALUE && slotSeconds[i] > latestSecond - slots.length) {
+				window.merge(slots[i]);
+			}
+		}
+		return window;
+	}
+}
@@ -0,0 +1,15 @@
+package com.lazerycode.jmeter.testrunner;
+
+/**
+ * Receives every sample read from a results file.
+ */
+public interface SampleHandler {
+
+	/**
+	 * Process a sample.
+	 * The sample instance is reused by the parser once this method returns.
+	 *
+	 * @param sample The sample that has been read
+	 */
+	void handleSample(ResultSample sample);
+}
@@ -0,0 +1,146 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A reusable, growable holder for the UTF-8 bytes of a text field of a sample.
+ * <p/>
+ * Parsers copy field values into the same instance for every sample, so reading a results file does not create
+ * a String per field. {@link #toString()} decodes the value when it is really needed.
+ */
+public final class SampleText {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private byte[] bytes = new byte[INITIAL_CAPACITY];
+	private int length = 0;
+
+	/**
+	 * Replace the content with a slice of a byte array
+	 *
+	 * @param source Array holding the UTF-8 bytes
+	 * @param offset Offset of the first byte
+	 * @param count  Number of bytes
+	 */
+	public void set(byte[] source, int offset, int count) {
+		ensureCapacity(count);
+		System.arraycopy(source, offset, bytes, 0, count);
+		length = count;
+	}
+
+	/**
+	 * Replace the content with a String
+	 *
+	 * @param value String value, null is stored as empty
+	 */
+	public void set(String value) {
+		if (null == value) {
+			length = 0;
+			return;
+		}
+		byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+		set(encoded, 0, encoded.length);
+	}
+
+	/**
+	 * Empty the holder, keeping its capacity
+	 */
+	public void clear() {
+		length = 0;
+	}
+
+	/**
+	 * @return The backing array, only the first {@link #length()} bytes are valid
+	 */
+	public byte[] bytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return Number of valid bytes
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * @return true if no bytes are held
+	 */
+	public boolean isEmpty() {
+		return length == 0;
+	}
+
+	/**
+	 * Compare the content with an ASCII value, ignoring case
+	 *
+	 * @param value ASCII value to compare with
+	 * @return true if equal
+	 */
+	public boolean equalsIgnoreCaseAscii(String value) {
+		if (value.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (Character.toLowerCase((char) bytes[i]) != Character.toLowerCase(value.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return Hash of the content, equal to {@link #hash(byte[], int)} of the valid bytes
+	 */
+	public int contentHash() {
+		return hash(bytes, length);
+	}
+
+	/**
+	 * Compare the content with the bytes of a value seen before
+	 *
+	 * @param other UTF-8 bytes to compare with, all of them are compared
+	 * @return true if equal
+	 */
+	public boolean contentEquals(byte[] other) {
+		return other.length == length && equals(other, bytes, length);
+	}
+
+	/**
+	 * FNV-1a hash of bytes, used to look up text values by their bytes
+	 *
+	 * @param bytes  Array holding the bytes
+	 * @param length Number of bytes hashed, from the start of the array
+	 * @return The hash
+	 */
+	static int hash(byte[] bytes, int length) {
+		int hash = 0x811C9DC5;
+		for (int i = 0; i < length; i++) {
+			hash = (hash ^ bytes[i]) * 0x01000193;
+		}
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * @return true if the first length bytes of both arrays are equal
+	 */
+	static boolean equals(byte[] first, byte[] second, int length) {
+		for (int i = 0; i < length; i++) {
+			if (first[i] != second[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (bytes.length < capacity) {
+			bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+		}
+	}
+
+	@Override
+	public String toString() {
+		return new String(bytes, 0, length, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,210 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Statistics of results files scanned before, so files that have not changed do not have to be scanned again.
+ * <p/>
+ * An entry is used when the path, size, modification time and a checksum of the first and last
+ * {@link #HASHED_BYTES} bytes of the file are unchanged, and the file was scanned with the same settings. Only the
+ * entries used or added since the cache was loaded are saved, entries of files that are no longer scanned are dropped.
+ * A cache that cannot be read, e.g. one written by another version of the plugin, is ignored.
+ */
+public final class ScanCache {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ScanCache.class);
+
+	private static final int FORMAT_VERSION = 5;
+	static final int HASHED_BYTES = 64 * 1024;
+
+	private final File cacheFile;
+	private final Map<String, Entry> loaded;
+	private final Map<String, Entry> current = new LinkedHashMap<>();
+
+	private ScanCache(File cacheFile, Map<String, Entry> loaded) {
+		this.cacheFile = cacheFile;
+		this.loaded = loaded;
+	}
+
+	/**
+	 * Load a cache, an empty cache is returned when the file does not exist or cannot be read
+	 *
+	 * @param cacheFile File the cache is stored in
+	 * @return The cache
+	 */
+	public static ScanCache load(File cacheFile) {
+		Map<String, Entry> entries = new HashMap<>();
+		if (cacheFile.exists()) {
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+				if (in.readInt() != FORMAT_VERSION) {
+					LOGGER.info("Ignoring results scan cache '{}' written by another version", cacheFile);
+					return new ScanCache(cacheFile, entries);
+				}
+				int entryCount = in.readInt();
+				for (int i = 0; i < entryCount; i++) {
+					Key key = new Key(in.readUTF(), in.readLong(), in.readLong(), in.readLong(), in.readUTF());
+					byte[] statistics = new byte[in.readInt()];
+					in.readFully(statistics);
+					entries.put(key.path, new Entry(key, statistics));
+				}
+			} catch (IOException ex) {
+				LOGGER.info("Ignoring results scan cache '{}' that cannot be read: {}", cacheFile, ex.getMessage());
+				entries.clear();
+			}
+		}
+		return new ScanCache(cacheFile, entries);
+	}
+
+	/**
+	 * Compute the key of a file, before the file is scanned
+	 *
+	 * @param file     The results file
+	 * @param settings Description of the settings the file is scanned with
+	 * @return The key
+	 * @throws IOException when the file cannot be read
+	 */
+	static Key key(File file, String settings) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			CRC32 crc = new CRC32();
+			ByteBuffer buffer = ByteBuffer.allocate(HASHED_BYTES);
+			update(crc, channel, buffer, 0);
+			if (size > HASHED_BYTES) {
+				update(crc, channel, buffer, Math.max(HASHED_BYTES, size - HASHED_BYTES));
+			}
+			return new Key(file.getAbsolutePath(), size, file.lastModified(), crc.getValue(), settings);
+		}
+	}
+
+	private static void update(CRC32 crc, FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		buffer.clear();
+		while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) > 0) {
+			// fill the buffer
+		}
+		crc.update(buffer.array(), 0, buffer.position());
+	}
+
+	/**
+	 * @param key Key of the file
+	 * @return The statistics of the file when it has been scanned before with the same key, null otherwise
+	 */
+	synchronized ResultStatistics get(Key key) {
+		Entry entry = loaded.get(key.path);
+		if (null == entry || !entry.key.equals(key)) {
+			return null;
+		}
+		try {
+			ResultStatistics statistics = ResultStatistics.readFrom(new DataInputStream(new ByteArrayInputStream(entry.statistics)));
+			current.put(key.path, entry);
+			return statistics;
+		} catch (IOException ex) {
+			LOGGER.debug("Ignoring cached statistics of '{}' that cannot be read", key.path, ex);
+			return null;
+		}
+	}
+
+	/**
+	 * @param key        Key of the file, computed before it was scanned
+	 * @param statistics The statistics of the file
+	 */
+	synchronized void put(Key key, ResultStatistics statistics) {
+		ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(serialized)) {
+			statistics.writeTo(out);
+		} catch (IOException ex) {
+			LOGGER.debug("Unable to cache the statistics of '{}'", key.path, ex);
+			return;
+		}
+		current.put(key.path, new Entry(key, serialized.toByteArray()));
+	}
+
+	/**
+	 * Save the entries used or added since the cache was loaded
+	 *
+	 * @throws IOException when the cache cannot be written
+	 */
+	public synchronized void save() throws IOException {
+		File parent = cacheFile.getAbsoluteFile().getParentFile();
+		if (!parent.exists() && !parent.mkdirs()) {
+			throw new IOException("Unable to create directory " + parent.getAbsolutePath());
+		}
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFile)))) {
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(current.size());
+			for (Entry entry : current.values()) {
+				out.writeUTF(entry.key.path);
+				out.writeLong(entry.key.size);
+				out.writeLong(entry.key.lastModified);
+				out.writeLong(entry.key.contentHash);
+				out.writeUTF(entry.key.settings);
+				out.writeInt(entry.statistics.length);
+				out.write(entry.statistics);
+			}
+		}
+	}
+
+	/**
+	 * Identifies the content of a results file and the settings it is scanned with
+	 */
+	static final class Key {
+		private final String path;
+		private final long size;
+		private final long lastModified;
+		private final long contentHash;
+		private final String settings;
+
+		Key(String path, long size, long lastModified, long contentHash, String settings) {
+			this.path = path;
+			this.size = size;
+			this.lastModified = lastModified;
+			this.contentHash = contentHash;
+			this.settings = settings;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return size == other.size && lastModified == other.lastModified && contentHash == other.contentHash
+					&& path.equals(other.path) && settings.equals(other.settings);
+		}
+
+		@Override
+		public int hashCode() {
+			return path.hashCode();
+		}
+	}
+
+	private static final class Entry {
+		private final Key key;
+		private final byte[] statistics;
+
+		private Entry(Key key, byte[] statistics) {
+			this.key = key;
+			this.statistics = statistics;
+		}
+	}
+}
@@ -0,0 +1,157 @@
+package com.lazerycode.jmeter.testrunner;
+
+import static com.lazerycode.jmeter.utility.UtilityFunctions.isSet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.lazerycode.jmeter.configuration.ServiceLevelAgreement;
+
+/**
+ * Checks the thresholds of a set of {@link ServiceLevelAgreement}s against the statistics gathered while scanning the
+ * results files, so the results files do not have to be read again for every rule. When the elapsed times have been
+ * corrected for coordinated omission, the percentile thresholds are checked against the corrected elapsed times.
+ */
+public class ServiceLevelAgreementChecker {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ServiceLevelAgreementChecker.class);
+
+	static final String ALL_SAMPLES = "all samples";
+
+	private final List<ServiceLevelAgreement> agreements;
+	private final List<Pattern> labelPatterns = new ArrayList<>();
+
+	/**
+	 * @param agreements The agreements to check
+	 * @throws java.util.regex.PatternSyntaxException when a label pattern is not a valid regular expression
+	 */
+	public ServiceLevelAgreementChecker(List<ServiceLevelAgreement> agreements) {
+		this.agreements = agreements;
+		for (ServiceLevelAgreement agreement : agreements) {
+			labelPatterns.add(isSet(agreement.getLabelPattern()) ? Pattern.compile(agreement.getLabelPattern()) : null);
+		}
+	}
+
+	/**
+	 * Check every threshold of every agreement
+	 *
+	 * @param statistics Statistics of the results files
+	 * @return The outcome of every threshold, for every label it applies to
+	 */
+	public List<Check> check(ResultStatistics statistics) {
+		List<Check> checks = new ArrayList<>();
+		for (int i = 0; i < agreements.size(); i++) {
+			ServiceLevelAgreement agreement = agreements.get(i);
+			Pattern labelPattern = labelPatterns.get(i);
+			int checked = checks.size();
+			if (isSet(agreement.getLabel())) {
+				LabelStatistics labelStatistics = statistics.getLabels().get(agreement.getLabel());
+				if (null != labelStatistics) {
+					check(agreement, agreement.getLabel(), labelStatistics, checks);
+				}
+			} else if (null != labelPattern) {
+				for (Map.Entry<String, LabelStatistics> label : statistics.getLabels().entrySet()) {
+					if (labelPattern.matcher(label.getKey()).matches()) {
+						check(agreement, label.getKey(), label.getValue(), checks);
+					}
+				}
+			} else {
+				check(agreement, ALL_SAMPLES, statistics.getTotal(), checks);
+			}
+			if (checks.size() == checked) {
+				LOGGER.warn("No samples found for the service level agreement of {}", agreement);
+			}
+		}
+		return checks;
+	}
+
+	private static void check(ServiceLevelAgreement agreement, String label, LabelStatistics statistics, List<Check> checks) {
+		if (null != agreement.getMaxErrorRate()) {
+			double errorRate = statistics.getErrorRate();
+			checks.add(new Check(agreement, label, "error rate (%)", agreement.getMaxErrorRate(), errorRate,
+					errorRate <= agreement.getMaxErrorRate()));
+		}
+		LatencyHistogram corrected = statistics.getCorrectedElapsed();
+		String elapsedName = null == corrected ? " elapsed (ms)" : " corrected elapsed (ms)";
+		if (null != agreement.getMaxP95()) {
+			long p95 = null == corrected ? statistics.getValueAtPercentile(95) : corrected.getValueAtPercentile(95);
+			checks.add(new Check(agreement, label, "p95" + elapsedName, agreement.getMaxP95(), p95,
+					p95 <= agreement.getMaxP95()));
+		}
+		if (null != agreement.getMaxP99()) {
+			long p99 = null == corrected ? statistics.getValueAtPercentile(99) : corrected.getValueAtPercentile(99);
+			checks.add(new Check(agreement, label, "p99" + elapsedName, agreement.getMaxP99(), p99,
+					p99 <= agreement.getMaxP99()));
+		}
+		if (null != agreement.getMinThroughput()) {
+			double throughput = statistics.getThroughput();
+			checks.add(new Check(agreement, label, "throughput (/s)", agreement.getMinThroughput(), throughput,
+					throughput >= agreement.getMinThroughput()));
+		}
+		if (null != agreement.getMaxMeanLatency()) {
+			double meanLatency = statistics.getMeanLatency();
+			checks.add(new Check(agreement, label, "mean latency (ms)", agreement.getMaxMeanLatency(), meanLatency,
+					meanLatency <= agreement.getMaxMeanLatency()));
+		}
+	}
+
+	/**
+	 * The outcome of one threshold for one label
+	 */
+	public static final class Check {
+		private final ServiceLevelAgreement agreement;
+		private final String label;
+		private final String metric;
+		private final double threshold;
+		private final double actual;
+		private final boolean passed;
+
+		Check(ServiceLevelAgreement agreement, String label, String metric, double threshold, double actual, boolean passed) {
+			this.agreement = agreement;
+			this.label = label;
+			this.metric = metric;
+			this.threshold = threshold;
+			this.actual = actual;
+			this.passed = passed;
+		}
+
+		public ServiceLevelAgreement getAgreement() {
+			return agreement;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+
+		public String getMetric() {
+			return metric;
+		}
+
+		public double getThreshold() {
+			return threshold;
+		}
+
+		public double getActual() {
+			return actual;
+		}
+
+		public boolean isPassed() {
+			return passed;
+		}
+
+		/**
+		 * The outcome formatted for command line output.
+		 *
+		 * @return String
+		 */
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "%s %s: %s %.2f (limit %.2f)", passed ? "PASSED" : "FAILED", label, metric, actual, threshold);
+		}
+	}
+}
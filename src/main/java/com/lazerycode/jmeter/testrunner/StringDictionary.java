@@ -0,0 +1,83 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Bounded dictionary of the text values of samples, e.g. response codes and failure messages.
+ * <p/>
+ * A value that has been seen before is looked up by its bytes and returned as the same String instance, so
+ * repeated values cost neither a String nor a decode. Once the dictionary holds its maximum number of entries new
+ * values are decoded but no longer kept, so millions of distinct values cannot fill the heap. Values are cut off after
+ * {@link #MAX_LENGTH} bytes. An instance is used by a single thread.
+ */
+final class StringDictionary {
+
+	static final int DEFAULT_MAX_ENTRIES = 4096;
+	static final int MAX_LENGTH = 256;
+
+	private final int maxEntries;
+	private final int[] slots;
+	private final byte[][] keys;
+	private final String[] values;
+	private int size = 0;
+
+	/**
+	 * @param maxEntries Maximum number of distinct values kept
+	 */
+	StringDictionary(int maxEntries) {
+		this.maxEntries = Math.max(1, maxEntries);
+		this.slots = new int[Integer.highestOneBit(this.maxEntries * 2 - 1) << 1];
+		this.keys = new byte[this.maxEntries][];
+		this.values = new String[this.maxEntries];
+	}
+
+	/**
+	 * @param text Value of a field of a sample
+	 * @return The value as a String, the same instance for every value with the same bytes while the dictionary
+	 * has room
+	 */
+	String intern(SampleText text) {
+		byte[] bytes = text.bytes();
+		int length = truncatedLength(bytes, text.length());
+		int hash = SampleText.hash(bytes, length);
+		int mask = slots.length - 1;
+		for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+			int entry = slots[slot];
+			if (entry == 0) {
+				String value = new String(bytes, 0, length, StandardCharsets.UTF_8);
+				if (size < maxEntries) {
+					keys[size] = Arrays.copyOf(bytes, length);
+					values[size] = value;
+					slots[slot] = ++size;
+				}
+				return value;
+			}
+			byte[] key = keys[entry - 1];
+			if (key.length == length && SampleText.equals(key, bytes, length)) {
+				return values[entry - 1];
+			}
+		}
+	}
+
+	/**
+	 * @return Number of distinct values kept
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Cut a value off after {@link #MAX_LENGTH} bytes, without splitting a UTF-8 encoded character
+	 */
+	private static int truncatedLength(byte[] bytes, int length) {
+		if (length <= MAX_LENGTH) {
+			return length;
+		}
+		int truncated = MAX_LENGTH;
+		while (truncated > 0 && (bytes[truncated] & 0xC0) == 0x80) {
+			truncated--;
+		}
+		return truncated;
+	}
+}
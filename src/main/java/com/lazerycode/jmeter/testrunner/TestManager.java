@@ -1,5 +1,6 @@
 package com.lazerycode.jmeter.testrunner;
 
+import com.lazerycode.jmeter.configuration.EarlyAbortConfiguration;
 import com.lazerycode.jmeter.configuration.JMeterArgumentsArray;
 import com.lazerycode.jmeter.configuration.JMeterProcessJVMSettings;
 import com.lazerycode.jmeter.configuration.RemoteArgumentsArrayBuilder;
@@ -17,15 +18,28 @@ import org.joda.time.format.DateTimeFormatterBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * TestManager encapsulates functions that gather JMeter Test files and execute the tests
@@ -35,6 +49,13 @@ public class TestManager {
 	private static final Logger LOGGER = LoggerFactory.getLogger(JMeterProcessBuilder.class);
 	
 	private static final String REPORT_DIR_DATE_FORMAT = "yyyyMMdd_HHmmss";
+	private static final String GZIP_EXTENSION = ".gz";
+	private static final String COLUMNAR_EXTENSION = ".col";
+	private static final String SHUTDOWN_COMMAND = "Shutdown";
+	private static final int SHUTDOWN_PORT_UNKNOWN = 0;
+	// JMeter only starts its UDP shutdown listener for ports above 1000, in the daemon it would never be closed
+	private static final String NO_SHUTDOWN_LISTENER = "-Jjmeterengine.nongui.port=0";
+	private static final Pattern SHUTDOWN_PORT_PATTERN = Pattern.compile("Shutdown.* message on port (\\d+)");
 	private final JMeterArgumentsArray baseTestArgs;
 	private final File binDir;
 	private final File testFilesDirectory;
@@ -43,11 +64,22 @@ public class TestManager {
 	private final boolean suppressJMeterOutput;
 	private final RemoteConfiguration remoteServerConfiguration;
 	private final JMeterProcessJVMSettings jMeterProcessJVMSettings;
+	private JMeterProcessJVMSettings forkedJVMSettings;
 	private long postTestPauseInSeconds;
 	private final String runtimeJarName;
     private File reportDirectory;
     private boolean generateReports;
     private PerfanaClient perfanaClient;
+    private EarlyAbortConfiguration earlyAbortConfiguration;
+    private boolean resultsOutputIsCSVFormat;
+    private List<String> resultsCsvColumns = Collections.emptyList();
+    private boolean compressResults;
+    private String resultsCsvHeader;
+    private boolean convertResultsToColumnar;
+    private int maxConcurrentTests = 1;
+    private boolean useDaemon;
+    private JMeterDaemonProcess daemon;
+    private File sharedArchiveFile;
 
 	public TestManager(JMeterArgumentsArray baseTestArgs, File testFilesDirectory, List<String> testFilesIncluded, List<String> testFilesExcluded, RemoteConfiguration remoteServerConfiguration, boolean suppressJMeterOutput, File binDir, JMeterProcessJVMSettings jMeterProcessJVMSettings, String runtimeJarName,
                        File reportDirectory, boolean generateReports, PerfanaClient perfanaClient) {
@@ -57,6 +89,7 @@ public class TestManager {
 		this.remoteServerConfiguration = remoteServerConfiguration;
 		this.suppressJMeterOutput = suppressJMeterOutput;
 		this.jMeterProcessJVMSettings = jMeterProcessJVMSettings;
+		this.forkedJVMSettings = jMeterProcessJVMSettings;
 		this.runtimeJarName = runtimeJarName;
 		this.testFilesExcluded = testFilesExcluded.toArray(new String[0]);
 		this.reportDirectory = reportDirectory;
@@ -89,6 +122,87 @@ public class TestManager {
         this.postTestPauseInSeconds = testPause;
     }
 
+    /**
+     * Stops a test early when its results show it is failing, this requires results in CSV format.
+     *
+     * @param earlyAbortConfiguration  Window and thresholds, null to never stop a test early
+     * @param resultsOutputIsCSVFormat Results files are in CSV format
+     * @param resultsCsvColumns        Column headers JMeter was configured to write, used for CSV files that have no header
+     */
+    public void setEarlyAbortConfiguration(EarlyAbortConfiguration earlyAbortConfiguration,
+                                           boolean resultsOutputIsCSVFormat, List<String> resultsCsvColumns) {
+        this.earlyAbortConfiguration = earlyAbortConfiguration;
+        this.resultsOutputIsCSVFormat = resultsOutputIsCSVFormat;
+        this.resultsCsvColumns = null == resultsCsvColumns ? Collections.<String>emptyList() : resultsCsvColumns;
+        if (null != earlyAbortConfiguration && earlyAbortConfiguration.hasThresholds() && !resultsOutputIsCSVFormat) {
+            LOGGER.warn("<earlyAbort> is ignored, results must be written in CSV format to be read while a test runs");
+        }
+    }
+
+    /**
+     * Have the results written gzip compressed. While a test runs the results are compressed on the fly through a
+     * named pipe; when no named pipe can be created, HTML reports are generated or results are read while the test
+     * runs, JMeter writes an uncompressed file that is compressed once the test has finished.
+     *
+     * @param compressResults Compress the results files
+     */
+    public void setCompressResults(boolean compressResults) {
+        this.compressResults = compressResults;
+    }
+
+    /**
+     * JMeter does not write its CSV header to a results file that already exists, as the named pipe results are
+     * compressed through does, so the header is written to the compressed file instead.
+     *
+     * @param resultsCsvHeader Header line JMeter writes to new CSV results files, null if it writes none
+     */
+    public void setResultsCsvHeader(String resultsCsvHeader) {
+        this.resultsCsvHeader = resultsCsvHeader;
+    }
+
+    /**
+     * Convert the results file of every test to a columnar results file once the test has finished, the columnar
+     * file is returned as results file of the test. The format of the results files is the one given to
+     * {@link #setEarlyAbortConfiguration(EarlyAbortConfiguration, boolean, List)}.
+     *
+     * @param convertResultsToColumnar Convert the results files
+     */
+    public void setConvertResultsToColumnar(boolean convertResultsToColumnar) {
+        this.convertResultsToColumnar = convertResultsToColumnar;
+    }
+
+    /**
+     * Run several tests at the same time, each in its own JMeter JVM with its own copy of the arguments, so every
+     * test writes its own results, log and report files. Tests always run one after another against remote servers,
+     * as the servers are started and stopped around the tests.
+     *
+     * @param maxConcurrentTests Maximum number of tests running at the same time, 1 to run them one after another
+     */
+    public void setMaxConcurrentTests(int maxConcurrentTests) {
+        this.maxConcurrentTests = Math.max(1, maxConcurrentTests);
+        if (this.maxConcurrentTests > 1 && remoteServerConfiguration != null) {
+            LOGGER.warn("<maxConcurrentTests> is ignored, tests run one after another when remote servers are configured");
+        }
+    }
+
+    /**
+     * Run the tests one after another in a single long-lived JMeter JVM instead of forking a JVM per test, so the
+     * tests share its class loading and JIT warm-up. The tests are forked when the daemon cannot be started, and the
+     * remaining tests when the daemon dies. Not used when tests run at the same time or against remote servers.
+     *
+     * @param useDaemon Run the tests in a JMeter daemon
+     */
+    public void setUseDaemon(boolean useDaemon) {
+        this.useDaemon = useDaemon;
+    }
+
+    /**
+     * @param sharedArchiveFile Class data sharing archive the forked JMeter JVMs are started with, null for none
+     */
+    public void setSharedArchiveFile(File sharedArchiveFile) {
+        this.sharedArchiveFile = sharedArchiveFile;
+    }
+
 	/**
 	 * Executes all tests and returns the resultFile names
 	 *
@@ -103,33 +217,19 @@ public class TestManager {
 		    perfanaClient.startSession();
         }
 
-        List<String> results = new ArrayList<>();
+        List<String> results;
         try {
-            JMeterArgumentsArray thisTestArgs = baseTestArgs;
             List<String> tests = generateTestList();
-            DateTimeFormatter sdf = new DateTimeFormatterBuilder().appendPattern(REPORT_DIR_DATE_FORMAT).toFormatter();
-            for (String file : tests) {
-                if (generateReports) {
-                    thisTestArgs.setReportsDirectory(
-                            reportDirectory + File.separator +
-                                    FilenameUtils.getBaseName(file) + "_" +
-                                    sdf.print(new DateTime()));
-                }
-                if (remoteServerConfiguration != null) {
-                    if ((remoteServerConfiguration.isStartServersBeforeTests() && tests.get(0).equals(file)) || remoteServerConfiguration.isStartAndStopServersForEachTest()) {
-                        thisTestArgs.setRemoteStart();
-                        thisTestArgs.setRemoteStartServerList(remoteServerConfiguration.getServerList());
-                    }
-                    if ((remoteServerConfiguration.isStopServersAfterTests() && tests.get(tests.size() - 1).equals(file)) || remoteServerConfiguration.isStartAndStopServersForEachTest()) {
-                        thisTestArgs.setRemoteStop();
-                    }
-                }
-                results.add(executeSingleTest(new File(testFilesDirectory, file), thisTestArgs));
-                try {
-                    TimeUnit.SECONDS.sleep(postTestPauseInSeconds);
-                } catch (InterruptedException ignored) {
-                    Thread.currentThread().interrupt();
-                }
+            forkedJVMSettings = JVMAutoSizing.size(jMeterProcessJVMSettings,
+                    isConcurrent() ? Math.min(maxConcurrentTests, tests.size()) : 1);
+            if (null != sharedArchiveFile && !ClassDataSharingArchive.isFor(sharedArchiveFile, forkedJVMSettings)) {
+                LOGGER.warn("The class data sharing archive {} was created for other JVM settings than the tests are run "
+                        + "with, the JMeter JVMs may start without it", sharedArchiveFile.getAbsolutePath());
+            }
+            if (isConcurrent() && tests.size() > 1) {
+                results = executeTestsConcurrently(tests);
+            } else {
+                results = executeTestsSequentially(tests);
             }
         } catch(Throwable e) {
             abortPerfana = true;
@@ -157,6 +257,161 @@ public class TestManager {
 
 	//=============================================================================================
 
+	private List<String> executeTestsSequentially(List<String> tests) throws MojoExecutionException {
+		List<String> results = new ArrayList<>();
+		if (useDaemon && remoteServerConfiguration == null && !tests.isEmpty()) {
+			startDaemon();
+		}
+		try {
+			executeTestsSequentially(tests, results);
+		} finally {
+			stopDaemon();
+		}
+		return results;
+	}
+
+	private void executeTestsSequentially(List<String> tests, List<String> results) throws MojoExecutionException {
+		JMeterArgumentsArray thisTestArgs = baseTestArgs;
+		DateTimeFormatter sdf = new DateTimeFormatterBuilder().appendPattern(REPORT_DIR_DATE_FORMAT).toFormatter();
+		for (String file : tests) {
+			if (generateReports) {
+				thisTestArgs.setReportsDirectory(
+						reportDirectory + File.separator +
+								FilenameUtils.getBaseName(file) + "_" +
+								sdf.print(new DateTime()));
+			}
+			if (remoteServerConfiguration != null) {
+				if ((remoteServerConfiguration.isStartServersBeforeTests() && tests.get(0).equals(file)) || remoteServerConfiguration.isStartAndStopServersForEachTest()) {
+					thisTestArgs.setRemoteStart();
+					thisTestArgs.setRemoteStartServerList(remoteServerConfiguration.getServerList());
+				}
+				if ((remoteServerConfiguration.isStopServersAfterTests() && tests.get(tests.size() - 1).equals(file)) || remoteServerConfiguration.isStartAndStopServersForEachTest()) {
+					thisTestArgs.setRemoteStop();
+				}
+			}
+			results.add(executeSingleTest(new File(testFilesDirectory, file), thisTestArgs));
+			pauseAfterTest();
+		}
+	}
+
+	/**
+	 * Executes the tests in a pool of at most maxConcurrentTests threads, every thread runs one JMeter JVM at a time.
+	 * All tests run to completion, even when some of them fail.
+	 *
+	 * @param tests JMeter tests, relative to the test files directory
+	 * @return the results file names, in the order of the tests
+	 * @throws MojoExecutionException when one or more tests failed, listing all of them
+	 */
+	private List<String> executeTestsConcurrently(List<String> tests) throws MojoExecutionException {
+		int threads = Math.min(maxConcurrentTests, tests.size());
+		LOGGER.info("Running {} tests, {} at the same time", tests.size(), threads);
+		AtomicInteger threadCount = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "jmeter-test-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		DateTimeFormatter sdf = new DateTimeFormatterBuilder().appendPattern(REPORT_DIR_DATE_FORMAT).toFormatter();
+		List<Future<String>> futures = new ArrayList<>();
+		try {
+			for (String file : tests) {
+				JMeterArgumentsArray testArgs = new JMeterArgumentsArray(baseTestArgs);
+				if (generateReports) {
+					// Tests with the same name in different directories start at the same time, so use the whole path
+					testArgs.setReportsDirectory(
+							reportDirectory + File.separator +
+									FilenameUtils.removeExtension(file.replace("\\", "/").replace("/", "_")) + "_" +
+									sdf.print(new DateTime()));
+				}
+				futures.add(executor.submit(() -> {
+					try {
+						return executeSingleTest(new File(testFilesDirectory, file), testArgs);
+					} finally {
+						pauseAfterTest();
+					}
+				}));
+			}
+			List<String> results = new ArrayList<>();
+			List<String> failures = new ArrayList<>();
+			Throwable firstFailure = null;
+			for (int i = 0; i < tests.size(); i++) {
+				try {
+					results.add(futures.get(i).get());
+				} catch (ExecutionException ex) {
+					failures.add(tests.get(i) + " (" + ex.getCause().getMessage() + ")");
+					if (null == firstFailure) {
+						firstFailure = ex.getCause();
+					}
+				}
+			}
+			if (!failures.isEmpty()) {
+				throw new MojoExecutionException(failures.size() + " of " + tests.size() + " tests failed: "
+						+ String.join(", ", failures), firstFailure);
+			}
+			return results;
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new MojoExecutionException("Interrupted while waiting for the tests to complete", ex);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void logJMeterOutput(String outputPrefix, String line) {
+		if (suppressJMeterOutput) {
+			LOGGER.debug("{}{}", outputPrefix, line);
+		} else {
+			LOGGER.info("{}{}", outputPrefix, line);
+		}
+	}
+
+	/**
+	 * Start the JMeter daemon the tests are run in, the tests are forked when it cannot be started
+	 */
+	private void startDaemon() throws MojoExecutionException {
+		if (null != sharedArchiveFile) {
+			LOGGER.info("The JMeter daemon is started without the class data sharing archive, its class path differs");
+		}
+		JMeterProcessBuilder daemonProcessBuilder = new JMeterProcessBuilder(forkedJVMSettings, runtimeJarName);
+		daemonProcessBuilder.setWorkingDirectory(binDir);
+		try {
+			daemon = JMeterDaemonProcess.start(daemonProcessBuilder, binDir.getAbsoluteFile().getParentFile(),
+					line -> logJMeterOutput("", line));
+		} catch (IOException ex) {
+			LOGGER.warn("Unable to start the JMeter daemon, running the tests in forked JVMs: {}", ex.getMessage());
+			return;
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+		final JMeterDaemonProcess startedDaemon = daemon;
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			if (startedDaemon.isAlive()) {
+				LOGGER.info("Shutdown detected, destroying JMeter daemon...");
+				startedDaemon.destroy();
+			}
+		}));
+	}
+
+	private void stopDaemon() {
+		if (null != daemon) {
+			daemon.close();
+			daemon = null;
+		}
+	}
+
+	private boolean isConcurrent() {
+		return maxConcurrentTests > 1 && remoteServerConfiguration == null;
+	}
+
+	private void pauseAfterTest() {
+		try {
+			TimeUnit.SECONDS.sleep(postTestPauseInSeconds);
+		} catch (InterruptedException ignored) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 	/**
 	 * Executes a single JMeter test by building up a list of command line
 	 * parameters to pass to JMeter.start().
@@ -174,6 +429,10 @@ public class TestManager {
 		if(currentResultsFile.exists() && !currentResultsFile.delete()) {
 		    throw new MojoExecutionException("Failed to delete existing results file:"+currentResultsFile.getAbsolutePath());
 		}
+		File compressedResultsFile = new File(currentResultsFile.getPath() + GZIP_EXTENSION);
+		if (compressResults && compressedResultsFile.exists() && !compressedResultsFile.delete()) {
+		    throw new MojoExecutionException("Failed to delete existing results file:"+compressedResultsFile.getAbsolutePath());
+		}
 		List<String> argumentsArray = testArgs.buildArgumentsArray();
 		argumentsArray.addAll(buildRemoteArgs(remoteServerConfiguration));
 		if(LOGGER.isDebugEnabled()) {
@@ -181,38 +440,130 @@ public class TestManager {
 		        UtilityFunctions.humanReadableCommandLineOutput(argumentsArray));
 		}
 		LOGGER.info("Executing test: {}", test.getName());
+		// Prefix the output of tests running at the same time, so their lines can be told apart
+		String outputPrefix = isConcurrent() ? "[" + test.getName() + "] " : "";
 		//Start the test.
 		JMeterProcessBuilder jmeterProcessBuilder = 
-		        new JMeterProcessBuilder(jMeterProcessJVMSettings, runtimeJarName);
+		        new JMeterProcessBuilder(forkedJVMSettings, runtimeJarName);
 		jmeterProcessBuilder.setWorkingDirectory(binDir);
+		jmeterProcessBuilder.setSharedArchiveFile(sharedArchiveFile);
 		jmeterProcessBuilder.addArguments(argumentsArray);
+		ScheduledExecutorService monitorExecutor = null;
+		LiveResultsMonitor monitor = null;
+		CompressingResultsSink sink = null;
+		if (compressResults && !generateReports && !isEarlyAbortEnabled()) {
+			sink = CompressingResultsSink.open(currentResultsFile, compressedResultsFile, resultsCsvHeader);
+			if (null == sink) {
+				LOGGER.info("Unable to create a named pipe, results will be compressed after the test");
+			}
+		}
+		boolean daemonFailed = false;
 		try {
-			final Process process = jmeterProcessBuilder.startProcess();
+			final JMeterDaemonProcess testDaemon = null != daemon && daemon.isAlive() ? daemon : null;
+			final long processStart = System.nanoTime();
+			final Process process = null == testDaemon ? jmeterProcessBuilder.startProcess() : null;
+			final AtomicBoolean running = new AtomicBoolean(true);
 
-			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-                LOGGER.info("Shutdown detected, destroying JMeter process...");
-                if (perfanaClient != null && !perfanaClient.isSessionStopped()) {
-                    perfanaClient.abortSession();
-                }
-                process.destroy();
-            }));
-
-			try (InputStreamReader isr = new InputStreamReader(process.getInputStream());
-			        BufferedReader br = new BufferedReader(isr)) {
-    			String line;
-    			while ((line = br.readLine()) != null) {
-    				if (suppressJMeterOutput) {
-    					LOGGER.debug(line);
-    				} else {
-    					LOGGER.info(line);
-    				}
-    			}
-    			int jMeterExitCode = process.waitFor();
-    			if (jMeterExitCode != 0) {
-    				throw new MojoExecutionException("Test failed with exit code:"+jMeterExitCode);
-    			}
-    			LOGGER.info("Completed Test: {}", test.getAbsolutePath());
+			if (null != process) {
+				Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+	                LOGGER.info("Shutdown detected, destroying JMeter process...");
+	                if (perfanaClient != null && !perfanaClient.isSessionStopped()) {
+	                    perfanaClient.abortSession();
+	                }
+	                process.destroy();
+	            }));
+			}
+
+			final AtomicInteger shutdownPort = new AtomicInteger(SHUTDOWN_PORT_UNKNOWN);
+			final AtomicReference<String> abortReason = new AtomicReference<>();
+			if (isEarlyAbortEnabled()) {
+				LOGGER.info("{}", earlyAbortConfiguration);
+				monitorExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+					Thread thread = new Thread(runnable, "jmeter-results-monitor");
+					thread.setDaemon(true);
+					return thread;
+				});
+				final ScheduledExecutorService executor = monitorExecutor;
+				monitor = new LiveResultsMonitor(currentResultsFile, resultsCsvColumns, earlyAbortConfiguration,
+						reason -> {
+							abortReason.set(reason);
+							LOGGER.error("Stopping test {} early: {}", test.getName(), reason);
+							if (null != testDaemon) {
+								stopDaemonTest(testDaemon);
+							} else {
+								sendShutdownCommand(shutdownPort.get());
+							}
+							executor.schedule(() -> {
+								if (running.get()) {
+									LOGGER.warn("JMeter did not shut down within {}s, destroying JMeter process...",
+											earlyAbortConfiguration.getShutdownTimeoutInSeconds());
+									if (null != process) {
+										process.destroyForcibly();
+									} else {
+										testDaemon.destroy();
+									}
+								}
+							}, earlyAbortConfiguration.getShutdownTimeoutInSeconds(), TimeUnit.SECONDS);
+						});
+				monitorExecutor.scheduleWithFixedDelay(monitor, earlyAbortConfiguration.getCheckIntervalInSeconds(),
+						earlyAbortConfiguration.getCheckIntervalInSeconds(), TimeUnit.SECONDS);
+			}
+
+			Consumer<String> shutdownPortListener = line -> {
+				Matcher shutdownPortMatcher = SHUTDOWN_PORT_PATTERN.matcher(line);
+				if (shutdownPortMatcher.find()) {
+					shutdownPort.set(Integer.parseInt(shutdownPortMatcher.group(1)));
+				}
+			};
+			int jMeterExitCode;
+			if (null != process) {
+				AtomicBoolean started = new AtomicBoolean(false);
+				ProcessOutputPump outputPump = new ProcessOutputPump(process.getInputStream(), "jmeter-output-" + test.getName(),
+						line -> {
+							if (started.compareAndSet(false, true)) {
+								LOGGER.debug("JMeter started in {} ms for test {}",
+										TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - processStart), test.getName());
+							}
+							shutdownPortListener.accept(line);
+						}, line -> logJMeterOutput(outputPrefix, line),
+						ProcessOutputPump.DEFAULT_CAPACITY, ProcessOutputPump.DEFAULT_MAX_LINES_PER_SECOND);
+				outputPump.start();
+				outputPump.forwardUntilClosed();
+				jMeterExitCode = process.waitFor();
+			} else {
+				AtomicBoolean endOfRun = new AtomicBoolean(false);
+				try {
+					List<String> daemonArgumentsArray = new ArrayList<>(argumentsArray);
+					daemonArgumentsArray.add(NO_SHUTDOWN_LISTENER);
+					jMeterExitCode = testDaemon.runTest(daemonArgumentsArray, line -> {
+						if (line.contains(JMeterDaemon.END_OF_RUN)) {
+							endOfRun.set(true);
+						}
+					});
+				} catch (IOException ex) {
+					// The daemon is gone, but an aborted or finished test must not be run again
+					if (null != abortReason.get()) {
+						stopDaemon();
+						throw new MojoExecutionException("Test " + test.getName() + " was stopped early: " + abortReason.get());
+					}
+					if (!endOfRun.get()) {
+						daemonFailed = true;
+						throw ex;
+					}
+					LOGGER.warn("JMeter daemon died after test {} ended, running the remaining tests in forked JVMs",
+							test.getName());
+					stopDaemon();
+					jMeterExitCode = 0;
+				}
+			}
+			running.set(false);
+			if (null != abortReason.get()) {
+				throw new MojoExecutionException("Test " + test.getName() + " was stopped early: " + abortReason.get());
+			}
+			if (jMeterExitCode != 0) {
+				throw new MojoExecutionException("Test failed with exit code:"+jMeterExitCode);
 			}
+			LOGGER.info("Completed Test: {}", test.getAbsolutePath());
 		} catch (InterruptedException ex) {
 			LOGGER.info(" ");
 			LOGGER.info("System Exit Detected!  Stopping Test...");
@@ -220,8 +571,103 @@ public class TestManager {
             Thread.currentThread().interrupt();
 		} catch (IOException e) {
 			LOGGER.error(e.getMessage());
+		} finally {
+			if (null != monitorExecutor) {
+				monitorExecutor.shutdownNow();
+			}
+			if (null != monitor) {
+				monitor.close();
+			}
+			if (null != sink) {
+				try {
+					sink.close();
+				} catch (IOException ex) {
+					LOGGER.error("Unable to compress results to {}: {}", compressedResultsFile.getAbsolutePath(), ex.getMessage());
+				}
+			}
+		}
+		if (daemonFailed) {
+			LOGGER.warn("JMeter daemon died while running test {}, running the remaining tests in forked JVMs", test.getName());
+			stopDaemon();
+			return executeSingleTest(test, testArgs);
+		}
+		String resultsFileLocation = testArgs.getResultsLogFileName();
+		if (compressResults) {
+			if (null == sink && currentResultsFile.exists()) {
+				try {
+					CompressingResultsSink.compress(currentResultsFile, compressedResultsFile);
+				} catch (IOException ex) {
+					throw new MojoExecutionException("Unable to compress results file:" + currentResultsFile.getAbsolutePath(), ex);
+				}
+			}
+			if (compressedResultsFile.exists()) {
+				resultsFileLocation = compressedResultsFile.getAbsolutePath();
+			}
+		}
+		if (convertResultsToColumnar) {
+			resultsFileLocation = convertToColumnar(new File(resultsFileLocation));
+		}
+		return resultsFileLocation;
+	}
+
+	/**
+	 * Convert a results file to a columnar results file
+	 *
+	 * @param resultsFile The results file of a test
+	 * @return The location of the columnar results file, or of the results file if it does not exist
+	 * @throws MojoExecutionException when the results file cannot be converted
+	 */
+	private String convertToColumnar(File resultsFile) throws MojoExecutionException {
+		if (!resultsFile.exists()) {
+			return resultsFile.getPath();
+		}
+		File columnarFile = new File(resultsFile.getPath() + COLUMNAR_EXTENSION);
+		ResultScanner scanner = new ResultScanner(true, true, resultsOutputIsCSVFormat, resultsCsvColumns);
+		long sampleCount = scanner.convertToColumnar(resultsFile, columnarFile);
+		LOGGER.info("Converted {} samples of {} ({} bytes) to {} ({} bytes)", sampleCount, resultsFile.getName(),
+				resultsFile.length(), columnarFile.getName(), columnarFile.length());
+		return columnarFile.getAbsolutePath();
+	}
+
+	private boolean isEarlyAbortEnabled() {
+		return null != earlyAbortConfiguration && earlyAbortConfiguration.hasThresholds() && resultsOutputIsCSVFormat;
+	}
+
+	/**
+	 * Ask a running JMeter to shut down gracefully, the same way JMeter's shutdown script does. Nothing is sent when
+	 * JMeter did not announce its port, another JMeter may be listening on the default one.
+	 *
+	 * @param port The port JMeter listens on for shutdown commands
+	 */
+	static void sendShutdownCommand(int port) {
+		if (port == SHUTDOWN_PORT_UNKNOWN) {
+			LOGGER.warn("JMeter did not announce the port it listens on for the {} command, unable to send it", SHUTDOWN_COMMAND);
+			return;
+		}
+		byte[] command = SHUTDOWN_COMMAND.getBytes(StandardCharsets.US_ASCII);
+		try (DatagramSocket socket = new DatagramSocket()) {
+			socket.send(new DatagramPacket(command, command.length, InetAddress.getLoopbackAddress(), port));
+			LOGGER.info("Sent {} command to JMeter on port {}", SHUTDOWN_COMMAND, port);
+		} catch (IOException ex) {
+			LOGGER.error("Unable to send {} command to JMeter on port {}: {}", SHUTDOWN_COMMAND, port, ex.getMessage());
+		}
+	}
+
+	/**
+	 * Ask the JMeter daemon to shut the test it runs down gracefully
+	 *
+	 * @param testDaemon The daemon running the test
+	 */
+	private static void stopDaemonTest(JMeterDaemonProcess testDaemon) {
+		try {
+			if (testDaemon.stopTest()) {
+				LOGGER.info("Asked the JMeter daemon to shut the test down");
+			} else {
+				LOGGER.warn("The JMeter daemon was unable to shut the test down");
+			}
+		} catch (IOException ex) {
+			LOGGER.error("Unable to ask the JMeter daemon to shut the test down: {}", ex.getMessage());
 		}
-		return testArgs.getResultsLogFileName();
 	}
 
 	private List<String> buildRemoteArgs(RemoteConfiguration remoteConfig) {
@@ -0,0 +1,349 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Number of samples, errors and elapsed times per fixed interval of the sample time stamps.
+ * <p/>
+ * Intervals are aligned to multiples of their width since the epoch, so timelines filled in parallel can be merged.
+ * Memory is bounded: intervals are kept in an array of at most maxIntervals slots, and when the samples span more
+ * intervals than that, the width of the intervals is doubled, merging neighbouring intervals, until they fit.
+ * Within an interval the elapsed times are counted in the buckets of {@link LatencyHistogram}, but only the buckets
+ * that hold values take memory.
+ */
+public final class Timeline {
+	public static final long DEFAULT_INTERVAL = 1000;
+	public static final int DEFAULT_MAX_INTERVALS = 1800;
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final int maxIntervals;
+	private long interval;
+	private long firstIndex = 0;
+	private long lastIndex = -1;
+	private Interval[] intervals = new Interval[0];
+
+	/**
+	 * @param interval     Width of an interval in milliseconds
+	 * @param maxIntervals Maximum number of intervals kept, the width of the intervals grows to stay below it
+	 */
+	public Timeline(long interval, int maxIntervals) {
+		this.interval = Math.max(1, interval);
+		this.maxIntervals = Math.max(2, maxIntervals);
+	}
+
+	/**
+	 * Record a sample, samples without a time stamp are ignored
+	 *
+	 * @param timeStamp Time stamp of the sample in milliseconds since the epoch
+	 * @param elapsed   Elapsed time of the sample in milliseconds, negative if unknown
+	 * @param success   true if the sample was successful
+	 */
+	void record(long timeStamp, long elapsed, boolean success) {
+		if (timeStamp >= 0) {
+			intervalAt(timeStamp).record(elapsed, success);
+		}
+	}
+
+	/**
+	 * Add the intervals of another timeline to this one, the intervals of this timeline are widened to a multiple of
+	 * the width of the other intervals when needed
+	 *
+	 * @param other The timeline to add, not modified
+	 * @return this timeline
+	 */
+	public Timeline merge(Timeline other) {
+		if (other.isEmpty()) {
+			return this;
+		}
+		long commonInterval = interval / gcd(interval, other.interval) * other.interval;
+		if (commonInterval != interval) {
+			coarsen(commonInterval);
+		}
+		for (int i = 0; i < other.intervals.length; i++) {
+			if (null != other.intervals[i]) {
+				intervalAt((other.firstIndex + i) * other.interval).merge(other.intervals[i]);
+			}
+		}
+		return this;
+	}
+
+	private static long gcd(long a, long b) {
+		return b == 0 ? a : gcd(b, a % b);
+	}
+
+	/**
+	 * @return true if nothing has been recorded
+	 */
+	public boolean isEmpty() {
+		return lastIndex < firstIndex;
+	}
+
+	/**
+	 * @return Width of the intervals in milliseconds
+	 */
+	public long getInterval() {
+		return interval;
+	}
+
+	/**
+	 * @return The intervals from the first to the last interval that holds samples, keyed by their start time in
+	 * milliseconds since the epoch. Intervals without samples in between are included.
+	 */
+	public SortedMap<Long, Interval> getIntervals() {
+		SortedMap<Long, Interval> result = new TreeMap<>();
+		for (long index = firstIndex; index <= lastIndex; index++) {
+			Interval current = intervals[(int) (index - firstIndex)];
+			result.put(index * interval, null == current ? new Interval() : current);
+		}
+		return Collections.unmodifiableSortedMap(result);
+	}
+
+	/**
+	 * @param width Width of the intervals in milliseconds, a multiple of the width of the intervals of this timeline
+	 * @return The intervals of this timeline merged into intervals of the given width, see {@link #getIntervals()}
+	 */
+	public SortedMap<Long, Interval> getIntervals(long width) {
+		return new Timeline(width, Integer.MAX_VALUE).merge(this).getIntervals();
+	}
+
+	/**
+	 * @return The interval that holds the time stamp, created if needed
+	 */
+	private Interval intervalAt(long timeStamp) {
+		long index = timeStamp / interval;
+		if (isEmpty()) {
+			firstIndex = index;
+			lastIndex = index;
+			if (intervals.length == 0) {
+				intervals = new Interval[Math.min(INITIAL_CAPACITY, maxIntervals)];
+			}
+		}
+		while (Math.max(lastIndex, index) - Math.min(firstIndex, index) >= maxIntervals) {
+			coarsen(interval * 2);
+			index = timeStamp / interval;
+		}
+		if (index < firstIndex || index - firstIndex >= intervals.length) {
+			long newFirstIndex = Math.min(firstIndex, index);
+			int span = (int) (Math.max(lastIndex, index) - newFirstIndex + 1);
+			Interval[] grown = new Interval[Math.min(maxIntervals, Math.max(span, intervals.length * 2))];
+			System.arraycopy(intervals, 0, grown, (int) (firstIndex - newFirstIndex), (int) (lastIndex - firstIndex + 1));
+			intervals = grown;
+			firstIndex = newFirstIndex;
+		}
+		lastIndex = Math.max(lastIndex, index);
+		int slot = (int) (index - firstIndex);
+		if (null == intervals[slot]) {
+			intervals[slot] = new Interval();
+		}
+		return intervals[slot];
+	}
+
+	/**
+	 * Widen the intervals, merging the intervals that fall into the same wider interval
+	 *
+	 * @param newInterval New width of the intervals, a multiple of the current width
+	 */
+	private void coarsen(long newInterval) {
+		long factor = newInterval / interval;
+		interval = newInterval;
+		if (isEmpty()) {
+			return;
+		}
+		long newFirstIndex = firstIndex / factor;
+		long newLastIndex = lastIndex / factor;
+		Interval[] coarsened = new Interval[intervals.length];
+		for (int i = 0; i < intervals.length; i++) {
+			if (null != intervals[i]) {
+				int slot = (int) ((firstIndex + i) / factor - newFirstIndex);
+				if (null == coarsened[slot]) {
+					coarsened[slot] = intervals[i];
+				} else {
+					coarsened[slot].merge(intervals[i]);
+				}
+			}
+		}
+		intervals = coarsened;
+		firstIndex = newFirstIndex;
+		lastIndex = newLastIndex;
+	}
+
+	/**
+	 * Write the complete state of this timeline
+	 *
+	 * @param out Output to write to
+	 * @throws IOException when the output cannot be written
+	 */
+	void writeTo(DataOutput out) throws IOException {
+		out.writeLong(interval);
+		out.writeInt(maxIntervals);
+		out.writeLong(firstIndex);
+		out.writeLong(lastIndex);
+		for (long index = firstIndex; index <= lastIndex; index++) {
+			Interval current = intervals[(int) (index - firstIndex)];
+			if (null == current) {
+				out.writeInt(-1);
+			} else {
+				current.writeTo(out);
+			}
+		}
+	}
+
+	/**
+	 * Read a timeline written by {@link #writeTo(DataOutput)}
+	 *
+	 * @param in Input to read from
+	 * @return The timeline
+	 * @throws IOException when the input cannot be read or is not a timeline
+	 */
+	static Timeline readFrom(DataInput in) throws IOException {
+		Timeline timeline = new Timeline(in.readLong(), in.readInt());
+		timeline.firstIndex = in.readLong();
+		timeline.lastIndex = in.readLong();
+		long span = timeline.lastIndex - timeline.firstIndex + 1;
+		if (span < 0 || span > timeline.maxIntervals) {
+			throw new IOException("Invalid timeline of " + span + " intervals");
+		}
+		timeline.intervals = new Interval[(int) span];
+		for (int i = 0; i < span; i++) {
+			timeline.intervals[i] = Interval.readFrom(in);
+		}
+		return timeline;
+	}
+
+	/**
+	 * Number of samples, errors and elapsed times of the samples that started within an interval
+	 */
+	public static final class Interval {
+		private long sampleCount = 0;
+		private long errorCount = 0;
+		private long elapsedCount = 0;
+		private long maxElapsed = 0;
+		private short[] buckets = new short[0];
+		private long[] counts = new long[0];
+		private int size = 0;
+
+		private void record(long elapsed, boolean success) {
+			sampleCount++;
+			if (!success) {
+				errorCount++;
+			}
+			if (elapsed >= 0) {
+				long trackedValue = Math.min(elapsed, LatencyHistogram.MAX_TRACKABLE_VALUE);
+				add(LatencyHistogram.bucketIndex(trackedValue), 1);
+				maxElapsed = Math.max(maxElapsed, trackedValue);
+			}
+		}
+
+		private void add(int bucket, long count) {
+			int position = Arrays.binarySearch(buckets, 0, size, (short) bucket);
+			if (position < 0) {
+				position = -position - 1;
+				if (size == buckets.length) {
+					int capacity = Math.max(4, size * 2);
+					buckets = Arrays.copyOf(buckets, capacity);
+					counts = Arrays.copyOf(counts, capacity);
+				}
+				System.arraycopy(buckets, position, buckets, position + 1, size - position);
+				System.arraycopy(counts, position, counts, position + 1, size - position);
+				buckets[position] = (short) bucket;
+				counts[position] = 0;
+				size++;
+			}
+			counts[position] += count;
+			elapsedCount += count;
+		}
+
+		private void merge(Interval other) {
+			sampleCount += other.sampleCount;
+			errorCount += other.errorCount;
+			maxElapsed = Math.max(maxElapsed, other.maxElapsed);
+			for (int i = 0; i < other.size; i++) {
+				add(other.buckets[i], other.counts[i]);
+			}
+		}
+
+		/**
+		 * @return Number of samples that started within the interval
+		 */
+		public long getSampleCount() {
+			return sampleCount;
+		}
+
+		/**
+		 * @return Number of failed samples that started within the interval
+		 */
+		public long getErrorCount() {
+			return errorCount;
+		}
+
+		/**
+		 * @return The largest elapsed time of the samples, 0 if there are none
+		 */
+		public long getMaxElapsed() {
+			return maxElapsed;
+		}
+
+		/**
+		 * @param percentile A percentile between 0 and 100
+		 * @return The elapsed time at the percentile, as {@link LatencyHistogram#getValueAtPercentile(double)}
+		 */
+		public long getValueAtPercentile(double percentile) {
+			if (elapsedCount == 0) {
+				return 0;
+			}
+			long rank = Math.max(1, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * elapsedCount));
+			long seen = 0;
+			for (int i = 0; i < size; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					return Math.min(maxElapsed, LatencyHistogram.highestValueOf(buckets[i]));
+				}
+			}
+			return maxElapsed;
+		}
+
+		private void writeTo(DataOutput out) throws IOException {
+			out.writeInt(size);
+			out.writeLong(sampleCount);
+			out.writeLong(errorCount);
+			out.writeLong(maxElapsed);
+			for (int i = 0; i < size; i++) {
+				out.writeShort(buckets[i]);
+				out.writeLong(counts[i]);
+			}
+		}
+
+		private static Interval readFrom(DataInput in) throws IOException {
+			int size = in.readInt();
+			if (size < 0) {
+				return null;
+			}
+			if (size > LatencyHistogram.BUCKETS) {
+				throw new IOException("Invalid timeline interval of " + size + " buckets");
+			}
+			Interval interval = new Interval();
+			interval.sampleCount = in.readLong();
+			interval.errorCount = in.readLong();
+			interval.maxElapsed = in.readLong();
+			interval.buckets = new short[size];
+			interval.counts = new long[size];
+			for (int i = 0; i < size; i++) {
+				int bucket = in.readUnsignedShort();
+				if (bucket >= LatencyHistogram.BUCKETS || (i > 0 && bucket <= interval.buckets[i - 1])) {
+					throw new IOException("Invalid timeline bucket " + bucket);
+				}
+				interval.buckets[i] = (short) bucket;
+				interval.counts[i] = in.readLong();
+				interval.elapsedCount += interval.counts[i];
+			}
+			interval.size = size;
+			return interval;
+		}
+	}
+}
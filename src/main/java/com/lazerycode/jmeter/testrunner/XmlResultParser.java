@@ -0,0 +1,126 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streaming reader for JMeter XML results files.
+ * <p/>
+ * The file is read with StAX, one element at a time, so memory use does not depend on the size of the file.
+ * Samples nested inside another sample (e.g. the requests of a Transaction Controller) are passed to the handler
+ * with a depth greater than 0, before the sample they belong to. A sample is passed on when its element ends, so the
+ * first assertion failure message inside the element is available.
+ */
+final class XmlResultParser {
+
+	private static final String SAMPLE = "sample";
+	private static final String HTTP_SAMPLE = "httpSample";
+	private static final String FAILURE_MESSAGE = "failureMessage";
+
+	private final Set<ResultField> requestedFields;
+	private final SampleHandler handler;
+	private final XMLInputFactory inputFactory;
+	private final List<ResultSample> openSamples = new ArrayList<>();
+	private int depth = 0;
+	private long samples = 0;
+	private long subResults = 0;
+
+	/**
+	 * @param requestedFields The fields the handler needs
+	 * @param handler         Handler receiving every sample and sub result
+	 */
+	XmlResultParser(Set<ResultField> requestedFields, SampleHandler handler) {
+		this.requestedFields = requestedFields;
+		this.handler = handler;
+		this.inputFactory = XMLInputFactory.newInstance();
+		inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		inputFactory.setProperty(XMLInputFactory.IS_COALESCING, false);
+	}
+
+	/**
+	 * Read all samples of a results file
+	 *
+	 * @param input The content of the file, the caller is responsible for closing it
+	 * @throws XMLStreamException when the content is not well formed
+	 */
+	void parse(InputStream input) throws XMLStreamException {
+		XMLStreamReader reader = inputFactory.createXMLStreamReader(input);
+		try {
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					startElement(reader);
+				} else if (event == XMLStreamConstants.END_ELEMENT && isSample(reader.getLocalName())) {
+					endSample();
+				}
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * @return Number of samples read that are not a sub result of another sample
+	 */
+	long getSamples() {
+		return samples;
+	}
+
+	/**
+	 * @return Number of sub results read
+	 */
+	long getSubResults() {
+		return subResults;
+	}
+
+	private void startElement(XMLStreamReader reader) throws XMLStreamException {
+		String name = reader.getLocalName();
+		if (isSample(name)) {
+			startSample(reader);
+		} else if (depth > 0 && FAILURE_MESSAGE.equals(name) && requestedFields.contains(ResultField.FAILURE_MESSAGE)) {
+			ResultSample sample = openSamples.get(depth - 1);
+			String message = reader.getElementText();
+			if (!sample.has(ResultField.FAILURE_MESSAGE) && !message.isEmpty()) {
+				sample.set(ResultField.FAILURE_MESSAGE, message);
+			}
+		}
+	}
+
+	private void startSample(XMLStreamReader reader) {
+		if (openSamples.size() == depth) {
+			openSamples.add(new ResultSample());
+		}
+		ResultSample sample = openSamples.get(depth);
+		sample.reset();
+		sample.setDepth(depth);
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			ResultField field = ResultField.fromXmlAttribute(reader.getAttributeLocalName(i));
+			if (null != field && requestedFields.contains(field)) {
+				sample.set(field, reader.getAttributeValue(i));
+			}
+		}
+		depth++;
+	}
+
+	private void endSample() {
+		depth--;
+		if (depth == 0) {
+			samples++;
+		} else {
+			subResults++;
+		}
+		handler.handleSample(openSamples.get(depth));
+	}
+
+	private static boolean isSample(String name) {
+		return HTTP_SAMPLE.equals(name) || SAMPLE.equals(name);
+	}
+}
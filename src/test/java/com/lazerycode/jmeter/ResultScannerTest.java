@@ -1,11 +1,31 @@
 package com.lazerycode.jmeter;
 
+import com.lazerycode.jmeter.configuration.ExpectedInterval;
+import com.lazerycode.jmeter.configuration.LabelNormalizationRule;
+import com.lazerycode.jmeter.configuration.MeasurementWindow;
+import com.lazerycode.jmeter.exceptions.ResultsFileNotFoundException;
+import com.lazerycode.jmeter.testrunner.ErrorBreakdown;
+import com.lazerycode.jmeter.testrunner.HeavyHitters;
+import com.lazerycode.jmeter.testrunner.LabelStatistics;
 import com.lazerycode.jmeter.testrunner.ResultScanner;
+import com.lazerycode.jmeter.testrunner.ResultStatistics;
+import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.junit.Assert.assertThat;
@@ -18,6 +38,12 @@ public class ResultScannerTest {
 	private static final boolean DO_NOT_COUNT_SUCCESSES = false;
 	private final URL failingResultsFileURL = this.getClass().getResource("/jtl2-1-fail.jtl");
 	private final URL passingResultsFileURL = this.getClass().getResource("/jtl2-1-pass.jtl");
+	private final URL failingCsvResultsFileURL = this.getClass().getResource("/jtl-csv-fail.csv");
+	private final URL nestedResultsFileURL = this.getClass().getResource("/jtl-xml-nested.jtl");
+	private final URL csvResultsFileWithoutHeaderURL = this.getClass().getResource("/jtl-csv-no-header.csv");
+	private final List<String> defaultCsvColumns = Arrays.asList("timeStamp", "elapsed", "label", "responseCode",
+			"responseMessage", "threadName", "dataType", "success", "failureMessage", "bytes", "sentBytes",
+			"grpThreads", "allThreads", "URL", "Latency", "IdleTime", "Connect");
 
 	@Test
 	public void jtlFileWithFailuresCountSuccessAndFailures() throws Exception {
@@ -90,4 +116,319 @@ public class ResultScannerTest {
 		assertThat(fileScanner.getSuccessCount(),
 				is(equalTo(0)));
 	}
+
+	@Test
+	public void csvFileOnlyCountsTheSuccessColumn() throws Exception {
+		File resultsFile = new File(failingCsvResultsFileURL.toURI());
+		ResultScanner fileScanner = new ResultScanner(COUNT_SUCCESSES, COUNT_FAILURES, true);
+		fileScanner.parseResultFile(resultsFile);
+
+		assertThat(fileScanner.getFailureCount(),
+				is(equalTo(2)));
+		assertThat(fileScanner.getSuccessCount(),
+				is(equalTo(2)));
+	}
+
+	@Test
+	public void csvFileWithoutHeaderUsesConfiguredColumns() throws Exception {
+		File resultsFile = new File(csvResultsFileWithoutHeaderURL.toURI());
+		ResultScanner fileScanner = new ResultScanner(COUNT_SUCCESSES, COUNT_FAILURES, true, defaultCsvColumns);
+		fileScanner.parseResultFile(resultsFile);
+
+		assertThat(fileScanner.getFailureCount(),
+				is(equalTo(1)));
+		assertThat(fileScanner.getSuccessCount(),
+				is(equalTo(2)));
+	}
+
+	@Test
+	public void jtlFileWithSubResultsOnlyCountsTheParentSamples() throws Exception {
+		File resultsFile = new File(nestedResultsFileURL.toURI());
+		ResultScanner fileScanner = new ResultScanner(COUNT_SUCCESSES, COUNT_FAILURES);
+		fileScanner.parseResultFile(resultsFile);
+
+		assertThat(fileScanner.getFailureCount(),
+				is(equalTo(1)));
+		assertThat(fileScanner.getSuccessCount(),
+				is(equalTo(1)));
+	}
+
+	@Test
+	public void filesScannedInParallelAreMergedIntoTheSameCounts() throws Exception {
+		List<File> resultsFiles = Arrays.asList(new File(failingResultsFileURL.toURI()),
+				new File(passingResultsFileURL.toURI()), new File(nestedResultsFileURL.toURI()),
+				new File(failingResultsFileURL.toURI()));
+		ResultScanner fileScanner = new ResultScanner(COUNT_SUCCESSES, COUNT_FAILURES);
+		fileScanner.parseResultFiles(resultsFiles, 4);
+
+		assertThat(fileScanner.getFailureCount(),
+				is(equalTo(5)));
+		assertThat(fileScanner.getSuccessCount(),
+				is(equalTo(9)));
+		assertThat(fileScanner.getStatistics().getFailureCount(),
+				is(equalTo(5L)));
+	}
+
+	@Test(expected = ResultsFileNotFoundException.class)
+	public void missingFileScannedInParallelIsReported() throws Exception {
+		List<File> resultsFiles = Arrays.asList(new File(passingResultsFileURL.toURI()), new File("missing.jtl"));
+		ResultScanner fileScanner = new ResultScanner(COUNT_SUCCESSES, COUNT_FAILURES);
+		fileScanner.parseResultFiles(resultsFiles, 2);
+	}
+
+	@Test
+	public void largeCsvFileIsSplitIntoPartsAtRecordBoundaries() throws Exception {
+		File resultsFile = File.createTempFile("results", ".csv");
+		resultsFile.deleteOnExit();
+		int failures = 0;
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(resultsFile), StandardCharsets.UTF_8)) {
+			writer.write("timeStamp,elapsed,label,success,failureMessage\n");
+			for (int i = 0; i < 5000; i++) {
+				boolean success = i % 7 != 0;
+				String failureMessage = success ? "" : "\"expected\n" + (1133521593546L + i) + ",1,fake,true\"";
+				failures += success ? 0 : 1;
+				writer.write((1133521593546L + i) + "," + (i % 100) + ",request " + i + "," + success + "," + failureMessage + "\n");
+			}
+		}
+		ResultScanner fileScanner = new ResultScanner(COUNT_SUCCESSES, COUNT_FAILURES, true);
+		fileScanner.setChunkSize(4096);
+		fileScanner.parseResultFiles(Collections.singletonList(resultsFile), 4);
+
+		assertThat(fileScanner.getFailureCount(),
+				is(equalTo(failures)));
+		assertThat(fileScanner.getSuccessCount(),
+				is(equalTo(5000 - failures)));
+	}
+
+	@Test
+	public void largeXmlFileIsSplitIntoPartsAtSampleBoundaries() throws Exception {
+		File resultsFile = File.createTempFile("results", ".jtl");
+		resultsFile.deleteOnExit();
+		int failures = 0;
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(resultsFile), StandardCharsets.UTF_8)) {
+			writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<testResults version=\"1.2\">\n");
+			for (int i = 0; i < 5000; i++) {
+				boolean success = i % 7 != 0;
+				failures += success ? 0 : 1;
+				if (i % 5 == 0) {
+					writer.write("<sample t=\"10\" s=\"" + success + "\" lb=\"transaction " + i + "\">\n");
+					writer.write("  <httpSample t=\"4\" s=\"false\" lb=\"child\"/>\n");
+					writer.write("  <httpSample t=\"6\" s=\"true\" lb=\"child\"/>\n");
+					writer.write("</sample>\n");
+				} else {
+					writer.write("<httpSample t=\"10\" s=\"" + success + "\" lb=\"request " + i + "\"/>\n");
+				}
+			}
+			writer.write("</testResults>\n");
+		}
+		ResultScanner fileScanner = new ResultScanner(COUNT_SUCCESSES, COUNT_FAILURES);
+		fileScanner.setChunkSize(4096);
+		fileScanner.parseResultFiles(Collections.singletonList(resultsFile), 4);
+
+		assertThat(fileScanner.getFailureCount(),
+				is(equalTo(failures)));
+		assertThat(fileScanner.getSuccessCount(),
+				is(equalTo(5000 - failures)));
+	}
+
+	@Test
+	public void gzipCompressedCsvFileIsDecompressedWhileScanning() throws Exception {
+		File resultsFile = File.createTempFile("results", ".csv.gz");
+		resultsFile.deleteOnExit();
+		try (InputStream in = failingCsvResultsFileURL.openStream();
+			 OutputStream out = new GZIPOutputStream(new FileOutputStream(resultsFile))) {
+			IOUtils.copy(in, out);
+		}
+		ResultScanner fileScanner = new ResultScanner(COUNT_SUCCESSES, COUNT_FAILURES, true);
+		fileScanner.parseResultFile(resultsFile);
+
+		assertThat(fileScanner.getFailureCount(),
+				is(equalTo(2)));
+		assertThat(fileScanner.getSuccessCount(),
+				is(equalTo(2)));
+	}
+
+	@Test
+	public void elapsedTimesAreRecordedPerLabel() throws Exception {
+		File resultsFile = new File(nestedResultsFileURL.toURI());
+		ResultScanner fileScanner = new ResultScanner(COUNT_SUCCESSES, COUNT_FAILURES);
+		fileScanner.parseResultFile(resultsFile);
+		ResultStatistics statistics = fileScanner.getStatistics();
+
+		assertThat(statistics.getLabels().keySet(), contains("/logout", "Login transaction"));
+		assertThat(statistics.getLabels().get("Login transaction").getFailureCount(), is(equalTo(1L)));
+		assertThat(statistics.getLabels().get("Login transaction").getElapsed().getMax(), is(equalTo(250L)));
+		assertThat(statistics.getElapsed().getValueAtPercentile(50), is(equalTo(16L)));
+		assertThat(statistics.getElapsed().getValueAtPercentile(99), is(equalTo(250L)));
+	}
+
+	@Test
+	public void columnarFileGivesTheStatisticsOfTheFileItWasConvertedFrom() throws Exception {
+		File resultsFile = new File(nestedResultsFileURL.toURI());
+		File columnarFile = File.createTempFile("results", ".col");
+		columnarFile.deleteOnExit();
+		ResultScanner fileScanner = new ResultScanner(COUNT_SUCCESSES, COUNT_FAILURES);
+		fileScanner.parseResultFile(resultsFile);
+		ResultScanner columnarScanner = new ResultScanner(COUNT_SUCCESSES, COUNT_FAILURES, true);
+		fileScanner.convertToColumnar(resultsFile, columnarFile);
+		columnarScanner.parseResultFile(columnarFile);
+
+		assertThat(columnarScanner.getFailureCount(), is(equalTo(fileScanner.getFailureCount())));
+		assertThat(columnarScanner.getSuccessCount(), is(equalTo(fileScanner.getSuccessCount())));
+		assertThat(columnarScanner.getStatistics().getLabels().keySet(), contains("/logout", "Login transaction"));
+		assertThat(columnarScanner.getStatistics().getElapsed().getValueAtPercentile(50), is(equalTo(16L)));
+		assertThat(columnarScanner.getStatistics().getElapsed().getValueAtPercentile(99), is(equalTo(250L)));
+	}
+
+	@Test
+	public void onlySamplesWithinAnAbsoluteMeasurementWindowAreCounted() throws Exception {
+		File resultsFile = new File(failingCsvResultsFileURL.toURI());
+		MeasurementWindow window = new MeasurementWindow();
+		window.setStartTimeStamp(1540000000100L);
+		window.setEndTimeStamp(1540000000450L);
+		ResultScanner fileScanner = new ResultScanner(COUNT_SUCCESSES, COUNT_FAILURES, true);
+		fileScanner.setMeasurementWindow(window);
+		fileScanner.parseResultFile(resultsFile);
+
+		assertThat(fileScanner.getFailureCount(), is(equalTo(1)));
+		assertThat(fileScanner.getSuccessCount(), is(equalTo(1)));
+		assertThat(fileScanner.getStatistics().getLabels().keySet(), contains("false", "login"));
+	}
+
+	@Test
+	public void measurementWindowRelativeToTheFirstSampleLeavesOutRampUpAndRampDown() throws Exception {
+		File resultsFile = File.createTempFile("results", ".csv");
+		resultsFile.deleteOnExit();
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(resultsFile), StandardCharsets.UTF_8)) {
+			writer.write("timeStamp,elapsed,label,success\n");
+			for (int second = 0; second < 10; second++) {
+				writer.write((1540000000000L + second * 1000L) + "," + second + ",request," + (second % 2 == 0) + "\n");
+			}
+		}
+		MeasurementWindow window = new MeasurementWindow();
+		window.setStartOffsetInSeconds(2L);
+		window.setEndOffsetInSeconds(7L);
+		ResultScanner fileScanner = new ResultScanner(COUNT_SUCCESSES, COUNT_FAILURES, true);
+		fileScanner.setChunkSize(64);
+		fileScanner.setMeasurementWindow(window);
+		fileScanner.parseResultFiles(Collections.singletonList(resultsFile), 2);
+
+		assertThat(fileScanner.getSuccessCount(), is(equalTo(3)));
+		assertThat(fileScanner.getFailureCount(), is(equalTo(2)));
+		assertThat(fileScanner.getStatistics().getElapsed().getMin(), is(equalTo(2L)));
+		assertThat(fileScanner.getStatistics().getElapsed().getMax(), is(equalTo(6L)));
+	}
+
+	@Test
+	public void responseCodesAndMessagesOfFailedSamplesAreCountedPerLabel() throws Exception {
+		File resultsFile = new File(failingCsvResultsFileURL.toURI());
+		ResultScanner fileScanner = new ResultScanner(COUNT_SUCCESSES, COUNT_FAILURES, true);
+		fileScanner.parseResultFile(resultsFile);
+		ErrorBreakdown errors = fileScanner.getStatistics().getLabels().get("login").getErrors();
+
+		assertThat(errors.getResponseCodes().getTop(5).get(0).getValue(), is(equalTo("500")));
+		assertThat(errors.getResponseMessages().getTop(5).get(0).getValue(),
+				is(equalTo("Internal Server Error, \"false\" start")));
+		assertThat(errors.getFailureMessages().getTop(5).get(0).getValue(),
+				is(equalTo("Response was:\ntrue\nexpected: false")));
+		assertThat(fileScanner.getStatistics().getTotal().getErrors().getResponseCodes().getTop(5).size(), is(equalTo(2)));
+		assertThat(fileScanner.getStatistics().getLabels().get("false").getErrors().isEmpty(), is(true));
+	}
+
+	private File resultsFileWithOrderLabels() throws Exception {
+		File resultsFile = File.createTempFile("results", ".csv");
+		resultsFile.deleteOnExit();
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(resultsFile), StandardCharsets.UTF_8)) {
+			writer.write("timeStamp,elapsed,label,success\n");
+			for (int i = 0; i < 1000; i++) {
+				writer.write((1540000000000L + i) + ",10,/order/" + (i % 100) + "/items," + (i % 10 != 0) + "\n");
+				writer.write((1540000000000L + i) + ",20,/login,true\n");
+			}
+		}
+		return resultsFile;
+	}
+
+	@Test
+	public void labelsAreNormalizedWhileScanning() throws Exception {
+		LabelNormalizationRule rule = new LabelNormalizationRule();
+		rule.setPattern("/order/\\d+");
+		rule.setReplacement("/order/{id}");
+		ResultScanner fileScanner = new ResultScanner(COUNT_SUCCESSES, COUNT_FAILURES, true);
+		fileScanner.setChunkSize(4096);
+		fileScanner.setLabelNormalization(Collections.singletonList(rule), 10);
+		fileScanner.parseResultFiles(Collections.singletonList(resultsFileWithOrderLabels()), 4);
+		ResultStatistics statistics = fileScanner.getStatistics();
+
+		assertThat(statistics.getLabels().keySet(), contains("/login", "/order/{id}/items"));
+		assertThat(statistics.getLabels().get("/order/{id}/items").getSampleCount(), is(equalTo(1000L)));
+		assertThat(statistics.getOverflow() == null, is(true));
+	}
+
+	@Test
+	public void labelsBeyondTheMaximumAreCountedAsOverflow() throws Exception {
+		ResultScanner fileScanner = new ResultScanner(COUNT_SUCCESSES, COUNT_FAILURES, true);
+		fileScanner.setChunkSize(4096);
+		fileScanner.setLabelNormalization(null, 20);
+		fileScanner.parseResultFiles(Collections.singletonList(resultsFileWithOrderLabels()), 4);
+		ResultStatistics statistics = fileScanner.getStatistics();
+
+		long labelledSamples = 0;
+		for (LabelStatistics label : statistics.getLabels().values()) {
+			labelledSamples += label.getSampleCount();
+		}
+		assertThat(statistics.getLabels().size(), is(equalTo(20)));
+		assertThat(statistics.getLabels().containsKey("/login"), is(true));
+		assertThat(labelledSamples + statistics.getOverflow().getSampleCount(), is(equalTo(2000L)));
+		assertThat(statistics.getOverflow().getFailureCount() + failures(statistics), is(equalTo(100L)));
+		assertThat(statistics.getOverflowLabels().isEmpty(), is(false));
+	}
+
+	@Test
+	public void samplesOfOverflowLabelsAreCountedPerLabel() throws Exception {
+		ResultScanner fileScanner = new ResultScanner(COUNT_SUCCESSES, COUNT_FAILURES, true);
+		fileScanner.setLabelNormalization(null, 1);
+		fileScanner.parseResultFiles(Collections.singletonList(resultsFileWithOrderLabels()), 1);
+		ResultStatistics statistics = fileScanner.getStatistics();
+
+		assertThat(statistics.getLabels().keySet(), contains("/order/0/items"));
+		assertThat(statistics.getOverflow().getSampleCount(), is(equalTo(1990L)));
+		HeavyHitters.Counter mostFrequent = statistics.getOverflowLabels().getTop(1).get(0);
+		assertThat(mostFrequent.getValue(), is(equalTo("/login")));
+		assertThat(mostFrequent.getCount(), is(equalTo(1000L)));
+		assertThat(mostFrequent.getError(), is(equalTo(0L)));
+	}
+
+	@Test
+	public void elapsedTimesAreCorrectedForCoordinatedOmission() throws Exception {
+		File resultsFile = File.createTempFile("results", ".csv");
+		resultsFile.deleteOnExit();
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(resultsFile), StandardCharsets.UTF_8)) {
+			writer.write("timeStamp,elapsed,label,success,threadName\n");
+			for (int i = 0; i < 100; i++) {
+				long elapsed = i == 50 ? 1000 : 10;
+				writer.write((1540000000000L + i * 100L) + "," + elapsed + ",request,true,Users 1-1\n");
+			}
+		}
+		ExpectedInterval users = new ExpectedInterval();
+		users.setThreadGroup("Users");
+		users.setIntervalInMs(100);
+		ResultScanner fileScanner = new ResultScanner(COUNT_SUCCESSES, COUNT_FAILURES, true);
+		fileScanner.setCoordinatedOmissionCorrection(true, Collections.singletonList(users));
+		fileScanner.parseResultFile(resultsFile);
+		LabelStatistics request = fileScanner.getStatistics().getLabels().get("request");
+
+		assertThat(request.getSampleCount(), is(equalTo(100L)));
+		assertThat(request.getElapsed().getValueAtPercentile(95), is(equalTo(10L)));
+		assertThat(request.getCorrectedElapsed().getCount(), is(equalTo(109L)));
+		assertThat(request.getCorrectedElapsed().getValueAtPercentile(95), is(equalTo(503L)));
+		assertThat(fileScanner.getStatistics().getTotal().getCorrectedElapsed().getCount(), is(equalTo(109L)));
+	}
+
+	private static long failures(ResultStatistics statistics) {
+		long failures = 0;
+		for (LabelStatistics label : statistics.getLabels().values()) {
+			failures += label.getFailureCount();
+		}
+		return failures;
+	}
 }
@@ -10,6 +10,12 @@ import org.junit.Test;
 import java.io.File;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsEqual.equalTo;
@@ -435,4 +441,48 @@ public class JMeterArgumentsArrayTest {
 		assertThat(UtilityFunctions.humanReadableCommandLineOutput(testArgs.buildArgumentsArray()),
 				is(equalTo("-d target/jmeter/" + " -e -l " + testArgs.getResultsLogFileName() + " -n -o /target/jmeter/reports -t " + testFilePath)));
 	}
+
+	@Test
+	public void copiedArgumentsAreIndependentOfTheOriginal() throws Exception {
+		JMeterArgumentsArray baseArgs = new JMeterArgumentsArray(disableGUI, "target/jmeter/");
+		baseArgs.setResultsDirectory(File.separator + "tmp");
+		JMeterArgumentsArray firstArgs = new JMeterArgumentsArray(baseArgs);
+		firstArgs.setTestFile(testFile, testFileDirectory);
+		firstArgs.setReportsDirectory("/target/jmeter/reports/test");
+		JMeterArgumentsArray secondArgs = new JMeterArgumentsArray(baseArgs);
+		secondArgs.setTestFile(new File(this.testFileTwoURL.toURI()), testFileDirectory);
+
+		assertThat(baseArgs.getResultsLogFileName(), is(equalTo(null)));
+		assertThat(firstArgs.getResultsLogFileName(), is(equalTo(File.separator + "tmp" + File.separator + "test.jtl")));
+		assertThat(secondArgs.getResultsLogFileName(), is(equalTo(File.separator + "tmp" + File.separator + "subdir_test.jtl")));
+		assertThat(UtilityFunctions.humanReadableCommandLineOutput(secondArgs.buildArgumentsArray()),
+				is(equalTo("-d target/jmeter/ -l " + secondArgs.getResultsLogFileName() + " -n -t "
+						+ new File(this.testFileTwoURL.toURI()).getAbsolutePath())));
+	}
+
+	@Test
+	public void plansWithTheSameNameRunningAtTheSameTimeWriteSeparateFiles() throws Exception {
+		JMeterArgumentsArray baseArgs = new JMeterArgumentsArray(disableGUI, "target/jmeter/");
+		baseArgs.setResultsDirectory(File.separator + "tmp");
+		baseArgs.setLogsDirectory(File.separator + "logs");
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			List<Future<JMeterArgumentsArray>> tests = new ArrayList<>();
+			for (URL plan : Arrays.asList(testFileURL, testFileTwoURL)) {
+				tests.add(executor.submit(() -> {
+					JMeterArgumentsArray testArgs = new JMeterArgumentsArray(baseArgs);
+					testArgs.setTestFile(new File(plan.toURI()), testFileDirectory);
+					return testArgs;
+				}));
+			}
+			JMeterArgumentsArray firstArgs = tests.get(0).get();
+			JMeterArgumentsArray secondArgs = tests.get(1).get();
+
+			assertThat(firstArgs.getJMeterLogFileName(), is(equalTo(File.separator + "logs" + File.separator + "test.jmx.log")));
+			assertThat(secondArgs.getJMeterLogFileName(), is(equalTo(File.separator + "logs" + File.separator + "subdir_test.jmx.log")));
+			assertThat(firstArgs.getResultsLogFileName(), is(not(equalTo(secondArgs.getResultsLogFileName()))));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
 }
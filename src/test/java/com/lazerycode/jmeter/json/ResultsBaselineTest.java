@@ -0,0 +1,39 @@
+package com.lazerycode.jmeter.json;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.lazerycode.jmeter.testrunner.LabelStatistics;
+import com.lazerycode.jmeter.testrunner.ResultScanner;
+
+public class ResultsBaselineTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void writtenBaselineRestoresCountsThroughputAndPercentiles() throws Exception {
+		ResultScanner resultScanner = new ResultScanner(true, true);
+		resultScanner.parseResultFile(new File(this.getClass().getResource("/jtl2-1-fail.jtl").toURI()));
+		File baselineFile = new File(folder.getRoot(), "baseline/results-baseline.json");
+		new ResultsBaseline(resultScanner.getStatistics()).writeTo(baselineFile);
+
+		ResultsBaseline baseline = new ResultsBaseline(baselineFile);
+		LabelStatistics expected = resultScanner.getStatistics().getLabels().get("/my_webapp/root/portal");
+		LabelStatistics restored = baseline.getLabels().get("/my_webapp/root/portal");
+
+		assertThat(baseline.getLabels().keySet(), is(equalTo(resultScanner.getStatistics().getLabels().keySet())));
+		assertThat(restored.getSampleCount(), is(equalTo(expected.getSampleCount())));
+		assertThat(restored.getFailureCount(), is(equalTo(expected.getFailureCount())));
+		assertThat(restored.getThroughput(), is(equalTo(expected.getThroughput())));
+		assertThat(restored.getElapsed().getValueAtPercentile(95), is(equalTo(expected.getElapsed().getValueAtPercentile(95))));
+		assertThat(baseline.getTotal().getSampleCount(), is(equalTo(4L)));
+	}
+}
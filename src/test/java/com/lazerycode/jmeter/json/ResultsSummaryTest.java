@@ -0,0 +1,33 @@
+package com.lazerycode.jmeter.json;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import com.jayway.jsonpath.JsonPath;
+import com.lazerycode.jmeter.testrunner.ResultScanner;
+
+public class ResultsSummaryTest {
+
+	@Test
+	public void summaryHoldsTotalsAndPercentilesPerLabel() throws Exception {
+		ResultScanner resultScanner = new ResultScanner(true, true);
+		resultScanner.parseResultFile(new File(this.getClass().getResource("/jtl2-1-fail.jtl").toURI()));
+		String summary = new ResultsSummary(resultScanner.getStatistics()).getFullSummary();
+
+		assertThat(JsonPath.<Integer>read(summary, "$.total.samples"), is(equalTo(4)));
+		assertThat(JsonPath.<Integer>read(summary, "$.total.failures"), is(equalTo(2)));
+		assertThat(JsonPath.<Integer>read(summary, "$.total.max"), is(equalTo(1187)));
+		assertThat(JsonPath.<Integer>read(summary, "$.labels['/my_webapp/root/portal'].p95"), is(equalTo(16)));
+	}
+
+	@Test
+	public void percentileNamesDropTheFractionOfWholePercentiles() {
+		assertThat(ResultsSummary.percentileName(95), is(equalTo("p95")));
+		assertThat(ResultsSummary.percentileName(99.9), is(equalTo("p99.9")));
+	}
+}
@@ -0,0 +1,58 @@
+package com.lazerycode.jmeter.json;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.jayway.jsonpath.JsonPath;
+import com.lazerycode.jmeter.testrunner.ResultScanner;
+
+public class ResultsTimelineTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ResultsTimeline timelineOfFailingCsv() throws Exception {
+		ResultScanner resultScanner = new ResultScanner(true, true, true);
+		resultScanner.setTimeline(250, 100);
+		resultScanner.parseResultFile(new File(this.getClass().getResource("/jtl-csv-fail.csv").toURI()));
+		return new ResultsTimeline(resultScanner.getStatistics());
+	}
+
+	@Test
+	public void timelineIsWrittenAsCsvPerIntervalAndLabel() throws Exception {
+		File timelineFile = new File(folder.getRoot(), "results-timeline.csv");
+		timelineOfFailingCsv().writeTo(timelineFile);
+
+		List<String> lines = Files.readAllLines(timelineFile.toPath(), StandardCharsets.UTF_8);
+
+		assertThat(lines.subList(0, 4), contains(
+				"timeStamp,label,requestsPerSecond,errorsPerSecond,p50,p90,p95,p99,max",
+				"1540000000000,TOTAL,8.000,4.000,120,300,300,300,300",
+				"1540000000250,TOTAL,4.000,0.000,80,80,80,80,80",
+				"1540000000500,TOTAL,4.000,4.000,95,95,95,95,95"));
+		assertThat(lines.size(), is(equalTo(1 + 3 + 4)));
+	}
+
+	@Test
+	public void timelineIsWrittenAsJsonWhenTheFileNameEndsWithJson() throws Exception {
+		File timelineFile = new File(folder.getRoot(), "results-timeline.json");
+		timelineOfFailingCsv().writeTo(timelineFile);
+
+		String json = new String(Files.readAllBytes(timelineFile.toPath()), StandardCharsets.UTF_8);
+
+		assertThat(JsonPath.read(json, "$.interval"), is(equalTo(250)));
+		assertThat(JsonPath.read(json, "$.total[0].requestsPerSecond"), is(equalTo(8.0)));
+		assertThat(JsonPath.read(json, "$.labels.login[0].errorsPerSecond"), is(equalTo(4.0)));
+	}
+}
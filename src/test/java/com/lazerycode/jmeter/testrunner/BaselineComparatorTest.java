@@ -0,0 +1,86 @@
+package com.lazerycode.jmeter.testrunner;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class BaselineComparatorTest {
+
+	private static ResultStatistics statistics(String label, long firstElapsed, int samples) {
+		ResultStatistics statistics = new ResultStatistics();
+		for (int i = 0; i < samples; i++) {
+			ResultSample sample = new ResultSample();
+			sample.set(ResultField.TIMESTAMP, String.valueOf(1500000000000L + i * 100L));
+			sample.set(ResultField.ELAPSED, String.valueOf(firstElapsed + i % 50));
+			sample.set(ResultField.LABEL, label);
+			sample.set(ResultField.SUCCESS, "true");
+			statistics.handleSample(sample);
+		}
+		return statistics;
+	}
+
+	private static List<String> regressions(List<BaselineComparator.Comparison> comparisons) {
+		List<String> regressions = new ArrayList<>();
+		for (BaselineComparator.Comparison comparison : comparisons) {
+			if (!comparison.isPassed()) {
+				regressions.add(comparison.toString());
+			}
+		}
+		return regressions;
+	}
+
+	@Test
+	public void sameResultsHaveNotRegressed() {
+		Map<String, LabelStatistics> baseline = statistics("home", 100, 500).getLabels();
+		List<BaselineComparator.Comparison> comparisons =
+				new BaselineComparator(10, 0.01, 30).compare(statistics("home", 100, 500), baseline);
+
+		assertThat(comparisons.size(), is(4));
+		assertThat(regressions(comparisons), is(empty()));
+	}
+
+	@Test
+	public void slowerElapsedTimesBeyondTheToleranceHaveRegressed() {
+		Map<String, LabelStatistics> baseline = statistics("home", 100, 500).getLabels();
+		List<BaselineComparator.Comparison> comparisons =
+				new BaselineComparator(10, null, 30).compare(statistics("home", 200, 500), baseline);
+
+		assertThat(regressions(comparisons), contains(
+				"FAILED home: p95 elapsed (ms) 247.00 (baseline 147.00, limit 161.70)",
+				"FAILED home: p99 elapsed (ms) 249.00 (baseline 149.00, limit 163.90)"));
+	}
+
+	@Test
+	public void labelsWithTooFewSamplesOrMissingFromTheBaselineAreNotCompared() {
+		Map<String, LabelStatistics> baseline = statistics("home", 100, 10).getLabels();
+
+		assertThat(new BaselineComparator(10, 0.01, 30).compare(statistics("home", 200, 500), baseline), is(empty()));
+		assertThat(new BaselineComparator(10, 0.01, 30).compare(statistics("login", 200, 500), baseline), is(empty()));
+	}
+
+	@Test
+	public void smallShiftIsSignificantWithEnoughSamples() {
+		LatencyHistogram baseline = statistics("home", 100, 5000).getElapsed();
+
+		assertThat(BaselineComparator.probabilityNotSlower(statistics("home", 100, 5000).getElapsed(), baseline), is(greaterThan(0.4)));
+		assertThat(BaselineComparator.probabilityNotSlower(statistics("home", 103, 5000).getElapsed(), baseline), is(lessThan(0.01)));
+		assertThat(BaselineComparator.probabilityNotSlower(statistics("home", 97, 5000).getElapsed(), baseline), is(greaterThan(0.99)));
+		assertThat(BaselineComparator.probabilityNotSlower(new LatencyHistogram(), baseline), is(1.0));
+	}
+
+	@Test
+	public void emptyBaselineComparesNothing() {
+		assertThat(new BaselineComparator(10, null, 0).compare(statistics("home", 100, 50),
+				Collections.<String, LabelStatistics>emptyMap()), is(empty()));
+	}
+}
@@ -0,0 +1,44 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import com.lazerycode.jmeter.configuration.JMeterProcessJVMSettings;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class ClassDataSharingArchiveTest {
+
+	@Test
+	public void majorVersionIsTheFeatureRelease() {
+		assertThat(ClassDataSharingArchive.majorVersion("1.8.0_292"), is(equalTo(8)));
+		assertThat(ClassDataSharingArchive.majorVersion("11.0.2"), is(equalTo(11)));
+		assertThat(ClassDataSharingArchive.majorVersion("17-ea"), is(equalTo(17)));
+		assertThat(ClassDataSharingArchive.majorVersion("unknown"), is(equalTo(0)));
+	}
+
+	@Test
+	public void javaVersionIsReadFromTheRuntime() throws Exception {
+		String javaRuntime = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		String javaVersion = ClassDataSharingArchive.javaVersion(javaRuntime, new File("."));
+
+		assertThat(javaVersion, is(equalTo(System.getProperty("java.version"))));
+	}
+
+	@Test
+	public void archivesAreOnlyForTheRuntimeAndSettingsTheyWereCreatedWith() {
+		JMeterProcessJVMSettings settings = new JMeterProcessJVMSettings();
+		File archive = new File("jmeter-17.0.9-" + ClassDataSharingArchive.settingsHash(settings) + "-0123456789abcdef.jsa");
+		JMeterProcessJVMSettings otherRuntime = new JMeterProcessJVMSettings(settings);
+		otherRuntime.setJavaRuntime("/opt/other-jdk/bin/java");
+		JMeterProcessJVMSettings otherHeap = new JMeterProcessJVMSettings(settings);
+		otherHeap.setXmx(2048);
+
+		assertThat(ClassDataSharingArchive.isFor(archive, new JMeterProcessJVMSettings(settings)), is(true));
+		assertThat(ClassDataSharingArchive.isFor(archive, otherRuntime), is(false));
+		assertThat(ClassDataSharingArchive.isFor(archive, otherHeap), is(false));
+	}
+}
@@ -0,0 +1,103 @@
+package com.lazerycode.jmeter.testrunner;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class ColumnarResultsReaderTest {
+
+	private static final Set<ResultField> ALL_STORED_FIELDS = ColumnarResultsWriter.STORED_FIELDS;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static String describe(ResultSample sample) {
+		return sample.getTimeStamp() + "|" + sample.getElapsed() + "|" + sample.getLatency() + "|" + sample.getConnect()
+				+ "|" + sample.getBytes() + "|" + sample.getSentBytes() + "|" + sample.getResponseCode() + "|"
+				+ sample.getLabel() + "|" + sample.has(ResultField.SUCCESS) + "|" + sample.isSuccess() + "|"
+				+ sample.getDepth();
+	}
+
+	@Test
+	public void samplesAreReadBackAsWritten() throws Exception {
+		File csv = folder.newFile("results.csv");
+		File columnar = new File(folder.getRoot(), "results.csv.col");
+		SyntheticResultsGenerator generator = new SyntheticResultsGenerator();
+		// more than one block
+		generator.setSizeInBytes(ColumnarResultsWriter.BLOCK_ROWS * 200L);
+		generator.setLabelCount(50);
+		generator.setErrorRatio(0.05);
+		generator.writeCsv(csv);
+
+		List<String> expected = new ArrayList<>();
+		MappedFileReader.read(csv, new CsvResultParser(ALL_STORED_FIELDS, null, sample -> expected.add(describe(sample))));
+		new ResultScanner(true, true, true).convertToColumnar(csv, columnar);
+		List<String> actual = new ArrayList<>();
+		ColumnarResultsReader.read(columnar, ALL_STORED_FIELDS, sample -> actual.add(describe(sample)));
+
+		assertThat(ColumnarResultsReader.isColumnar(columnar), is(true));
+		assertThat(ColumnarResultsReader.isColumnar(csv), is(false));
+		assertThat((long) expected.size(), is(equalTo(generator.getSampleCount())));
+		assertThat(actual, is(equalTo(expected)));
+		assertThat(columnar.length() < csv.length() / 4, is(true));
+	}
+
+	@Test
+	public void missingValuesAndSubResultsAreKept() throws Exception {
+		File columnar = new File(folder.getRoot(), "results.col");
+		List<String> expected = new ArrayList<>();
+		try (ColumnarResultsWriter writer = new ColumnarResultsWriter(columnar)) {
+			ResultSample sample = new ResultSample();
+			sample.set(ResultField.TIMESTAMP, 1500000000000L);
+			sample.set(ResultField.ELAPSED, 12);
+			sample.set(ResultField.LABEL, "transaction");
+			sample.set(ResultField.SUCCESS, "false");
+			writer.handleSample(sample);
+			expected.add(describe(sample));
+			sample.reset();
+			sample.set(ResultField.TIMESTAMP, 1499999999990L);
+			sample.set(ResultField.ELAPSED, 0);
+			sample.set(ResultField.RESPONSE_CODE, "Non HTTP response code: java.net.SocketException");
+			sample.setDepth(1);
+			writer.handleSample(sample);
+			expected.add(describe(sample));
+		}
+
+		List<String> actual = new ArrayList<>();
+		ColumnarResultsReader.read(columnar, ALL_STORED_FIELDS, sample -> actual.add(describe(sample)));
+		List<Boolean> labelsRead = new ArrayList<>();
+		ColumnarResultsReader.read(columnar, EnumSet.of(ResultField.ELAPSED), sample -> labelsRead.add(sample.has(ResultField.LABEL)));
+
+		assertThat(actual, is(equalTo(expected)));
+		assertThat(labelsRead, is(equalTo(Arrays.asList(false, false))));
+	}
+
+	@Test(expected = IOException.class)
+	public void truncatedFileIsRejected() throws Exception {
+		File columnar = new File(folder.getRoot(), "results.col");
+		try (ColumnarResultsWriter writer = new ColumnarResultsWriter(columnar)) {
+			ResultSample sample = new ResultSample();
+			sample.set(ResultField.ELAPSED, 12);
+			writer.handleSample(sample);
+		}
+		try (RandomAccessFile file = new RandomAccessFile(columnar, "rw")) {
+			file.setLength(file.length() - 1);
+		}
+
+		ColumnarResultsReader.read(columnar, ALL_STORED_FIELDS, sample -> {
+		});
+	}
+}
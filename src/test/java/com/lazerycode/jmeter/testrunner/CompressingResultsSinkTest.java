@@ -0,0 +1,111 @@
+package com.lazerycode.jmeter.testrunner;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeThat;
+import static org.hamcrest.core.IsNull.notNullValue;
+
+public class CompressingResultsSinkTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static String decompress(File file) throws Exception {
+		try (InputStream in = GzipMembersInputStream.open(file, 1)) {
+			return IOUtils.toString(in, StandardCharsets.UTF_8);
+		}
+	}
+
+	@Test
+	public void everythingWrittenToThePipeIsCompressed() throws Exception {
+		File results = new File(folder.getRoot(), "results.csv");
+		File compressed = new File(folder.getRoot(), "results.csv.gz");
+		CompressingResultsSink sink = CompressingResultsSink.open(results, compressed, null);
+		assumeThat("named pipes are available", sink, is(notNullValue()));
+
+		try (OutputStream out = new FileOutputStream(results)) {
+			out.write("header\n".getBytes(StandardCharsets.UTF_8));
+		}
+		try (OutputStream out = new FileOutputStream(results, true)) {
+			out.write("record\n".getBytes(StandardCharsets.UTF_8));
+		}
+		sink.close();
+
+		assertThat(results.exists(), is(false));
+		assertThat(decompress(compressed), is(equalTo("header\nrecord\n")));
+	}
+
+	@Test
+	public void csvHeaderIsTheFirstLineOfTheCompressedResults() throws Exception {
+		File results = new File(folder.getRoot(), "results.csv");
+		File compressed = new File(folder.getRoot(), "results.csv.gz");
+		CompressingResultsSink sink = CompressingResultsSink.open(results, compressed, "timeStamp,elapsed,label,success");
+		assumeThat("named pipes are available", sink, is(notNullValue()));
+
+		// JMeter appends to the pipe, as it exists, without a header
+		try (OutputStream out = new FileOutputStream(results, true)) {
+			out.write("1500000000000,12,/login,true\n".getBytes(StandardCharsets.UTF_8));
+		}
+		sink.close();
+
+		assertThat(decompress(compressed), is(equalTo("timeStamp,elapsed,label,success" + System.lineSeparator()
+				+ "1500000000000,12,/login,true\n")));
+	}
+
+	@Test
+	public void sinkThatIsNeverWrittenToCanBeClosed() throws Exception {
+		File results = new File(folder.getRoot(), "results.csv");
+		File compressed = new File(folder.getRoot(), "results.csv.gz");
+		CompressingResultsSink sink = CompressingResultsSink.open(results, compressed, null);
+		assumeThat("named pipes are available", sink, is(notNullValue()));
+
+		sink.close();
+
+		assertThat(results.exists(), is(false));
+		assertThat(compressed.length(), is(0L));
+	}
+
+	@Test
+	public void resultsFileIsReplacedByItsCompressedVersion() throws Exception {
+		File results = folder.newFile("results.jtl");
+		File compressed = new File(folder.getRoot(), "results.jtl.gz");
+		try (OutputStream out = new FileOutputStream(results)) {
+			out.write("<testResults/>".getBytes(StandardCharsets.UTF_8));
+		}
+
+		CompressingResultsSink.compress(results, compressed);
+
+		assertThat(results.exists(), is(false));
+		assertThat(decompress(compressed), is(equalTo("<testResults/>")));
+	}
+
+	@Test
+	public void compressedResultsAreScannedWithTheirMembersDecompressedInParallel() throws Exception {
+		SyntheticResultsGenerator generator = new SyntheticResultsGenerator();
+		generator.setSizeInBytes(3 * GzipMembersOutputStream.MEMBER_SIZE);
+		generator.setErrorRatio(0.05);
+		File results = new File(folder.getRoot(), "results.jtl");
+		File compressed = new File(folder.getRoot(), "results.jtl.gz");
+		generator.writeXml(results);
+		CompressingResultsSink.compress(results, compressed);
+
+		ResultScanner resultScanner = new ResultScanner(true, true, false);
+		resultScanner.parseResultFiles(Collections.singletonList(compressed), 4);
+
+		assertThat((long) resultScanner.getFailureCount(), is(equalTo(generator.getFailureCount())));
+		assertThat((long) resultScanner.getSuccessCount(), is(equalTo(generator.getSampleCount() - generator.getFailureCount())));
+	}
+}
@@ -0,0 +1,91 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class ContainerResourcesTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static void write(Path file, String content) throws Exception {
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void cgroupV2LimitsAreReadFromTheCgroupOfTheProcess() throws Exception {
+		Path root = folder.getRoot().toPath();
+		write(root.resolve("build.slice/memory.max"), "4294967296\n");
+		write(root.resolve("build.slice/cpu.max"), "250000 100000\n");
+
+		ContainerResources resources = ContainerResources.read(root, "/build.slice");
+
+		assertThat(resources.getMemoryLimitInBytes(), is(equalTo(4294967296L)));
+		assertThat(resources.getCpuLimit(), is(equalTo(2.5)));
+	}
+
+	@Test
+	public void cgroupV2WithoutLimitsIsUnlimited() throws Exception {
+		Path root = folder.getRoot().toPath();
+		write(root.resolve("memory.max"), "max\n");
+		write(root.resolve("cpu.max"), "max 100000\n");
+
+		ContainerResources resources = ContainerResources.read(root, "/");
+
+		assertThat(resources.getMemoryLimitInBytes(), is(equalTo(ContainerResources.UNLIMITED)));
+		assertThat(resources.getCpuLimit(), is(equalTo((double) ContainerResources.UNLIMITED)));
+	}
+
+	@Test
+	public void cgroupV1LimitsAreReadFromTheControllers() throws Exception {
+		Path root = folder.getRoot().toPath();
+		write(root.resolve("memory/memory.limit_in_bytes"), "2147483648\n");
+		write(root.resolve("cpu,cpuacct/cpu.cfs_quota_us"), "200000\n");
+		write(root.resolve("cpu,cpuacct/cpu.cfs_period_us"), "100000\n");
+
+		ContainerResources resources = ContainerResources.read(root, "/");
+
+		assertThat(resources.getMemoryLimitInBytes(), is(equalTo(2147483648L)));
+		assertThat(resources.getCpuLimit(), is(equalTo(2.0)));
+	}
+
+	@Test
+	public void cgroupV1NoLimitIsUnlimited() throws Exception {
+		Path root = folder.getRoot().toPath();
+		write(root.resolve("memory/memory.limit_in_bytes"), "9223372036854771712\n");
+		write(root.resolve("cpu/cpu.cfs_quota_us"), "-1\n");
+		write(root.resolve("cpu/cpu.cfs_period_us"), "100000\n");
+
+		ContainerResources resources = ContainerResources.read(root, "/");
+
+		assertThat(resources.getMemoryLimitInBytes(), is(equalTo(ContainerResources.UNLIMITED)));
+		assertThat(resources.getCpuLimit(), is(equalTo((double) ContainerResources.UNLIMITED)));
+	}
+
+	@Test
+	public void withoutCgroupsTheMachineIsUsed() {
+		ContainerResources resources = ContainerResources.read(new File(folder.getRoot(), "missing").toPath(), "/");
+
+		assertThat(resources.getMemoryLimitInBytes(), is(equalTo(ContainerResources.UNLIMITED)));
+		assertThat(resources.getAvailableProcessors(), is(equalTo(Runtime.getRuntime().availableProcessors())));
+	}
+
+	@Test
+	public void cgroupV2PathIsTakenFromTheUnifiedHierarchyLine() {
+		assertThat(ContainerResources.v2CgroupPath(Arrays.asList("12:memory:/docker/abc", "0::/docker/abc")),
+				is(equalTo("/docker/abc")));
+		assertThat(ContainerResources.v2CgroupPath(Arrays.asList("12:memory:/docker/abc")), is(equalTo("/")));
+	}
+}
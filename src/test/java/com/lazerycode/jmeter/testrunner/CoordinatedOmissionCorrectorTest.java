@@ -0,0 +1,47 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.lazerycode.jmeter.configuration.ExpectedInterval;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class CoordinatedOmissionCorrectorTest {
+
+	private static ResultSample sample(String threadName, long timeStamp) {
+		ResultSample sample = new ResultSample();
+		sample.set(ResultField.THREAD_NAME, threadName);
+		sample.set(ResultField.TIMESTAMP, timeStamp);
+		return sample;
+	}
+
+	@Test
+	public void configuredIntervalOfTheThreadGroupIsUsed() {
+		ExpectedInterval checkout = new ExpectedInterval();
+		checkout.setThreadGroup("Checkout");
+		checkout.setIntervalInMs(500);
+		CoordinatedOmissionCorrector corrector = new CoordinatedOmissionCorrector(Collections.singletonList(checkout));
+
+		assertThat(corrector.expectedInterval(sample("Checkout 1-1", 1000)), is(equalTo(500L)));
+		assertThat(corrector.expectedInterval(sample("Checkout 1-2", 1100)), is(equalTo(500L)));
+		assertThat(corrector.expectedInterval(sample("CheckoutExtra 1-1", 1200)), is(equalTo(0L)));
+	}
+
+	@Test
+	public void intervalIsInferredFromTheGapsBetweenSamplesIgnoringStalls() {
+		CoordinatedOmissionCorrector corrector = new CoordinatedOmissionCorrector(Collections.<ExpectedInterval>emptyList());
+
+		assertThat(corrector.expectedInterval(sample("Browse 1-1", 0)), is(equalTo(0L)));
+		assertThat(corrector.expectedInterval(sample("Browse 1-1", 200)), is(equalTo(0L)));
+		for (long timeStamp = 400; timeStamp <= 2000; timeStamp += 200) {
+			assertThat(corrector.expectedInterval(sample("Browse 1-1", timeStamp)), is(equalTo(200L)));
+		}
+		assertThat(corrector.expectedInterval(sample("Browse 1-1", 10_000)), is(equalTo(200L)));
+		assertThat(corrector.expectedInterval(sample("Browse 1-1", 10_200)), is(equalTo(200L)));
+		assertThat(corrector.expectedInterval(sample("Browse 1-2", 10_300)), is(equalTo(0L)));
+	}
+}
@@ -0,0 +1,80 @@
+package com.lazerycode.jmeter.testrunner;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class CsvResultParserTest {
+
+	private final List<String> labels = new ArrayList<>();
+	private final List<String> failureMessages = new ArrayList<>();
+	private final List<Long> elapsedTimes = new ArrayList<>();
+
+	private CsvResultParser parseInChunksOf(int chunkSize, String content, List<String> configuredColumns) {
+		CsvResultParser parser = new CsvResultParser(
+				EnumSet.of(ResultField.LABEL, ResultField.ELAPSED, ResultField.FAILURE_MESSAGE),
+				configuredColumns,
+				sample -> {
+					labels.add(sample.getLabel().toString());
+					failureMessages.add(sample.getFailureMessage().toString());
+					elapsedTimes.add(sample.getElapsed());
+				});
+		byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+		for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+			parser.consume(bytes, offset, Math.min(chunkSize, bytes.length - offset));
+		}
+		parser.endOfInput();
+		return parser;
+	}
+
+	@Test
+	public void delimiterIsDetectedFromTheFirstLines() {
+		String header = "timeStamp;elapsed;label,with,commas;success\n";
+		String records = "1;2;a,b;true\n3;4;c,d;false\n";
+
+		assertThat(CsvResultParser.detectDelimiter((header + records).getBytes(StandardCharsets.UTF_8), header.length() + records.length()),
+				is(equalTo((byte) ';')));
+		assertThat(CsvResultParser.detectDelimiter("a\tb\tc\n1\t2\t3\n".getBytes(StandardCharsets.UTF_8), 12),
+				is(equalTo((byte) '\t')));
+	}
+
+	@Test
+	public void quotedMultiLineFieldsAreReadAsOneField() {
+		String content = "elapsed|label|failureMessage\n"
+				+ "10|\"a|b\"|\"line 1\nline \"\"2\"\"\"\n"
+				+ "\n"
+				+ "20|plain|\n";
+
+		for (int chunkSize = 1; chunkSize < 10; chunkSize++) {
+			labels.clear();
+			failureMessages.clear();
+			elapsedTimes.clear();
+			CsvResultParser parser = parseInChunksOf(chunkSize, content, Collections.<String>emptyList());
+
+			assertThat(parser.getDelimiter(), is(equalTo((byte) '|')));
+			assertThat(labels, contains("a|b", "plain"));
+			assertThat(failureMessages, contains("line 1\nline \"2\"", ""));
+			assertThat(elapsedTimes, contains(10L, 20L));
+		}
+	}
+
+	@Test
+	public void configuredColumnsAreUsedWhenThereIsNoHeaderAndTruncatedRecordsAreIgnored() {
+		CsvResultParser parser = parseInChunksOf(4096, "1,15,first,true\r\n2,25,second,false\r\n3,35",
+				Arrays.asList("timeStamp", "elapsed", "label", "success"));
+
+		assertThat(labels, contains("first", "second"));
+		assertThat(elapsedTimes, contains(15L, 25L));
+		assertThat(parser.getMalformedRecords(), is(equalTo(1L)));
+	}
+}
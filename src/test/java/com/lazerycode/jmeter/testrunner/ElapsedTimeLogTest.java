@@ -0,0 +1,67 @@
+package com.lazerycode.jmeter.testrunner;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class ElapsedTimeLogTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void valuesAtRanksEqualTheValuesOfTheSortedElapsedTimes() throws Exception {
+		ElapsedTimeStore store = new ElapsedTimeStore(folder.newFolder("elapsed-times"));
+		ElapsedTimeLog merged = new ElapsedTimeLog(null);
+		long[] all = new long[30000];
+		Random random = new Random(42);
+		for (int part = 0; part < 3; part++) {
+			ElapsedTimeLog log = store.newLog();
+			for (int i = 0; i < 10000; i++) {
+				long elapsed = random.nextInt(10) == 0 ? 65536L * random.nextInt(4) + random.nextInt(70000) : random.nextInt(500);
+				all[part * 10000 + i] = elapsed;
+				log.record(elapsed);
+			}
+			merged.merge(log);
+		}
+		Arrays.sort(all);
+
+		long[] values = merged.valuesAtRanks(new long[]{1, 15000, 28500, 29700, 30000});
+
+		assertThat(merged.getCount(), is(equalTo(30000L)));
+		assertThat(values, is(equalTo(new long[]{all[0], all[14999], all[28499], all[29699], all[29999]})));
+	}
+
+	@Test
+	public void exactPercentilesReplaceTheHistogramPercentiles() throws Exception {
+		ElapsedTimeStore store = new ElapsedTimeStore(folder.newFolder("elapsed-times"));
+		ResultStatistics statistics = new ResultStatistics();
+		statistics.setElapsedTimeStore(store);
+		ResultSample sample = new ResultSample();
+		for (long elapsed = 1000; elapsed < 1100; elapsed++) {
+			sample.reset();
+			sample.set(ResultField.SUCCESS, 1);
+			sample.set(ResultField.LABEL, "/login");
+			sample.set(ResultField.ELAPSED, elapsed);
+			statistics.handleSample(sample);
+		}
+
+		statistics.computeExactPercentiles(50, 95);
+		store.delete();
+
+		LabelStatistics login = statistics.getLabels().get("/login");
+		assertThat(login.hasExactPercentiles(), is(true));
+		assertThat(login.getValueAtPercentile(50), is(equalTo(1049L)));
+		assertThat(login.getValueAtPercentile(95), is(equalTo(1094L)));
+		assertThat(statistics.getTotal().getValueAtPercentile(95), is(equalTo(1094L)));
+		assertThat(login.getValueAtPercentile(99), is(equalTo(login.getElapsed().getValueAtPercentile(99))));
+		assertThat(store.getDirectory().list().length, is(equalTo(0)));
+	}
+}
@@ -0,0 +1,87 @@
+package com.lazerycode.jmeter.testrunner;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class GzipMembersInputStreamTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static byte[] content(int length) {
+		byte[] content = new byte[length];
+		Random random = new Random(7);
+		for (int i = 0; i < length; i++) {
+			content[i] = (byte) ('a' + random.nextInt(8));
+		}
+		return content;
+	}
+
+	private File writeMembers(byte[] content) throws Exception {
+		File file = folder.newFile();
+		try (OutputStream out = new GzipMembersOutputStream(new FileOutputStream(file))) {
+			out.write(content, 0, 1000);
+			out.write(content[1000]);
+			out.write(content, 1001, content.length - 1001);
+		}
+		return file;
+	}
+
+	private static byte[] read(File file, int parallelism) throws Exception {
+		try (InputStream in = GzipMembersInputStream.open(file, parallelism)) {
+			return IOUtils.toByteArray(in);
+		}
+	}
+
+	@Test
+	public void membersAreDecompressedInParallel() throws Exception {
+		byte[] content = content(GzipMembersOutputStream.MEMBER_SIZE * 3 + 12345);
+		File file = writeMembers(content);
+
+		assertThat(GzipMembersInputStream.isGzip(file), is(true));
+		assertThat(read(file, 4), is(equalTo(content)));
+		assertThat(read(file, 1), is(equalTo(content)));
+	}
+
+	@Test
+	public void membersCanBeReadByAnyGzipReader() throws Exception {
+		byte[] content = content(GzipMembersOutputStream.MEMBER_SIZE + 1);
+		File file = writeMembers(content);
+
+		try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+			assertThat(IOUtils.toByteArray(in), is(equalTo(content)));
+		}
+	}
+
+	@Test
+	public void gzipFilesWithoutMemberSizesAreDecompressedWhileReading() throws Exception {
+		byte[] content = content(300000);
+		File file = folder.newFile();
+		try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+			out.write(content);
+		}
+
+		assertThat(read(file, 4), is(equalTo(content)));
+	}
+
+	@Test
+	public void plainFilesAreNotGzip() throws Exception {
+		assertThat(GzipMembersInputStream.isGzip(new File(this.getClass().getResource("/jtl2-1-fail.jtl").toURI())), is(false));
+		assertThat(GzipMembersInputStream.isGzip(folder.newFile()), is(false));
+	}
+}
@@ -0,0 +1,86 @@
+package com.lazerycode.jmeter.testrunner;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class HeavyHittersTest {
+
+	private static List<String> describe(List<HeavyHitters.Counter> counters) {
+		List<String> described = new ArrayList<>();
+		for (HeavyHitters.Counter counter : counters) {
+			described.add(counter.getValue() + "=" + counter.getCount());
+		}
+		return described;
+	}
+
+	@Test
+	public void valuesAreCountedExactlyWhileThereIsRoom() {
+		HeavyHitters heavyHitters = new HeavyHitters(4);
+		for (String value : new String[]{"500", "404", "500", "503", "500", "404"}) {
+			heavyHitters.record(value);
+		}
+
+		assertThat(describe(heavyHitters.getTop(2)), contains("500=3", "404=2"));
+		assertThat(heavyHitters.getTop(10).get(2).getError(), is(equalTo(0L)));
+	}
+
+	@Test
+	public void frequentValuesAreKeptAmongManyDistinctValues() {
+		HeavyHitters heavyHitters = new HeavyHitters(16);
+		for (int i = 0; i < 10000; i++) {
+			heavyHitters.record(i % 4 == 0 ? "Connection refused" : "unique " + i);
+			if (i % 10 == 0) {
+				heavyHitters.record("Read timed out");
+			}
+		}
+
+		List<HeavyHitters.Counter> top = heavyHitters.getTop(2);
+		assertThat(top.get(0).getValue(), is(equalTo("Connection refused")));
+		assertThat(top.get(1).getValue(), is(equalTo("Read timed out")));
+		assertThat(top.get(0).getCount() - top.get(0).getError(), is(lessThanOrEqualTo(2500L)));
+		assertThat(heavyHitters.getTop(100).size(), is(equalTo(16)));
+	}
+
+	@Test
+	public void mergedCountsEqualTheCountsOfAllValues() {
+		HeavyHitters first = new HeavyHitters(4);
+		HeavyHitters second = new HeavyHitters(4);
+		for (int i = 0; i < 30; i++) {
+			first.record(i % 3 == 0 ? "500" : "404");
+			second.record(i % 5 == 0 ? "404" : "503");
+		}
+
+		first.merge(second);
+
+		assertThat(describe(first.getTop(3)), contains("404=26", "503=24", "500=10"));
+	}
+
+	@Test
+	public void writtenCountsAreReadBack() throws Exception {
+		HeavyHitters heavyHitters = new HeavyHitters(2);
+		for (String value : new String[]{"a", "b", "a", "c", "a"}) {
+			heavyHitters.record(value);
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			heavyHitters.writeTo(out);
+		}
+
+		HeavyHitters restored = HeavyHitters.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+		assertThat(restored.getCapacity(), is(equalTo(2)));
+		assertThat(describe(restored.getTop(2)), is(equalTo(describe(heavyHitters.getTop(2)))));
+	}
+}
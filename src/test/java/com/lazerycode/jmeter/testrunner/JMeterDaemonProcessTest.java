@@ -0,0 +1,108 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.NewDriver;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+public class JMeterDaemonProcessTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	// Java 18 and later no longer allow a security manager to be installed by default
+	private static final boolean EXIT_CAN_BE_TRAPPED =
+			ClassDataSharingArchive.majorVersion(System.getProperty("java.version")) < 18;
+
+	private JMeterProcessBuilder processBuilder() throws Exception {
+		File driverClasses = new File(NewDriver.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		JMeterProcessBuilder processBuilder = new JMeterProcessBuilder(null, driverClasses.getAbsolutePath());
+		processBuilder.setWorkingDirectory(folder.getRoot());
+		return processBuilder;
+	}
+
+	@Test
+	public void testsRunOneAfterAnotherInTheSameDaemon() throws Exception {
+		assumeTrue(EXIT_CAN_BE_TRAPPED);
+		JMeterProcessBuilder processBuilder = processBuilder();
+		List<String> output = new CopyOnWriteArrayList<>();
+		File first = new File(folder.getRoot(), "first.jtl");
+		File second = new File(folder.getRoot(), "second.jtl");
+
+		try (JMeterDaemonProcess daemon = JMeterDaemonProcess.start(processBuilder, folder.getRoot(), output::add)) {
+			assertThat(daemon.runTest(Arrays.asList("-n", "-l", first.getAbsolutePath()), line -> {
+			}), is(equalTo(0)));
+			assertThat(daemon.runTest(Collections.singletonList("-n"), line -> {
+			}), is(equalTo(1)));
+			assertThat(daemon.runTest(Arrays.asList("-n", "-l", second.getAbsolutePath()), line -> {
+			}), is(equalTo(0)));
+			assertThat(new String(Files.readAllBytes(first.toPath()), StandardCharsets.UTF_8),
+					is(equalTo("-n -l " + first.getAbsolutePath())));
+			assertThat(second.exists(), is(true));
+			assertThat(daemon.isAlive(), is(true));
+		}
+	}
+
+	@Test
+	public void runningTestIsStoppedThroughTheDaemon() throws Exception {
+		assumeTrue(EXIT_CAN_BE_TRAPPED);
+		File results = new File(folder.getRoot(), "results.jtl");
+		CountDownLatch running = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		try (JMeterDaemonProcess daemon = JMeterDaemonProcess.start(processBuilder(), folder.getRoot(), line -> {
+		})) {
+			assertThat(daemon.stopTest(), is(false));
+			Future<Integer> status = executor.submit(() -> daemon.runTest(
+					Arrays.asList("-n", "-l", results.getAbsolutePath(), "--until-stopped"), line -> {
+						if (line.contains("Running until stopped")) {
+							running.countDown();
+						}
+					}));
+			assertThat(running.await(30, TimeUnit.SECONDS), is(true));
+
+			assertThat(daemon.stopTest(), is(true));
+			assertThat(status.get(30, TimeUnit.SECONDS), is(equalTo(0)));
+			assertThat(new String(Files.readAllBytes(results.toPath()), StandardCharsets.UTF_8), is(equalTo("stopped")));
+			assertThat(daemon.stopTest(), is(false));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void daemonDoesNotStartWhenExitCannotBeTrapped() throws Exception {
+		// Java 12 and later can be told not to allow a security manager, as is the default from Java 18 on
+		assumeTrue(ClassDataSharingArchive.majorVersion(System.getProperty("java.version")) >= 12);
+		JMeterProcessBuilder processBuilder = processBuilder();
+		processBuilder.addSystemProperty("java.security.manager", "disallow");
+		try {
+			JMeterDaemonProcess.start(processBuilder, folder.getRoot(), line -> {
+			}).close();
+			fail("The daemon started without trapping System.exit");
+		} catch (IOException ex) {
+			assertThat(ex.getMessage(), containsString(JMeterDaemon.EXIT_NOT_TRAPPED));
+		}
+	}
+}
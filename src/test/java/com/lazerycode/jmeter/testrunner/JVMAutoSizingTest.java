@@ -0,0 +1,81 @@
+package com.lazerycode.jmeter.testrunner;
+
+import org.junit.Test;
+
+import com.lazerycode.jmeter.configuration.JMeterProcessJVMSettings;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class JVMAutoSizingTest {
+
+	private static JMeterProcessJVMSettings autoSized(int plannedThreads) {
+		JMeterProcessJVMSettings settings = new JMeterProcessJVMSettings();
+		settings.setAutoSize(true);
+		settings.setPlannedThreads(plannedThreads);
+		return settings;
+	}
+
+	@Test
+	public void settingsWithoutAutoSizeAreUnchanged() {
+		JMeterProcessJVMSettings settings = new JMeterProcessJVMSettings();
+
+		assertThat(JVMAutoSizing.size(settings, 1), is(sameInstance(settings)));
+	}
+
+	@Test
+	public void heapIsWhatIsLeftAfterNonHeapThreadStacksAndDirectMemory() {
+		JMeterProcessJVMSettings sized = JVMAutoSizing.size(autoSized(200), 1, 4096, 4);
+
+		// 4096 - 256 non heap - 200 stacks - 256 direct = 3384, of which 90%
+		assertThat(sized.getXmx(), is(equalTo(3045)));
+		assertThat(sized.getXms(), is(equalTo(3045)));
+		assertThat(sized.getArguments(), contains("-XX:ActiveProcessorCount=4", "-XX:MaxDirectMemorySize=256m",
+				"-XX:+UseG1GC"));
+	}
+
+	@Test
+	public void memoryAndProcessorsAreSharedByTheConcurrentJVMs() {
+		JMeterProcessJVMSettings sized = JVMAutoSizing.size(autoSized(0), 2, 2048, 2);
+
+		// 1024 - 256 non heap - 100 stacks - 64 direct = 604, of which 90%
+		assertThat(sized.getXmx(), is(equalTo(543)));
+		assertThat(sized.getArguments(), contains("-XX:ActiveProcessorCount=1", "-XX:MaxDirectMemorySize=64m",
+				"-XX:+UseSerialGC"));
+	}
+
+	@Test
+	public void smallContainersGetTheMinimumHeap() {
+		JMeterProcessJVMSettings sized = JVMAutoSizing.size(autoSized(1000), 1, 1024, 1);
+
+		assertThat(sized.getXmx(), is(equalTo(JVMAutoSizing.MIN_HEAP_MB)));
+	}
+
+	@Test
+	public void configuredArgumentsWinOverDerivedOnes() {
+		JMeterProcessJVMSettings settings = autoSized(100);
+		settings.getArguments().add("-XX:+UseParallelGC");
+		settings.getArguments().add("-XX:ActiveProcessorCount=8");
+
+		JMeterProcessJVMSettings sized = JVMAutoSizing.size(settings, 1, 4096, 2);
+
+		assertThat(sized.getArguments(), contains("-XX:+UseParallelGC", "-XX:ActiveProcessorCount=8",
+				"-XX:MaxDirectMemorySize=256m"));
+		assertThat(settings.getArguments(), contains("-XX:+UseParallelGC", "-XX:ActiveProcessorCount=8"));
+	}
+
+	@Test
+	public void copiesKeepTheMaximumHeap() {
+		JMeterProcessJVMSettings settings = new JMeterProcessJVMSettings();
+		settings.setXms(256);
+		settings.setXmx(1024);
+
+		JMeterProcessJVMSettings copy = new JMeterProcessJVMSettings(settings);
+
+		assertThat(copy.getXms(), is(equalTo(256)));
+		assertThat(copy.getXmx(), is(equalTo(1024)));
+	}
+}
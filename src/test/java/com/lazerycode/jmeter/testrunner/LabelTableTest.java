@@ -0,0 +1,48 @@
+package com.lazerycode.jmeter.testrunner;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class LabelTableTest {
+
+	private static SampleText text(String value) {
+		SampleText text = new SampleText();
+		text.set(value);
+		return text;
+	}
+
+	@Test
+	public void labelsAreFoundByTheirBytes() {
+		LabelTable table = new LabelTable(LabelTable.DEFAULT_MAX_ENTRIES);
+		LabelStatistics login = new LabelStatistics();
+		LabelStatistics logout = new LabelStatistics();
+		table.put(text("/login"), login);
+		table.put(text("/logout"), logout);
+
+		assertThat(table.get(text("/login")), is(sameInstance(login)));
+		assertThat(table.get(text("/logout")), is(sameInstance(logout)));
+		assertThat(table.get(text("/log")), is(nullValue()));
+	}
+
+	@Test
+	public void tableGrowsUpToItsMaximumNumberOfLabels() {
+		LabelTable table = new LabelTable(1000);
+		LabelStatistics[] statistics = new LabelStatistics[1200];
+		for (int i = 0; i < statistics.length; i++) {
+			statistics[i] = new LabelStatistics();
+			assertThat(table.put(text("/order/" + i), statistics[i]), is(equalTo(i < 1000 ? i : -1)));
+		}
+
+		assertThat(table.size(), is(equalTo(1000)));
+		assertThat(table.get(text("/order/0")), is(sameInstance(statistics[0])));
+		assertThat(table.get(text("/order/999")), is(sameInstance(statistics[999])));
+		assertThat(table.get(text("/order/1000")), is(nullValue()));
+		assertThat(table.indexOf(text("/order/999")), is(equalTo(999)));
+		assertThat(table.indexOf(text("/order/1000")), is(equalTo(-1)));
+	}
+}
@@ -0,0 +1,59 @@
+package com.lazerycode.jmeter.testrunner;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void everyValueFallsInABucketThatHoldsIt() {
+		for (long value = 0; value < 1_000_000; value += 1 + value / 50) {
+			long highest = LatencyHistogram.highestValueOf(LatencyHistogram.bucketIndex(value));
+			assertThat(highest, is(greaterThanOrEqualTo(value)));
+			assertThat(highest - value, is(lessThanOrEqualTo(value / 64)));
+		}
+		assertThat(LatencyHistogram.highestValueOf(LatencyHistogram.bucketIndex(LatencyHistogram.MAX_TRACKABLE_VALUE)),
+				is(equalTo(LatencyHistogram.MAX_TRACKABLE_VALUE)));
+	}
+
+	@Test
+	public void percentilesOfMergedHistogramsMatchASingleHistogram() {
+		LatencyHistogram all = new LatencyHistogram();
+		LatencyHistogram even = new LatencyHistogram();
+		LatencyHistogram odd = new LatencyHistogram();
+		for (long value = 1; value <= 1000; value++) {
+			all.record(value);
+			(value % 2 == 0 ? even : odd).record(value);
+		}
+		LatencyHistogram merged = new LatencyHistogram().merge(even).merge(odd);
+
+		assertThat(merged.getCount(), is(equalTo(1000L)));
+		assertThat(merged.getMin(), is(equalTo(1L)));
+		assertThat(merged.getMax(), is(equalTo(1000L)));
+		assertThat(merged.getMean(), is(equalTo(500.5)));
+		assertThat(merged.getValueAtPercentile(50), is(equalTo(all.getValueAtPercentile(50))));
+		assertThat(merged.getValueAtPercentile(99), is(equalTo(all.getValueAtPercentile(99))));
+		assertThat(merged.getValueAtPercentile(50), is(equalTo(503L)));
+		assertThat(merged.getValueAtPercentile(100), is(equalTo(1000L)));
+	}
+
+	@Test
+	public void samplesMissedWhileWaitingAreAddedWithTheExpectedInterval() {
+		LatencyHistogram corrected = new LatencyHistogram();
+		for (int i = 0; i < 99; i++) {
+			corrected.recordWithExpectedInterval(10, 100);
+		}
+		corrected.recordWithExpectedInterval(1000, 100);
+		corrected.recordWithExpectedInterval(5000, 0);
+
+		assertThat(corrected.getCount(), is(equalTo(110L)));
+		assertThat(corrected.getMax(), is(equalTo(5000L)));
+		assertThat(corrected.getValueAtPercentile(90), is(equalTo(10L)));
+		assertThat(corrected.getValueAtPercentile(95), is(equalTo(607L)));
+	}
+}
@@ -0,0 +1,97 @@
+package com.lazerycode.jmeter.testrunner;
+
+import com.lazerycode.jmeter.configuration.EarlyAbortConfiguration;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class LiveResultsMonitorTest {
+
+	private static final String HEADER = "timeStamp,elapsed,label,responseCode,success\n";
+	private static final long START = 1500000000000L;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static String records(int from, int to, boolean success) {
+		StringBuilder records = new StringBuilder();
+		for (int i = from; i < to; i++) {
+			records.append(START + i * 100L).append(",50,home,200,").append(success).append('\n');
+		}
+		return records.toString();
+	}
+
+	private static void append(File file, String content) throws IOException {
+		try (FileOutputStream out = new FileOutputStream(file, true)) {
+			out.write(content.getBytes(StandardCharsets.US_ASCII));
+		}
+	}
+
+	private static EarlyAbortConfiguration maxErrorRate(double maxErrorRate) {
+		EarlyAbortConfiguration configuration = new EarlyAbortConfiguration();
+		configuration.setMaxErrorRate(maxErrorRate);
+		configuration.setWindowInSeconds(10);
+		return configuration;
+	}
+
+	@Test
+	public void breachIsReportedOnceTheAppendedSamplesExceedAThreshold() throws Exception {
+		File results = new File(folder.getRoot(), "results.csv");
+		LiveResultsMonitor monitor = new LiveResultsMonitor(results, Collections.<String>emptyList(), maxErrorRate(60), reason -> { });
+		try {
+			assertThat(monitor.poll(), is(nullValue()));
+
+			append(results, HEADER + records(0, 200, true));
+			assertThat(monitor.poll(), is(nullValue()));
+
+			String failures = records(200, 300, false);
+			int partial = failures.length() / 2 + 3;
+			append(results, failures.substring(0, partial));
+			assertThat(monitor.poll(), is(nullValue()));
+			append(results, failures.substring(partial));
+			assertThat(monitor.poll(), is(equalTo("error rate 100.00% of the last 100 samples exceeds 60.00%")));
+		} finally {
+			monitor.close();
+		}
+	}
+
+	@Test
+	public void samplesOutsideTheWindowAreNotChecked() throws Exception {
+		File results = new File(folder.getRoot(), "results.csv");
+		append(results, HEADER + records(0, 100, false) + records(100, 400, true));
+		LiveResultsMonitor monitor = new LiveResultsMonitor(results, Collections.<String>emptyList(), maxErrorRate(10), reason -> { });
+		try {
+			assertThat(monitor.poll(), is(nullValue()));
+		} finally {
+			monitor.close();
+		}
+	}
+
+	@Test
+	public void breachHandlerIsCalledOnce() throws Exception {
+		File results = new File(folder.getRoot(), "results.csv");
+		append(results, HEADER + records(0, 200, false));
+		List<String> breaches = new ArrayList<>();
+		LiveResultsMonitor monitor = new LiveResultsMonitor(results, Collections.<String>emptyList(), maxErrorRate(10), breaches::add);
+		try {
+			monitor.run();
+			monitor.run();
+			assertThat(breaches.size(), is(equalTo(1)));
+		} finally {
+			monitor.close();
+		}
+	}
+}
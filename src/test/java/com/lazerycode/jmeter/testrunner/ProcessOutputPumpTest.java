@@ -0,0 +1,56 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class ProcessOutputPumpTest {
+
+	private static ByteArrayInputStream lines(int count) {
+		StringBuilder output = new StringBuilder();
+		for (int i = 1; i <= count; i++) {
+			output.append("line ").append(i).append('\n');
+		}
+		return new ByteArrayInputStream(output.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void everyLineIsForwardedWhenTheBufferKeepsUp() throws Exception {
+		List<String> forwarded = new ArrayList<>();
+		ProcessOutputPump pump = new ProcessOutputPump(lines(3), "pump", line -> {
+		}, forwarded::add, 10, 100);
+		pump.start();
+		pump.forwardUntilClosed();
+
+		assertThat(forwarded, contains("line 1", "line 2", "line 3"));
+		assertThat(pump.getDroppedLineCount(), is(equalTo(0L)));
+	}
+
+	@Test
+	public void linesThatDoNotFitAreDroppedAndCountedButSeenByTheListener() throws Exception {
+		List<String> seen = new CopyOnWriteArrayList<>();
+		List<String> forwarded = new ArrayList<>();
+		ProcessOutputPump pump = new ProcessOutputPump(lines(10), "pump", seen::add, forwarded::add, 4, 100);
+		pump.start();
+		// the listener sees a line before it is buffered or dropped, wait until every line has been dropped
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (pump.getDroppedLineCount() < 6 && System.nanoTime() < deadline) {
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+		pump.forwardUntilClosed();
+
+		assertThat(forwarded, contains("line 1", "line 2", "line 3", "line 4", "(6 lines of JMeter output dropped)"));
+		assertThat(pump.getDroppedLineCount(), is(equalTo(6L)));
+		assertThat(seen.size(), is(equalTo(10)));
+	}
+}
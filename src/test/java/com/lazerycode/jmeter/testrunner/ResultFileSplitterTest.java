@@ -0,0 +1,35 @@
+package com.lazerycode.jmeter.testrunner;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class ResultFileSplitterTest {
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void firstFieldSignatureIsTakenFromTheFirstRecord() {
+		assertThat(ResultFileSplitter.firstFieldSignature(bytes("timeStamp,elapsed\n2019/01/31 10:00:00.123,15\n"), (byte) ',', true),
+				is(equalTo(bytes("9999/99/99 99:99:99.999"))));
+		assertThat(ResultFileSplitter.firstFieldSignature(bytes("1133521593546;15\n"), (byte) ';', false),
+				is(equalTo(bytes("9999999999999"))));
+		assertThat(ResultFileSplitter.firstFieldSignature(bytes("timeStamp,elapsed\n1133521593546,1"), (byte) ',', true),
+				is(nullValue()));
+	}
+
+	@Test
+	public void sampleIndentationIsTakenFromTheFirstSample() {
+		String xml = "<?xml version=\"1.0\"?>\n<testResults version=\"1.2\">\n    <sample t=\"1\">\n      <httpSample t=\"1\"/>\n    </sample>\n</testResults>\n";
+
+		assertThat(ResultFileSplitter.sampleIndentation(bytes(xml)), is(equalTo(bytes("    "))));
+		assertThat(ResultFileSplitter.sampleIndentation(bytes("<testResults version=\"1.2\">\n</testResults>\n")), is(nullValue()));
+	}
+}
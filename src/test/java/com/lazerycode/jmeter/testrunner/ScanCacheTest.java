@@ -0,0 +1,108 @@
+package com.lazerycode.jmeter.testrunner;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class ScanCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File results;
+	private File cacheFile;
+
+	@Before
+	public void writeResults() throws Exception {
+		results = new File(folder.getRoot(), "results.csv");
+		cacheFile = new File(folder.getRoot(), "results-scan-cache.bin");
+		SyntheticResultsGenerator generator = new SyntheticResultsGenerator();
+		generator.setSizeInBytes(256 * 1024);
+		generator.setLabelCount(5);
+		generator.setErrorRatio(0.1);
+		generator.writeCsv(results);
+	}
+
+	private ResultScanner scanWithCache() throws Exception {
+		ScanCache scanCache = ScanCache.load(cacheFile);
+		ResultScanner scanner = new ResultScanner(true, true, true);
+		scanner.setScanCache(scanCache);
+		scanner.parseResultFiles(Collections.singletonList(results), 1);
+		scanCache.save();
+		return scanner;
+	}
+
+	@Test
+	public void unchangedFileIsNotScannedAgain() throws Exception {
+		ResultScanner scanned = scanWithCache();
+		ResultScanner cached = scanWithCache();
+
+		assertThat(scanned.getCachedFileCount(), is(equalTo(0)));
+		assertThat(cached.getCachedFileCount(), is(equalTo(1)));
+		assertThat(cached.getSuccessCount(), is(equalTo(scanned.getSuccessCount())));
+		assertThat(cached.getFailureCount(), is(equalTo(scanned.getFailureCount())));
+		Map<String, LabelStatistics> expectedLabels = scanned.getStatistics().getLabels();
+		assertThat(cached.getStatistics().getLabels().keySet(), is(equalTo(expectedLabels.keySet())));
+		for (Map.Entry<String, LabelStatistics> label : cached.getStatistics().getLabels().entrySet()) {
+			LabelStatistics expected = expectedLabels.get(label.getKey());
+			assertThat(label.getValue().getSampleCount(), is(equalTo(expected.getSampleCount())));
+			assertThat(label.getValue().getElapsed().getValueAtPercentile(95), is(equalTo(expected.getElapsed().getValueAtPercentile(95))));
+			assertThat(label.getValue().getElapsed().getBucketCounts(), is(equalTo(expected.getElapsed().getBucketCounts())));
+			assertThat(label.getValue().getThroughput(), is(equalTo(expected.getThroughput())));
+			assertThat(label.getValue().getMeanLatency(), is(equalTo(expected.getMeanLatency())));
+		}
+	}
+
+	@Test
+	public void modifiedFileIsScannedAgain() throws Exception {
+		scanWithCache();
+		long lastModified = results.lastModified();
+		try (RandomAccessFile file = new RandomAccessFile(results, "rw")) {
+			// same size and modification time, different content at the end of the file
+			file.seek(file.length() - 2);
+			int last = file.read();
+			file.seek(file.length() - 2);
+			file.write(last == '1' ? '2' : '1');
+		}
+		results.setLastModified(lastModified);
+
+		assertThat(scanWithCache().getCachedFileCount(), is(equalTo(0)));
+	}
+
+	@Test
+	public void fileScannedWithOtherSettingsIsScannedAgain() throws Exception {
+		scanWithCache();
+
+		ScanCache scanCache = ScanCache.load(cacheFile);
+		ResultScanner scanner = new ResultScanner(true, true, true, Collections.singletonList("timeStamp"));
+		scanner.setScanCache(scanCache);
+		scanner.parseResultFiles(Collections.singletonList(results), 1);
+
+		assertThat(scanner.getCachedFileCount(), is(equalTo(0)));
+	}
+
+	@Test
+	public void corruptCacheIsIgnored() throws Exception {
+		try (OutputStream out = new FileOutputStream(cacheFile)) {
+			out.write("not a cache".getBytes(StandardCharsets.UTF_8));
+		}
+
+		ResultScanner scanner = scanWithCache();
+
+		assertThat(scanner.getCachedFileCount(), is(equalTo(0)));
+		assertThat(scanWithCache().getCachedFileCount(), is(equalTo(1)));
+	}
+}
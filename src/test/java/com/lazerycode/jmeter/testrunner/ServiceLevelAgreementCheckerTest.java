@@ -0,0 +1,63 @@
+package com.lazerycode.jmeter.testrunner;
+
+import com.lazerycode.jmeter.configuration.ServiceLevelAgreement;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class ServiceLevelAgreementCheckerTest {
+
+	private List<ServiceLevelAgreementChecker.Check> check(ServiceLevelAgreement... agreements) throws Exception {
+		ResultScanner resultScanner = new ResultScanner(true, true);
+		resultScanner.parseResultFile(new File(this.getClass().getResource("/jtl2-1-fail.jtl").toURI()));
+		return new ServiceLevelAgreementChecker(Arrays.asList(agreements)).check(resultScanner.getStatistics());
+	}
+
+	private static List<String> outcomes(List<ServiceLevelAgreementChecker.Check> checks) {
+		List<String> outcomes = new ArrayList<>();
+		for (ServiceLevelAgreementChecker.Check check : checks) {
+			outcomes.add(check.toString());
+		}
+		return outcomes;
+	}
+
+	@Test
+	public void thresholdsWithoutALabelApplyToAllSamples() throws Exception {
+		ServiceLevelAgreement agreement = new ServiceLevelAgreement();
+		agreement.setMaxErrorRate(10.0);
+		agreement.setMaxP99(2000L);
+		agreement.setMinThroughput(100.0);
+		agreement.setMaxMeanLatency(1.0);
+
+		assertThat(outcomes(check(agreement)), contains(
+				"FAILED all samples: error rate (%) 50.00 (limit 10.00)",
+				"PASSED all samples: p99 elapsed (ms) 1187.00 (limit 2000.00)",
+				"FAILED all samples: throughput (/s) 3.37 (limit 100.00)",
+				"PASSED all samples: mean latency (ms) 0.00 (limit 1.00)"));
+	}
+
+	@Test
+	public void thresholdsAreCheckedForEveryLabelMatchingThePattern() throws Exception {
+		ServiceLevelAgreement agreement = new ServiceLevelAgreement();
+		agreement.setLabelPattern("/my_webapp/root/(auth|portal)");
+		agreement.setMaxP95(100L);
+		ServiceLevelAgreement unknownLabel = new ServiceLevelAgreement();
+		unknownLabel.setLabel("unknown");
+		unknownLabel.setMaxP95(100L);
+
+		List<ServiceLevelAgreementChecker.Check> checks = check(agreement, unknownLabel);
+
+		assertThat(outcomes(checks), contains(
+				"FAILED /my_webapp/root/auth: p95 elapsed (ms) 1187.00 (limit 100.00)",
+				"PASSED /my_webapp/root/portal: p95 elapsed (ms) 16.00 (limit 100.00)"));
+		assertThat(checks.get(0).getAgreement(), is(equalTo(agreement)));
+	}
+}
@@ -0,0 +1,232 @@
+package com.lazerycode.jmeter.testrunner;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Writes deterministic synthetic JMeter results files, in CSV or XML format, for tests and benchmarks of the scanner.
+ * <p/>
+ * The same settings and seed always produce the same file. Samples are spread over a number of labels, each label
+ * has its own typical elapsed time with a long tail, and a share of the samples fails with a failure message.
+ * <p/>
+ * From the command line:
+ * <pre>
+ * java SyntheticResultsGenerator &lt;file.csv|file.jtl&gt; &lt;sizeInMB&gt; [labelCount] [errorRatio] [seed]
+ * </pre>
+ */
+public class SyntheticResultsGenerator {
+
+	static final String CSV_HEADER = "timeStamp,elapsed,label,responseCode,responseMessage,threadName,dataType,success,"
+			+ "failureMessage,bytes,sentBytes,grpThreads,allThreads,URL,Latency,IdleTime,Connect";
+	private static final long START_TIME_STAMP = 1500000000000L;
+	private static final int THREADS = 50;
+
+	private long sizeInBytes = 1024 * 1024;
+	private int labelCount = 20;
+	private double errorRatio = 0.01;
+	private long seed = 42;
+	private long sampleCount;
+	private long failureCount;
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: SyntheticResultsGenerator <file.csv|file.jtl> <sizeInMB> [labelCount] [errorRatio] [seed]");
+			System.exit(1);
+		}
+		SyntheticResultsGenerator generator = new SyntheticResultsGenerator();
+		generator.setSizeInBytes(Long.parseLong(args[1]) * 1024 * 1024);
+		if (args.length > 2) {
+			generator.setLabelCount(Integer.parseInt(args[2]));
+		}
+		if (args.length > 3) {
+			generator.setErrorRatio(Double.parseDouble(args[3]));
+		}
+		if (args.length > 4) {
+			generator.setSeed(Long.parseLong(args[4]));
+		}
+		File file = new File(args[0]);
+		if (file.getName().endsWith(".csv")) {
+			generator.writeCsv(file);
+		} else {
+			generator.writeXml(file);
+		}
+		System.out.println("Wrote " + generator.getSampleCount() + " samples, " + generator.getFailureCount()
+				+ " failed, to " + file.getAbsolutePath());
+	}
+
+	/**
+	 * Approximate size of the files to write, writing stops at the first sample that reaches this size
+	 *
+	 * @param sizeInBytes long
+	 */
+	public void setSizeInBytes(long sizeInBytes) {
+		this.sizeInBytes = sizeInBytes;
+	}
+
+	/**
+	 * Number of distinct labels
+	 *
+	 * @param labelCount int
+	 */
+	public void setLabelCount(int labelCount) {
+		this.labelCount = Math.max(1, labelCount);
+	}
+
+	/**
+	 * Share of the samples that fails, between 0 and 1
+	 *
+	 * @param errorRatio double
+	 */
+	public void setErrorRatio(double errorRatio) {
+		this.errorRatio = errorRatio;
+	}
+
+	/**
+	 * Seed of the random numbers, the same seed produces the same file
+	 *
+	 * @param seed long
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * @return Number of samples written by the last call to a write method
+	 */
+	public long getSampleCount() {
+		return sampleCount;
+	}
+
+	/**
+	 * @return Number of failed samples written by the last call to a write method
+	 */
+	public long getFailureCount() {
+		return failureCount;
+	}
+
+	/**
+	 * Write a CSV results file with a header, with the columns JMeter writes by default
+	 *
+	 * @param file File to write
+	 * @throws IOException when the file cannot be written
+	 */
+	public void writeCsv(File file) throws IOException {
+		try (Writer writer = open(file)) {
+			StringBuilder line = new StringBuilder(256).append(CSV_HEADER).append('\n');
+			long written = write(writer, line);
+			Samples samples = new Samples();
+			while (written < sizeInBytes) {
+				samples.next();
+				line.append(samples.timeStamp).append(',').append(samples.elapsed).append(',').append(samples.label)
+						.append(',').append(samples.success ? "200" : "500")
+						.append(',').append(samples.success ? "OK" : "Internal Server Error")
+						.append(",Thread Group 1-").append(samples.thread).append(",text,").append(samples.success)
+						.append(',').append(samples.success ? "" : "Test failed: code expected to match /200/")
+						.append(',').append(samples.bytes).append(',').append(samples.sentBytes)
+						.append(',').append(THREADS).append(',').append(THREADS)
+						.append(",http://localhost:8080/").append(samples.label)
+						.append(',').append(samples.latency).append(",0,").append(samples.connect).append('\n');
+				written += write(writer, line);
+			}
+		}
+	}
+
+	/**
+	 * Write an XML results file, failed samples hold an assertion result with a failure message
+	 *
+	 * @param file File to write
+	 * @throws IOException when the file cannot be written
+	 */
+	public void writeXml(File file) throws IOException {
+		try (Writer writer = open(file)) {
+			StringBuilder line = new StringBuilder(512)
+					.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<testResults version=\"1.2\">\n");
+			long written = write(writer, line);
+			Samples samples = new Samples();
+			while (written < sizeInBytes) {
+				samples.next();
+				line.append("<httpSample t=\"").append(samples.elapsed).append("\" it=\"0\" lt=\"").append(samples.latency)
+						.append("\" ct=\"").append(samples.connect).append("\" ts=\"").append(samples.timeStamp)
+						.append("\" s=\"").append(samples.success).append("\" lb=\"").append(samples.label)
+						.append("\" rc=\"").append(samples.success ? "200" : "500")
+						.append("\" rm=\"").append(samples.success ? "OK" : "Internal Server Error")
+						.append("\" tn=\"Thread Group 1-").append(samples.thread).append("\" dt=\"text\" by=\"")
+						.append(samples.bytes).append("\" sby=\"").append(samples.sentBytes).append("\" ng=\"")
+						.append(THREADS).append("\" na=\"").append(THREADS).append('"');
+				if (samples.success) {
+					line.append("/>\n");
+				} else {
+					line.append(">\n  <assertionResult>\n    <name>Response Assertion</name>\n"
+							+ "    <failure>true</failure>\n    <error>false</error>\n"
+							+ "    <failureMessage>Test failed: code expected to match /200/</failureMessage>\n"
+							+ "  </assertionResult>\n</httpSample>\n");
+				}
+				written += write(writer, line);
+			}
+			line.append("</testResults>\n");
+			write(writer, line);
+		}
+	}
+
+	private Writer open(File file) throws IOException {
+		sampleCount = 0;
+		failureCount = 0;
+		return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.US_ASCII), 64 * 1024);
+	}
+
+	private static long write(Writer writer, StringBuilder line) throws IOException {
+		int length = line.length();
+		writer.append(line);
+		line.setLength(0);
+		return length;
+	}
+
+	/**
+	 * The values of one sample after the other
+	 */
+	private final class Samples {
+		private final Random random = new Random(seed);
+		private final String[] labels = new String[labelCount];
+		private final long[] typicalElapsed = new long[labelCount];
+		private long timeStamp = START_TIME_STAMP;
+		private String label;
+		private long elapsed;
+		private long latency;
+		private long connect;
+		private long bytes;
+		private long sentBytes;
+		private int thread;
+		private boolean success;
+
+		private Samples() {
+			for (int i = 0; i < labelCount; i++) {
+				labels[i] = String.format("label-%04d", i);
+				typicalElapsed[i] = 20 + random.nextInt(500);
+			}
+		}
+
+		private void next() {
+			int labelIndex = random.nextInt(labelCount);
+			label = labels[labelIndex];
+			timeStamp += random.nextInt(20);
+			double tail = -Math.log(1 - random.nextDouble());
+			elapsed = Math.round(typicalElapsed[labelIndex] * (0.5 + tail));
+			latency = elapsed * (50 + random.nextInt(50)) / 100;
+			connect = random.nextInt(5);
+			bytes = 500 + random.nextInt(20000);
+			sentBytes = 100 + random.nextInt(400);
+			thread = 1 + random.nextInt(THREADS);
+			success = random.nextDouble() >= errorRatio;
+			sampleCount++;
+			if (!success) {
+				failureCount++;
+			}
+		}
+	}
+}
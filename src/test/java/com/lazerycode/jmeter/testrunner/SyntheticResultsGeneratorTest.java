@@ -0,0 +1,64 @@
+package com.lazerycode.jmeter.testrunner;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class SyntheticResultsGeneratorTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static SyntheticResultsGenerator generator() {
+		SyntheticResultsGenerator generator = new SyntheticResultsGenerator();
+		generator.setSizeInBytes(256 * 1024);
+		generator.setLabelCount(7);
+		generator.setErrorRatio(0.1);
+		return generator;
+	}
+
+	@Test
+	public void csvFileHoldsTheGeneratedSamples() throws Exception {
+		SyntheticResultsGenerator generator = generator();
+		File results = folder.newFile("results.csv");
+		generator.writeCsv(results);
+		ResultStatistics statistics = new ResultScanner(true, true, true).scan(results);
+
+		assertThat(statistics.getSuccessCount() + statistics.getFailureCount(), is(equalTo(generator.getSampleCount())));
+		assertThat(statistics.getFailureCount(), is(equalTo(generator.getFailureCount())));
+		assertThat(statistics.getLabels().size(), is(equalTo(7)));
+		assertThat(results.length(), is(greaterThan(256L * 1024)));
+		assertThat(results.length(), is(lessThan(257L * 1024)));
+	}
+
+	@Test
+	public void xmlFileHoldsTheGeneratedSamples() throws Exception {
+		SyntheticResultsGenerator generator = generator();
+		File results = folder.newFile("results.jtl");
+		generator.writeXml(results);
+		ResultStatistics statistics = new ResultScanner(true, true, false).scan(results);
+
+		assertThat(statistics.getSuccessCount() + statistics.getFailureCount(), is(equalTo(generator.getSampleCount())));
+		assertThat(statistics.getFailureCount(), is(equalTo(generator.getFailureCount())));
+		assertThat(statistics.getLabels().size(), is(equalTo(7)));
+	}
+
+	@Test
+	public void sameSeedWritesTheSameFile() throws Exception {
+		File first = folder.newFile("first.csv");
+		File second = folder.newFile("second.csv");
+		generator().writeCsv(first);
+		generator().writeCsv(second);
+
+		assertThat(FileUtils.contentEquals(first, second), is(true));
+	}
+}
@@ -0,0 +1,99 @@
+package com.lazerycode.jmeter.testrunner;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class TimelineTest {
+
+	private static final long START = 1540000000000L;
+
+	private static List<String> describe(SortedMap<Long, Timeline.Interval> intervals) {
+		List<String> described = new ArrayList<>();
+		for (Map.Entry<Long, Timeline.Interval> interval : intervals.entrySet()) {
+			described.add(interval.getKey() + ":" + interval.getValue().getSampleCount() + "/"
+					+ interval.getValue().getErrorCount() + "/" + interval.getValue().getValueAtPercentile(50) + "/"
+					+ interval.getValue().getMaxElapsed());
+		}
+		return described;
+	}
+
+	@Test
+	public void samplesAreCountedInTheIntervalOfTheirTimeStamp() {
+		Timeline timeline = new Timeline(1000, 100);
+		timeline.record(START + 2500, 40, true);
+		timeline.record(START + 100, 10, true);
+		timeline.record(START + 999, 30, false);
+		timeline.record(START + 2000, 20, true);
+
+		assertThat(describe(timeline.getIntervals()), contains(
+				START + ":2/1/10/30",
+				(START + 1000) + ":0/0/0/0",
+				(START + 2000) + ":2/0/20/40"));
+	}
+
+	@Test
+	public void intervalsAreWidenedToStayWithinTheMaximum() {
+		Timeline timeline = new Timeline(1000, 10);
+		for (int second = 0; second < 100; second++) {
+			timeline.record(START + second * 1000L, second, true);
+		}
+
+		long sampleCount = 0;
+		for (Timeline.Interval interval : timeline.getIntervals().values()) {
+			sampleCount += interval.getSampleCount();
+		}
+		assertThat(timeline.getInterval(), is(equalTo(16000L)));
+		assertThat(timeline.getIntervals().size(), is(lessThanOrEqualTo(10)));
+		assertThat(sampleCount, is(equalTo(100L)));
+		assertThat(timeline.getIntervals().lastKey() + timeline.getInterval() > START + 99000, is(true));
+	}
+
+	@Test
+	public void mergedTimelinesEqualOneTimelineOfAllSamples() {
+		Timeline all = new Timeline(500, 1000);
+		Timeline first = new Timeline(500, 1000);
+		Timeline second = new Timeline(500, 4);
+		for (int i = 0; i < 40; i++) {
+			long timeStamp = START + i * 250L;
+			all.record(timeStamp, i, i % 3 != 0);
+			(i % 2 == 0 ? first : second).record(timeStamp, i, i % 3 != 0);
+		}
+
+		first.merge(second);
+
+		assertThat(first.getInterval(), is(equalTo(second.getInterval())));
+		assertThat(describe(first.getIntervals()), is(equalTo(describe(all.getIntervals(first.getInterval())))));
+	}
+
+	@Test
+	public void writtenTimelineIsReadBack() throws Exception {
+		Timeline timeline = new Timeline(1000, 100);
+		for (long elapsed : Arrays.asList(5L, 150L, 3000L, -1L)) {
+			timeline.record(START + elapsed * 3, elapsed, elapsed < 1000);
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			timeline.writeTo(out);
+		}
+
+		Timeline restored = Timeline.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+		assertThat(restored.getInterval(), is(equalTo(timeline.getInterval())));
+		assertThat(describe(restored.getIntervals()), is(equalTo(describe(timeline.getIntervals()))));
+	}
+}
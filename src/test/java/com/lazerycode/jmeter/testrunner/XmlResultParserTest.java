@@ -0,0 +1,67 @@
+package com.lazerycode.jmeter.testrunner;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class XmlResultParserTest {
+
+	private final List<String> labels = new ArrayList<>();
+	private final List<Integer> depths = new ArrayList<>();
+	private final List<String> failureMessages = new ArrayList<>();
+	private final List<Long> elapsedTimes = new ArrayList<>();
+
+	private XmlResultParser newParser() {
+		return new XmlResultParser(
+				EnumSet.of(ResultField.LABEL, ResultField.ELAPSED, ResultField.FAILURE_MESSAGE),
+				sample -> {
+					labels.add(sample.getLabel().toString());
+					depths.add(sample.getDepth());
+					failureMessages.add(sample.getFailureMessage().toString());
+					elapsedTimes.add(sample.getElapsed());
+				});
+	}
+
+	@Test
+	public void subResultsArePassedOnBeforeTheSampleTheyBelongTo() throws Exception {
+		XmlResultParser parser = newParser();
+		try (InputStream input = new MappedFileInputStream(new File(this.getClass().getResource("/jtl-xml-nested.jtl").toURI()))) {
+			parser.parse(input);
+		}
+
+		assertThat(labels, contains("/login", "/home", "Login transaction", "/logout"));
+		assertThat(depths, contains(1, 1, 0, 0));
+		assertThat(failureMessages, contains("", "Test failed: code expected to equal /200/", "", ""));
+		assertThat(elapsedTimes, contains(120L, 130L, 250L, 16L));
+		assertThat(parser.getSamples(), is(equalTo(2L)));
+		assertThat(parser.getSubResults(), is(equalTo(2L)));
+	}
+
+	@Test
+	public void fieldsThatAreNotRequestedAreNotRead() throws Exception {
+		String content = "<testResults><sample t=\"5\" lb=\"a &amp; b\" s=\"true\" rc=\"200\"/></testResults>";
+		List<ResultSample> seen = new ArrayList<>();
+		XmlResultParser parser = new XmlResultParser(EnumSet.of(ResultField.LABEL), sample -> {
+			assertThat(sample.has(ResultField.LABEL), is(equalTo(true)));
+			assertThat(sample.has(ResultField.SUCCESS), is(equalTo(false)));
+			assertThat(sample.getElapsed(), is(equalTo(ResultSample.NOT_SET)));
+			labels.add(sample.getLabel().toString());
+			seen.add(sample);
+		});
+		parser.parse(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+
+		assertThat(seen.size(), is(equalTo(1)));
+		assertThat(labels, contains("a & b"));
+	}
+}
@@ -0,0 +1,47 @@
+package org.apache.jmeter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jmeter.engine.StandardJMeterEngine;
+
+/**
+ * Stands in for JMeter's NewDriver in the tests of the JMeter daemon: writes its arguments to the file following -l
+ * from a non-daemon thread, or fails when there is none. With --until-stopped it runs until its engine is stopped and
+ * then writes "stopped".
+ */
+public class NewDriver {
+
+	public static void main(String[] args) {
+		int resultsFile = Arrays.asList(args).indexOf("-l") + 1;
+		if (resultsFile == 0) {
+			throw new IllegalArgumentException("No results file");
+		}
+		boolean untilStopped = Arrays.asList(args).contains("--until-stopped");
+		CountDownLatch running = StandardJMeterEngine.start();
+		Thread test = new Thread(() -> {
+			try {
+				String results = String.join(" ", args);
+				if (untilStopped) {
+					System.out.println("Running until stopped");
+					if (!running.await(30, TimeUnit.SECONDS)) {
+						throw new IllegalStateException("Not stopped");
+					}
+					results = "stopped";
+				} else {
+					TimeUnit.MILLISECONDS.sleep(200);
+				}
+				Files.write(new File(args[resultsFile]).toPath(), results.getBytes(StandardCharsets.UTF_8));
+				System.out.println("... end of run");
+			} catch (InterruptedException | IOException ex) {
+				throw new IllegalStateException(ex);
+			}
+		}, "Thread Group 1-1");
+		test.start();
+	}
+}
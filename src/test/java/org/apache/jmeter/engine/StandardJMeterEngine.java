@@ -0,0 +1,20 @@
+package org.apache.jmeter.engine;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Stands in for JMeter's engine in the tests of the JMeter daemon: the test started last runs until it is stopped.
+ */
+public class StandardJMeterEngine {
+
+	private static volatile CountDownLatch running = new CountDownLatch(0);
+
+	public static CountDownLatch start() {
+		running = new CountDownLatch(1);
+		return running;
+	}
+
+	public static void stopEngine() {
+		running.countDown();
+	}
+}